@@ -0,0 +1,8 @@
+-- Bill edit history stored as compressed JSON Patch diffs with periodic full checkpoints.
+-- Existing rows keep their plain JSON in snapshot_data (snapshot_format NULL) and act as checkpoints.
+
+ALTER TABLE billing_edit_history MODIFY snapshot_data TEXT NULL;
+ALTER TABLE billing_edit_history ADD COLUMN snapshot_format VARCHAR(10) NULL;
+ALTER TABLE billing_edit_history ADD COLUMN snapshot_blob MEDIUMBLOB NULL;
+ALTER TABLE billing_edit_history ADD COLUMN edit_seq INT NULL;
+ALTER TABLE billing_edit_history ADD COLUMN full_size INT NULL;
@@ -0,0 +1,3 @@
+-- Add edit_version column: bumped on every bill edit, used as the cache key version for rendered bill PDFs
+-- Run once. If column already exists, skip.
+ALTER TABLE billing ADD COLUMN edit_version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,13 @@
+-- Mail queue: unique in-flight dedup key, so two concurrent enqueues of the same email cannot both insert.
+-- active_dedup_key mirrors dedup_key while PENDING/SENDING and is cleared once the item is SENT or FAILED.
+-- Existing in-flight duplicates keep the key only on their newest row.
+
+ALTER TABLE mail_queue ADD COLUMN active_dedup_key VARCHAR(255) NULL;
+
+UPDATE mail_queue m
+JOIN (SELECT MAX(id) AS id FROM mail_queue
+      WHERE status IN ('PENDING', 'SENDING') AND dedup_key IS NOT NULL
+      GROUP BY dedup_key) latest ON latest.id = m.id
+SET m.active_dedup_key = m.dedup_key;
+
+ALTER TABLE mail_queue ADD UNIQUE KEY uk_mail_queue_active_dedup (active_dedup_key);
@@ -0,0 +1,9 @@
+-- Offline POS sync: bills uploaded from tills carry the till's UUID, which makes re-uploads idempotent.
+ALTER TABLE billing ADD COLUMN client_id VARCHAR(36) NULL;
+CREATE UNIQUE INDEX uk_billing_client_id ON billing (client_id);
+
+-- Bill number counter (replaces COUNT(*)+1 numbering); seeded from the highest existing bill number on first use.
+CREATE TABLE IF NOT EXISTS bill_number_sequence (
+    name VARCHAR(20) NOT NULL PRIMARY KEY,
+    last_value BIGINT NOT NULL
+);
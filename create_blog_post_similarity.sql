@@ -0,0 +1,13 @@
+-- Precomputed related-posts graph: top-K most similar published posts per post,
+-- scored by weighted tag/category overlap. Rebuilt by a background job and updated
+-- incrementally when a post changes; served with one indexed lookup on (post_id, rank_no).
+
+CREATE TABLE IF NOT EXISTS blog_post_similarity (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  post_id BIGINT NOT NULL,
+  related_post_id BIGINT NOT NULL,
+  rank_no INT NOT NULL,
+  score DOUBLE NOT NULL,
+  UNIQUE KEY uk_blog_post_similarity_rank (post_id, rank_no),
+  INDEX idx_blog_post_similarity_related (related_post_id)
+);
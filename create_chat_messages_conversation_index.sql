@@ -0,0 +1,4 @@
+-- Keyset pagination of chat history: each direction of a conversation is read as an
+-- index range (sender_id, receiver_id, id < / > cursor) limited to one page.
+
+CREATE INDEX idx_chat_messages_sender_receiver_id ON chat_messages (sender_id, receiver_id, id);
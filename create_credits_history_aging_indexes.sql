@@ -0,0 +1,5 @@
+-- Credit history: range scan on created_at instead of loading every credit.
+-- Receivables aging: open credits (status filter) grouped by customer, bucketed by created_at.
+
+CREATE INDEX idx_credits_created_at ON credits (created_at);
+CREATE INDEX idx_credits_status_customer ON credits (status, customer_id, created_at);
@@ -0,0 +1,11 @@
+-- Curriculum progress: client eventIds already applied by the batch endpoint, so a retried
+-- offline batch is recognised across requests. Purged after curriculum.progress.event-retention-days.
+
+CREATE TABLE IF NOT EXISTS curriculum_processed_events (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  event_id VARCHAR(64) NOT NULL,
+  processed_at DATETIME(6) NOT NULL,
+  UNIQUE KEY uk_curriculum_processed_event (user_id, event_id),
+  KEY idx_curriculum_processed_event_at (processed_at)
+);
@@ -0,0 +1,15 @@
+-- Curriculum progress: running per-user totals maintained with deltas on every progress write,
+-- so /api/curriculum/progress/stats reads one row instead of aggregating every lesson row.
+-- Rows are seeded lazily from curriculum_lesson_progress on first use.
+
+CREATE TABLE IF NOT EXISTS curriculum_user_stats (
+  user_id BIGINT NOT NULL PRIMARY KEY,
+  lessons_completed BIGINT NOT NULL DEFAULT 0,
+  total_time_spent_seconds BIGINT NOT NULL DEFAULT 0,
+  total_attempts BIGINT NOT NULL DEFAULT 0,
+  wpm_sum BIGINT NOT NULL DEFAULT 0,
+  wpm_lessons BIGINT NOT NULL DEFAULT 0,
+  accuracy_sum DOUBLE NOT NULL DEFAULT 0,
+  accuracy_lessons BIGINT NOT NULL DEFAULT 0,
+  updated_at DATETIME(6) NULL
+);
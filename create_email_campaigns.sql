@@ -0,0 +1,24 @@
+-- Bulk email campaigns: recipients are enqueued into mail_queue in keyset pages over users (cursor last_user_id).
+-- Queue rows and delivery history carry the campaign id for per-campaign progress and failures.
+
+CREATE TABLE IF NOT EXISTS email_campaigns (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  subject VARCHAR(500) NOT NULL,
+  body LONGTEXT NOT NULL,
+  template_id VARCHAR(100) NULL,
+  selected_user_ids LONGTEXT NULL,
+  status VARCHAR(20) NOT NULL,
+  last_user_id BIGINT NOT NULL DEFAULT 0,
+  recipient_estimate BIGINT NOT NULL DEFAULT 0,
+  enqueued_count BIGINT NOT NULL DEFAULT 0,
+  skipped_count BIGINT NOT NULL DEFAULT 0,
+  created_at DATETIME(6) NOT NULL,
+  enqueued_at DATETIME(6) NULL,
+  INDEX idx_email_campaigns_status (status)
+);
+
+ALTER TABLE mail_queue ADD COLUMN campaign_id BIGINT NULL;
+CREATE INDEX idx_mail_queue_campaign ON mail_queue (campaign_id, status);
+
+ALTER TABLE email_history ADD COLUMN campaign_id BIGINT NULL;
+CREATE INDEX idx_email_history_campaign ON email_history (campaign_id, status);
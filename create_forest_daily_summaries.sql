@@ -0,0 +1,17 @@
+-- Forest ranking: materialized summary per past day (participants and winner),
+-- so the ranking-dates list no longer re-sorts every day's sessions.
+
+CREATE TABLE IF NOT EXISTS forest_daily_summaries (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  session_date DATE NOT NULL,
+  total_participants BIGINT NOT NULL,
+  top_user_id BIGINT NULL,
+  top_username VARCHAR(255) NULL,
+  top_trees_planted INT NULL,
+  top_focus_minutes INT NULL,
+  computed_at DATETIME(6) NOT NULL,
+  UNIQUE KEY uk_forest_daily_summaries_date (session_date)
+);
+
+-- Day-scoped leaderboard loads
+CREATE INDEX idx_forest_sessions_session_date ON forest_sessions (session_date);
@@ -0,0 +1,28 @@
+-- Persistent outgoing mail queue drained by MailQueueService workers (retry with backoff, dedup per recipient).
+-- email_history.user_id becomes nullable: bill emails go to customers, who have no user account.
+
+CREATE TABLE IF NOT EXISTS mail_queue (
+  id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  kind VARCHAR(20) NOT NULL,
+  recipient VARCHAR(255) NOT NULL,
+  subject VARCHAR(500) NULL,
+  body LONGTEXT NULL,
+  billing_id BIGINT NULL,
+  receipt_type VARCHAR(20) NULL,
+  user_id BIGINT NULL,
+  template_id VARCHAR(100) NULL,
+  dedup_key VARCHAR(255) NULL,
+  status VARCHAR(20) NOT NULL,
+  attempts INT NOT NULL DEFAULT 0,
+  next_attempt_at DATETIME(6) NOT NULL,
+  claim_token VARCHAR(36) NULL,
+  claimed_at DATETIME(6) NULL,
+  last_error TEXT NULL,
+  created_at DATETIME(6) NOT NULL,
+  sent_at DATETIME(6) NULL,
+  INDEX idx_mail_queue_status_next (status, next_attempt_at),
+  INDEX idx_mail_queue_dedup (dedup_key),
+  INDEX idx_mail_queue_claim (claim_token)
+);
+
+ALTER TABLE email_history MODIFY user_id BIGINT NULL;
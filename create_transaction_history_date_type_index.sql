@@ -0,0 +1,4 @@
+-- Income/expense summaries: range scans on transaction_date filtered by transaction_type
+-- (GROUP BY type/category/payment method runs over this index range).
+
+CREATE INDEX idx_transaction_history_date_type ON transaction_history (transaction_date, transaction_type);
@@ -6,6 +6,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -58,4 +59,50 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Small bounded pool for the admin dashboard's parallel queries; when it is saturated
+     * the dashboard reports the affected sections as unavailable instead of queueing
+     */
+    @Bean(name = "dashboardExecutor")
+    public Executor dashboardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(32);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Renders bill PDFs for bulk ZIP exports. Each export keeps only a few renders in flight;
+     * when the pool is saturated the exporting thread renders the bill itself, which throttles it
+     */
+    @Bean(name = "pdfExportExecutor")
+    public Executor pdfExportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("pdf-export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single worker for the related-posts graph, so rebuilds and refreshes never overlap.
+     * Callers coalesce their requests, so at most a couple of tasks are ever queued
+     */
+    @Bean(name = "relatedPostsExecutor")
+    public Executor relatedPostsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(4);
+        executor.setThreadNamePrefix("related-posts-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,73 @@
+package com.example.jewell.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection pool for the streaming tax exports.
+ *
+ * The export URL adds useCursorFetch=true so Connector/J reads long result sets through a server-side cursor.
+ * That flag also turns every statement on the connection into a server-side prepared statement, so it stays on
+ * this small pool instead of spring.datasource.url. Without jewell.export.datasource.url (tests on H2) the
+ * exports use the main DataSource.
+ */
+@Configuration
+public class ExportDataSourceConfig {
+
+    /** Rows per cursor fetch */
+    public static final int EXPORT_FETCH_SIZE = 1000;
+
+    @Value("${jewell.export.datasource.url:}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${jewell.export.datasource.maximum-pool-size:4}")
+    private int maximumPoolSize;
+
+    private HikariDataSource exportPool;
+
+    /**
+     * Not a default candidate: the auto-configured DataSource and JdbcTemplate stay the ones injected everywhere else
+     */
+    @Bean(defaultCandidate = false)
+    public JdbcTemplate exportJdbcTemplate(DataSource dataSource) {
+        JdbcTemplate template = new JdbcTemplate(url.isBlank() ? dataSource : exportPool());
+        template.setFetchSize(EXPORT_FETCH_SIZE);
+        return template;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (exportPool != null) {
+            exportPool.close();
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private DataSource exportPool() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("export-pool");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maximumPoolSize);
+        // Exports are rare; do not hold idle connections for them
+        config.setMinimumIdle(0);
+        config.setReadOnly(true);
+        exportPool = new HikariDataSource(config);
+        return exportPool;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.jewell.controller;
 
+import com.example.jewell.dto.PageResponse;
 import com.example.jewell.service.AnalyticsService;
+import com.example.jewell.service.ReceivablesAgingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +20,9 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private ReceivablesAgingService receivablesAgingService;
+
     @GetMapping("/daily/{date}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getDailyAnalytics(
@@ -54,10 +59,29 @@ public class AnalyticsController {
 
     @GetMapping("/credit-history")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getCreditHistory(
+    public ResponseEntity<?> getCreditHistory(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return ResponseEntity.ok(analyticsService.getCreditHistory(startDate, endDate));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size) {
+        // Without page the full range is returned as a plain list, as before
+        if (page == null) {
+            return ResponseEntity.ok(analyticsService.getCreditHistory(startDate, endDate));
+        }
+        return ResponseEntity.ok(PageResponse.of(
+                analyticsService.getCreditHistory(startDate, endDate, page, Math.min(Math.max(size, 1), 500))));
+    }
+
+    @GetMapping("/receivables-aging")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReceivablesAging() {
+        return ResponseEntity.ok(receivablesAgingService.getAgingReport());
+    }
+
+    @GetMapping("/receivables-aging/customer/{customerId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCustomerReceivablesAging(@PathVariable Long customerId) {
+        return ResponseEntity.ok(receivablesAgingService.getCustomerAging(customerId));
     }
 
     @GetMapping("/sales-by-category")
@@ -1,16 +1,28 @@
 package com.example.jewell.controller;
 
+import com.example.jewell.dto.OfflineBill;
 import com.example.jewell.dto.PageResponse;
 import com.example.jewell.model.Billing;
-import com.example.jewell.model.BillingEditHistory;
+import com.example.jewell.service.BillPdfZipExportService;
 import com.example.jewell.service.BillingService;
+import com.example.jewell.service.IdempotencyStore;
+import com.example.jewell.service.OfflineBillSyncService;
+import com.example.jewell.service.TaxExportService;
+import com.example.jewell.utils.StreamingExport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -18,6 +30,17 @@ import java.util.List;
 public class BillingController {
     @Autowired
     private BillingService billingService;
+    @Autowired
+    private TaxExportService taxExportService;
+
+    @Autowired
+    private BillPdfZipExportService billPdfZipExportService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private OfflineBillSyncService offlineBillSyncService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -33,6 +56,37 @@ public class BillingController {
         return ResponseEntity.ok(PageResponse.of(billingPage));
     }
     
+    /**
+     * Stream all bills created in the range as CSV or NDJSON (optionally gzipped) for tax filing
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBills(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        TaxExportService.Format exportFormat = StreamingExport.parseFormat(format);
+        return StreamingExport.download("bills_" + startDate + "_" + endDate, exportFormat, gzip,
+                out -> taxExportService.exportBills(startDate, endDate, exportFormat, out));
+    }
+
+    /**
+     * Stream the PDFs of all bills created in the range as one ZIP (e.g. a quarter's GST invoices for audit)
+     */
+    @GetMapping("/export/pdf-zip")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBillPdfs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "GST") String receiptType) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        return StreamingExport.zip("bills_" + receiptType.toLowerCase() + "_" + startDate + "_" + endDate,
+                out -> billPdfZipExportService.exportZip(startDate, endDate, receiptType, out));
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<Billing>> searchBills(@RequestParam String query) {
@@ -53,10 +107,30 @@ public class BillingController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Create a bill. With an Idempotency-Key header a retried submission returns the original bill
+     * instead of creating (and deducting stock for) a second one.
+     */
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Billing> createBill(@RequestBody Billing billing) {
-        return ResponseEntity.ok(billingService.createBill(billing));
+    public ResponseEntity<?> createBill(@RequestBody Billing billing,
+                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                        Authentication authentication) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(billingService.createBill(billing));
+        }
+        String scope = "billing:create:" + (authentication != null ? authentication.getName() : "anonymous");
+        return idempotencyStore.execute(scope, idempotencyKey, billing, () -> billingService.createBill(billing));
+    }
+
+    /**
+     * Upload bills made on a till while offline, in the order they were made. Safe to retry:
+     * bills whose clientId was already synced come back as DUPLICATE.
+     */
+    @PostMapping("/offline-sync")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> syncOfflineBills(@RequestBody List<OfflineBill> bills) {
+        return ResponseEntity.ok(offlineBillSyncService.syncBatch(bills));
     }
 
     @PutMapping("/{id}")
@@ -67,10 +141,27 @@ public class BillingController {
 
     @GetMapping("/{id}/edit-history")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<BillingEditHistory>> getBillEditHistory(@PathVariable Long id) {
+    public ResponseEntity<List<Map<String, Object>>> getBillEditHistory(@PathVariable Long id) {
         return ResponseEntity.ok(billingService.getBillEditHistory(id));
     }
 
+    @GetMapping("/{id}/edit-history/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getBillEditHistoryStats(@PathVariable Long id) {
+        return ResponseEntity.ok(billingService.getBillEditHistoryStats(id));
+    }
+
+    @GetMapping("/{id}/pdf")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<byte[]> getBillPdf(@PathVariable Long id,
+                                             @RequestParam(required = false, defaultValue = "NORMAL") String receiptType) {
+        byte[] pdf = billingService.getBillPdf(id, receiptType);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"Bill-" + id + ".pdf\"")
+                .body(pdf);
+    }
+
     @PostMapping("/{id}/send-email")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> sendBillEmail(@PathVariable Long id,
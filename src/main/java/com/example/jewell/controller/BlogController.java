@@ -3,13 +3,17 @@ package com.example.jewell.controller;
 import com.example.jewell.exception.FeatureDisabledException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.jewell.dto.BlogPostSummary;
 import com.example.jewell.model.BlogPost;
 import com.example.jewell.service.BlogPostService;
+import com.example.jewell.service.BlogSearchService;
 import com.example.jewell.service.FeatureFlagService;
 
 import org.slf4j.Logger;
@@ -18,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/blog")
@@ -87,56 +92,71 @@ public class BlogController {
      * Get featured posts
      */
     @GetMapping("/featured")
-    public ResponseEntity<List<BlogPost>> getFeaturedPosts() {
-        return ResponseEntity.ok(blogService.getFeaturedPosts());
+    public ResponseEntity<List<BlogPostSummary>> getFeaturedPosts(WebRequest request) {
+        return conditionalList(request, blogService::getFeaturedPosts);
     }
 
     /**
      * Get trending posts
      */
     @GetMapping("/trending")
-    public ResponseEntity<List<BlogPost>> getTrendingPosts() {
-        return ResponseEntity.ok(blogService.getTrendingPosts());
+    public ResponseEntity<List<BlogPostSummary>> getTrendingPosts(WebRequest request) {
+        return conditionalList(request, blogService::getTrendingPosts);
     }
 
     /**
      * Get popular posts (top 10 by views)
      */
     @GetMapping("/popular")
-    public ResponseEntity<List<BlogPost>> getPopularPosts() {
-        return ResponseEntity.ok(blogService.getPopularPosts());
+    public ResponseEntity<List<BlogPostSummary>> getPopularPosts(WebRequest request) {
+        return conditionalList(request, blogService::getPopularPosts);
     }
 
     /**
      * Get recent posts
      */
     @GetMapping("/recent")
-    public ResponseEntity<List<BlogPost>> getRecentPosts() {
-        return ResponseEntity.ok(blogService.getRecentPosts());
+    public ResponseEntity<List<BlogPostSummary>> getRecentPosts(WebRequest request) {
+        return conditionalList(request, blogService::getRecentPosts);
     }
 
     /**
      * Get posts by category
      */
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<BlogPost>> getPostsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(blogService.getPostsByCategory(category));
+    public ResponseEntity<List<BlogPostSummary>> getPostsByCategory(@PathVariable String category, WebRequest request) {
+        return conditionalList(request, () -> blogService.getPostsByCategory(category));
     }
 
     /**
      * Get posts by tag
      */
     @GetMapping("/tag/{tag}")
-    public ResponseEntity<List<BlogPost>> getPostsByTag(@PathVariable String tag) {
-        return ResponseEntity.ok(blogService.getPostsByTag(tag));
+    public ResponseEntity<List<BlogPostSummary>> getPostsByTag(@PathVariable String tag, WebRequest request) {
+        return conditionalList(request, () -> blogService.getPostsByTag(tag));
     }
 
     /**
      * Get posts in a series
      */
     @GetMapping("/series/{seriesName}")
-    public ResponseEntity<List<BlogPost>> getSeriesPosts(@PathVariable String seriesName) {
-        return ResponseEntity.ok(blogService.getSeriesPosts(seriesName));
+    public ResponseEntity<List<BlogPostSummary>> getSeriesPosts(@PathVariable String seriesName, WebRequest request) {
+        return conditionalList(request, () -> blogService.getSeriesPosts(seriesName));
+    }
+
+    /**
+     * Serve a listing with a version-based ETag; answers 304 from If-None-Match without querying
+     */
+    private ResponseEntity<List<BlogPostSummary>> conditionalList(WebRequest request,
+                                                                  Supplier<List<BlogPostSummary>> loader) {
+        String etag = blogService.getListingsEtag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(loader.get());
     }
 
     /**
@@ -155,6 +175,23 @@ public class BlogController {
         return ResponseEntity.ok(blogService.searchPosts(sanitizedQuery));
     }
 
+    /**
+     * Ranked search with relevance scores and highlighted snippets
+     */
+    @GetMapping("/search/ranked")
+    public ResponseEntity<List<BlogSearchService.SearchHit>> searchPostsRanked(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (q == null || q.length() > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        String sanitizedQuery = q.replaceAll("[<>\"']", "").trim();
+        if (sanitizedQuery.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(blogService.searchPostsRanked(sanitizedQuery, limit));
+    }
+
     /**
      * Get all categories
      */
@@ -186,10 +223,10 @@ public class BlogController {
     public ResponseEntity<Map<String, Object>> getBlogStats() {
         try {
             long totalPosts = blogPostRepository.countByPublishedTrue();
-            Long totalViewsObj = blogPostRepository.sumViewCountByPublishedTrue();
             Long totalCategoriesObj = blogPostRepository.countDistinctCategoriesByPublishedTrue();
             
-            long totalViews = totalViewsObj != null ? totalViewsObj : 0L;
+            // Includes buffered views that have not been flushed yet
+            long totalViews = blogService.getTotalViews();
             long totalCategories = totalCategoriesObj != null ? totalCategoriesObj : 0;
             
             // Calculate average views per post for more meaningful metric
@@ -212,9 +249,9 @@ public class BlogController {
      * Get related posts for a given post
      */
     @GetMapping("/{id}/related")
-    public ResponseEntity<List<BlogPost>> getRelatedPosts(
+    public ResponseEntity<List<BlogPostSummary>> getRelatedPosts(
             @PathVariable Long id,
-            @RequestParam String category,
+            @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "3") int limit) {
         return ResponseEntity.ok(blogService.getRelatedPosts(id, category, limit));
     }
@@ -224,7 +261,9 @@ public class BlogController {
      */
     @PostMapping("/{id}/like")
     public ResponseEntity<Void> likePost(@PathVariable Long id) {
-        blogService.likePost(id);
+        if (!blogService.likePost(id)) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -233,7 +272,9 @@ public class BlogController {
      */
     @PostMapping("/{id}/share")
     public ResponseEntity<Void> sharePost(@PathVariable Long id) {
-        blogService.sharePost(id);
+        if (!blogService.sharePost(id)) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok().build();
     }
 
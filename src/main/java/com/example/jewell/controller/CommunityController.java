@@ -256,19 +256,19 @@ public class CommunityController {
     
     @GetMapping("/forest/leaderboard")
     public ResponseEntity<ApiResponseDTO<List<ForestSession>>> getDailyLeaderboard(
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false, defaultValue = "100") int limit) {
         try {
-            List<ForestSession> leaderboard;
+            int size = Math.max(1, Math.min(limit, 500));
+            java.time.LocalDate day = java.time.LocalDate.now();
             if (date != null && !date.trim().isEmpty()) {
                 try {
-                    java.time.LocalDate parsedDate = java.time.LocalDate.parse(date);
-                    leaderboard = forestService.getDailyLeaderboardByDate(parsedDate);
+                    day = java.time.LocalDate.parse(date);
                 } catch (Exception e) {
-                    leaderboard = forestService.getDailyLeaderboard();
+                    // Invalid date: fall back to today
                 }
-            } else {
-                leaderboard = forestService.getDailyLeaderboard();
             }
+            List<ForestSession> leaderboard = forestService.getDailyLeaderboardByDate(day, size);
             return ResponseEntity.ok(new ApiResponseDTO<>(true, "Leaderboard retrieved successfully.", leaderboard));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -276,6 +276,29 @@ public class CommunityController {
         }
     }
     
+    @GetMapping("/forest/leaderboard/me")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponseDTO<Map<String, Object>>> getMyRank(
+            @RequestParam(required = false) String date) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            UserDetailsImpl userDetails = (UserDetailsImpl) auth.getPrincipal();
+            Long userId = userDetails.getId();
+            
+            java.time.LocalDate day = date != null && !date.trim().isEmpty()
+                    ? java.time.LocalDate.parse(date)
+                    : java.time.LocalDate.now();
+            Map<String, Object> rank = forestService.getMyRank(userId, day);
+            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Rank retrieved successfully.", rank));
+        } catch (java.time.format.DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponseDTO<>(false, "Invalid date, expected yyyy-MM-dd: " + date, null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponseDTO<>(false, "Error: " + e.getMessage(), null));
+        }
+    }
+    
     @GetMapping("/forest/ranking/dates")
     public ResponseEntity<ApiResponseDTO<List<Map<String, Object>>>> getAvailableDates() {
         try {
@@ -1,15 +1,23 @@
 package com.example.jewell.controller;
 
 import com.example.jewell.dto.ApiResponseDTO;
-import com.example.jewell.model.*;
+import com.example.jewell.dto.CurriculumTree;
+import com.example.jewell.dto.CurriculumTree.LessonNode;
+import com.example.jewell.dto.CurriculumTree.ProductNode;
+import com.example.jewell.dto.CurriculumTree.ScreenNode;
+import com.example.jewell.dto.CurriculumTree.UnitNode;
 import com.example.jewell.service.CurriculumService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/curriculum")
@@ -21,99 +29,148 @@ public class CurriculumController {
     
     // Product Endpoints
     @GetMapping("/products")
-    public ResponseEntity<ApiResponseDTO<List<CurriculumProduct>>> getAllProducts() {
-        try {
-            List<CurriculumProduct> products = curriculumService.getAllActiveProducts();
-            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Products retrieved successfully", products));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving products: " + e.getMessage(), null));
-        }
+    public ResponseEntity<ApiResponseDTO<List<ProductNode>>> getAllProducts(WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                List<ProductNode> products = curriculumService.getAllActiveProducts();
+                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Products retrieved successfully", products));
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving products: " + e.getMessage(), null));
+            }
+        });
     }
     
     @GetMapping("/products/{productId}")
-    public ResponseEntity<ApiResponseDTO<CurriculumProduct>> getProductByProductId(@PathVariable String productId) {
-        try {
-            Optional<CurriculumProduct> product = curriculumService.getProductByProductId(productId);
-            if (product.isPresent()) {
-                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Product retrieved successfully", product.get()));
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new ApiResponseDTO<>(false, "Product not found", null));
+    public ResponseEntity<ApiResponseDTO<ProductNode>> getProductByProductId(@PathVariable String productId, WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                Optional<ProductNode> product = curriculumService.getProductByProductId(productId);
+                if (product.isPresent()) {
+                    return ResponseEntity.ok(new ApiResponseDTO<>(true, "Product retrieved successfully", product.get()));
+                } else {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ApiResponseDTO<>(false, "Product not found", null));
+                }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving product: " + e.getMessage(), null));
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving product: " + e.getMessage(), null));
-        }
+        });
     }
     
     // Unit Endpoints
     @GetMapping("/products/{productId}/units")
-    public ResponseEntity<ApiResponseDTO<List<CurriculumUnit>>> getUnitsByProductId(@PathVariable String productId) {
-        try {
-            List<CurriculumUnit> units = curriculumService.getUnitsByProductId(productId);
-            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Units retrieved successfully", units));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving units: " + e.getMessage(), null));
-        }
+    public ResponseEntity<ApiResponseDTO<List<UnitNode>>> getUnitsByProductId(@PathVariable String productId, WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                List<UnitNode> units = curriculumService.getUnitsByProductId(productId);
+                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Units retrieved successfully", units));
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving units: " + e.getMessage(), null));
+            }
+        });
     }
     
     @GetMapping("/products/{productId}/units/{unitId}")
-    public ResponseEntity<ApiResponseDTO<CurriculumUnit>> getUnitByUnitId(
-            @PathVariable String productId, @PathVariable Long unitId) {
-        try {
-            Optional<CurriculumUnit> unit = curriculumService.getUnitByUnitIdAndProductId(unitId, productId);
-            if (unit.isPresent()) {
-                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Unit retrieved successfully", unit.get()));
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new ApiResponseDTO<>(false, "Unit not found", null));
+    public ResponseEntity<ApiResponseDTO<UnitNode>> getUnitByUnitId(
+            @PathVariable String productId, @PathVariable Long unitId, WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                Optional<UnitNode> unit = curriculumService.getUnitByUnitIdAndProductId(unitId, productId);
+                if (unit.isPresent()) {
+                    return ResponseEntity.ok(new ApiResponseDTO<>(true, "Unit retrieved successfully", unit.get()));
+                } else {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ApiResponseDTO<>(false, "Unit not found", null));
+                }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving unit: " + e.getMessage(), null));
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving unit: " + e.getMessage(), null));
-        }
+        });
     }
     
     // Lesson Endpoints
     @GetMapping("/units/{unitId}/lessons")
-    public ResponseEntity<ApiResponseDTO<List<CurriculumLesson>>> getLessonsByUnitId(@PathVariable Long unitId) {
-        try {
-            List<CurriculumLesson> lessons = curriculumService.getLessonsByUnitId(unitId);
-            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Lessons retrieved successfully", lessons));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving lessons: " + e.getMessage(), null));
-        }
+    public ResponseEntity<ApiResponseDTO<List<LessonNode>>> getLessonsByUnitId(@PathVariable Long unitId, WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                List<LessonNode> lessons = curriculumService.getLessonsByUnitId(unitId);
+                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Lessons retrieved successfully", lessons));
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving lessons: " + e.getMessage(), null));
+            }
+        });
     }
     
     @GetMapping("/units/{unitId}/lessons/{lessonId}")
-    public ResponseEntity<ApiResponseDTO<CurriculumLesson>> getLessonByLessonId(
-            @PathVariable Long unitId, @PathVariable Long lessonId) {
-        try {
-            Optional<CurriculumLesson> lesson = curriculumService.getLessonByLessonIdAndUnitId(lessonId, unitId);
-            if (lesson.isPresent()) {
-                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Lesson retrieved successfully", lesson.get()));
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new ApiResponseDTO<>(false, "Lesson not found", null));
+    public ResponseEntity<ApiResponseDTO<LessonNode>> getLessonByLessonId(
+            @PathVariable Long unitId, @PathVariable Long lessonId, WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                Optional<LessonNode> lesson = curriculumService.getLessonByLessonIdAndUnitId(lessonId, unitId);
+                if (lesson.isPresent()) {
+                    return ResponseEntity.ok(new ApiResponseDTO<>(true, "Lesson retrieved successfully", lesson.get()));
+                } else {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ApiResponseDTO<>(false, "Lesson not found", null));
+                }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving lesson: " + e.getMessage(), null));
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving lesson: " + e.getMessage(), null));
-        }
+        });
     }
     
     // Screen Endpoints
     @GetMapping("/lessons/{lessonId}/screens")
-    public ResponseEntity<ApiResponseDTO<List<CurriculumScreen>>> getScreensByLessonId(@PathVariable Long lessonId) {
+    public ResponseEntity<ApiResponseDTO<List<ScreenNode>>> getScreensByLessonId(@PathVariable Long lessonId, WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                List<ScreenNode> screens = curriculumService.getScreensByLessonId(lessonId);
+                return ResponseEntity.ok(new ApiResponseDTO<>(true, "Screens retrieved successfully", screens));
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ApiResponseDTO<>(false, "Error retrieving screens: " + e.getMessage(), null));
+            }
+        });
+    }
+
+    /**
+     * Force a rebuild of the curriculum snapshot (e.g. right after a content import)
+     */
+    @PostMapping("/refresh")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<ApiResponseDTO<Long>> refreshSnapshot() {
         try {
-            List<CurriculumScreen> screens = curriculumService.getScreensByLessonId(lessonId);
-            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Screens retrieved successfully", screens));
+            CurriculumTree tree = curriculumService.rebuild();
+            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Curriculum snapshot rebuilt", tree.getVersion()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ApiResponseDTO<>(false, "Error retrieving screens: " + e.getMessage(), null));
+                    .body(new ApiResponseDTO<>(false, "Error rebuilding curriculum: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Serve a response with the snapshot's ETag; answers 304 from If-None-Match without building the body.
+     * Snapshots only move forward, so a body read after the ETag is never older than the ETag claims.
+     */
+    private <T> ResponseEntity<ApiResponseDTO<T>> conditional(WebRequest request,
+                                                             Supplier<ResponseEntity<ApiResponseDTO<T>>> handler) {
+        String etag = curriculumService.getSnapshot().getEtag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity<ApiResponseDTO<T>> response = handler.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
         }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response.getBody());
     }
 }
@@ -1,6 +1,7 @@
 package com.example.jewell.controller;
 
 import com.example.jewell.dto.ApiResponseDTO;
+import com.example.jewell.dto.CurriculumProgressEvent;
 import com.example.jewell.model.CurriculumLessonProgress;
 import com.example.jewell.service.CurriculumProgressService;
 import com.example.jewell.utils.ServiceUtils;
@@ -48,6 +49,22 @@ public class CurriculumProgressController {
         }
     }
     
+    /**
+     * Apply many queued attempts at once (body: JSON array of progress events)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponseDTO<Map<String, Object>>> updateProgressBatch(
+            @RequestBody List<CurriculumProgressEvent> events, Authentication authentication) {
+        try {
+            Long userId = ServiceUtils.getUserIdFromAuthentication(authentication);
+            Map<String, Object> result = progressService.applyProgressBatch(userId, events);
+            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Progress batch applied successfully", result));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponseDTO<>(false, "Error applying progress batch: " + e.getMessage(), null));
+        }
+    }
+    
     @GetMapping("/lesson/{lessonId}")
     public ResponseEntity<ApiResponseDTO<CurriculumLessonProgress>> getProgress(
             @PathVariable Long lessonId, Authentication authentication) {
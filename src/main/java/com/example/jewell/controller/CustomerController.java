@@ -45,6 +45,17 @@ public class CustomerController {
         return ResponseEntity.ok(customerLedgerService.getCustomerLedger(id));
     }
 
+    @GetMapping("/{id}/ledger/entries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCustomerLedgerEntries(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "true") boolean newestFirst) {
+        return ResponseEntity.ok(customerLedgerService.getLedgerEntries(
+                id, Math.max(page, 0), Math.min(Math.max(size, 1), 500), newestFirst));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<Customer>> searchCustomers(@RequestParam String name) {
         return ResponseEntity.ok(customerService.searchCustomersByName(name));
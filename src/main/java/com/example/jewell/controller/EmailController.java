@@ -1,9 +1,14 @@
 package com.example.jewell.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.example.jewell.service.EmailService;
+import com.example.jewell.service.MailQueueService;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/email")
@@ -12,6 +17,9 @@ public class EmailController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private MailQueueService mailQueueService;
+
     @PostMapping("/send")
     public String sendMail(@RequestParam String to, 
                            @RequestParam String subject, 
@@ -19,4 +27,10 @@ public class EmailController {
         emailService.sendEmail(to, subject, body);
         return "Email sent to " + to;
     }
+
+    @GetMapping("/queue/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> getQueueStats() {
+        return ResponseEntity.ok(mailQueueService.getQueueStats());
+    }
 }
\ No newline at end of file
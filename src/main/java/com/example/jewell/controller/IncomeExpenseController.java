@@ -2,11 +2,14 @@ package com.example.jewell.controller;
 
 import com.example.jewell.model.TransactionHistory;
 import com.example.jewell.service.IncomeExpenseService;
+import com.example.jewell.service.TaxExportService;
+import com.example.jewell.utils.StreamingExport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -19,6 +22,8 @@ import java.util.Map;
 public class IncomeExpenseController {
     @Autowired
     private IncomeExpenseService incomeExpenseService;
+    @Autowired
+    private TaxExportService taxExportService;
 
     @PostMapping("/income")
     @PreAuthorize("hasRole('ADMIN')")
@@ -95,6 +100,21 @@ public class IncomeExpenseController {
         return ResponseEntity.ok(incomeExpenseService.getTransactionsByType(type, startDate, endDate));
     }
 
+    /**
+     * Stream all transactions in the range as CSV or NDJSON (optionally gzipped) for tax filing
+     */
+    @GetMapping("/transactions/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        TaxExportService.Format exportFormat = StreamingExport.parseFormat(format);
+        return StreamingExport.download("transactions_" + startDate + "_" + endDate, exportFormat, gzip,
+                out -> taxExportService.exportTransactions(startDate, endDate, exportFormat, out));
+    }
+
     @DeleteMapping("/transactions/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteTransaction(@PathVariable Long id) {
@@ -240,14 +240,20 @@ public class SocialController {
     }
 
     /**
-     * Get conversation with a friend
+     * Get conversation with a friend (latest window by default).
+     * before: older page ending below this message id; since/after: messages newer than the last seen id.
      */
     @GetMapping("/chat/{friendId}")
     public ResponseEntity<List<Map<String, Object>>> getConversation(
             @PathVariable Long friendId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         Long userId = getUserIdFromAuth(authentication);
-        return ResponseEntity.ok(chatService.getConversation(userId, friendId));
+        Long afterId = since != null ? since : after;
+        return ResponseEntity.ok(chatService.getConversation(userId, friendId, before, afterId, limit));
     }
 
     /**
@@ -10,9 +10,10 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.example.jewell.dto.ApiResponseDTO;
 import com.example.jewell.dto.UserDTO;
+import com.example.jewell.model.EmailCampaign;
 import com.example.jewell.model.User;
 import com.example.jewell.service.UserService;
-import com.example.jewell.service.EmailService;
+import com.example.jewell.service.EmailCampaignService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +33,7 @@ public class UserController {
     private UserService userService;
 
     @Autowired
-    private EmailService emailService;
+    private EmailCampaignService emailCampaignService;
 
     @SuppressWarnings("rawtypes")
     @PostMapping("/{userId}/profile-image")
@@ -226,7 +227,8 @@ public class UserController {
     }
 
     /**
-     * Send bulk email to selected users (admin only)
+     * Start a bulk email campaign to selected users, or all users when none are selected (admin only).
+     * Returns the campaign id at once; progress is at GET /admin/bulk-email/{campaignId}.
      */
     @PostMapping("/admin/bulk-email")
     @PreAuthorize("hasRole('ADMIN')")
@@ -239,8 +241,8 @@ public class UserController {
             @SuppressWarnings("unchecked")
             List<Object> selectedUserIdsRaw = (List<Object>) request.get("selectedUserIds");
             
-            // Convert to List<Long> handling both Integer and Long types
-            final List<Long> selectedUserIds;
+            // Convert to a Set<Long> handling both Integer and Long types
+            final Set<Long> selectedUserIds;
             if (selectedUserIdsRaw != null && !selectedUserIdsRaw.isEmpty()) {
                 selectedUserIds = selectedUserIdsRaw.stream()
                         .map(id -> {
@@ -250,7 +252,7 @@ public class UserController {
                             return null;
                         })
                         .filter(id -> id != null)
-                        .collect(java.util.stream.Collectors.toList());
+                        .collect(Collectors.toCollection(java.util.HashSet::new));
             } else {
                 selectedUserIds = null;
             }
@@ -265,68 +267,17 @@ public class UserController {
                         .body(new ApiResponseDTO<>(false, "Body is required", null));
             }
             
-            // Get users - if selectedUserIds is provided and not empty, filter by those IDs; otherwise send to all
-            List<User> allUsers = userService.getAllUsers();
-            List<User> targetUsers;
-            
-            // Check if selectedUserIds is provided and not empty
-            // If it's null or empty, send to all users
-            if (selectedUserIds != null && !selectedUserIds.isEmpty()) {
-                // Filter to only selected users using parallel stream
-                targetUsers = allUsers.parallelStream()
-                        .filter(user -> selectedUserIds.contains(user.getId()))
-                        .collect(java.util.stream.Collectors.toList());
-            } else {
-                // If no selection provided or empty array, send to all users (backward compatibility)
-                targetUsers = allUsers;
-            }
-            
-            if (targetUsers.isEmpty()) {
-                Map<String, Object> result = new java.util.HashMap<>();
-                result.put("totalUsers", allUsers.size());
-                result.put("selectedUsers", 0);
-                result.put("emailsSent", 0);
-                result.put("emailsFailed", 0);
-                return ResponseEntity.ok(new ApiResponseDTO<>(
-                    true, 
-                    "No users found to send email to.", 
-                    result
-                ));
-            }
-            
-            // Use parallel stream for email extraction
-            List<String> emailAddresses = targetUsers.parallelStream()
-                    .map(User::getEmail)
-                    .filter(email -> email != null && !email.trim().isEmpty())
-                    .collect(java.util.stream.Collectors.toList());
-            
-            // Create email to user map for tracking using parallel stream
-            java.util.Map<String, User> emailToUserMap = targetUsers.parallelStream()
-                    .filter(user -> user.getEmail() != null && !user.getEmail().trim().isEmpty())
-                    .collect(java.util.stream.Collectors.toConcurrentMap(
-                            User::getEmail,
-                            user -> user,
-                            (existing, replacement) -> existing // Keep first if duplicate emails
-                    ));
-            
-            // Send bulk email with tracking if templateId is provided
-            int successCount;
-            if (templateId != null && !templateId.trim().isEmpty()) {
-                successCount = emailService.sendBulkEmail(emailToUserMap, templateId, emailAddresses, subject, body);
-            } else {
-                // Fallback to old method if no templateId
-                successCount = emailService.sendBulkEmail(emailAddresses, subject, body);
-            }
-            
+            // Recipients are paged through and enqueued by the campaign engine; only the campaign is created here
+            EmailCampaign campaign = emailCampaignService.startCampaign(subject, body, templateId, selectedUserIds);
+
             Map<String, Object> result = new java.util.HashMap<>();
-            result.put("totalUsers", allUsers.size());
-            result.put("selectedUsers", targetUsers.size());
-            result.put("emailsSent", successCount);
-            result.put("emailsFailed", emailAddresses.size() - successCount);
-            
-            return ResponseEntity.ok(new ApiResponseDTO<>(
+            result.put("campaignId", campaign.getId());
+            result.put("selectedUsers", campaign.getRecipientEstimate());
+            result.put("status", campaign.getStatus());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ApiResponseDTO<>(
                 true, 
-                "Bulk email sent successfully.", 
+                "Bulk email campaign started.", 
                 result
             ));
         } catch (Exception e) {
@@ -335,4 +286,23 @@ public class UserController {
                     .body(new ApiResponseDTO<>(false, "Error: " + e.getMessage(), null));
         }
     }
+
+    /**
+     * Progress of a bulk email campaign (admin only)
+     */
+    @GetMapping("/admin/bulk-email/{campaignId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponseDTO<Map<String, Object>>> getBulkEmailProgress(@PathVariable Long campaignId) {
+        try {
+            return ResponseEntity.ok(new ApiResponseDTO<>(true, "Campaign progress returned successfully.",
+                    emailCampaignService.getProgress(campaignId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponseDTO<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            log.error("Error loading bulk email campaign {}", campaignId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponseDTO<>(false, "Error: " + e.getMessage(), null));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.jewell.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Card-sized view of a blog post for list endpoints (featured, trending, category, ...).
+ * Selected with a JPQL constructor expression so the content body is never loaded.
+ */
+@Data
+@NoArgsConstructor
+public class BlogPostSummary {
+    private Long id;
+    private String title;
+    private String slug;
+    private String excerpt;
+    private String category;
+    private List<String> tags;
+
+    // Author info (public only)
+    private String authorName;
+    private String authorImage;
+
+    // Media
+    private String featuredImage;
+    private String featuredImageAlt;
+    private String thumbnailImage;
+
+    // Stats
+    private Long viewCount;
+    private Long likeCount;
+    private Long shareCount;
+    private Integer readTimeMinutes;
+
+    // Flags
+    private Boolean featured;
+    private Boolean trending;
+
+    // Series
+    private String seriesName;
+    private Integer seriesOrder;
+
+    // Timestamps
+    private LocalDateTime createdAt;
+    private LocalDateTime publishedAt;
+
+    /**
+     * Constructor used by BlogPostRepository summary queries (tags are filled in afterwards)
+     */
+    public BlogPostSummary(Long id, String title, String slug, String excerpt, String category,
+                           String authorName, String authorImage,
+                           String featuredImage, String featuredImageAlt, String thumbnailImage,
+                           Long viewCount, Long likeCount, Long shareCount, Integer readTimeMinutes,
+                           Boolean featured, Boolean trending, String seriesName, Integer seriesOrder,
+                           LocalDateTime createdAt, LocalDateTime publishedAt) {
+        this.id = id;
+        this.title = title;
+        this.slug = slug;
+        this.excerpt = excerpt;
+        this.category = category;
+        this.authorName = authorName;
+        this.authorImage = authorImage;
+        this.featuredImage = featuredImage;
+        this.featuredImageAlt = featuredImageAlt;
+        this.thumbnailImage = thumbnailImage;
+        this.viewCount = viewCount;
+        this.likeCount = likeCount;
+        this.shareCount = shareCount;
+        this.readTimeMinutes = readTimeMinutes;
+        this.featured = featured;
+        this.trending = trending;
+        this.seriesName = seriesName;
+        this.seriesOrder = seriesOrder;
+        this.createdAt = createdAt;
+        this.publishedAt = publishedAt;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.jewell.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Spring Data projection of a published blog post for sitemap generation.
+ * Only the columns the sitemap needs - never loads the post body.
+ */
+public interface BlogSitemapEntry {
+    String getSlug();
+    String getCanonicalUrl();
+    LocalDateTime getUpdatedAt();
+    LocalDateTime getPublishedAt();
+}
@@ -0,0 +1,23 @@
+package com.example.jewell.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One lesson attempt as queued by the client, for bulk progress ingestion.
+ * eventId is the client's id for the attempt (max 64 chars); an id is applied once, also across retried batches.
+ */
+@Data
+@NoArgsConstructor
+public class CurriculumProgressEvent {
+    private String eventId;
+    private Long lessonId;
+    private Integer timeSpentSeconds;
+    private Integer wpm;
+    private Double accuracy;
+    private Integer progressPercentage;
+    private Boolean completed;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,293 @@
+package com.example.jewell.dto;
+
+import com.example.jewell.model.CurriculumLesson;
+import com.example.jewell.model.CurriculumProduct;
+import com.example.jewell.model.CurriculumScreen;
+import com.example.jewell.model.CurriculumUnit;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned snapshot of the active curriculum: products -> units -> lessons -> screens,
+ * each level already filtered to active rows and sorted by display order.
+ * Node JSON field names match the entities so API responses keep their shape.
+ */
+public final class CurriculumTree {
+
+    private final long version;
+    private final String etag;
+    private final List<ProductNode> products;
+    private final Map<String, ProductNode> productsById;
+    private final Map<Long, UnitNode> unitsById;
+    private final Map<Long, LessonNode> lessonsById;
+
+    public CurriculumTree(long version, String etag, List<ProductNode> products) {
+        this.version = version;
+        this.etag = etag;
+        this.products = Collections.unmodifiableList(products);
+        Map<String, ProductNode> productIndex = new LinkedHashMap<>();
+        Map<Long, UnitNode> unitIndex = new LinkedHashMap<>();
+        Map<Long, LessonNode> lessonIndex = new LinkedHashMap<>();
+        for (ProductNode product : products) {
+            productIndex.put(product.getProductId(), product);
+            for (UnitNode unit : product.getUnits()) {
+                unitIndex.put(unit.getId(), unit);
+                for (LessonNode lesson : unit.getLessons()) {
+                    lessonIndex.put(lesson.getId(), lesson);
+                }
+            }
+        }
+        this.productsById = Collections.unmodifiableMap(productIndex);
+        this.unitsById = Collections.unmodifiableMap(unitIndex);
+        this.lessonsById = Collections.unmodifiableMap(lessonIndex);
+    }
+
+    public long getVersion() { return version; }
+    public String getEtag() { return etag; }
+    public List<ProductNode> getProducts() { return products; }
+
+    public ProductNode getProduct(String productId) {
+        return productsById.get(productId);
+    }
+
+    /**
+     * Unit by its row id
+     */
+    public UnitNode getUnit(Long id) {
+        return unitsById.get(id);
+    }
+
+    /**
+     * Lesson by its row id
+     */
+    public LessonNode getLesson(Long id) {
+        return lessonsById.get(id);
+    }
+
+    private static <T> Map<String, T> copyOf(Map<String, T> map) {
+        return map != null ? Collections.unmodifiableMap(new LinkedHashMap<>(map)) : null;
+    }
+
+    public static final class ProductNode {
+        private final Long id;
+        private final String productId;
+        private final String productName;
+        private final String description;
+        private final Boolean isActive;
+        private final Integer displayOrder;
+        private final List<UnitNode> units;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+
+        public ProductNode(CurriculumProduct p, List<UnitNode> units) {
+            this.id = p.getId();
+            this.productId = p.getProductId();
+            this.productName = p.getProductName();
+            this.description = p.getDescription();
+            this.isActive = p.getIsActive();
+            this.displayOrder = p.getDisplayOrder();
+            this.units = Collections.unmodifiableList(units);
+            this.createdAt = p.getCreatedAt();
+            this.updatedAt = p.getUpdatedAt();
+        }
+
+        public Long getId() { return id; }
+        public String getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public String getDescription() { return description; }
+        public Boolean getIsActive() { return isActive; }
+        public Integer getDisplayOrder() { return displayOrder; }
+        public List<UnitNode> getUnits() { return units; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+        /**
+         * Unit by its source unit id within this product
+         */
+        public UnitNode findUnit(Long unitId) {
+            for (UnitNode unit : units) {
+                if (unit.getUnitId() != null && unit.getUnitId().equals(unitId)) return unit;
+            }
+            return null;
+        }
+    }
+
+    public static final class UnitNode {
+        private final Long id;
+        private final Long unitId;
+        private final String unitName;
+        private final String description;
+        private final String subtext;
+        private final String header;
+        private final String grade;
+        private final String standards;
+        private final Boolean premiumOnly;
+        private final String badge;
+        private final String unitType;
+        private final Long sourceId;
+        private final Integer displayOrder;
+        private final Boolean isActive;
+        private final List<LessonNode> lessons;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+
+        public UnitNode(CurriculumUnit u, List<LessonNode> lessons) {
+            this.id = u.getId();
+            this.unitId = u.getUnitId();
+            this.unitName = u.getUnitName();
+            this.description = u.getDescription();
+            this.subtext = u.getSubtext();
+            this.header = u.getHeader();
+            this.grade = u.getGrade();
+            this.standards = u.getStandards();
+            this.premiumOnly = u.getPremiumOnly();
+            this.badge = u.getBadge();
+            this.unitType = u.getUnitType();
+            this.sourceId = u.getSourceId();
+            this.displayOrder = u.getDisplayOrder();
+            this.isActive = u.getIsActive();
+            this.lessons = Collections.unmodifiableList(lessons);
+            this.createdAt = u.getCreatedAt();
+            this.updatedAt = u.getUpdatedAt();
+        }
+
+        public Long getId() { return id; }
+        public Long getUnitId() { return unitId; }
+        public String getUnitName() { return unitName; }
+        public String getDescription() { return description; }
+        public String getSubtext() { return subtext; }
+        public String getHeader() { return header; }
+        public String getGrade() { return grade; }
+        public String getStandards() { return standards; }
+        public Boolean getPremiumOnly() { return premiumOnly; }
+        public String getBadge() { return badge; }
+        public String getUnitType() { return unitType; }
+        public Long getSourceId() { return sourceId; }
+        public Integer getDisplayOrder() { return displayOrder; }
+        public Boolean getIsActive() { return isActive; }
+        public List<LessonNode> getLessons() { return lessons; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+        /**
+         * Lesson by its source lesson id within this unit
+         */
+        public LessonNode findLesson(Long lessonId) {
+            for (LessonNode lesson : lessons) {
+                if (lesson.getLessonId() != null && lesson.getLessonId().equals(lessonId)) return lesson;
+            }
+            return null;
+        }
+    }
+
+    public static final class LessonNode {
+        private final Long id;
+        private final Long lessonId;
+        private final Long answerKeyId;
+        private final String contentType;
+        private final String lessonType;
+        private final Integer minAccuracy;
+        private final String badge;
+        private final Integer lessonIndex;
+        private final Integer totalWords;
+        private final Integer timeLimit;
+        private final String lessonName;
+        private final Integer displayIndex;
+        private final Integer displayOrder;
+        private final Integer screens;
+        private final Map<String, Object> settings;
+        private final Boolean defaultLesson;
+        private final String keyboard;
+        private final Boolean isActive;
+        private final List<ScreenNode> curriculumScreens;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+
+        public LessonNode(CurriculumLesson l, List<ScreenNode> screens) {
+            this.id = l.getId();
+            this.lessonId = l.getLessonId();
+            this.answerKeyId = l.getAnswerKeyId();
+            this.contentType = l.getContentType();
+            this.lessonType = l.getLessonType();
+            this.minAccuracy = l.getMinAccuracy();
+            this.badge = l.getBadge();
+            this.lessonIndex = l.getLessonIndex();
+            this.totalWords = l.getTotalWords();
+            this.timeLimit = l.getTimeLimit();
+            this.lessonName = l.getLessonName();
+            this.displayIndex = l.getDisplayIndex();
+            this.displayOrder = l.getDisplayOrder();
+            this.screens = l.getScreens();
+            this.settings = copyOf(l.getSettings());
+            this.defaultLesson = l.getDefaultLesson();
+            this.keyboard = l.getKeyboard();
+            this.isActive = l.getIsActive();
+            this.curriculumScreens = Collections.unmodifiableList(screens);
+            this.createdAt = l.getCreatedAt();
+            this.updatedAt = l.getUpdatedAt();
+        }
+
+        public Long getId() { return id; }
+        public Long getLessonId() { return lessonId; }
+        public Long getAnswerKeyId() { return answerKeyId; }
+        public String getContentType() { return contentType; }
+        public String getLessonType() { return lessonType; }
+        public Integer getMinAccuracy() { return minAccuracy; }
+        public String getBadge() { return badge; }
+        public Integer getLessonIndex() { return lessonIndex; }
+        public Integer getTotalWords() { return totalWords; }
+        public Integer getTimeLimit() { return timeLimit; }
+        public String getLessonName() { return lessonName; }
+        public Integer getDisplayIndex() { return displayIndex; }
+        public Integer getDisplayOrder() { return displayOrder; }
+        public Integer getScreens() { return screens; }
+        public Map<String, Object> getSettings() { return settings; }
+        public Boolean getDefaultLesson() { return defaultLesson; }
+        public String getKeyboard() { return keyboard; }
+        public Boolean getIsActive() { return isActive; }
+        public List<ScreenNode> getCurriculumScreens() { return curriculumScreens; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+    }
+
+    public static final class ScreenNode {
+        private final Long id;
+        private final Long screenId;
+        private final String screenName;
+        private final String contentType;
+        private final Integer screenIndex;
+        private final Map<String, Object> settings;
+        private final String content;
+        private final Boolean isActive;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+
+        public ScreenNode(CurriculumScreen s) {
+            this.id = s.getId();
+            this.screenId = s.getScreenId();
+            this.screenName = s.getScreenName();
+            this.contentType = s.getContentType();
+            this.screenIndex = s.getScreenIndex();
+            this.settings = copyOf(s.getSettings());
+            this.content = s.getContent();
+            this.isActive = s.getIsActive();
+            this.createdAt = s.getCreatedAt();
+            this.updatedAt = s.getUpdatedAt();
+        }
+
+        public Long getId() { return id; }
+        public Long getScreenId() { return screenId; }
+        public String getScreenName() { return screenName; }
+        public String getContentType() { return contentType; }
+        public Integer getScreenIndex() { return screenIndex; }
+        public Map<String, Object> getSettings() { return settings; }
+        public String getContent() { return content; }
+        public Boolean getIsActive() { return isActive; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+    }
+}
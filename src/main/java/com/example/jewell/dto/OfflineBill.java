@@ -0,0 +1,48 @@
+package com.example.jewell.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bill made on a till while offline, as uploaded by the offline sync batch.
+ * clientId is the UUID the till gave the bill; createdAt is when it was made on the till.
+ */
+@Data
+@NoArgsConstructor
+public class OfflineBill {
+    private String clientId;
+    private LocalDateTime createdAt;
+    private Long customerId;
+    private List<Item> items = new ArrayList<>();
+    private BigDecimal totalDiamondAmount;
+    private BigDecimal discountAmount;
+    private BigDecimal makingCharges;
+    private BigDecimal paidAmount;
+    private String paymentMethod;
+    private String paymentBreakdown;
+    private String notes;
+    /** Promo codes, vouchers and point redemption need an online check; bills using them are reported as conflicts */
+    private String promoCode;
+    private String voucherCode;
+    private Integer redeemPoints;
+
+    @Data
+    @NoArgsConstructor
+    public static class Item {
+        private Long stockId;
+        private String itemName;
+        private Integer quantity = 1;
+        private BigDecimal unitPrice;
+        private BigDecimal totalPrice;
+        private BigDecimal weightGrams;
+        private BigDecimal carat;
+        private BigDecimal diamondCarat;
+        private BigDecimal diamondAmount;
+        private Boolean hallmark;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.jewell.exception;
+
+/**
+ * An Idempotency-Key was reused with a different request, or its first request is still running
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
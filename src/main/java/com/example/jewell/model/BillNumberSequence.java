@@ -0,0 +1,22 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last bill number handed out per prefix. Numbers are taken in blocks by BillNumberAllocator.
+ */
+@Entity
+@Table(name = "bill_number_sequence")
+@Data
+@NoArgsConstructor
+public class BillNumberSequence {
+
+    @Id
+    @Column(name = "name", length = 20)
+    private String name;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+}
@@ -78,6 +78,15 @@ public class Billing {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /** Incremented on every edit; identifies the rendered PDF version */
+    @Column(name = "edit_version")
+    private Integer editVersion = 0;
+
+    /** Id the till gave a bill created offline; a re-uploaded bill with the same id is not created again */
+    @Column(name = "client_id", length = 36, unique = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String clientId;
+
     /** Not persisted. When set, discount is applied from PromoCode at create. */
     @Transient
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -251,6 +260,22 @@ public class Billing {
         this.createdAt = createdAt;
     }
 
+    public Integer getEditVersion() {
+        return editVersion;
+    }
+
+    public void setEditVersion(Integer editVersion) {
+        this.editVersion = editVersion;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
     public String getPromoCode() {
         return promoCode;
     }
@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 
 /**
  * Stores a snapshot of a bill before each edit. Enables viewing the history of changes.
+ * Snapshots are stored compressed: a FULL checkpoint, then PATCH rows holding a JSON Patch against
+ * the previous snapshot. Rows written before compression have format null and plain JSON in snapshotData.
  */
 @Entity
 @Table(name = "billing_edit_history", indexes = {
@@ -15,6 +17,9 @@ import java.time.LocalDateTime;
     @Index(name = "idx_billing_edit_history_created", columnList = "created_at")
 })
 public class BillingEditHistory {
+
+    public enum SnapshotFormat { FULL, PATCH }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,10 +29,28 @@ public class BillingEditHistory {
     @JsonIgnore
     private Billing billing;
 
-    /** JSON snapshot of the bill (amounts, items, payment, etc.) as it was before the edit. */
-    @Column(name = "snapshot_data", columnDefinition = "TEXT", nullable = false)
+    /** JSON snapshot of the bill (amounts, items, payment, etc.) as it was before the edit; legacy rows only. */
+    @Column(name = "snapshot_data", columnDefinition = "TEXT")
     private String snapshotData;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "snapshot_format", length = 10)
+    private SnapshotFormat snapshotFormat;
+
+    /** Deflate-compressed snapshot JSON (FULL) or JSON Patch (PATCH) */
+    @Lob
+    @Column(name = "snapshot_blob", columnDefinition = "MEDIUMBLOB")
+    @JsonIgnore
+    private byte[] snapshotBlob;
+
+    /** Position in the bill's edit history, starting at 1 */
+    @Column(name = "edit_seq")
+    private Integer editSeq;
+
+    /** Length of the uncompressed full snapshot JSON, for storage reporting */
+    @Column(name = "full_size")
+    private Integer fullSize;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -59,6 +82,38 @@ public class BillingEditHistory {
         this.snapshotData = snapshotData;
     }
 
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    public byte[] getSnapshotBlob() {
+        return snapshotBlob;
+    }
+
+    public void setSnapshotBlob(byte[] snapshotBlob) {
+        this.snapshotBlob = snapshotBlob;
+    }
+
+    public Integer getEditSeq() {
+        return editSeq;
+    }
+
+    public void setEditSeq(Integer editSeq) {
+        this.editSeq = editSeq;
+    }
+
+    public Integer getFullSize() {
+        return fullSize;
+    }
+
+    public void setFullSize(Integer fullSize) {
+        this.fullSize = fullSize;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
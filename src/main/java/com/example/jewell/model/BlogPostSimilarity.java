@@ -0,0 +1,80 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One edge of the precomputed related-posts graph: postId -> relatedPostId at a given rank.
+ * Rows are plain ids (no entity relations) to keep the adjacency table compact.
+ */
+@Entity
+@Table(name = "blog_post_similarity",
+    uniqueConstraints = @UniqueConstraint(name = "uk_blog_post_similarity_rank", columnNames = {"post_id", "rank_no"}),
+    indexes = @Index(name = "idx_blog_post_similarity_related", columnList = "related_post_id"))
+public class BlogPostSimilarity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Column(name = "related_post_id", nullable = false)
+    private Long relatedPostId;
+
+    @Column(name = "rank_no", nullable = false)
+    private Integer rankNo;
+
+    @Column(name = "score", nullable = false)
+    private Double score;
+
+    public BlogPostSimilarity() {
+    }
+
+    public BlogPostSimilarity(Long postId, Long relatedPostId, Integer rankNo, Double score) {
+        this.postId = postId;
+        this.relatedPostId = relatedPostId;
+        this.rankNo = rankNo;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public void setPostId(Long postId) {
+        this.postId = postId;
+    }
+
+    public Long getRelatedPostId() {
+        return relatedPostId;
+    }
+
+    public void setRelatedPostId(Long relatedPostId) {
+        this.relatedPostId = relatedPostId;
+    }
+
+    public Integer getRankNo() {
+        return rankNo;
+    }
+
+    public void setRankNo(Integer rankNo) {
+        this.rankNo = rankNo;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+}
@@ -5,7 +5,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_sender_receiver_id", columnList = "sender_id, receiver_id, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
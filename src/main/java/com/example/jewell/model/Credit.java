@@ -11,7 +11,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "credits")
+@Table(name = "credits", indexes = {
+        @Index(name = "idx_credits_created_at", columnList = "created_at"),
+        @Index(name = "idx_credits_status_customer", columnList = "status, customer_id, created_at")
+})
 public class Credit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,34 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Client eventId of a progress attempt that has been applied, so a retried offline batch is not
+ * applied twice. Rows are purged after the retention window.
+ */
+@Entity
+@Table(name = "curriculum_processed_events",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "event_id"}, name = "uk_curriculum_processed_event"),
+       indexes = @Index(name = "idx_curriculum_processed_event_at", columnList = "processed_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurriculumProcessedEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "event_id", nullable = false, length = 64)
+    private String eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
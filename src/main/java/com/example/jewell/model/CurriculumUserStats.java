@@ -0,0 +1,49 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running per-user totals over curriculum_lesson_progress, kept up to date with deltas on every
+ * progress write so the stats endpoint reads one row. Averages are stored as sum + count.
+ */
+@Entity
+@Table(name = "curriculum_user_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurriculumUserStats {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "lessons_completed", nullable = false)
+    private Long lessonsCompleted = 0L;
+
+    @Column(name = "total_time_spent_seconds", nullable = false)
+    private Long totalTimeSpentSeconds = 0L;
+
+    @Column(name = "total_attempts", nullable = false)
+    private Long totalAttempts = 0L;
+
+    // Sum and count of per-lesson avg_wpm over lessons with avg_wpm > 0
+    @Column(name = "wpm_sum", nullable = false)
+    private Long wpmSum = 0L;
+
+    @Column(name = "wpm_lessons", nullable = false)
+    private Long wpmLessons = 0L;
+
+    // Sum and count of per-lesson avg_accuracy over lessons with avg_accuracy > 0
+    @Column(name = "accuracy_sum", nullable = false)
+    private Double accuracySum = 0.0;
+
+    @Column(name = "accuracy_lessons", nullable = false)
+    private Long accuracyLessons = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,65 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A bulk email to all users or a selection of them. Recipients are enqueued into the mail queue a
+ * page at a time; {@code lastUserId} is the keyset cursor over users, so a restart resumes where it stopped.
+ */
+@Entity
+@Table(name = "email_campaigns", indexes = {
+    @Index(name = "idx_email_campaigns_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+public class EmailCampaign {
+
+    /** RUNNING while recipients are still being enqueued, ENQUEUED once every recipient is in the mail queue */
+    public enum Status { RUNNING, ENQUEUED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "subject", length = 500, nullable = false)
+    private String subject;
+
+    @Column(name = "body", columnDefinition = "LONGTEXT", nullable = false)
+    private String body;
+
+    @Column(name = "template_id", length = 100)
+    private String templateId;
+
+    /** Comma-separated user ids, ascending; null sends to every user */
+    @Column(name = "selected_user_ids", columnDefinition = "LONGTEXT")
+    private String selectedUserIds;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId = 0L;
+
+    @Column(name = "recipient_estimate", nullable = false)
+    private Long recipientEstimate = 0L;
+
+    @Column(name = "enqueued_count", nullable = false)
+    private Long enqueuedCount = 0L;
+
+    /** Users scanned that had no email address */
+    @Column(name = "skipped_count", nullable = false)
+    private Long skippedCount = 0L;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "enqueued_at")
+    private LocalDateTime enqueuedAt;
+}
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 @Table(name = "email_history", indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_template_id", columnList = "template_id"),
-    @Index(name = "idx_sent_at", columnList = "sent_at")
+    @Index(name = "idx_sent_at", columnList = "sent_at"),
+    @Index(name = "idx_email_history_campaign", columnList = "campaign_id, status")
 })
 @Data
 @NoArgsConstructor
@@ -25,8 +26,8 @@ public class EmailHistory {
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
-    private User user;
+    @JoinColumn(name = "user_id")
+    private User user; // null for emails to customers without an account (e.g. bills)
 
     @Column(name = "template_id", length = 100)
     private String templateId; // e.g., "welcome", "govtCourses", "custom", etc.
@@ -47,6 +48,9 @@ public class EmailHistory {
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
 
+    @Column(name = "campaign_id")
+    private Long campaignId; // bulk email campaign this delivery belongs to, if any
+
     // Constructor for successful sends
     public EmailHistory(User user, String templateId, String subject, String emailAddress) {
         this.user = user;
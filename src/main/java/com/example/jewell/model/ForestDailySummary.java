@@ -0,0 +1,44 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized per-day Forest ranking summary (participants and the day's winner) for past dates
+ */
+@Entity
+@Table(name = "forest_daily_summaries",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"session_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ForestDailySummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_date", nullable = false)
+    private LocalDate sessionDate;
+
+    @Column(name = "total_participants", nullable = false)
+    private Long totalParticipants;
+
+    @Column(name = "top_user_id")
+    private Long topUserId;
+
+    @Column(name = "top_username")
+    private String topUsername;
+
+    @Column(name = "top_trees_planted")
+    private Integer topTreesPlanted;
+
+    @Column(name = "top_focus_minutes")
+    private Integer topFocusMinutes;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "forest_sessions",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "session_date"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "session_date"}),
+       indexes = @Index(name = "idx_forest_sessions_session_date", columnList = "session_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,94 @@
+package com.example.jewell.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One outgoing email in the persistent mail queue. Bill emails store only the bill reference;
+ * the HTML body and PDF are rendered by the worker at send time.
+ */
+@Entity
+@Table(name = "mail_queue", indexes = {
+    @Index(name = "idx_mail_queue_status_next", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_mail_queue_dedup", columnList = "dedup_key"),
+    @Index(name = "idx_mail_queue_claim", columnList = "claim_token"),
+    @Index(name = "idx_mail_queue_campaign", columnList = "campaign_id, status")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_mail_queue_active_dedup", columnNames = "active_dedup_key"))
+@Data
+@NoArgsConstructor
+public class MailQueueItem {
+
+    public enum Kind { BILL, HTML }
+
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", length = 20, nullable = false)
+    private Kind kind;
+
+    @Column(name = "recipient", length = 255, nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", length = 500)
+    private String subject;
+
+    @Column(name = "body", columnDefinition = "LONGTEXT")
+    private String body;
+
+    @Column(name = "billing_id")
+    private Long billingId;
+
+    @Column(name = "receipt_type", length = 20)
+    private String receiptType;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "template_id", length = 100)
+    private String templateId;
+
+    @Column(name = "campaign_id")
+    private Long campaignId;
+
+    /** Same key while pending (or recently sent) means the same email to the same recipient */
+    @Column(name = "dedup_key", length = 255)
+    private String dedupKey;
+
+    /** dedup_key while PENDING or SENDING, NULL once final; unique, so one key is never in flight twice */
+    @Column(name = "active_dedup_key", length = 255)
+    private String activeDedupKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
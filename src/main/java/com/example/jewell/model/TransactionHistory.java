@@ -11,7 +11,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transaction_history")
+@Table(name = "transaction_history", indexes = {
+    @Index(name = "idx_transaction_history_date_type", columnList = "transaction_date, transaction_type")
+})
 public class TransactionHistory {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,11 +2,23 @@ package com.example.jewell.repository;
 
 import com.example.jewell.model.BillingEditHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface BillingEditHistoryRepository extends JpaRepository<BillingEditHistory, Long> {
-    List<BillingEditHistory> findByBillingIdOrderByCreatedAtDesc(Long billingId);
+
+    List<BillingEditHistory> findByBillingIdOrderByIdAsc(Long billingId);
+
+    /**
+     * The bill's latest full snapshot (checkpoint or legacy plain-JSON row) and every patch after it, oldest first
+     */
+    @Query("SELECT h FROM BillingEditHistory h WHERE h.billing.id = :billingId AND h.id >= " +
+            "(SELECT MAX(c.id) FROM BillingEditHistory c WHERE c.billing.id = :billingId " +
+            "AND (c.snapshotFormat IS NULL OR c.snapshotFormat <> :patch)) ORDER BY h.id")
+    List<BillingEditHistory> findFromLatestCheckpoint(@Param("billingId") Long billingId,
+                                                      @Param("patch") BillingEditHistory.SnapshotFormat patch);
 }
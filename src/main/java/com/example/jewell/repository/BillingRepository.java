@@ -3,7 +3,9 @@ package com.example.jewell.repository;
 import com.example.jewell.model.Billing;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,7 +18,23 @@ import java.util.Optional;
 @Repository
 public interface BillingRepository extends JpaRepository<Billing, Long> {
     Optional<Billing> findByBillNumber(String billNumber);
+
+    /**
+     * The bill locked for the rest of the transaction, so edits of one bill (and their history rows) apply one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Billing b WHERE b.id = :id")
+    Optional<Billing> findByIdForUpdate(@Param("id") Long id);
     List<Billing> findByCustomerId(Long customerId);
+
+    List<Billing> findByCustomerIdOrderByCreatedAtDesc(Long customerId);
+
+    /**
+     * (bill count, total billed, total paid, last bill time) for a customer
+     */
+    @Query("SELECT COUNT(b), COALESCE(SUM(b.finalAmount), 0), COALESCE(SUM(b.paidAmount), 0), MAX(b.createdAt) " +
+            "FROM Billing b WHERE b.customer.id = :customerId")
+    List<Object[]> summarizeByCustomerId(@Param("customerId") Long customerId);
     long countByCustomerId(Long customerId);
     List<Billing> findByCreatedAtBetween(java.time.LocalDateTime start, java.time.LocalDateTime end);
     
@@ -45,4 +63,16 @@ public interface BillingRepository extends JpaRepository<Billing, Long> {
 
     @Query("SELECT COALESCE(SUM(b.finalAmount), 0) FROM Billing b WHERE b.paymentStatus = 'PAID'")
     BigDecimal getTotalPaidRevenue();
+
+    /**
+     * Ids of bills created in [from, to), oldest first
+     */
+    @Query("SELECT b.id FROM Billing b WHERE b.createdAt >= :from AND b.createdAt < :to ORDER BY b.createdAt ASC, b.id ASC")
+    List<Long> findIdsByCreatedAtRange(@Param("from") java.time.LocalDateTime from, @Param("to") java.time.LocalDateTime to);
+
+    /**
+     * Rows of [id, clientId, billNumber] for bills uploaded from offline tills
+     */
+    @Query("SELECT b.id, b.clientId, b.billNumber FROM Billing b WHERE b.clientId IN :clientIds")
+    List<Object[]> findIdAndNumberByClientIdIn(@Param("clientIds") java.util.Collection<String> clientIds);
 }
@@ -3,22 +3,62 @@ package com.example.jewell.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.jewell.dto.BlogPostSummary;
+import com.example.jewell.dto.BlogSitemapEntry;
 import com.example.jewell.model.BlogPost;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
     
+    // Summary projection for list endpoints - everything a post card needs, no content body
+    String SUMMARY_SELECT = "SELECT new com.example.jewell.dto.BlogPostSummary(" +
+            "b.id, b.title, b.slug, b.excerpt, b.category, b.authorName, b.authorImage, " +
+            "b.featuredImage, b.featuredImageAlt, b.thumbnailImage, " +
+            "b.viewCount, b.likeCount, b.shareCount, b.readTimeMinutes, " +
+            "b.featured, b.trending, b.seriesName, b.seriesOrder, b.createdAt, b.publishedAt) ";
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.featured = true AND b.published = true ORDER BY b.publishedAt DESC")
+    List<BlogPostSummary> findFeaturedSummaries();
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.trending = true AND b.published = true ORDER BY b.viewCount DESC")
+    List<BlogPostSummary> findTrendingSummaries();
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.published = true ORDER BY b.viewCount DESC")
+    List<BlogPostSummary> findPopularSummaries(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.published = true ORDER BY b.createdAt DESC")
+    List<BlogPostSummary> findRecentSummaries(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.category = :category AND b.published = true ORDER BY b.createdAt DESC")
+    List<BlogPostSummary> findSummariesByCategory(@Param("category") String category);
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b JOIN b.tags t WHERE t = :tag AND b.published = true ORDER BY b.createdAt DESC")
+    List<BlogPostSummary> findSummariesByTag(@Param("tag") String tag);
+    
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.seriesName = :seriesName AND b.published = true ORDER BY b.seriesOrder ASC")
+    List<BlogPostSummary> findSeriesSummaries(@Param("seriesName") String seriesName);
+    
+    // Similarity features of every published post (rows of [postId, category, tag]; tag may be null)
+    @Query("SELECT b.id, b.category, t FROM BlogPost b LEFT JOIN b.tags t WHERE b.published = true")
+    List<Object[]> findPublishedFeatures();
+    
+    // Tags for a set of posts in one query (rows of [postId, tag])
+    @Query("SELECT b.id, t FROM BlogPost b JOIN b.tags t WHERE b.id IN :ids")
+    List<Object[]> findTagsByPostIds(@Param("ids") Collection<Long> ids);
+    
     // Find by slug (primary lookup)
     Optional<BlogPost> findBySlugAndPublishedTrue(String slug);
     Optional<BlogPost> findBySlug(String slug);
+
+    boolean existsByIdAndPublishedTrue(Long id);
     
     // Category and tag filters
     List<BlogPost> findByCategoryAndPublishedTrueOrderByCreatedAtDesc(String category);
@@ -40,13 +80,14 @@ public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
     // Recent posts
     List<BlogPost> findTop5ByPublishedTrueOrderByCreatedAtDesc();
     
-    // Search functionality
-    @Query("SELECT b FROM BlogPost b WHERE b.published = true AND " +
-           "(LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(b.content) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(b.excerpt) LIKE LOWER(CONCAT('%', :query, '%'))) " +
-           "ORDER BY b.createdAt DESC")
-    List<BlogPost> searchPosts(@Param("query") String query);
+    // All posts, drafts included, with tags fetched in one query (search index build)
+    @Query("SELECT DISTINCT b FROM BlogPost b LEFT JOIN FETCH b.tags")
+    List<BlogPost> findAllWithTags();
+    
+    // Sitemap: slug/timestamp projection only (no content body)
+    @Query("SELECT b.slug AS slug, b.canonicalUrl AS canonicalUrl, b.updatedAt AS updatedAt, b.publishedAt AS publishedAt " +
+           "FROM BlogPost b WHERE b.published = true ORDER BY b.createdAt DESC")
+    List<BlogSitemapEntry> findSitemapEntries();
     
     // Series posts
     List<BlogPost> findBySeriesNameAndPublishedTrueOrderBySeriesOrderAsc(String seriesName);
@@ -59,37 +100,14 @@ public interface BlogPostRepository extends JpaRepository<BlogPost, Long> {
     @Query("SELECT DISTINCT t FROM BlogPost b JOIN b.tags t WHERE b.published = true")
     List<String> findAllTags();
     
-    // Increment view count
-    @Modifying
-    @Query("UPDATE BlogPost b SET b.viewCount = b.viewCount + 1 WHERE b.id = :id")
-    void incrementViewCount(@Param("id") Long id);
-    
-    // Increment like count
-    @Modifying
-    @Query("UPDATE BlogPost b SET b.likeCount = b.likeCount + 1 WHERE b.id = :id")
-    void incrementLikeCount(@Param("id") Long id);
-    
-    // Increment share count
-    @Modifying
-    @Query("UPDATE BlogPost b SET b.shareCount = b.shareCount + 1 WHERE b.id = :id")
-    void incrementShareCount(@Param("id") Long id);
-    
-    // Related posts by category (exclude current post)
-    @Query("SELECT b FROM BlogPost b WHERE b.category = :category AND b.id != :excludeId AND b.published = true ORDER BY b.createdAt DESC")
-    List<BlogPost> findRelatedByCategory(@Param("category") String category, @Param("excludeId") Long excludeId, Pageable pageable);
+    // Related posts by category as summaries (fallback until the related-posts graph covers a post)
+    @Query(SUMMARY_SELECT + "FROM BlogPost b WHERE b.category = :category AND b.id != :excludeId AND b.published = true ORDER BY b.createdAt DESC")
+    List<BlogPostSummary> findRelatedSummariesByCategory(@Param("category") String category, @Param("excludeId") Long excludeId, Pageable pageable);
     
     // Admin: all posts including drafts
     List<BlogPost> findAllByOrderByCreatedAtDesc();
     Page<BlogPost> findAllByOrderByCreatedAtDesc(Pageable pageable);
     
-    // Admin: paginated search (includes drafts)
-    @Query("SELECT b FROM BlogPost b WHERE " +
-           "(LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(b.content) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(b.excerpt) LIKE LOWER(CONCAT('%', :query, '%'))) " +
-           "ORDER BY b.createdAt DESC")
-    Page<BlogPost> searchPostsPaginated(@Param("query") String query, Pageable pageable);
-    
     // Count by category
     @Query("SELECT b.category, COUNT(b) FROM BlogPost b WHERE b.published = true GROUP BY b.category")
     List<Object[]> countByCategory();
@@ -0,0 +1,35 @@
+package com.example.jewell.repository;
+
+import com.example.jewell.dto.BlogPostSummary;
+import com.example.jewell.model.BlogPostSimilarity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BlogPostSimilarityRepository extends JpaRepository<BlogPostSimilarity, Long> {
+
+    // Related posts for one post: single lookup on (post_id, rank_no), joined to the card columns
+    @Query(BlogPostRepository.SUMMARY_SELECT +
+           "FROM BlogPostSimilarity s JOIN BlogPost b ON b.id = s.relatedPostId " +
+           "WHERE s.postId = :postId AND b.published = true ORDER BY s.rankNo ASC")
+    List<BlogPostSummary> findRelatedSummaries(@Param("postId") Long postId, Pageable pageable);
+
+    // Posts whose current top-K contains any of the given posts
+    @Query("SELECT DISTINCT s.postId FROM BlogPostSimilarity s WHERE s.relatedPostId IN :relatedPostIds")
+    List<Long> findPostIdsRelatedToAny(@Param("relatedPostIds") Collection<Long> relatedPostIds);
+
+    @Modifying
+    @Query("DELETE FROM BlogPostSimilarity s WHERE s.postId IN :postIds")
+    void deleteByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query("DELETE FROM BlogPostSimilarity s")
+    void deleteAllEdges();
+}
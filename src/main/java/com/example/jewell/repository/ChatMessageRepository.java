@@ -2,6 +2,7 @@ package com.example.jewell.repository;
 
 import com.example.jewell.model.ChatMessage;
 import com.example.jewell.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -19,12 +20,26 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
            "ORDER BY m.createdAt ASC")
     List<ChatMessage> findConversation(User user1, User user2);
     
+    // Keyset page of one direction of a conversation, newest first (ids below the cursor)
+    @Query("SELECT m FROM ChatMessage m WHERE m.sender.id = :senderId AND m.receiver.id = :receiverId " +
+           "AND m.id < :beforeId ORDER BY m.id DESC")
+    List<ChatMessage> findDirectionBefore(Long senderId, Long receiverId, Long beforeId, Pageable pageable);
+    
+    // Keyset page of one direction of a conversation, oldest first (ids above the cursor)
+    @Query("SELECT m FROM ChatMessage m WHERE m.sender.id = :senderId AND m.receiver.id = :receiverId " +
+           "AND m.id > :afterId ORDER BY m.id ASC")
+    List<ChatMessage> findDirectionAfter(Long senderId, Long receiverId, Long afterId, Pageable pageable);
+    
     // Get unread messages count for a user
     long countByReceiverAndIsReadFalse(User receiver);
     
     // Get unread messages from a specific user
     long countByReceiverAndSenderAndIsReadFalse(User receiver, User sender);
     
+    // Unread counts for a receiver grouped by sender (rows of [senderId, count])
+    @Query("SELECT m.sender.id, COUNT(m) FROM ChatMessage m WHERE m.receiver.id = :receiverId AND m.isRead = false GROUP BY m.sender.id")
+    List<Object[]> countUnreadGroupedBySender(Long receiverId);
+    
     // Mark messages as read
     @Modifying
     @Query("UPDATE ChatMessage m SET m.isRead = true WHERE m.receiver = :receiver AND m.sender = :sender AND m.isRead = false")
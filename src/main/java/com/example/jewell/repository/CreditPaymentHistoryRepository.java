@@ -2,11 +2,27 @@ package com.example.jewell.repository;
 
 import com.example.jewell.model.CreditPaymentHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CreditPaymentHistoryRepository extends JpaRepository<CreditPaymentHistory, Long> {
     List<CreditPaymentHistory> findByCreditIdOrderByPaymentDateDesc(Long creditId);
+
+    /**
+     * Payments for several credits in one query, newest first
+     */
+    List<CreditPaymentHistory> findByCreditIdInOrderByPaymentDateDesc(Collection<Long> creditIds);
+
+    /**
+     * Ledger rows for every payment on a customer's credits, oldest first:
+     * (id, creditId, paymentDate, paymentAmount, notes)
+     */
+    @Query("SELECT p.id, c.id, p.paymentDate, p.paymentAmount, p.notes FROM CreditPaymentHistory p JOIN p.credit c " +
+            "WHERE c.customer.id = :customerId ORDER BY p.paymentDate, p.id")
+    List<Object[]> findLedgerRowsByCustomerId(@Param("customerId") Long customerId);
 }
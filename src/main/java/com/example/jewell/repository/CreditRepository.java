@@ -10,6 +10,8 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,4 +34,57 @@ public interface CreditRepository extends JpaRepository<Credit, Long> {
     
     @Query("SELECT SUM(c.remainingAmount) FROM Credit c WHERE c.status IN ('PENDING', 'PARTIAL')")
     BigDecimal getTotalOutstandingCredit();
+
+    /**
+     * Credit history rows in [from, to) without loading Credit/Customer entities
+     * (id, customer name, credit, paid, remaining, status, description, createdAt); newest first
+     */
+    @Query(value = "SELECT c.id, cu.name, c.creditAmount, c.paidAmount, c.remainingAmount, c.status, c.description, c.createdAt " +
+            "FROM Credit c JOIN c.customer cu WHERE c.createdAt >= :from AND c.createdAt < :to ORDER BY c.createdAt DESC, c.id DESC",
+            countQuery = "SELECT COUNT(c) FROM Credit c WHERE c.createdAt >= :from AND c.createdAt < :to")
+    Page<Object[]> findHistoryRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("SELECT c.id, cu.name, c.creditAmount, c.paidAmount, c.remainingAmount, c.status, c.description, c.createdAt " +
+            "FROM Credit c JOIN c.customer cu WHERE c.createdAt >= :from AND c.createdAt < :to ORDER BY c.createdAt DESC, c.id DESC")
+    List<Object[]> findHistoryRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Open balance per customer split into age buckets by credit creation time:
+     * (customerId, name, phone, current, 31-60, 61-90, 90+, total, open credit count, oldest createdAt).
+     * A credit created at or after :d30 is 0-30 days old, at or after :d60 is 31-60, and so on.
+     */
+    @Query("SELECT cu.id, cu.name, cu.phone, " +
+            "SUM(CASE WHEN c.createdAt >= :d30 THEN c.remainingAmount ELSE 0 END), " +
+            "SUM(CASE WHEN c.createdAt < :d30 AND c.createdAt >= :d60 THEN c.remainingAmount ELSE 0 END), " +
+            "SUM(CASE WHEN c.createdAt < :d60 AND c.createdAt >= :d90 THEN c.remainingAmount ELSE 0 END), " +
+            "SUM(CASE WHEN c.createdAt < :d90 THEN c.remainingAmount ELSE 0 END), " +
+            "SUM(c.remainingAmount), COUNT(c), MIN(c.createdAt) " +
+            "FROM Credit c JOIN c.customer cu " +
+            "WHERE c.status IN :statuses AND c.remainingAmount > 0 " +
+            "GROUP BY cu.id, cu.name, cu.phone ORDER BY SUM(c.remainingAmount) DESC")
+    List<Object[]> aggregateAgingByCustomer(@Param("statuses") Collection<Credit.CreditStatus> statuses,
+                                            @Param("d30") LocalDateTime d30, @Param("d60") LocalDateTime d60,
+                                            @Param("d90") LocalDateTime d90);
+
+    /**
+     * Customer's credits with their bill in one query (billing is lazy)
+     */
+    @Query("SELECT c FROM Credit c LEFT JOIN FETCH c.billing WHERE c.customer.id = :customerId ORDER BY c.createdAt DESC, c.id DESC")
+    List<Credit> findByCustomerIdWithBilling(@Param("customerId") Long customerId);
+
+    /**
+     * Ledger rows for a customer's credits, oldest first:
+     * (id, createdAt, updatedAt, creditAmount, remainingAmount, description, billingId, billNumber)
+     */
+    @Query("SELECT c.id, c.createdAt, c.updatedAt, c.creditAmount, c.remainingAmount, c.description, b.id, b.billNumber " +
+            "FROM Credit c LEFT JOIN c.billing b WHERE c.customer.id = :customerId ORDER BY c.createdAt, c.id")
+    List<Object[]> findLedgerRowsByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * (open credit count, outstanding amount) for a customer
+     */
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.remainingAmount), 0) FROM Credit c " +
+            "WHERE c.customer.id = :customerId AND c.status IN :statuses AND c.remainingAmount > 0")
+    List<Object[]> summarizeOpenByCustomerId(@Param("customerId") Long customerId,
+                                             @Param("statuses") Collection<Credit.CreditStatus> statuses);
 }
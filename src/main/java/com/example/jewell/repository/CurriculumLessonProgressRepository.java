@@ -1,11 +1,14 @@
 package com.example.jewell.repository;
 
 import com.example.jewell.model.CurriculumLessonProgress;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +25,24 @@ public interface CurriculumLessonProgressRepository extends JpaRepository<Curric
     
     @Query("SELECT COUNT(clp) FROM CurriculumLessonProgress clp WHERE clp.user.id = :userId AND clp.isCompleted = true")
     Long countCompletedLessonsByUserId(@Param("userId") Long userId);
+
+    /**
+     * A user's progress rows for the given lessons, locked for the rest of the transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT clp FROM CurriculumLessonProgress clp WHERE clp.user.id = :userId AND clp.curriculumLesson.id IN :lessonIds")
+    List<CurriculumLessonProgress> findForUpdateByUserIdAndLessonIds(@Param("userId") Long userId,
+                                                                     @Param("lessonIds") Collection<Long> lessonIds);
+
+    /**
+     * One row: [completed lessons, time spent, attempts, sum of avg_wpm > 0, lessons with avg_wpm > 0,
+     * sum of avg_accuracy > 0, lessons with avg_accuracy > 0]
+     */
+    @Query("SELECT COUNT(CASE WHEN clp.isCompleted = true THEN 1 END), COALESCE(SUM(clp.timeSpentSeconds), 0), " +
+           "COALESCE(SUM(clp.attemptsCount), 0), COALESCE(SUM(CASE WHEN clp.avgWpm > 0 THEN clp.avgWpm ELSE 0 END), 0), " +
+           "COUNT(CASE WHEN clp.avgWpm > 0 THEN 1 END), " +
+           "COALESCE(SUM(CASE WHEN clp.avgAccuracy > 0 THEN clp.avgAccuracy ELSE 0 END), 0), " +
+           "COUNT(CASE WHEN clp.avgAccuracy > 0 THEN 1 END) " +
+           "FROM CurriculumLessonProgress clp WHERE clp.user.id = :userId")
+    List<Object[]> aggregateStatsByUserId(@Param("userId") Long userId);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +20,16 @@ public interface CurriculumLessonRepository extends JpaRepository<CurriculumLess
     List<CurriculumLesson> findActiveLessonsByUnitId(@Param("unitId") Long unitId);
     
     List<CurriculumLesson> findByUnitId(Long unitId);
+
+    /**
+     * Active lessons as rows of [lesson, unit row id], for building the curriculum snapshot
+     */
+    @Query("SELECT l, l.unit.id FROM CurriculumLesson l WHERE l.isActive = true")
+    List<Object[]> findAllActiveWithUnitId();
+
+    @Query("SELECT COUNT(l), MAX(l.updatedAt) FROM CurriculumLesson l")
+    List<Object[]> findChangeFingerprint();
+
+    @Query("SELECT l.id FROM CurriculumLesson l WHERE l.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,22 @@
+package com.example.jewell.repository;
+
+import com.example.jewell.model.CurriculumProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CurriculumProcessedEventRepository extends JpaRepository<CurriculumProcessedEvent, Long> {
+    @Query("SELECT e.eventId FROM CurriculumProcessedEvent e WHERE e.userId = :userId AND e.eventId IN :eventIds")
+    List<String> findProcessedEventIds(@Param("userId") Long userId, @Param("eventIds") Collection<String> eventIds);
+
+    @Modifying
+    @Query("DELETE FROM CurriculumProcessedEvent e WHERE e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,6 +2,7 @@ package com.example.jewell.repository;
 
 import com.example.jewell.model.CurriculumProduct;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,7 @@ import java.util.Optional;
 public interface CurriculumProductRepository extends JpaRepository<CurriculumProduct, Long> {
     Optional<CurriculumProduct> findByProductId(String productId);
     List<CurriculumProduct> findByIsActiveTrueOrderByDisplayOrderAsc();
+
+    @Query("SELECT COUNT(p), MAX(p.updatedAt) FROM CurriculumProduct p")
+    List<Object[]> findChangeFingerprint();
 }
@@ -16,4 +16,13 @@ public interface CurriculumScreenRepository extends JpaRepository<CurriculumScre
     List<CurriculumScreen> findActiveScreensByLessonId(@Param("lessonId") Long lessonId);
     
     List<CurriculumScreen> findByLessonId(Long lessonId);
+
+    /**
+     * Active screens as rows of [screen, lesson row id], for building the curriculum snapshot
+     */
+    @Query("SELECT s, s.lesson.id FROM CurriculumScreen s WHERE s.isActive = true")
+    List<Object[]> findAllActiveWithLessonId();
+
+    @Query("SELECT COUNT(s), MAX(s.updatedAt) FROM CurriculumScreen s")
+    List<Object[]> findChangeFingerprint();
 }
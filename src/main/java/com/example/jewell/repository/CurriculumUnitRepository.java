@@ -19,4 +19,13 @@ public interface CurriculumUnitRepository extends JpaRepository<CurriculumUnit,
     Optional<CurriculumUnit> findByUnitIdAndProductProductId(Long unitId, String productId);
     
     List<CurriculumUnit> findByProductProductId(String productId);
+
+    /**
+     * Active units as rows of [unit, productId], for building the curriculum snapshot
+     */
+    @Query("SELECT u, u.product.productId FROM CurriculumUnit u WHERE u.isActive = true")
+    List<Object[]> findAllActiveWithProductId();
+
+    @Query("SELECT COUNT(u), MAX(u.updatedAt) FROM CurriculumUnit u")
+    List<Object[]> findChangeFingerprint();
 }
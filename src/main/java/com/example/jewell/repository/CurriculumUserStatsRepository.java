@@ -0,0 +1,21 @@
+package com.example.jewell.repository;
+
+import com.example.jewell.model.CurriculumUserStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CurriculumUserStatsRepository extends JpaRepository<CurriculumUserStats, Long> {
+    /**
+     * The user's stats row, locked for the rest of the transaction; serializes a user's progress writes
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CurriculumUserStats s WHERE s.userId = :userId")
+    Optional<CurriculumUserStats> findForUpdate(@Param("userId") Long userId);
+}
@@ -0,0 +1,29 @@
+package com.example.jewell.repository;
+
+import com.example.jewell.model.EmailCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailCampaignRepository extends JpaRepository<EmailCampaign, Long> {
+
+    List<EmailCampaign> findByStatusOrderByIdAsc(EmailCampaign.Status status);
+
+    /**
+     * Move the cursor only if no other instance moved it since it was read; 0 rows means this round lost the race
+     */
+    @Modifying
+    @Query("UPDATE EmailCampaign c SET c.lastUserId = :next, c.enqueuedCount = c.enqueuedCount + :enqueued, " +
+            "c.skippedCount = c.skippedCount + :skipped, c.status = :status, c.enqueuedAt = :enqueuedAt " +
+            "WHERE c.id = :id AND c.lastUserId = :expected AND c.status = :running")
+    int advance(@Param("id") Long id, @Param("expected") Long expected, @Param("next") Long next,
+                @Param("enqueued") long enqueued, @Param("skipped") long skipped,
+                @Param("status") EmailCampaign.Status status, @Param("enqueuedAt") LocalDateTime enqueuedAt,
+                @Param("running") EmailCampaign.Status running);
+}
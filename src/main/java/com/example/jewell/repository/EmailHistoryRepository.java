@@ -58,5 +58,10 @@ public interface EmailHistoryRepository extends JpaRepository<EmailHistory, Long
     // Get user email history with pagination
     @Query("SELECT e FROM EmailHistory e WHERE e.user.id = :userId ORDER BY e.sentAt DESC")
     Page<EmailHistory> findByUserIdOrderBySentAtDesc(@Param("userId") Long userId, Pageable pageable);
-}
 
+    // Delivery outcomes of a bulk email campaign
+    @Query("SELECT e.status, COUNT(e) FROM EmailHistory e WHERE e.campaignId = :campaignId GROUP BY e.status")
+    List<Object[]> countByCampaignGroupedByStatus(@Param("campaignId") Long campaignId);
+
+    Page<EmailHistory> findByCampaignIdAndStatusOrderBySentAtDesc(Long campaignId, String status, Pageable pageable);
+}
@@ -0,0 +1,17 @@
+package com.example.jewell.repository;
+
+import com.example.jewell.model.ForestDailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ForestDailySummaryRepository extends JpaRepository<ForestDailySummary, Long> {
+    List<ForestDailySummary> findAllByOrderBySessionDateDesc();
+
+    @Query("SELECT s.sessionDate FROM ForestDailySummary s")
+    List<LocalDate> findAllSessionDates();
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,15 @@ public interface ForestSessionRepository extends JpaRepository<ForestSession, Lo
     @Query("SELECT fs FROM ForestSession fs WHERE fs.sessionDate = ?1 ORDER BY fs.treesPlanted DESC, fs.totalFocusMinutes DESC")
     List<ForestSession> findDailyLeaderboard(LocalDate date);
     
+    // Ranking inputs for one day (rows of [userId, treesPlanted, totalFocusMinutes])
+    @Query("SELECT fs.user.id, fs.treesPlanted, fs.totalFocusMinutes FROM ForestSession fs WHERE fs.sessionDate = ?1")
+    List<Object[]> findLeaderboardRows(LocalDate date);
+    
+    List<ForestSession> findBySessionDateAndUserIdIn(LocalDate date, Collection<Long> userIds);
+    
+    @Query("SELECT DISTINCT fs.sessionDate FROM ForestSession fs WHERE fs.sessionDate < ?1")
+    List<LocalDate> findDistinctSessionDatesBefore(LocalDate date);
+    
     @Query("SELECT SUM(fs.treesPlanted) FROM ForestSession fs WHERE fs.user = ?1")
     Long getTotalTreesByUser(User user);
     
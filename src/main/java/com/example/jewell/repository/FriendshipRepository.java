@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,11 +20,22 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
            "(f.sender = :user2 AND f.receiver = :user1)")
     Optional<Friendship> findByUsers(User user1, User user2);
     
+    // Friendship status between a user and many others in one query (rows of [senderId, receiverId, status])
+    @Query("SELECT f.sender.id, f.receiver.id, f.status FROM Friendship f WHERE " +
+           "(f.sender.id = :userId AND f.receiver.id IN :otherIds) OR " +
+           "(f.receiver.id = :userId AND f.sender.id IN :otherIds)")
+    List<Object[]> findStatusesBetween(Long userId, Collection<Long> otherIds);
+    
     // Get all friends of a user (accepted status)
     @Query("SELECT f FROM Friendship f WHERE " +
            "(f.sender = :user OR f.receiver = :user) AND f.status = 'ACCEPTED'")
     List<Friendship> findFriendsByUser(User user);
     
+    // Accepted friendships of a user with both sides fetched (no lazy load per friend)
+    @Query("SELECT f FROM Friendship f JOIN FETCH f.sender JOIN FETCH f.receiver WHERE " +
+           "(f.sender.id = :userId OR f.receiver.id = :userId) AND f.status = 'ACCEPTED'")
+    List<Friendship> findFriendsWithUsers(Long userId);
+    
     // Get pending friend requests for a user (where they are the receiver)
     List<Friendship> findByReceiverAndStatus(User receiver, FriendshipStatus status);
     
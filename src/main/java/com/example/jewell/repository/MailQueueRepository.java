@@ -0,0 +1,79 @@
+package com.example.jewell.repository;
+
+import com.example.jewell.model.MailQueueItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MailQueueRepository extends JpaRepository<MailQueueItem, Long> {
+
+    @Query("SELECT m.id FROM MailQueueItem m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<Long> findDueIds(@Param("status") MailQueueItem.Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim due items for this worker; only rows still in the expected status are taken, so two
+     * instances polling at once never claim the same item
+     */
+    @Modifying
+    @Query("UPDATE MailQueueItem m SET m.status = :sending, m.claimToken = :token, m.claimedAt = :now, " +
+            "m.attempts = m.attempts + 1 WHERE m.id IN :ids AND m.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("pending") MailQueueItem.Status pending, @Param("sending") MailQueueItem.Status sending);
+
+    List<MailQueueItem> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    /**
+     * Put back items whose worker died mid-send (or could not record the outcome) and that have attempts left
+     */
+    @Modifying
+    @Query("UPDATE MailQueueItem m SET m.status = :pending, m.claimToken = NULL " +
+            "WHERE m.status = :sending AND m.claimedAt < :cutoff AND m.attempts < :maxAttempts")
+    int releaseStale(@Param("cutoff") LocalDateTime cutoff, @Param("maxAttempts") int maxAttempts,
+                     @Param("pending") MailQueueItem.Status pending, @Param("sending") MailQueueItem.Status sending);
+
+    /**
+     * Give up on stale claims that have used all their attempts
+     */
+    @Modifying
+    @Query("UPDATE MailQueueItem m SET m.status = :failed, m.claimToken = NULL, m.activeDedupKey = NULL, m.lastError = :error " +
+            "WHERE m.status = :sending AND m.claimedAt < :cutoff AND m.attempts >= :maxAttempts")
+    int failStale(@Param("cutoff") LocalDateTime cutoff, @Param("maxAttempts") int maxAttempts, @Param("error") String error,
+                  @Param("sending") MailQueueItem.Status sending, @Param("failed") MailQueueItem.Status failed);
+
+    /**
+     * Hand back claimed items that were never sent, uncounting the attempt taken by the claim
+     */
+    @Modifying
+    @Query("UPDATE MailQueueItem m SET m.status = :pending, m.claimToken = NULL, m.attempts = m.attempts - 1 " +
+            "WHERE m.id IN :ids AND m.status = :sending")
+    int releaseClaimed(@Param("ids") Collection<Long> ids,
+                       @Param("pending") MailQueueItem.Status pending, @Param("sending") MailQueueItem.Status sending);
+
+    Optional<MailQueueItem> findFirstByDedupKeyAndStatusInOrderByIdDesc(String dedupKey, Collection<MailQueueItem.Status> statuses);
+
+    /**
+     * Latest item with this dedup key, read with a shared lock so a row committed by a concurrent enqueue is seen
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<MailQueueItem> findFirstByDedupKeyOrderByIdDesc(String dedupKey);
+
+    Optional<MailQueueItem> findFirstByDedupKeyAndStatusAndSentAtAfterOrderByIdDesc(String dedupKey, MailQueueItem.Status status,
+                                                                                    LocalDateTime sentAfter);
+
+    @Query("SELECT m.status, COUNT(m) FROM MailQueueItem m GROUP BY m.status")
+    List<Object[]> countGroupedByStatus();
+
+    @Query("SELECT m.status, COUNT(m) FROM MailQueueItem m WHERE m.campaignId = :campaignId GROUP BY m.status")
+    List<Object[]> countByCampaignGroupedByStatus(@Param("campaignId") Long campaignId);
+}
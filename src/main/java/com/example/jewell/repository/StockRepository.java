@@ -1,9 +1,11 @@
 package com.example.jewell.repository;
 
 import com.example.jewell.model.Stock;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -21,6 +23,9 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
     List<Stock> findByCategoryAndStatus(String category, Stock.StockStatus status);
     long countByStatus(Stock.StockStatus status);
 
+    @Query("SELECT s.status, COUNT(s) FROM Stock s GROUP BY s.status")
+    List<Object[]> countGroupedByStatus();
+
     // Search methods
     @Query("SELECT s FROM Stock s WHERE " +
            "(LOWER(s.articleName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -56,4 +61,11 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
 
     @Query("SELECT s FROM Stock s WHERE s.status = 'AVAILABLE' AND (s.quantity IS NULL OR s.quantity <= :threshold)")
     List<Stock> findLowStockByQuantity(@Param("threshold") int threshold);
+
+    /**
+     * Stock pieces locked for the rest of the transaction (offline bill sync reserves quantities on them)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Stock s WHERE s.id IN :ids ORDER BY s.id")
+    List<Stock> findForUpdateByIdIn(@Param("ids") java.util.Collection<Long> ids);
 }
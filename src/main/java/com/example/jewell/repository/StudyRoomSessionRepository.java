@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,10 +29,26 @@ public interface StudyRoomSessionRepository extends JpaRepository<StudyRoomSessi
     @Query("SELECT s FROM StudyRoomSession s WHERE s.isConfirmed = false")
     List<StudyRoomSession> findAllUnconfirmedSessions();
     
+    @Modifying
+    @Query("UPDATE StudyRoomSession s SET s.isConfirmed = true, s.confirmedAt = :now WHERE s.id IN :ids AND s.isConfirmed = false")
+    int confirmSessions(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    boolean existsByUserIdAndRoomIdAndIsConfirmedTrue(Long userId, Long roomId);
+    
+    Optional<StudyRoomSession> findFirstByRoomIdAndUserIdAndIsConfirmedTrue(Long roomId, Long userId);
+    
     @Modifying
     @Query("DELETE FROM StudyRoomSession s WHERE s.expiresAt < :now AND s.isConfirmed = false")
     void deleteExpiredUnconfirmedSessions(@Param("now") LocalDateTime now);
     
+    long countByRoomId(Long roomId);
+    
+    /**
+     * Rows of [roomId, sessions] counting confirmed and pending sessions, i.e. the slots each room has taken
+     */
+    @Query("SELECT s.room.id, COUNT(s) FROM StudyRoomSession s GROUP BY s.room.id")
+    List<Object[]> countSessionsGroupedByRoom();
+    
     @Query("SELECT COUNT(s) FROM StudyRoomSession s WHERE s.room = :room AND s.isConfirmed = true")
     Long countConfirmedSessionsByRoom(@Param("room") StudyRoom room);
     
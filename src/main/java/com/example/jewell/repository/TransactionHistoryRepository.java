@@ -20,6 +20,7 @@ public interface TransactionHistoryRepository extends JpaRepository<TransactionH
 
     List<TransactionHistory> findByTransactionDate(LocalDate date);
     List<TransactionHistory> findByTransactionDateBetween(LocalDate startDate, LocalDate endDate);
+    List<TransactionHistory> findByTransactionDateBetweenAndTransactionType(LocalDate startDate, LocalDate endDate, TransactionHistory.TransactionType type);
     List<TransactionHistory> findByTransactionType(TransactionHistory.TransactionType type);
     List<TransactionHistory> findByCategory(TransactionHistory.Category category);
     List<TransactionHistory> findByTransactionDateAndTransactionType(LocalDate date, TransactionHistory.TransactionType type);
@@ -32,4 +33,21 @@ public interface TransactionHistoryRepository extends JpaRepository<TransactionH
     
     @Query("SELECT SUM(t.amount) FROM TransactionHistory t WHERE t.transactionDate = :date AND t.category = :category")
     BigDecimal getTotalByDateAndCategory(@Param("date") LocalDate date, @Param("category") TransactionHistory.Category category);
+
+    /**
+     * Rows of [type, category, payment method, SUM(amount), COUNT] for a date range, in one pass
+     */
+    @Query("SELECT t.transactionType, t.category, t.paymentMethod, SUM(t.amount), COUNT(t) FROM TransactionHistory t " +
+           "WHERE t.transactionDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY t.transactionType, t.category, t.paymentMethod")
+    List<Object[]> summarizeByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Same as {@link #summarizeByDateRange} restricted to one transaction type
+     */
+    @Query("SELECT t.transactionType, t.category, t.paymentMethod, SUM(t.amount), COUNT(t) FROM TransactionHistory t " +
+           "WHERE t.transactionDate BETWEEN :startDate AND :endDate AND t.transactionType = :type " +
+           "GROUP BY t.transactionType, t.category, t.paymentMethod")
+    List<Object[]> summarizeByDateRangeAndType(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                               @Param("type") TransactionHistory.TransactionType type);
 }
@@ -1,6 +1,8 @@
 package com.example.jewell.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.example.jewell.model.User;
 
@@ -28,6 +30,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Paginated search users by username
     org.springframework.data.domain.Page<User> findByUsernameContainingIgnoreCase(String query, org.springframework.data.domain.Pageable pageable);
 
+    // Username prefix search (rows of [id, username]); LIKE 'abc%' is served by the unique index on username
+    @Query("SELECT u.id, u.username FROM User u WHERE u.username LIKE :prefix ESCAPE '!' AND u.id <> :excludeId " +
+           "ORDER BY u.username")
+    List<Object[]> findIdAndUsernameByPrefix(String prefix, Long excludeId, Pageable pageable);
+
+    // Keyset page of [id, email] after a user id, in primary key order (bulk email campaigns)
+    @Query("SELECT u.id, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findIdAndEmailAfter(Long afterId, Pageable pageable);
+
     long countByLastActiveAtAfter(LocalDateTime cutoff);
     
     long countByLastActiveAtBetween(LocalDateTime start, LocalDateTime end);
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,10 @@ public interface UserStreakRepository extends JpaRepository<UserStreak, Long> {
     
     Optional<UserStreak> findByUserId(Long userId);
     
+    // Level and current streak for many users in one query (rows of [userId, level, currentStreak])
+    @Query("SELECT us.user.id, us.level, us.currentStreak FROM UserStreak us WHERE us.user.id IN :userIds")
+    List<Object[]> findLevelsByUserIds(Collection<Long> userIds);
+    
     // Top streakers leaderboard - with pagination
     Page<UserStreak> findByOrderByCurrentStreakDesc(Pageable pageable);
     
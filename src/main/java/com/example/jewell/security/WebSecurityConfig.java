@@ -167,7 +167,8 @@ public class WebSecurityConfig {
             "Access-Control-Request-Method",
             "Access-Control-Request-Headers",
             "x-access-token",
-            "X-Device-Id"
+            "X-Device-Id",
+            "Idempotency-Key"
         ));
         
         // Expose only necessary headers
@@ -175,7 +176,8 @@ public class WebSecurityConfig {
             "Authorization",
             "X-RateLimit-Limit",
             "X-RateLimit-Remaining",
-            "Retry-After"
+            "Retry-After",
+            "Idempotent-Replayed"
         ));
         
         config.setAllowCredentials(true);
@@ -3,6 +3,8 @@ package com.example.jewell.service;
 import com.example.jewell.model.*;
 import com.example.jewell.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -216,32 +218,39 @@ public class AnalyticsService {
     }
 
     /**
-     * Get credit history for a date range
+     * Get credit history for a date range (inclusive), newest first
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getCreditHistory(LocalDate startDate, LocalDate endDate) {
-        List<Credit> credits = creditRepository.findAll().stream()
-                .filter(c -> {
-                    LocalDate creditDate = c.getCreatedAt().toLocalDate();
-                    return !creditDate.isBefore(startDate) && !creditDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
-        
-        return credits.stream()
-                .map(c -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("id", c.getId());
-                    map.put("customerName", c.getCustomer().getName());
-                    map.put("creditAmount", c.getCreditAmount());
-                    map.put("paidAmount", c.getPaidAmount());
-                    map.put("remainingAmount", c.getRemainingAmount());
-                    map.put("status", c.getStatus().toString());
-                    map.put("description", c.getDescription());
-                    map.put("createdAt", c.getCreatedAt());
-                    return map;
-                })
+        return creditRepository.findHistoryRows(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay())
+                .stream()
+                .map(this::mapCreditHistoryRow)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of credit history for a date range (inclusive), newest first
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getCreditHistory(LocalDate startDate, LocalDate endDate, int page, int size) {
+        return creditRepository.findHistoryRows(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+                        PageRequest.of(page, size))
+                .map(this::mapCreditHistoryRow);
+    }
+
+    private Map<String, Object> mapCreditHistoryRow(Object[] row) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", row[0]);
+        map.put("customerName", row[1]);
+        map.put("creditAmount", row[2]);
+        map.put("paidAmount", row[3]);
+        map.put("remainingAmount", row[4]);
+        map.put("status", row[5] != null ? row[5].toString() : null);
+        map.put("description", row[6]);
+        map.put("createdAt", row[7]);
+        return map;
+    }
+
     private Map<String, Object> mapStockToSummary(Stock stock) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", stock.getId());
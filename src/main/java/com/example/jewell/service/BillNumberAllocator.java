@@ -0,0 +1,71 @@
+package com.example.jewell.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hands out bill numbers (BILL-yyyyMMdd-NNNNN) from a counter row, one or a whole block per call.
+ *
+ * The counter is bumped with a single UPDATE in its own short transaction, so the row lock is not
+ * held while the bill is being written and concurrent tills never get the same number. A bill that
+ * rolls back leaves a gap. The counter starts from the highest number already used by an existing
+ * BILL-yyyyMMdd-NNNNN bill, so it continues after the previous numbering even if bills were deleted.
+ */
+@Service
+public class BillNumberAllocator {
+
+    private static final String SEQUENCE = "BILL";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String BUMP_SQL =
+            "UPDATE bill_number_sequence SET last_value = LAST_INSERT_ID(last_value + ?) WHERE name = ?";
+    // The REGEXP filter keeps the CAST clean (strict mode rejects truncated values in INSERT ... SELECT)
+    private static final String SEED_SQL =
+            "INSERT IGNORE INTO bill_number_sequence (name, last_value) " +
+            "SELECT ?, COALESCE(MAX(CAST(SUBSTRING_INDEX(bill_number, '-', -1) AS UNSIGNED)), 0) FROM billing " +
+            "WHERE bill_number REGEXP '^BILL-[0-9]{8}-[0-9]+$'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserve {@code count} consecutive numbers; returns the first
+     */
+    public long allocate(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Bill number block size must be positive");
+        }
+        Long last = requiresNew.execute(status -> {
+            if (jdbcTemplate.update(BUMP_SQL, count, SEQUENCE) == 0) {
+                jdbcTemplate.update(SEED_SQL, SEQUENCE);
+                jdbcTemplate.update(BUMP_SQL, count, SEQUENCE);
+            }
+            // LAST_INSERT_ID(expr) is per connection, so this reads our own bump
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        });
+        return last - count + 1;
+    }
+
+    public static String format(LocalDate date, long number) {
+        return String.format("%s-%s-%05d", SEQUENCE, date.format(DATE), number);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.utils.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-level cache of rendered bill PDFs (memory LRU over a disk directory), both bounded in bytes.
+ *
+ * The key is bill id + receipt type + the bill's edit version + the customer's last update, so an
+ * edited bill (or a renamed customer) simply misses and re-renders; stale versions age out of the
+ * LRU. Bills are pre-rendered on the task executor after creation and after each edit commits,
+ * so emails, downloads and reprints usually find the PDF ready.
+ */
+@Service
+public class BillPdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BillPdfCache.class);
+
+    @Autowired
+    private BillPdfService billPdfService;
+
+    @Autowired
+    private BillingRepository billingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${bill.pdf.cache.memory-max-bytes:33554432}")
+    private long memoryMaxBytes;
+
+    @Value("${bill.pdf.cache.disk-max-bytes:536870912}")
+    private long diskMaxBytes;
+
+    @Value("${bill.pdf.cache.dir:${java.io.tmpdir}/bill-pdf-cache}")
+    private String cacheDir;
+
+    @Value("${bill.pdf.prerender-types:NORMAL,GST}")
+    private String prerenderTypes;
+
+    /** Access-ordered: iteration starts at the least recently used entry */
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong diskBytes = new AtomicLong();
+    private Path dir;
+
+    @PostConstruct
+    public void init() {
+        try {
+            dir = Paths.get(cacheDir);
+            Files.createDirectories(dir);
+            long total = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.pdf")) {
+                for (Path file : files) {
+                    total += Files.size(file);
+                }
+            }
+            diskBytes.set(total);
+            trimDisk();
+        } catch (IOException e) {
+            // Memory tier still works
+            log.warn("Bill PDF disk cache disabled ({}): {}", cacheDir, e.getMessage());
+            dir = null;
+        }
+    }
+
+    /**
+     * PDF for the bill, rendered only when no cached copy of this version exists.
+     * Must be called with the bill's items loadable (inside a transaction).
+     */
+    public byte[] getPdf(Billing billing, String receiptType) {
+        String type = normalizeType(receiptType);
+        String key = key(billing, type);
+        byte[] pdf = getFromMemory(key);
+        if (pdf != null) return pdf;
+
+        pdf = readFromDisk(key);
+        if (pdf == null) {
+            pdf = billPdfService.generatePdf(billing, type);
+            writeToDisk(key, pdf);
+        }
+        putInMemory(key, pdf);
+        return pdf;
+    }
+
+    /**
+     * Cached PDF if this version is already rendered, otherwise a fresh render that is not stored.
+     * For bulk exports, which would otherwise flush the cache of recently used bills.
+     */
+    public byte[] getCachedOrRender(Billing billing, String receiptType) {
+        String type = normalizeType(receiptType);
+        String key = key(billing, type);
+        byte[] pdf = getFromMemory(key);
+        if (pdf == null) {
+            pdf = readFromDisk(key);
+        }
+        return pdf != null ? pdf : billPdfService.generatePdf(billing, type);
+    }
+
+    /**
+     * Render the bill's PDFs in the background once the current transaction commits
+     */
+    public void prerenderAfterCommit(Long billingId) {
+        if (billingId == null) return;
+        TransactionUtils.afterCommit(() -> {
+            try {
+                taskExecutor.execute(() -> prerender(billingId));
+            } catch (Exception e) {
+                // Executor saturated: rendered on first use instead
+                log.debug("Skipped PDF pre-render for bill {}: {}", billingId, e.getMessage());
+            }
+        });
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void prerender(Long billingId) {
+        try {
+            transactionTemplate.execute(status -> {
+                Billing billing = billingRepository.findById(billingId).orElse(null);
+                if (billing == null) return null;
+                for (String type : prerenderTypes.split(",")) {
+                    if (!type.isBlank()) {
+                        getPdf(billing, type);
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("PDF pre-render failed for bill {}: {}", billingId, e.getMessage());
+        }
+    }
+
+    private static String normalizeType(String receiptType) {
+        return "GST".equalsIgnoreCase(receiptType != null ? receiptType.trim() : null) ? "GST" : "NORMAL";
+    }
+
+    private static String key(Billing billing, String type) {
+        int version = billing.getEditVersion() != null ? billing.getEditVersion() : 0;
+        long customerStamp = billing.getCustomer() != null && billing.getCustomer().getUpdatedAt() != null
+                ? billing.getCustomer().getUpdatedAt().toEpochSecond(ZoneOffset.UTC) : 0L;
+        return billing.getId() + "-" + type.toLowerCase(Locale.ROOT) + "-v" + version + "-c" + customerStamp;
+    }
+
+    private synchronized byte[] getFromMemory(String key) {
+        return memory.get(key);
+    }
+
+    private synchronized void putInMemory(String key, byte[] pdf) {
+        if (pdf.length > memoryMaxBytes) return;
+        byte[] previous = memory.put(key, pdf);
+        memoryBytes += pdf.length - (previous != null ? previous.length : 0);
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (memoryBytes > memoryMaxBytes && it.hasNext()) {
+            memoryBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (dir == null) return null;
+        Path file = dir.resolve(key + ".pdf");
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            // Modification time doubles as last access for LRU trimming
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return pdf;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] pdf) {
+        if (dir == null || pdf.length > diskMaxBytes) return;
+        Path file = dir.resolve(key + ".pdf");
+        try {
+            // Write then rename so readers never see a partial file
+            Path tmp = Files.createTempFile(dir, key, ".tmp");
+            Files.write(tmp, pdf);
+            long replaced = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(pdf.length - replaced) > diskMaxBytes) {
+                trimDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write bill PDF to disk cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete least recently used files until the directory is at 90% of its budget
+     */
+    private synchronized void trimDisk() {
+        if (dir == null || diskBytes.get() <= diskMaxBytes) return;
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.pdf")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("Could not list bill PDF cache: {}", e.getMessage());
+            return;
+        }
+        Map<Path, Long> modified = new LinkedHashMap<>();
+        for (Path file : files) {
+            try {
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                modified.put(file, 0L);
+            }
+        }
+        files.sort(Comparator.comparing(modified::get));
+        long target = diskMaxBytes * 9 / 10;
+        for (Path file : files) {
+            if (diskBytes.get() <= target) break;
+            try {
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            } catch (IOException e) {
+                log.debug("Could not evict {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
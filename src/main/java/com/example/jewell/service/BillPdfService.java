@@ -35,13 +35,29 @@ public class BillPdfService {
     /** GST table font slightly smaller so 12 columns fit on A4 */
     private static final Font GST_TABLE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8);
 
+    /*
+     * Layout shared by every render: page size, column widths and header labels. Only immutable data is
+     * shared; OpenPDF cells and paragraphs carry layout state, so they are created per document.
+     */
+    private static final Rectangle NORMAL_PAGE_SIZE = new Rectangle(
+            NORMAL_PAGE_WIDTH_MM * MM_TO_PT, NORMAL_PAGE_HEIGHT_MM * MM_TO_PT);
+    private static final float NORMAL_MARGIN = 12f;
+    private static final float[] NORMAL_COLUMN_WIDTHS = {2.5f, 1.5f, 0.8f, 1f, 0.5f, 1.2f, 1.2f};
+    private static final String[] NORMAL_HEADERS = {"Item", "Article Code", "Carat", "Diamond Ct", "Qty", "Rate (₹/g)", "Total"};
+    private static final float[] GST_COLUMN_WIDTHS = {1f, 1f, 2f, 0.6f, 0.8f, 0.5f, 0.8f, 0.8f, 1f, 0.6f, 0.8f, 1f};
+    private static final String[] GST_HEADERS = {"Prod ID", "Design", "Desc", "Carat", "Dia Ct", "Qty", "GSWT(g)", "NT(g)", "Rate", "MKG", "DIA Val", "Amount"};
+    /** Typical rendered size; avoids repeated buffer growth */
+    private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+
     @Value("${shop.gstin:09AXDPK0044L1ZI}")
     private String shopGstin;
 
-    private static Rectangle normalReceiptPageSize() {
-        float w = NORMAL_PAGE_WIDTH_MM * MM_TO_PT;
-        float h = NORMAL_PAGE_HEIGHT_MM * MM_TO_PT;
-        return new Rectangle(w, h);
+    private PdfPTable newTable(float[] widths, float widthPercentage, String[] headers, Font headerFont) throws DocumentException {
+        PdfPTable table = new PdfPTable(widths.length);
+        table.setWidthPercentage(widthPercentage);
+        table.setWidths(widths);
+        for (String h : headers) addCell(table, h, headerFont);
+        return table;
     }
 
     private String formatCurrency(BigDecimal amount) {
@@ -61,13 +77,12 @@ public class BillPdfService {
      */
     public byte[] generatePdf(Billing billing, String receiptType) {
         boolean isGst = "GST".equalsIgnoreCase(receiptType);
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(INITIAL_BUFFER_BYTES)) {
             Document document;
             if (isGst) {
                 document = new Document(PageSize.A4, A4_MARGIN, A4_MARGIN, A4_MARGIN, A4_MARGIN);
             } else {
-                float margin = 12f;
-                document = new Document(normalReceiptPageSize(), margin, margin, margin, margin);
+                document = new Document(new Rectangle(NORMAL_PAGE_SIZE), NORMAL_MARGIN, NORMAL_MARGIN, NORMAL_MARGIN, NORMAL_MARGIN);
             }
             PdfWriter.getInstance(document, baos);
             document.open();
@@ -102,11 +117,7 @@ public class BillPdfService {
         }
         document.add(new Paragraph(" "));
 
-        PdfPTable table = new PdfPTable(7);
-        table.setWidthPercentage(100f);
-        table.setWidths(new float[]{2.5f, 1.5f, 0.8f, 1f, 0.5f, 1.2f, 1.2f});
-        String[] headers = {"Item", "Article Code", "Carat", "Diamond Ct", "Qty", "Rate (₹/g)", "Total"};
-        for (String h : headers) addCell(table, h, NORMAL_RECEIPT_HEADER_FONT);
+        PdfPTable table = newTable(NORMAL_COLUMN_WIDTHS, 100f, NORMAL_HEADERS, NORMAL_RECEIPT_HEADER_FONT);
 
         for (BillingItem item : billing.getItems()) {
             String articleCode = item.getArticleCode();
@@ -188,11 +199,7 @@ public class BillPdfService {
         }
         document.add(new Paragraph(" "));
 
-        PdfPTable table = new PdfPTable(12);
-        table.setWidthPercentage(98f);
-        table.setWidths(new float[]{1f, 1f, 2f, 0.6f, 0.8f, 0.5f, 0.8f, 0.8f, 1f, 0.6f, 0.8f, 1f});
-        String[] headers = {"Prod ID", "Design", "Desc", "Carat", "Dia Ct", "Qty", "GSWT(g)", "NT(g)", "Rate", "MKG", "DIA Val", "Amount"};
-        for (String h : headers) addCell(table, h, GST_TABLE_FONT);
+        PdfPTable table = newTable(GST_COLUMN_WIDTHS, 98f, GST_HEADERS, GST_TABLE_FONT);
 
         BigDecimal totalGrossWeight = BigDecimal.ZERO;
         for (BillingItem item : billing.getItems()) {
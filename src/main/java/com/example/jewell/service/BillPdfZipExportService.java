@@ -0,0 +1,181 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.repository.BillingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders the bill PDFs of a date range in parallel and streams them into a ZIP as each one completes.
+ *
+ * At most {@code bill.pdf.export.concurrency} renders are in flight per export and a finished PDF is
+ * written and dropped before the next bill is submitted, so memory is bounded by the concurrency,
+ * not the number of bills. Entries are written in completion order. When the client disconnects the
+ * next write fails, outstanding renders are cancelled and no further bills are submitted.
+ * Bills that fail to render are listed in ERRORS.txt at the end of the archive.
+ */
+@Service
+public class BillPdfZipExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BillPdfZipExportService.class);
+
+    @Autowired
+    private BillingRepository billingRepository;
+
+    @Autowired
+    private BillPdfCache billPdfCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("pdfExportExecutor")
+    private Executor pdfExportExecutor;
+
+    @Value("${bill.pdf.export.concurrency:4}")
+    private int concurrency;
+
+    /**
+     * Write a ZIP of every bill created in the date range (inclusive); returns the number of PDFs written
+     */
+    public int exportZip(LocalDate startDate, LocalDate endDate, String receiptType, OutputStream out) throws IOException {
+        List<Long> billIds = transactionTemplate.execute(status -> billingRepository.findIdsByCreatedAtRange(
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()));
+        long start = System.currentTimeMillis();
+
+        CompletionService<RenderedPdf> completion = new ExecutorCompletionService<>(pdfExportExecutor);
+        Set<Future<RenderedPdf>> inFlight = new HashSet<>();
+        Iterator<Long> pending = billIds.iterator();
+        Set<String> usedNames = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        int written = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        try {
+            while (inFlight.size() < Math.max(1, concurrency) && pending.hasNext()) {
+                inFlight.add(submit(completion, pending.next(), receiptType));
+            }
+            while (!inFlight.isEmpty()) {
+                Future<RenderedPdf> done = completion.take();
+                inFlight.remove(done);
+                if (pending.hasNext()) {
+                    inFlight.add(submit(completion, pending.next(), receiptType));
+                }
+
+                RenderedPdf pdf = result(done);
+                if (pdf.error != null) {
+                    errors.add("Bill id " + pdf.billId + ": " + pdf.error);
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(uniqueName(pdf.name, usedNames)));
+                zip.write(pdf.bytes);
+                zip.closeEntry();
+                // Push each finished PDF to the client; a disconnect surfaces here as an IOException
+                zip.flush();
+                written++;
+            }
+            if (!errors.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("ERRORS.txt"));
+                zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            log.info("Bill PDF export {}..{}: {} PDFs, {} errors in {} ms",
+                    startDate, endDate, written, errors.size(), System.currentTimeMillis() - start);
+            return written;
+        } catch (IOException e) {
+            log.info("Bill PDF export {}..{} cancelled after {} of {} PDFs: {}",
+                    startDate, endDate, written, billIds.size(), e.getMessage());
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bill PDF export interrupted", e);
+        } finally {
+            for (Future<RenderedPdf> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Future<RenderedPdf> submit(CompletionService<RenderedPdf> completion, Long billId, String receiptType) {
+        return completion.submit(() -> render(billId, receiptType));
+    }
+
+    private RenderedPdf render(Long billId, String receiptType) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Billing billing = billingRepository.findById(billId).orElse(null);
+                if (billing == null) {
+                    return RenderedPdf.failed(billId, "deleted during export");
+                }
+                byte[] bytes = billPdfCache.getCachedOrRender(billing, receiptType);
+                return new RenderedPdf(billId, fileName(billing), bytes, null);
+            });
+        } catch (Exception e) {
+            return RenderedPdf.failed(billId, e.getMessage());
+        }
+    }
+
+    private static RenderedPdf result(Future<RenderedPdf> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return RenderedPdf.failed(null, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    private static String fileName(Billing billing) {
+        String base = billing.getBillNumber() != null ? billing.getBillNumber() : "Bill-" + billing.getId();
+        return base.replaceAll("[^a-zA-Z0-9.-]", "_") + ".pdf";
+    }
+
+    private static String uniqueName(String name, Set<String> used) {
+        String candidate = name;
+        for (int i = 2; !used.add(candidate); i++) {
+            candidate = name.substring(0, name.length() - 4) + "_" + i + ".pdf";
+        }
+        return candidate;
+    }
+
+    private static class RenderedPdf {
+        final Long billId;
+        final String name;
+        final byte[] bytes;
+        final String error;
+
+        RenderedPdf(Long billId, String name, byte[] bytes, String error) {
+            this.billId = billId;
+            this.name = name;
+            this.bytes = bytes;
+            this.error = error;
+        }
+
+        static RenderedPdf failed(Long billId, String error) {
+            return new RenderedPdf(billId, null, null, error != null ? error : "render failed");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.BillingEditHistory;
+import com.example.jewell.repository.BillingEditHistoryRepository;
+import com.example.jewell.utils.JsonPatch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed, diff-based storage of bill edit snapshots.
+ *
+ * The first snapshot of a bill is stored in full; each later one as a JSON Patch against the
+ * previous snapshot. Every {@code billing.edit-history.checkpoint-interval} edits a full snapshot is
+ * written again, so reconstructing the latest snapshot applies a bounded number of patches. Both
+ * kinds are deflate-compressed. Rows written before this scheme (plain JSON) count as checkpoints.
+ *
+ * Snapshots are written in the bill edit's transaction, which holds the bill row locked
+ * ({@link com.example.jewell.repository.BillingRepository#findByIdForUpdate}), so two concurrent edits
+ * of one bill cannot both diff against the same base or take the same edit number.
+ */
+@Service
+@Transactional
+public class BillingEditHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(BillingEditHistoryService.class);
+
+    @Autowired
+    private BillingEditHistoryRepository billingEditHistoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${billing.edit-history.checkpoint-interval:10}")
+    private int checkpointInterval;
+
+    /**
+     * Append a snapshot of the bill as it is now; the caller must hold the bill row locked
+     */
+    public BillingEditHistory record(Billing billing, Map<String, Object> snapshot) {
+        JsonNode current = objectMapper.valueToTree(snapshot);
+        byte[] full = toBytes(current);
+
+        BillingEditHistory history = new BillingEditHistory();
+        history.setBilling(billing);
+        history.setFullSize(full.length);
+
+        List<BillingEditHistory> tail = billingEditHistoryRepository.findFromLatestCheckpoint(
+                billing.getId(), BillingEditHistory.SnapshotFormat.PATCH);
+        JsonNode previous = null;
+        if (!tail.isEmpty() && tail.size() < checkpointInterval) {
+            try {
+                previous = reconstruct(tail);
+            } catch (RuntimeException e) {
+                // A damaged row must not block further edits: start a fresh chain from a checkpoint
+                log.warn("Edit history of bill {} could not be rebuilt, writing a new checkpoint: {}",
+                        billing.getId(), e.getMessage());
+            }
+        }
+        if (previous == null) {
+            history.setSnapshotFormat(BillingEditHistory.SnapshotFormat.FULL);
+            history.setSnapshotBlob(deflate(full));
+        } else {
+            ArrayNode patch = JsonPatch.diff(previous, current);
+            byte[] compressedPatch = deflate(toBytes(patch));
+            byte[] compressedFull = deflate(full);
+            // A rewrite of most fields can make the patch larger than the snapshot itself
+            boolean patchSmaller = compressedPatch.length < compressedFull.length;
+            history.setSnapshotFormat(patchSmaller ? BillingEditHistory.SnapshotFormat.PATCH : BillingEditHistory.SnapshotFormat.FULL);
+            history.setSnapshotBlob(patchSmaller ? compressedPatch : compressedFull);
+        }
+        BillingEditHistory last = tail.isEmpty() ? null : tail.get(tail.size() - 1);
+        history.setEditSeq(last == null ? 1 : (last.getEditSeq() != null ? last.getEditSeq() : tail.size()) + 1);
+        return billingEditHistoryRepository.save(history);
+    }
+
+    /**
+     * The bill's most recent snapshot, rebuilt from its latest checkpoint; null when the bill was never edited
+     */
+    @Transactional(readOnly = true)
+    public JsonNode getLatestSnapshot(Long billingId) {
+        List<BillingEditHistory> tail = billingEditHistoryRepository.findFromLatestCheckpoint(
+                billingId, BillingEditHistory.SnapshotFormat.PATCH);
+        return tail.isEmpty() ? null : reconstruct(tail);
+    }
+
+    /**
+     * Every snapshot of the bill, newest first, as {id, snapshotData, createdAt} with snapshotData as JSON text
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getHistory(Long billingId) {
+        List<BillingEditHistory> rows = billingEditHistoryRepository.findByBillingIdOrderByIdAsc(billingId);
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        JsonNode previous = null;
+        for (BillingEditHistory row : rows) {
+            previous = decode(row, previous);
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", row.getId());
+            m.put("snapshotData", new String(toBytes(previous), StandardCharsets.UTF_8));
+            m.put("createdAt", row.getCreatedAt());
+            result.add(m);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Stored size against the size of full plain-JSON snapshots, and reconstruction time, for one bill
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStorageStats(Long billingId) {
+        List<BillingEditHistory> rows = billingEditHistoryRepository.findByBillingIdOrderByIdAsc(billingId);
+        long storedBytes = 0, fullJsonBytes = 0;
+        int checkpoints = 0, patches = 0, legacy = 0;
+        long start = System.nanoTime();
+        JsonNode previous = null;
+        for (BillingEditHistory row : rows) {
+            previous = decode(row, previous);
+            if (row.getSnapshotFormat() == null) {
+                legacy++;
+                storedBytes += row.getSnapshotData().getBytes(StandardCharsets.UTF_8).length;
+            } else {
+                if (row.getSnapshotFormat() == BillingEditHistory.SnapshotFormat.FULL) checkpoints++;
+                else patches++;
+                storedBytes += row.getSnapshotBlob().length;
+            }
+            fullJsonBytes += row.getFullSize() != null ? row.getFullSize() : toBytes(previous).length;
+        }
+        long replayAllMicros = (System.nanoTime() - start) / 1000;
+
+        start = System.nanoTime();
+        getLatestSnapshot(billingId);
+        long latestMicros = (System.nanoTime() - start) / 1000;
+
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("billingId", billingId);
+        m.put("snapshots", rows.size());
+        m.put("checkpoints", checkpoints);
+        m.put("patches", patches);
+        m.put("legacyPlainSnapshots", legacy);
+        m.put("storedBytes", storedBytes);
+        m.put("fullJsonBytes", fullJsonBytes);
+        m.put("compressionRatio", storedBytes > 0 ? Math.round(fullJsonBytes * 100.0 / storedBytes) / 100.0 : null);
+        m.put("reconstructLatestMicros", latestMicros);
+        m.put("reconstructAllMicros", replayAllMicros);
+        return m;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Replay a checkpoint and the patches after it
+     */
+    private JsonNode reconstruct(List<BillingEditHistory> tail) {
+        JsonNode snapshot = null;
+        for (BillingEditHistory row : tail) {
+            snapshot = decode(row, snapshot);
+        }
+        return snapshot;
+    }
+
+    private JsonNode decode(BillingEditHistory row, JsonNode previous) {
+        try {
+            if (row.getSnapshotFormat() == null) {
+                return objectMapper.readTree(row.getSnapshotData());
+            }
+            JsonNode node = objectMapper.readTree(inflate(row.getSnapshotBlob()));
+            if (row.getSnapshotFormat() == BillingEditHistory.SnapshotFormat.FULL) {
+                return node;
+            }
+            if (previous == null) {
+                throw new IllegalStateException("Edit history " + row.getId() + " is a patch without a preceding snapshot");
+            }
+            return JsonPatch.apply(previous, node);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read edit history " + row.getId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] toBytes(JsonNode node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize bill snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed snapshot");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed snapshot", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
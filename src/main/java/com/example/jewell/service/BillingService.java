@@ -2,6 +2,8 @@ package com.example.jewell.service;
 
 import com.example.jewell.model.*;
 import com.example.jewell.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -15,8 +17,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +29,8 @@ import java.util.stream.Collectors;
 @Service
 @Transactional
 public class BillingService {
+    private static final Logger log = LoggerFactory.getLogger(BillingService.class);
+
     @Autowired
     private BillingRepository billingRepository;
 
@@ -37,7 +41,17 @@ public class BillingService {
     private CreditRepository creditRepository;
 
     @Autowired
-    private EmailService emailService;
+    private ReceivablesAgingService receivablesAgingService;
+
+    @Autowired
+    private CustomerBalanceCache customerBalanceCache;
+
+    @Autowired
+    private BillPdfCache billPdfCache;
+
+    @Autowired
+    private MailQueueService mailQueueService;
+
 
     @Autowired
     private WhatsAppService whatsAppService;
@@ -64,7 +78,13 @@ public class BillingService {
     private BillingItemRepository billingItemRepository;
 
     @Autowired
-    private BillingEditHistoryRepository billingEditHistoryRepository;
+    private BillingEditHistoryService billingEditHistoryService;
+
+    @Autowired
+    private BillNumberAllocator billNumberAllocator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /** Points earned per 100 rupees of bill (configurable). */
     private static final int LOYALTY_POINTS_PER_100 = 1;
@@ -98,11 +118,6 @@ public class BillingService {
     }
 
     public Billing createBill(Billing billing) {
-        // Generate bill number
-        if (billing.getBillNumber() == null || billing.getBillNumber().isEmpty()) {
-            billing.setBillNumber(generateBillNumber());
-        }
-
         // Set billing reference and item name/articleCode from stock for each item
         if (billing.getItems() != null) {
             for (BillingItem item : billing.getItems()) {
@@ -110,13 +125,7 @@ public class BillingService {
                 if (item.getStock() != null && item.getStock().getId() != null) {
                     Stock s = stockRepository.findById(item.getStock().getId()).orElse(null);
                     if (s != null) {
-                        if (item.getItemName() == null || item.getItemName().isEmpty()) {
-                            item.setItemName(s.getArticleName());
-                        }
-                        item.setArticleCode(s.getArticleCode());
-                        if (item.getWeightGrams() == null && s.getWeightGrams() != null) item.setWeightGrams(s.getWeightGrams());
-                        if (item.getCarat() == null && s.getCarat() != null) item.setCarat(s.getCarat());
-                        if (item.getDiamondCarat() == null && s.getDiamondCarat() != null) item.setDiamondCarat(s.getDiamondCarat());
+                        applyStockDetails(item, s);
                     }
                 }
             }
@@ -171,43 +180,7 @@ public class BillingService {
         billing.setDiscountAmount(discount);
 
         // Handle paid amount: support split payment (paymentBreakdown) or single method + amount
-        BigDecimal paidAmount = BigDecimal.ZERO;
-        String breakdown = billing.getPaymentBreakdown();
-        if (breakdown != null && !breakdown.trim().isEmpty()) {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                List<Map<String, Object>> payments = mapper.readValue(breakdown, new TypeReference<List<Map<String, Object>>>() {});
-                for (Map<String, Object> p : payments) {
-                    Object amt = p.get("amount");
-                    if (amt != null) {
-                        if (amt instanceof Number) paidAmount = paidAmount.add(BigDecimal.valueOf(((Number) amt).doubleValue()));
-                        else paidAmount = paidAmount.add(new BigDecimal(amt.toString()));
-                    }
-                }
-                paidAmount = paidAmount.setScale(2, java.math.RoundingMode.HALF_UP);
-                billing.setPaidAmount(paidAmount);
-                billing.setPaymentMethod(Billing.PaymentMethod.MIXED);
-            } catch (Exception e) {
-                // fallback to single payment
-                paidAmount = billing.getPaidAmount() != null ? billing.getPaidAmount() : BigDecimal.ZERO;
-                billing.setPaidAmount(paidAmount);
-            }
-        } else {
-            paidAmount = billing.getPaidAmount() != null ? billing.getPaidAmount() : BigDecimal.ZERO;
-            if (billing.getPaymentMethod() == Billing.PaymentMethod.CASH && paidAmount.compareTo(BigDecimal.ZERO) == 0) {
-                paidAmount = finalAmount;
-            }
-            billing.setPaidAmount(paidAmount);
-        }
-        
-        // Set payment status based on paid amount
-        if (paidAmount.compareTo(finalAmount) >= 0) {
-            billing.setPaymentStatus(Billing.PaymentStatus.PAID);
-        } else if (paidAmount.compareTo(BigDecimal.ZERO) > 0) {
-            billing.setPaymentStatus(Billing.PaymentStatus.PARTIAL);
-        } else {
-            billing.setPaymentStatus(Billing.PaymentStatus.PENDING);
-        }
+        BigDecimal paidAmount = applyPayment(billing, finalAmount);
 
         // Validate stock quantity before saving: total ordered must not exceed available
         if (billing.getItems() != null) {
@@ -228,7 +201,13 @@ public class BillingService {
             }
         }
 
+        // Generate bill number only once the bill is valid; numbers are allocated outside this transaction
+        if (billing.getBillNumber() == null || billing.getBillNumber().isEmpty()) {
+            billing.setBillNumber(generateBillNumber());
+        }
+
         // Save billing
+        billing.setEditVersion(0);
         Billing savedBilling = billingRepository.save(billing);
 
         // Deduct sold quantity from stock; set SOLD only when quantity reaches 0
@@ -255,58 +234,21 @@ public class BillingService {
         }
 
         // Create credit entry if payment method is CREDIT or if partial payment was made
-        BigDecimal remainingAmount = finalAmount.subtract(paidAmount);
-        
-        if (billing.getPaymentMethod() == Billing.PaymentMethod.CREDIT) {
-            // Full credit for CREDIT payment method
-            Credit credit = new Credit();
-            credit.setCustomer(billing.getCustomer());
-            credit.setBilling(savedBilling);
-            credit.setCreditAmount(finalAmount);
-            credit.setRemainingAmount(finalAmount);
-            credit.setStatus(Credit.CreditStatus.PENDING);
-            credit.setDescription("Credit for Bill: " + savedBilling.getBillNumber());
-            creditRepository.save(credit);
-        } else if (remainingAmount.compareTo(BigDecimal.ZERO) > 0) {
-            // Partial payment - create credit for remaining amount
-            Credit credit = new Credit();
-            credit.setCustomer(billing.getCustomer());
-            credit.setBilling(savedBilling);
-            credit.setCreditAmount(remainingAmount);
-            credit.setRemainingAmount(remainingAmount);
-            credit.setStatus(Credit.CreditStatus.PENDING);
-            credit.setDescription("Partial payment - Remaining amount for Bill: " + savedBilling.getBillNumber() + 
-                                 " (Paid: ₹" + paidAmount + ", Remaining: ₹" + remainingAmount + ")");
-            creditRepository.save(credit);
+        if (createCreditIfOwed(savedBilling, finalAmount, paidAmount)) {
+            receivablesAgingService.invalidate();
         }
 
         // Record income transaction for the paid amount
-        if (paidAmount.compareTo(BigDecimal.ZERO) > 0 && savedBilling.getPaymentStatus() == Billing.PaymentStatus.PAID) {
-            incomeExpenseService.recordIncomeFromBilling(savedBilling);
-        } else if (paidAmount.compareTo(BigDecimal.ZERO) > 0 && savedBilling.getPaymentStatus() == Billing.PaymentStatus.PARTIAL) {
-            // For partial payments, record income for the paid amount
-            incomeExpenseService.recordIncomeFromBilling(savedBilling);
-        }
+        recordIncomeIfPaid(savedBilling, paidAmount);
 
         // Loyalty: earn points (1 per 100 rupees) and apply redeem
         if (savedBilling.getCustomer() != null && savedBilling.getCustomer().getId() != null) {
             Customer cust = customerRepository.findById(savedBilling.getCustomer().getId()).orElse(null);
             if (cust != null) {
-                BigDecimal finalAmt = savedBilling.getFinalAmount();
-                if (finalAmt != null && finalAmt.compareTo(BigDecimal.ZERO) > 0) {
-                    int pointsEarned = finalAmt.divide(BigDecimal.valueOf(100), 0, RoundingMode.DOWN).intValue() * LOYALTY_POINTS_PER_100;
-                    if (pointsEarned > 0) {
-                        BigDecimal current = cust.getLoyaltyPoints() != null ? cust.getLoyaltyPoints() : BigDecimal.ZERO;
-                        cust.setLoyaltyPoints(current.add(BigDecimal.valueOf(pointsEarned)));
-                        customerRepository.save(cust);
-                        LoyaltyTransaction earn = new LoyaltyTransaction();
-                        earn.setCustomer(cust);
-                        earn.setType(LoyaltyTransaction.TransactionType.EARN);
-                        earn.setPoints(BigDecimal.valueOf(pointsEarned));
-                        earn.setBilling(savedBilling);
-                        earn.setDescription("Earned on Bill " + savedBilling.getBillNumber());
-                        loyaltyTransactionRepository.save(earn);
-                    }
+                LoyaltyTransaction earn = earnLoyaltyPoints(cust, savedBilling);
+                if (earn != null) {
+                    customerRepository.save(cust);
+                    loyaltyTransactionRepository.save(earn);
                 }
                 if (toRedeem > 0) {
                     BigDecimal current = cust.getLoyaltyPoints() != null ? cust.getLoyaltyPoints() : BigDecimal.ZERO;
@@ -328,16 +270,29 @@ public class BillingService {
             giftVoucherService.redeemVoucher(billing.getVoucherCode().trim(), savedBilling);
         }
 
+        if (savedBilling.getCustomer() != null) {
+            customerBalanceCache.onCustomerChanged(savedBilling.getCustomer().getId());
+        }
+        billPdfCache.prerenderAfterCommit(savedBilling.getId());
         return savedBilling;
     }
 
+    /**
+     * Rendered bill PDF (cached per bill version)
+     */
+    @Transactional(readOnly = true)
+    public byte[] getBillPdf(Long billingId, String receiptType) {
+        Billing billing = billingRepository.findById(billingId)
+                .orElseThrow(() -> new RuntimeException("Billing not found"));
+        return billPdfCache.getPdf(billing, receiptType);
+    }
+
     public void sendBillViaEmail(Long billingId, String receiptType) {
         Billing billing = billingRepository.findById(billingId)
                 .orElseThrow(() -> new RuntimeException("Billing not found"));
         
-        emailService.sendBillEmail(billing, receiptType != null ? receiptType.toUpperCase() : "NORMAL");
-        billing.setEmailSent(true);
-        billingRepository.save(billing);
+        // Delivered by the mail queue worker, which also sets emailSent once the message is accepted
+        mailQueueService.enqueueBillEmail(billing, receiptType != null ? receiptType.toUpperCase() : "NORMAL");
     }
 
     public void sendBillViaWhatsApp(Long billingId, String receiptType) {
@@ -355,7 +310,8 @@ public class BillingService {
      * When paid amount changes: updates credit remainingAmount and income transactions.
      */
     public Billing updateBill(Long id, Billing updates) {
-        Billing billing = billingRepository.findById(id)
+        // Locked until commit: concurrent edits of this bill, and their history entries, go one after the other
+        Billing billing = billingRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Billing not found"));
 
         // Save snapshot of current state before any changes (for edit history)
@@ -493,8 +449,7 @@ public class BillingService {
         String breakdown = billing.getPaymentBreakdown();
         if (breakdown != null && !breakdown.trim().isEmpty()) {
             try {
-                ObjectMapper mapper = new ObjectMapper();
-                List<Map<String, Object>> payments = mapper.readValue(breakdown, new TypeReference<List<Map<String, Object>>>() {});
+                List<Map<String, Object>> payments = objectMapper.readValue(breakdown, new TypeReference<List<Map<String, Object>>>() {});
                 BigDecimal computed = BigDecimal.ZERO;
                 for (Map<String, Object> p : payments) {
                     Object amt = p.get("amount");
@@ -526,6 +481,7 @@ public class BillingService {
             billing.setPaymentStatus(Billing.PaymentStatus.PENDING);
         }
 
+        billing.setEditVersion((billing.getEditVersion() != null ? billing.getEditVersion() : 0) + 1);
         Billing saved = billingRepository.save(billing);
 
         // Update credit entries for this billing
@@ -542,6 +498,9 @@ public class BillingService {
             }
             creditRepository.save(credit);
         }
+        if (!credits.isEmpty()) {
+            receivablesAgingService.invalidate();
+        }
 
         // Re-record income: delete old transactions for this billing, then record with new amounts
         transactionHistoryRepository.deleteByBilling_Id(id);
@@ -549,19 +508,147 @@ public class BillingService {
             incomeExpenseService.recordIncomeFromBilling(saved);
         }
 
+        if (saved.getCustomer() != null) {
+            customerBalanceCache.onCustomerChanged(saved.getCustomer().getId());
+        }
+        billPdfCache.prerenderAfterCommit(saved.getId());
         return saved;
     }
 
     private String generateBillNumber() {
-        String prefix = "BILL";
-        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        Long count = billingRepository.count() + 1;
-        return String.format("%s-%s-%05d", prefix, date, count);
+        return BillNumberAllocator.format(LocalDate.now(), billNumberAllocator.allocate(1));
+    }
+
+    /**
+     * Copy name, article code and weights from the stock piece onto a bill line (name and weights only if unset)
+     */
+    void applyStockDetails(BillingItem item, Stock s) {
+        if (item.getItemName() == null || item.getItemName().isEmpty()) {
+            item.setItemName(s.getArticleName());
+        }
+        item.setArticleCode(s.getArticleCode());
+        if (item.getWeightGrams() == null && s.getWeightGrams() != null) item.setWeightGrams(s.getWeightGrams());
+        if (item.getCarat() == null && s.getCarat() != null) item.setCarat(s.getCarat());
+        if (item.getDiamondCarat() == null && s.getDiamondCarat() != null) item.setDiamondCarat(s.getDiamondCarat());
+    }
+
+    /**
+     * Set paid amount (split breakdown, or single method where unpaid CASH means paid in full) and payment status;
+     * returns the paid amount
+     */
+    BigDecimal applyPayment(Billing billing, BigDecimal finalAmount) {
+        BigDecimal paidAmount = BigDecimal.ZERO;
+        String breakdown = billing.getPaymentBreakdown();
+        if (breakdown != null && !breakdown.trim().isEmpty()) {
+            try {
+                List<Map<String, Object>> payments = objectMapper.readValue(breakdown, new TypeReference<List<Map<String, Object>>>() {});
+                for (Map<String, Object> p : payments) {
+                    Object amt = p.get("amount");
+                    if (amt != null) {
+                        if (amt instanceof Number) paidAmount = paidAmount.add(BigDecimal.valueOf(((Number) amt).doubleValue()));
+                        else paidAmount = paidAmount.add(new BigDecimal(amt.toString()));
+                    }
+                }
+                paidAmount = paidAmount.setScale(2, java.math.RoundingMode.HALF_UP);
+                billing.setPaidAmount(paidAmount);
+                billing.setPaymentMethod(Billing.PaymentMethod.MIXED);
+            } catch (Exception e) {
+                // fallback to single payment
+                paidAmount = billing.getPaidAmount() != null ? billing.getPaidAmount() : BigDecimal.ZERO;
+                billing.setPaidAmount(paidAmount);
+            }
+        } else {
+            paidAmount = billing.getPaidAmount() != null ? billing.getPaidAmount() : BigDecimal.ZERO;
+            if (billing.getPaymentMethod() == Billing.PaymentMethod.CASH && paidAmount.compareTo(BigDecimal.ZERO) == 0) {
+                paidAmount = finalAmount;
+            }
+            billing.setPaidAmount(paidAmount);
+        }
+
+        // Set payment status based on paid amount
+        if (paidAmount.compareTo(finalAmount) >= 0) {
+            billing.setPaymentStatus(Billing.PaymentStatus.PAID);
+        } else if (paidAmount.compareTo(BigDecimal.ZERO) > 0) {
+            billing.setPaymentStatus(Billing.PaymentStatus.PARTIAL);
+        } else {
+            billing.setPaymentStatus(Billing.PaymentStatus.PENDING);
+        }
+        return paidAmount;
+    }
+
+    /**
+     * Udhari for a saved bill: the full amount for CREDIT bills, otherwise the unpaid remainder; returns true if created
+     */
+    boolean createCreditIfOwed(Billing savedBilling, BigDecimal finalAmount, BigDecimal paidAmount) {
+        BigDecimal remainingAmount = finalAmount.subtract(paidAmount);
+
+        if (savedBilling.getPaymentMethod() == Billing.PaymentMethod.CREDIT) {
+            // Full credit for CREDIT payment method
+            Credit credit = new Credit();
+            credit.setCustomer(savedBilling.getCustomer());
+            credit.setBilling(savedBilling);
+            credit.setCreditAmount(finalAmount);
+            credit.setRemainingAmount(finalAmount);
+            credit.setStatus(Credit.CreditStatus.PENDING);
+            credit.setDescription("Credit for Bill: " + savedBilling.getBillNumber());
+            creditRepository.save(credit);
+            return true;
+        } else if (remainingAmount.compareTo(BigDecimal.ZERO) > 0) {
+            // Partial payment - create credit for remaining amount
+            Credit credit = new Credit();
+            credit.setCustomer(savedBilling.getCustomer());
+            credit.setBilling(savedBilling);
+            credit.setCreditAmount(remainingAmount);
+            credit.setRemainingAmount(remainingAmount);
+            credit.setStatus(Credit.CreditStatus.PENDING);
+            credit.setDescription("Partial payment - Remaining amount for Bill: " + savedBilling.getBillNumber() + 
+                                 " (Paid: ₹" + paidAmount + ", Remaining: ₹" + remainingAmount + ")");
+            creditRepository.save(credit);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Income entry for the paid part of a newly saved bill
+     */
+    void recordIncomeIfPaid(Billing savedBilling, BigDecimal paidAmount) {
+        Billing.PaymentStatus status = savedBilling.getPaymentStatus();
+        if (paidAmount.compareTo(BigDecimal.ZERO) > 0
+                && (status == Billing.PaymentStatus.PAID || status == Billing.PaymentStatus.PARTIAL)) {
+            incomeExpenseService.recordIncomeFromBilling(savedBilling);
+        }
+    }
+
+    /**
+     * Add the points earned on a saved bill to the customer; returns the EARN entry to save, or null if none were earned
+     */
+    LoyaltyTransaction earnLoyaltyPoints(Customer cust, Billing savedBilling) {
+        BigDecimal finalAmt = savedBilling.getFinalAmount();
+        if (finalAmt == null || finalAmt.compareTo(BigDecimal.ZERO) <= 0) return null;
+        int pointsEarned = loyaltyPointsEarned(finalAmt);
+        if (pointsEarned <= 0) return null;
+        BigDecimal current = cust.getLoyaltyPoints() != null ? cust.getLoyaltyPoints() : BigDecimal.ZERO;
+        cust.setLoyaltyPoints(current.add(BigDecimal.valueOf(pointsEarned)));
+        LoyaltyTransaction earn = new LoyaltyTransaction();
+        earn.setCustomer(cust);
+        earn.setType(LoyaltyTransaction.TransactionType.EARN);
+        earn.setPoints(BigDecimal.valueOf(pointsEarned));
+        earn.setBilling(savedBilling);
+        earn.setDescription("Earned on Bill " + savedBilling.getBillNumber());
+        return earn;
+    }
+
+    /**
+     * Loyalty points earned on a bill (1 per 100 rupees)
+     */
+    static int loyaltyPointsEarned(BigDecimal finalAmount) {
+        return finalAmount.divide(BigDecimal.valueOf(100), 0, RoundingMode.DOWN).intValue() * LOYALTY_POINTS_PER_100;
     }
 
     private void saveBillingSnapshot(Billing billing) {
+        Map<String, Object> snapshot = new HashMap<>();
         try {
-            Map<String, Object> snapshot = new HashMap<>();
             snapshot.put("billNumber", billing.getBillNumber());
             snapshot.put("createdAt", billing.getCreatedAt() != null ? billing.getCreatedAt().toString() : null);
             if (billing.getCustomer() != null) {
@@ -597,19 +684,26 @@ public class BillingService {
                         .collect(Collectors.toList());
                 snapshot.put("items", items);
             }
-            ObjectMapper mapper = new ObjectMapper();
-            String json = mapper.writeValueAsString(snapshot);
-            BillingEditHistory history = new BillingEditHistory();
-            history.setBilling(billing);
-            history.setSnapshotData(json);
-            billingEditHistoryRepository.save(history);
         } catch (Exception e) {
-            // Log but don't fail the update if snapshot fails
-            // org.slf4j.Logger could be used
+            // Don't fail the update if the snapshot cannot be built
+            log.warn("Could not save edit snapshot for bill {}: {}", billing.getId(), e.getMessage());
+            return;
         }
+        // Written in this transaction: a failed write rolls back the edit instead of leaving it without history
+        billingEditHistoryService.record(billing, snapshot);
     }
 
-    public List<BillingEditHistory> getBillEditHistory(Long billingId) {
-        return billingEditHistoryRepository.findByBillingIdOrderByCreatedAtDesc(billingId);
+    /**
+     * Snapshots taken before each edit, newest first
+     */
+    public List<Map<String, Object>> getBillEditHistory(Long billingId) {
+        return billingEditHistoryService.getHistory(billingId);
+    }
+
+    /**
+     * Edit history storage (compressed diffs against plain JSON) and reconstruction time for a bill
+     */
+    public Map<String, Object> getBillEditHistoryStats(Long billingId) {
+        return billingEditHistoryService.getStorageStats(billingId);
     }
 }
@@ -0,0 +1,329 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.BlogPost;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffers blog view/like/share increments in memory and flushes them to
+ * blog_posts with one batched UPDATE per interval, instead of one UPDATE per hit.
+ *
+ * Optional crash safety: when blog.counters.journal.enabled=true every increment is
+ * appended to a journal file before it is counted. The journal is rotated on each
+ * flush and replayed on startup, so a crash between flushes loses nothing.
+ *
+ * Flushed posts are dropped from the buffer, and at most blog.counters.max-pending-posts
+ * posts are buffered at once; increments for further posts are dropped until the next flush.
+ */
+@Service
+public class BlogCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlogCounterService.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE blog_posts SET view_count = COALESCE(view_count, 0) + ?, " +
+            "like_count = COALESCE(like_count, 0) + ?, " +
+            "share_count = COALESCE(share_count, 0) + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Value("${blog.counters.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${blog.counters.journal.path:data/blog-counters.log}")
+    private String journalPath;
+
+    @Value("${blog.counters.journal.fsync:false}")
+    private boolean journalFsync;
+
+    @Value("${blog.counters.max-pending-posts:10000}")
+    private int maxPendingPosts;
+
+    private final Map<Long, PendingCounts> pending = new ConcurrentHashMap<>();
+
+    // Increments take the read lock (concurrent appends), drain and rotation take the write lock
+    private final ReentrantReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private volatile FileChannel journal;
+
+    @PostConstruct
+    public void init() {
+        if (!journalEnabled) return;
+        try {
+            Path path = Paths.get(journalPath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            // Replay anything left over from a previous run (including a flush that never finished)
+            replay(flushingPath());
+            replay(path);
+            journal = openJournal(path);
+            // Persist the replayed deltas as a single compacted record set
+            rewriteJournal();
+            Files.deleteIfExists(flushingPath());
+            log.info("Blog counter journal enabled at {} ({} posts pending)", path, pending.size());
+        } catch (IOException e) {
+            log.error("Could not open blog counter journal {}, falling back to memory-only counters: {}",
+                    journalPath, e.getMessage());
+            journal = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close blog counter journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    public void recordView(Long postId) {
+        record(postId, 1, 0, 0);
+    }
+
+    public void recordLike(Long postId) {
+        record(postId, 0, 1, 0);
+    }
+
+    public void recordShare(Long postId) {
+        record(postId, 0, 0, 1);
+    }
+
+    /**
+     * Merge pending (not yet flushed) increments into a post's persisted counts.
+     * Callers must only pass entities that will not be written back (read-only transaction).
+     */
+    public BlogPost mergePending(BlogPost post) {
+        if (post == null || post.getId() == null) return post;
+        PendingCounts counts = pending.get(post.getId());
+        if (counts == null) return post;
+        post.setViewCount(nullToZero(post.getViewCount()) + counts.views.sum());
+        post.setLikeCount(nullToZero(post.getLikeCount()) + counts.likes.sum());
+        post.setShareCount(nullToZero(post.getShareCount()) + counts.shares.sum());
+        return post;
+    }
+
+    public List<BlogPost> mergePending(List<BlogPost> posts) {
+        if (pending.isEmpty()) return posts;
+        posts.forEach(this::mergePending);
+        return posts;
+    }
+
+    /**
+     * Total views not yet flushed, across all posts (for blog stats)
+     */
+    public long getPendingViewTotal() {
+        long total = 0;
+        for (PendingCounts counts : pending.values()) {
+            total += counts.views.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Drain all pending increments and apply them with one JDBC batch.
+     * On failure the drained deltas are put back so the next interval retries them.
+     */
+    @Scheduled(fixedDelayString = "${blog.counters.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        Map<Long, long[]> drained;
+        journalLock.writeLock().lock();
+        try {
+            drained = drain();
+            if (drained.isEmpty()) return;
+            rotateJournal();
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>(drained.size());
+        for (Map.Entry<Long, long[]> entry : drained.entrySet()) {
+            long[] d = entry.getValue();
+            batchArgs.add(new Object[]{d[0], d[1], d[2], entry.getKey()});
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batchArgs);
+            deleteFlushingJournal();
+            // Listings show counts, so cached listing ETags go stale once per flush (not per view)
+            tableVersionService.bump(TableVersionService.BLOG_POSTS);
+        } catch (Exception e) {
+            log.error("Failed to flush blog counters for {} posts, will retry: {}", drained.size(), e.getMessage());
+            journalLock.writeLock().lock();
+            try {
+                drained.forEach((id, d) -> addPending(id, d[0], d[1], d[2]));
+                // The re-added deltas now live in memory again; fold them back into the live journal
+                rewriteJournal();
+                deleteFlushingJournal();
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void record(Long postId, long views, long likes, long shares) {
+        if (postId == null) return;
+        // Held without a journal too: drain removes entries, which must not race an increment
+        journalLock.readLock().lock();
+        try {
+            // Approximate under concurrency; bounds memory if ids are not validated upstream
+            if (pending.size() >= maxPendingPosts && !pending.containsKey(postId)) {
+                log.warn("Blog counter buffer full ({} posts), dropping increment for post {}", maxPendingPosts, postId);
+                return;
+            }
+            if (journal != null) {
+                appendToJournal(postId, views, likes, shares);
+            }
+            addPending(postId, views, likes, shares);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    private void addPending(Long postId, long views, long likes, long shares) {
+        PendingCounts counts = pending.computeIfAbsent(postId, id -> new PendingCounts());
+        if (views != 0) counts.views.add(views);
+        if (likes != 0) counts.likes.add(likes);
+        if (shares != 0) counts.shares.add(shares);
+    }
+
+    /**
+     * Must be called with the journal write lock held, so no increment is half-recorded
+     * and the entries can be removed.
+     */
+    private Map<Long, long[]> drain() {
+        Map<Long, long[]> drained = new HashMap<>();
+        for (Map.Entry<Long, PendingCounts> entry : pending.entrySet()) {
+            PendingCounts counts = entry.getValue();
+            long views = counts.views.sum();
+            long likes = counts.likes.sum();
+            long shares = counts.shares.sum();
+            if (views != 0 || likes != 0 || shares != 0) {
+                drained.put(entry.getKey(), new long[]{views, likes, shares});
+            }
+        }
+        pending.clear();
+        return drained;
+    }
+
+    private void appendToJournal(Long postId, long views, long likes, long shares) {
+        String line = postId + " " + views + " " + likes + " " + shares + "\n";
+        try {
+            journal.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII)));
+            if (journalFsync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to append to blog counter journal: {}", e.getMessage());
+        }
+    }
+
+    private void rotateJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+            Path path = Paths.get(journalPath);
+            Files.move(path, flushingPath(), StandardCopyOption.REPLACE_EXISTING);
+            journal = openJournal(path);
+        } catch (IOException e) {
+            log.error("Failed to rotate blog counter journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the live journal with one compacted line per pending post.
+     */
+    private void rewriteJournal() {
+        if (journal == null) return;
+        try {
+            journal.truncate(0);
+            for (Map.Entry<Long, PendingCounts> entry : pending.entrySet()) {
+                PendingCounts counts = entry.getValue();
+                appendToJournal(entry.getKey(), counts.views.sum(), counts.likes.sum(), counts.shares.sum());
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            log.error("Failed to rewrite blog counter journal: {}", e.getMessage());
+        }
+    }
+
+    private void deleteFlushingJournal() {
+        if (journal == null) return;
+        try {
+            Files.deleteIfExists(flushingPath());
+        } catch (IOException e) {
+            log.warn("Failed to delete flushed blog counter journal: {}", e.getMessage());
+        }
+    }
+
+    private void replay(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length != 4) continue; // torn write at crash time
+                try {
+                    addPending(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                            Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+                } catch (NumberFormatException ignored) {
+                    // skip corrupt line
+                }
+            }
+        }
+    }
+
+    private FileChannel openJournal(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path flushingPath() {
+        return Paths.get(journalPath + ".flushing");
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static class PendingCounts {
+        final LongAdder views = new LongAdder();
+        final LongAdder likes = new LongAdder();
+        final LongAdder shares = new LongAdder();
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.jewell.service;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.jewell.dto.BlogPostSummary;
 import com.example.jewell.model.BlogPost;
 import com.example.jewell.repository.BlogPostRepository;
+import com.example.jewell.repository.BlogPostSimilarityRepository;
+import com.example.jewell.utils.TransactionUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,6 +29,26 @@ public class BlogPostService {
     @Autowired
     private BlogPostRepository blogPostRepository;
 
+    @Autowired
+    private BlogCounterService blogCounterService;
+
+    @Autowired
+    private BlogSearchService blogSearchService;
+
+    @Autowired
+    private SitemapService sitemapService;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Autowired
+    private BlogRelatedPostsService blogRelatedPostsService;
+
+    @Autowired
+    private BlogPostSimilarityRepository blogPostSimilarityRepository;
+
+    private static final int SEARCH_RESULT_LIMIT = 50;
+
     // ========== PUBLIC ENDPOINTS ==========
 
     /**
@@ -41,72 +68,97 @@ public class BlogPostService {
 
     /**
      * Get post by slug (public)
+     * Read-only so the merged (pending) counts on the returned entity are never flushed back
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<BlogPost> getPublishedPostBySlug(String slug) {
         Optional<BlogPost> post = blogPostRepository.findBySlugAndPublishedTrue(slug);
-        // Increment view count
-        post.ifPresent(p -> blogPostRepository.incrementViewCount(p.getId()));
+        // Buffered view count - flushed to the DB in batches by BlogCounterService
+        post.ifPresent(p -> {
+            blogCounterService.recordView(p.getId());
+            blogCounterService.mergePending(p);
+        });
         return post;
     }
 
     /**
-     * Get featured posts
+     * Get featured posts (summaries, no content body)
+     */
+    public List<BlogPostSummary> getFeaturedPosts() {
+        return withTags(blogPostRepository.findFeaturedSummaries());
+    }
+
+    /**
+     * Get trending posts (summaries)
      */
-    public List<BlogPost> getFeaturedPosts() {
-        return blogPostRepository.findByFeaturedTrueAndPublishedTrueOrderByPublishedAtDesc();
+    public List<BlogPostSummary> getTrendingPosts() {
+        return withTags(blogPostRepository.findTrendingSummaries());
     }
 
     /**
-     * Get trending posts
+     * Get popular posts (top 10 by views, summaries)
      */
-    public List<BlogPost> getTrendingPosts() {
-        return blogPostRepository.findByTrendingTrueAndPublishedTrueOrderByViewCountDesc();
+    public List<BlogPostSummary> getPopularPosts() {
+        return withTags(blogPostRepository.findPopularSummaries(PageRequest.of(0, 10)));
     }
 
     /**
-     * Get popular posts (top 10 by views)
+     * Get recent posts (summaries)
      */
-    public List<BlogPost> getPopularPosts() {
-        return blogPostRepository.findTop10ByPublishedTrueOrderByViewCountDesc();
+    public List<BlogPostSummary> getRecentPosts() {
+        return withTags(blogPostRepository.findRecentSummaries(PageRequest.of(0, 5)));
     }
 
     /**
-     * Get recent posts
+     * Get posts by category (summaries)
      */
-    public List<BlogPost> getRecentPosts() {
-        return blogPostRepository.findTop5ByPublishedTrueOrderByCreatedAtDesc();
+    public List<BlogPostSummary> getPostsByCategory(String category) {
+        return withTags(blogPostRepository.findSummariesByCategory(category));
     }
 
     /**
-     * Get posts by category
+     * Get posts by tag (summaries)
      */
-    public List<BlogPost> getPostsByCategory(String category) {
-        return blogPostRepository.findByCategoryAndPublishedTrueOrderByCreatedAtDesc(category);
+    public List<BlogPostSummary> getPostsByTag(String tag) {
+        return withTags(blogPostRepository.findSummariesByTag(tag));
     }
 
     /**
-     * Get posts by tag
+     * Get posts in a series (summaries)
      */
-    public List<BlogPost> getPostsByTag(String tag) {
-        return blogPostRepository.findByTagAndPublishedTrue(tag);
+    public List<BlogPostSummary> getSeriesPosts(String seriesName) {
+        return withTags(blogPostRepository.findSeriesSummaries(seriesName));
     }
 
     /**
-     * Get posts in a series
+     * ETag for public listings - changes whenever any post is written or counters are flushed
      */
-    public List<BlogPost> getSeriesPosts(String seriesName) {
-        return blogPostRepository.findBySeriesNameAndPublishedTrueOrderBySeriesOrderAsc(seriesName);
+    public String getListingsEtag() {
+        return tableVersionService.etag(TableVersionService.BLOG_POSTS);
     }
 
     /**
-     * Search posts
+     * Search posts - ranked by the in-process full-text index (BM25), best match first
      */
     public List<BlogPost> searchPosts(String query) {
         if (query == null || query.trim().isEmpty()) {
             return List.of();
         }
-        return blogPostRepository.searchPosts(query.trim());
+        List<BlogSearchService.SearchHit> hits = blogSearchService.search(query.trim(), SEARCH_RESULT_LIMIT);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        return findAllInOrder(hits.stream().map(BlogSearchService.SearchHit::getPostId).toList());
+    }
+
+    /**
+     * Search posts with relevance scores and highlighted snippets (no entity load)
+     */
+    public List<BlogSearchService.SearchHit> searchPostsRanked(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return List.of();
+        }
+        return blogSearchService.search(query.trim(), Math.min(Math.max(limit, 1), SEARCH_RESULT_LIMIT));
     }
 
     /**
@@ -135,27 +187,42 @@ public class BlogPostService {
     }
 
     /**
-     * Get related posts
+     * Get related posts from the precomputed tag/category similarity graph (one indexed lookup).
+     * Falls back to same-category posts until the background job has covered a new post.
      */
-    public List<BlogPost> getRelatedPosts(Long postId, String category, int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return blogPostRepository.findRelatedByCategory(category, postId, pageable);
+    public List<BlogPostSummary> getRelatedPosts(Long postId, String category, int limit) {
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, blogRelatedPostsService.getTopK())));
+        List<BlogPostSummary> related = blogPostSimilarityRepository.findRelatedSummaries(postId, pageable);
+        if (related.isEmpty() && category != null && !category.isBlank()) {
+            related = blogPostRepository.findRelatedSummariesByCategory(category, postId, pageable);
+        }
+        return related;
     }
 
     /**
-     * Like a post
+     * Like a post (buffered, flushed in batches); false if there is no such published post
      */
-    @Transactional
-    public void likePost(Long id) {
-        blogPostRepository.incrementLikeCount(id);
+    public boolean likePost(Long id) {
+        if (!blogPostRepository.existsByIdAndPublishedTrue(id)) return false;
+        blogCounterService.recordLike(id);
+        return true;
     }
 
     /**
-     * Share a post (track)
+     * Share a post (track, buffered, flushed in batches); false if there is no such published post
      */
-    @Transactional
-    public void sharePost(Long id) {
-        blogPostRepository.incrementShareCount(id);
+    public boolean sharePost(Long id) {
+        if (!blogPostRepository.existsByIdAndPublishedTrue(id)) return false;
+        blogCounterService.recordShare(id);
+        return true;
+    }
+
+    /**
+     * Total views across published posts, including views not yet flushed
+     */
+    public long getTotalViews() {
+        Long persisted = blogPostRepository.sumViewCountByPublishedTrue();
+        return (persisted != null ? persisted : 0L) + blogCounterService.getPendingViewTotal();
     }
 
     // ========== ADMIN ENDPOINTS ==========
@@ -173,7 +240,11 @@ public class BlogPostService {
     public Page<BlogPost> getAllPostsPaginated(int page, int size, String search) {
         Pageable pageable = PageRequest.of(page, size);
         if (search != null && !search.trim().isEmpty()) {
-            return blogPostRepository.searchPostsPaginated(search.trim(), pageable);
+            // Ranked by the search index (drafts included), best match first; only the requested page is loaded
+            List<Long> ids = blogSearchService.searchAllIds(search.trim());
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + size, ids.size());
+            return new PageImpl<>(findAllInOrder(ids.subList(from, to)), pageable, ids.size());
         }
         return blogPostRepository.findAllByOrderByCreatedAtDesc(pageable);
     }
@@ -213,7 +284,9 @@ public class BlogPostService {
         // Generate schema markup
         post.setSchemaMarkup(generateSchemaMarkup(post));
         
-        return blogPostRepository.save(post);
+        BlogPost saved = blogPostRepository.save(post);
+        onPostChanged(saved);
+        return saved;
     }
 
     /**
@@ -285,7 +358,9 @@ public class BlogPostService {
         // Regenerate schema markup
         post.setSchemaMarkup(generateSchemaMarkup(post));
         
-        return blogPostRepository.save(post);
+        BlogPost saved = blogPostRepository.save(post);
+        onPostChanged(saved);
+        return saved;
     }
 
     /**
@@ -294,6 +369,13 @@ public class BlogPostService {
     @Transactional
     public void deletePost(Long id) {
         blogPostRepository.deleteById(id);
+        // Removed before commit, a rollback would leave the surviving post unsearchable
+        TransactionUtils.afterCommit(() -> blogSearchService.remove(id));
+        // A sitemap built before commit would cache the deleted post until the next write
+        TransactionUtils.afterCommit(sitemapService::invalidate);
+        // Bumped before commit, the new ETag could be paired with old rows and then answered with 304 forever
+        TransactionUtils.afterCommit(() -> tableVersionService.bump(TableVersionService.BLOG_POSTS));
+        TransactionUtils.afterCommit(() -> blogRelatedPostsService.refreshForPost(id));
     }
 
     /**
@@ -304,7 +386,9 @@ public class BlogPostService {
         BlogPost post = blogPostRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         post.setFeatured(!post.getFeatured());
-        return blogPostRepository.save(post);
+        BlogPost saved = blogPostRepository.save(post);
+        onPostChanged(saved);
+        return saved;
     }
 
     /**
@@ -321,11 +405,53 @@ public class BlogPostService {
             post.setPublishedAt(LocalDateTime.now());
         }
         
-        return blogPostRepository.save(post);
+        BlogPost saved = blogPostRepository.save(post);
+        onPostChanged(saved);
+        return saved;
     }
 
     // ========== HELPER METHODS ==========
 
+    /**
+     * Keep derived read models (search index, sitemap) in step with a saved post
+     */
+    private void onPostChanged(BlogPost saved) {
+        // Tags are lazy; load them while the session is open, the index reads them after commit
+        Hibernate.initialize(saved.getTags());
+        TransactionUtils.afterCommit(() -> blogSearchService.index(saved));
+        TransactionUtils.afterCommit(sitemapService::invalidate);
+        TransactionUtils.afterCommit(() -> tableVersionService.bump(TableVersionService.BLOG_POSTS));
+        Long id = saved.getId();
+        TransactionUtils.afterCommit(() -> blogRelatedPostsService.refreshForPost(id));
+    }
+
+    /**
+     * Load posts by id, keeping the order of {@code ids} (ranked search results); ids deleted since indexing are skipped
+     */
+    private List<BlogPost> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, BlogPost> postsById = blogPostRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(BlogPost::getId, p -> p));
+        return ids.stream()
+                .map(postsById::get)
+                .filter(p -> p != null)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Fill in tags for a list of summaries with one extra query
+     */
+    private List<BlogPostSummary> withTags(List<BlogPostSummary> summaries) {
+        if (summaries.isEmpty()) return summaries;
+        Map<Long, List<String>> tagsByPost = new HashMap<>();
+        for (Object[] row : blogPostRepository.findTagsByPostIds(
+                summaries.stream().map(BlogPostSummary::getId).toList())) {
+            tagsByPost.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        summaries.forEach(s -> s.setTags(tagsByPost.getOrDefault(s.getId(), List.of())));
+        return summaries;
+    }
+
     private String generateSlug(String title) {
         if (title == null) return "";
         return title.toLowerCase()
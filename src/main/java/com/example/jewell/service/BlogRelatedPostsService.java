@@ -0,0 +1,280 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.BlogPostSimilarity;
+import com.example.jewell.repository.BlogPostRepository;
+import com.example.jewell.repository.BlogPostSimilarityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains the precomputed related-posts graph (blog_post_similarity).
+ *
+ * Each published post is a set of features - its tags and its category - weighted by
+ * inverse document frequency, so a rare shared tag counts more than a common category.
+ * Similarity is weighted Jaccard: sum(w) over shared features / sum(w) over all features of both posts.
+ * The top-K neighbours per post are stored as ranked rows and read back with one indexed lookup.
+ *
+ * A full rebuild runs on startup and nightly; single-post changes are applied incrementally
+ * (the changed post plus every post that shares a feature with it or currently links to it).
+ * IDF weights drift slightly between full rebuilds, which the nightly job corrects.
+ *
+ * All writes run on one worker thread: requests only mark a rebuild or a post id as pending,
+ * and the worker applies everything pending in one pass (a pending rebuild covers pending posts).
+ */
+@Service
+public class BlogRelatedPostsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlogRelatedPostsService.class);
+
+    private static final double TAG_WEIGHT = 1.0;
+    private static final double CATEGORY_WEIGHT = 0.75;
+    private static final String CATEGORY_PREFIX = "category:";
+    private static final String TAG_PREFIX = "tag:";
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    @Autowired
+    private BlogPostSimilarityRepository similarityRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("relatedPostsExecutor")
+    private Executor relatedPostsExecutor;
+
+    @Value("${blog.related.top-k:6}")
+    private int topK;
+
+    private final Set<Long> pendingPostIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public int getTopK() {
+        return topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildAll();
+    }
+
+    /**
+     * Request a recompute of the whole graph (nightly, 03:30 by default)
+     */
+    @Scheduled(cron = "${blog.related.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        rebuildPending.set(true);
+        scheduleDrain();
+    }
+
+    /**
+     * Request an incremental update after a post was created, edited, (un)published or deleted.
+     * Call after the post's transaction has committed so the new tags/category are visible.
+     * Requests that arrive while the worker is busy are applied together in its next pass.
+     */
+    public void refreshForPost(Long postId) {
+        if (postId == null) return;
+        pendingPostIds.add(postId);
+        scheduleDrain();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void scheduleDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) return;
+        try {
+            relatedPostsExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+            log.warn("Related-posts update not scheduled, left pending for the next request: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs only on the single relatedPostsExecutor thread, so rebuilds and refreshes never
+     * interleave their delete + insert on (post_id, rank_no)
+     */
+    private void drain() {
+        // Cleared first: anything requested from here on schedules another pass
+        drainScheduled.set(false);
+        List<Long> postIds = new ArrayList<>(pendingPostIds);
+        pendingPostIds.removeAll(postIds);
+        if (rebuildPending.getAndSet(false)) {
+            // The rebuild reads the features after these ids were taken, so it covers them
+            rebuildGraph();
+        } else if (!postIds.isEmpty()) {
+            refreshPosts(postIds);
+        }
+    }
+
+    private void rebuildGraph() {
+        try {
+            long start = System.currentTimeMillis();
+            FeatureSet features = loadFeatures();
+            List<BlogPostSimilarity> edges = new ArrayList<>();
+            for (Long postId : features.featuresByPost.keySet()) {
+                edges.addAll(computeEdges(postId, features));
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                similarityRepository.deleteAllEdges();
+                similarityRepository.saveAll(edges);
+            });
+            log.info("Related-posts graph rebuilt: {} posts, {} edges in {} ms",
+                    features.featuresByPost.size(), edges.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to rebuild related-posts graph: {}", e.getMessage(), e);
+        }
+    }
+
+    private void refreshPosts(List<Long> postIds) {
+        try {
+            FeatureSet features = loadFeatures();
+
+            Set<Long> affected = new LinkedHashSet<>(postIds);
+            // Posts that listed these before the change (covers removed tags, unpublish, delete)
+            affected.addAll(similarityRepository.findPostIdsRelatedToAny(postIds));
+            // Posts that share a feature with them now
+            for (Long postId : postIds) {
+                affected.addAll(features.candidatesFor(postId));
+            }
+
+            List<BlogPostSimilarity> edges = new ArrayList<>();
+            for (Long id : affected) {
+                if (features.featuresByPost.containsKey(id)) {
+                    edges.addAll(computeEdges(id, features));
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                similarityRepository.deleteByPostIdIn(affected);
+                similarityRepository.saveAll(edges);
+            });
+            log.debug("Related-posts graph refreshed for posts {}: {} posts re-ranked", postIds, affected.size());
+        } catch (Exception e) {
+            log.error("Failed to refresh related posts for posts {}: {}", postIds, e.getMessage(), e);
+        }
+    }
+
+    private FeatureSet loadFeatures() {
+        Map<Long, Set<String>> featuresByPost = new HashMap<>();
+        for (Object[] row : blogPostRepository.findPublishedFeatures()) {
+            Long id = (Long) row[0];
+            Set<String> features = featuresByPost.computeIfAbsent(id, k -> new HashSet<>());
+            String category = (String) row[1];
+            String tag = (String) row[2];
+            if (category != null && !category.isBlank()) {
+                features.add(CATEGORY_PREFIX + category.trim().toLowerCase());
+            }
+            if (tag != null && !tag.isBlank()) {
+                features.add(TAG_PREFIX + tag.trim().toLowerCase());
+            }
+        }
+        return new FeatureSet(featuresByPost);
+    }
+
+    private List<BlogPostSimilarity> computeEdges(Long postId, FeatureSet features) {
+        Set<String> own = features.featuresByPost.get(postId);
+        if (own == null || own.isEmpty()) return List.of();
+        double ownWeight = features.totalWeight(own);
+
+        PriorityQueue<Neighbour> top = new PriorityQueue<>(topK + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (Long candidate : features.candidatesFor(postId)) {
+            Set<String> other = features.featuresByPost.get(candidate);
+            double shared = 0;
+            for (String f : own) {
+                if (other.contains(f)) shared += features.weight(f);
+            }
+            if (shared <= 0) continue;
+            double union = ownWeight + features.totalWeight(other) - shared;
+            double score = shared / union;
+            top.offer(new Neighbour(candidate, score));
+            if (top.size() > topK) top.poll();
+        }
+
+        List<Neighbour> ranked = new ArrayList<>(top);
+        ranked.sort((a, b) -> Double.compare(b.score, a.score));
+        List<BlogPostSimilarity> edges = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            edges.add(new BlogPostSimilarity(postId, ranked.get(i).id, i + 1, ranked.get(i).score));
+        }
+        return edges;
+    }
+
+    private static class Neighbour {
+        final Long id;
+        final double score;
+
+        Neighbour(Long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Feature sets of all published posts plus the feature -> posts inverted index used to find candidates
+     */
+    private static class FeatureSet {
+        final Map<Long, Set<String>> featuresByPost;
+        final Map<String, List<Long>> postsByFeature = new HashMap<>();
+        final Map<String, Double> weights = new HashMap<>();
+
+        FeatureSet(Map<Long, Set<String>> featuresByPost) {
+            this.featuresByPost = featuresByPost;
+            for (Map.Entry<Long, Set<String>> entry : featuresByPost.entrySet()) {
+                for (String f : entry.getValue()) {
+                    postsByFeature.computeIfAbsent(f, k -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+            int n = featuresByPost.size();
+            for (Map.Entry<String, List<Long>> entry : postsByFeature.entrySet()) {
+                double idf = Math.log(1.0 + (double) n / entry.getValue().size());
+                double base = entry.getKey().startsWith(CATEGORY_PREFIX) ? CATEGORY_WEIGHT : TAG_WEIGHT;
+                weights.put(entry.getKey(), base * idf);
+            }
+        }
+
+        double weight(String feature) {
+            return weights.getOrDefault(feature, 0.0);
+        }
+
+        double totalWeight(Set<String> features) {
+            double total = 0;
+            for (String f : features) total += weight(f);
+            return total;
+        }
+
+        Collection<Long> candidatesFor(Long postId) {
+            Set<String> own = featuresByPost.get(postId);
+            if (own == null) return List.of();
+            Set<Long> candidates = new HashSet<>();
+            for (String f : own) {
+                candidates.addAll(postsByFeature.getOrDefault(f, List.of()));
+            }
+            candidates.remove(postId);
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.BlogPost;
+import com.example.jewell.repository.BlogPostRepository;
+import com.example.jewell.utils.EnglishStemmer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process full-text index over blog posts.
+ *
+ * Inverted index (term -> postings) over title, excerpt, tags, category and body,
+ * with Porter stemming, field-weighted BM25 ranking and highlighted snippets.
+ * Built once on startup and updated incrementally when posts are created, edited,
+ * published/unpublished or deleted - no LIKE scan over post bodies and no external search service.
+ * Drafts are indexed too, for the admin listing; public search only returns published posts.
+ */
+@Service
+public class BlogSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlogSearchService.class);
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field weights: a match in the title counts more than one in the body
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double TAG_WEIGHT = 2.5;
+    private static final double CATEGORY_WEIGHT = 2.0;
+    private static final double EXCERPT_WEIGHT = 1.5;
+    private static final double BODY_WEIGHT = 1.0;
+
+    private static final int SNIPPET_WINDOW_TOKENS = 30;
+    private static final int MAX_QUERY_TERMS = 16;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have",
+            "he", "her", "his", "how", "i", "if", "in", "into", "is", "it", "its", "me", "my",
+            "not", "of", "on", "or", "our", "she", "so", "than", "that", "the", "their", "them",
+            "then", "there", "these", "they", "this", "to", "was", "we", "were", "what", "when",
+            "which", "who", "will", "with", "you", "your"
+    );
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    // term -> (postId -> field-weighted term frequency)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, IndexedDoc> docs = new HashMap<>();
+    private double totalDocLength = 0;
+    private int publishedDocs = 0;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Build the index after seeders have run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        try {
+            long start = System.currentTimeMillis();
+            rebuild(blogPostRepository.findAllWithTags());
+            log.info("Blog search index built: {} posts, {} terms in {} ms",
+                    docs.size(), postings.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build blog search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replace the whole index with the given posts
+     */
+    public void rebuild(Collection<BlogPost> posts) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            totalDocLength = 0;
+            publishedDocs = 0;
+            for (BlogPost post : posts) {
+                addDoc(post);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-index a single post after create / update / publish toggle
+     */
+    public void index(BlogPost post) {
+        if (post == null || post.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            removeDoc(post.getId());
+            addDoc(post);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long postId) {
+        if (postId == null) return;
+        lock.writeLock().lock();
+        try {
+            removeDoc(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of published posts that public search can return
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return publishedDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search over published posts. Returns at most {@code limit} hits, best first,
+     * each with a highlighted snippet.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> terms = analyzeQuery(query);
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = score(terms, false);
+            if (scores.isEmpty()) return List.of();
+
+            // Top-k with a bounded min-heap instead of sorting every match
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(
+                    limit + 1, Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) top.poll();
+            }
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+            Set<String> termSet = new LinkedHashSet<>(terms);
+            List<SearchHit> hits = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Double> entry : ranked) {
+                IndexedDoc doc = docs.get(entry.getKey());
+                hits.add(new SearchHit(doc.id, doc.slug, doc.title, entry.getValue(),
+                        highlightTitle(doc.title, termSet), buildSnippet(doc, termSet)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of every matching post, drafts included, best first (admin listing; no snippets)
+     */
+    public List<Long> searchAllIds(String query) {
+        List<String> terms = analyzeQuery(query);
+        if (terms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(score(terms, true).entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+            return ranked.stream().map(Map.Entry::getKey).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Field-weighted BM25 score per matching post; caller holds the read lock
+     */
+    private Map<Long, Double> score(List<String> terms, boolean includeDrafts) {
+        int n = docs.size();
+        if (n == 0) return Map.of();
+        double avgDocLength = totalDocLength / n;
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings == null) continue;
+            int df = termPostings.size();
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                IndexedDoc doc = docs.get(posting.getKey());
+                if (!includeDrafts && !doc.published) continue;
+                double tf = posting.getValue();
+                double norm = tf + K1 * (1 - B + B * doc.length / avgDocLength);
+                scores.merge(posting.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    // ========== INDEXING ==========
+
+    private void addDoc(BlogPost post) {
+        Map<String, Float> termFreqs = new HashMap<>();
+        double length = 0;
+        length += addField(termFreqs, post.getTitle(), TITLE_WEIGHT);
+        length += addField(termFreqs, post.getExcerpt(), EXCERPT_WEIGHT);
+        length += addField(termFreqs, post.getCategory(), CATEGORY_WEIGHT);
+        if (post.getTags() != null) {
+            for (String tag : post.getTags()) {
+                length += addField(termFreqs, tag, TAG_WEIGHT);
+            }
+        }
+        String body = stripHtml(post.getContent());
+        length += addField(termFreqs, body, BODY_WEIGHT);
+
+        for (Map.Entry<String, Float> entry : termFreqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(post.getId(), entry.getValue());
+        }
+        boolean published = Boolean.TRUE.equals(post.getPublished());
+        IndexedDoc doc = new IndexedDoc(post.getId(), post.getSlug(), post.getTitle(),
+                body.isEmpty() ? stripHtml(post.getExcerpt()) : body,
+                termFreqs.keySet().toArray(new String[0]), length, published);
+        docs.put(post.getId(), doc);
+        totalDocLength += length;
+        if (published) publishedDocs++;
+    }
+
+    private void removeDoc(Long postId) {
+        IndexedDoc doc = docs.remove(postId);
+        if (doc == null) return;
+        totalDocLength -= doc.length;
+        if (doc.published) publishedDocs--;
+        for (String term : doc.terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings == null) continue;
+            termPostings.remove(postId);
+            if (termPostings.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private double addField(Map<String, Float> termFreqs, String text, double weight) {
+        if (text == null || text.isEmpty()) return 0;
+        int count = 0;
+        for (Token token : tokenize(text)) {
+            termFreqs.merge(token.term, (float) weight, Float::sum);
+            count++;
+        }
+        return count * weight;
+    }
+
+    // ========== ANALYSIS ==========
+
+    private List<String> analyzeQuery(String query) {
+        if (query == null || query.isBlank()) return List.of();
+        Set<String> terms = new LinkedHashSet<>();
+        for (Token token : tokenize(query)) {
+            terms.add(token.term);
+            if (terms.size() >= MAX_QUERY_TERMS) break;
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Lowercase, split on non-alphanumerics, drop stop words, stem
+     */
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            while (i < len && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < len && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i - start < 2) continue;
+            String word = text.substring(start, i).toLowerCase();
+            if (STOP_WORDS.contains(word)) continue;
+            tokens.add(new Token(EnglishStemmer.stem(word), start, i));
+        }
+        return tokens;
+    }
+
+    private static String stripHtml(String html) {
+        if (html == null) return "";
+        return html.replaceAll("<[^>]*>", " ")
+                .replace("&nbsp;", " ")
+                .replace("&amp;", "&")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    // ========== SNIPPETS ==========
+
+    /**
+     * Pick the window of body text with the most distinct query terms and wrap matches in &lt;mark&gt;
+     */
+    private String buildSnippet(IndexedDoc doc, Set<String> terms) {
+        String text = doc.text;
+        if (text == null || text.isEmpty()) return "";
+        List<Token> tokens = tokenize(text);
+        if (tokens.isEmpty()) return escapeHtml(abbreviate(text, 200));
+
+        int bestStart = 0;
+        int bestScore = -1;
+        Map<String, Integer> windowCounts = new HashMap<>();
+        int left = 0;
+        for (int right = 0; right < tokens.size(); right++) {
+            String term = tokens.get(right).term;
+            if (terms.contains(term)) windowCounts.merge(term, 1, Integer::sum);
+            if (right - left + 1 > SNIPPET_WINDOW_TOKENS) {
+                String leaving = tokens.get(left).term;
+                if (terms.contains(leaving)) windowCounts.computeIfPresent(leaving, (k, v) -> v > 1 ? v - 1 : null);
+                left++;
+            }
+            if (windowCounts.size() > bestScore) {
+                bestScore = windowCounts.size();
+                bestStart = left;
+            }
+        }
+
+        int bestEnd = Math.min(tokens.size(), bestStart + SNIPPET_WINDOW_TOKENS) - 1;
+        int from = tokens.get(bestStart).start;
+        int to = tokens.get(bestEnd).end;
+        StringBuilder snippet = new StringBuilder();
+        if (from > 0) snippet.append("… ");
+        appendHighlighted(snippet, text, tokens.subList(bestStart, bestEnd + 1), terms, from, to);
+        if (to < text.length()) snippet.append(" …");
+        return snippet.toString();
+    }
+
+    private String highlightTitle(String title, Set<String> terms) {
+        if (title == null) return null;
+        StringBuilder sb = new StringBuilder();
+        appendHighlighted(sb, title, tokenize(title), terms, 0, title.length());
+        return sb.toString();
+    }
+
+    private void appendHighlighted(StringBuilder out, String text, List<Token> tokens,
+                                   Set<String> terms, int from, int to) {
+        int pos = from;
+        for (Token token : tokens) {
+            if (!terms.contains(token.term)) continue;
+            out.append(escapeHtml(text.substring(pos, token.start)));
+            out.append("<mark>").append(escapeHtml(text.substring(token.start, token.end))).append("</mark>");
+            pos = token.end;
+        }
+        out.append(escapeHtml(text.substring(pos, to)));
+    }
+
+    private static String abbreviate(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max);
+    }
+
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    // ========== TYPES ==========
+
+    private static class Token {
+        final String term;
+        final int start;
+        final int end;
+
+        Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class IndexedDoc {
+        final Long id;
+        final String slug;
+        final String title;
+        final String text;      // plain body text, used for snippets
+        final String[] terms;   // distinct terms, used to unlink postings on removal
+        final double length;    // field-weighted token count
+        final boolean published;
+
+        IndexedDoc(Long id, String slug, String title, String text, String[] terms, double length, boolean published) {
+            this.id = id;
+            this.slug = slug;
+            this.title = title;
+            this.text = text;
+            this.terms = terms;
+            this.length = length;
+            this.published = published;
+        }
+    }
+
+    /**
+     * A ranked search result. Highlighted fields are HTML-escaped with matches wrapped in &lt;mark&gt;.
+     */
+    public static class SearchHit {
+        private final Long postId;
+        private final String slug;
+        private final String title;
+        private final double score;
+        private final String highlightedTitle;
+        private final String snippet;
+
+        public SearchHit(Long postId, String slug, String title, double score,
+                         String highlightedTitle, String snippet) {
+            this.postId = postId;
+            this.slug = slug;
+            this.title = title;
+            this.score = score;
+            this.highlightedTitle = highlightedTitle;
+            this.snippet = snippet;
+        }
+
+        public Long getPostId() { return postId; }
+        public String getSlug() { return slug; }
+        public String getTitle() { return title; }
+        public double getScore() { return score; }
+        public String getHighlightedTitle() { return highlightedTitle; }
+        public String getSnippet() { return snippet; }
+    }
+}
@@ -5,9 +5,13 @@ import com.example.jewell.model.User;
 import com.example.jewell.repository.ChatMessageRepository;
 import com.example.jewell.repository.FriendshipRepository;
 import com.example.jewell.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,18 +19,24 @@ import java.util.stream.Collectors;
 
 @Service
 public class ChatService {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final UserRepository userRepository;
     private final FriendshipRepository friendshipRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatUnreadCountCache unreadCountCache;
 
     public ChatService(
             UserRepository userRepository,
             FriendshipRepository friendshipRepository,
-            ChatMessageRepository chatMessageRepository
+            ChatMessageRepository chatMessageRepository,
+            ChatUnreadCountCache unreadCountCache
     ) {
         this.userRepository = userRepository;
         this.friendshipRepository = friendshipRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.unreadCountCache = unreadCountCache;
     }
 
     @Transactional
@@ -46,6 +56,7 @@ public class ChatService {
                 .content(content)
                 .build();
         chatMessageRepository.save(message);
+        unreadCountCache.onMessageSent(receiverId, senderId);
 
         Map<String, Object> result = new HashMap<>();
         result.put("id", message.getId());
@@ -57,33 +68,65 @@ public class ChatService {
         return result;
     }
 
+    /**
+     * One window of a conversation, oldest first.
+     * No cursor: the latest messages. beforeId: the page preceding it (scrolling back).
+     * afterId: messages newer than the client's last seen id (incremental sync after reconnect).
+     * Each direction is read as a bounded index range and merged, so the cost does not grow with history.
+     */
     @Transactional
-    public List<Map<String, Object>> getConversation(Long userId, Long friendId) {
+    public List<Map<String, Object>> getConversation(Long userId, Long friendId, Long beforeId, Long afterId, Integer limit) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User friend = userRepository.findById(friendId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        chatMessageRepository.markAsRead(user, friend);
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest page = PageRequest.of(0, size);
+
+        List<ChatMessage> messages = new ArrayList<>(size * 2);
+        if (afterId != null) {
+            messages.addAll(chatMessageRepository.findDirectionAfter(userId, friendId, afterId, page));
+            messages.addAll(chatMessageRepository.findDirectionAfter(friendId, userId, afterId, page));
+            messages.sort(Comparator.comparing(ChatMessage::getId));
+            if (messages.size() > size) {
+                messages = messages.subList(0, size);
+            }
+        } else {
+            long cursor = beforeId != null ? beforeId : Long.MAX_VALUE;
+            messages.addAll(chatMessageRepository.findDirectionBefore(userId, friendId, cursor, page));
+            messages.addAll(chatMessageRepository.findDirectionBefore(friendId, userId, cursor, page));
+            messages.sort(Comparator.comparing(ChatMessage::getId).reversed());
+            if (messages.size() > size) {
+                messages = messages.subList(0, size);
+            }
+            Collections.reverse(messages);
+        }
 
-        List<ChatMessage> messages = chatMessageRepository.findConversation(user, friend);
+        // Unread messages are the newest ones; paging back through history does not need the UPDATE
+        if (beforeId == null && unreadCountCache.getUnread(userId, friendId) > 0) {
+            chatMessageRepository.markAsRead(user, friend);
+            unreadCountCache.onConversationRead(userId, friendId);
+        }
 
         return messages.stream().map(m -> {
+            boolean own = m.getSender().getId().equals(userId);
             Map<String, Object> msg = new HashMap<>();
             msg.put("id", m.getId());
             msg.put("content", m.getContent());
             msg.put("senderId", m.getSender().getId());
-            msg.put("senderUsername", m.getSender().getUsername());
+            msg.put("senderUsername", own ? user.getUsername() : friend.getUsername());
             msg.put("createdAt", m.getCreatedAt().toString()); // ISO-8601 format for JS
-            msg.put("isOwn", m.getSender().getId().equals(userId));
+            msg.put("isOwn", own);
             return msg;
         }).collect(Collectors.toList());
     }
 
     public long getUnreadCount(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return chatMessageRepository.countByReceiverAndIsReadFalse(user);
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return unreadCountCache.getTotalUnread(userId);
     }
 }
 
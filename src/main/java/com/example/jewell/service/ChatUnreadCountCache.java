@@ -0,0 +1,111 @@
+package com.example.jewell.service;
+
+import com.example.jewell.repository.ChatMessageRepository;
+import com.example.jewell.utils.TransactionUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user cache of unread chat counts grouped by sender (receiverId -> senderId -> unread).
+ *
+ * Loaded with one GROUP BY query on first use, then kept up to date incrementally:
+ * ChatService bumps it when a message is sent and clears a sender when the conversation is read.
+ * Entries expire after a TTL so any drift (e.g. a rolled-back transaction) heals on its own.
+ */
+@Service
+public class ChatUnreadCountCache {
+    private static final long TTL_MS = 5 * 60_000;       // reload from DB after 5 minutes
+    private static final int MAX_CACHED_USERS = 50_000;  // hard bound on memory
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final Map<Long, UnreadEntry> cache = new ConcurrentHashMap<>();
+
+    public ChatUnreadCountCache(ChatMessageRepository chatMessageRepository) {
+        this.chatMessageRepository = chatMessageRepository;
+    }
+
+    /**
+     * Unread counts for a user keyed by sender id (senders with no unread messages are absent)
+     */
+    public Map<Long, Long> getUnreadBySender(Long receiverId) {
+        Map<Long, Long> snapshot = new HashMap<>();
+        load(receiverId).counts.forEach((senderId, count) -> {
+            long c = count.get();
+            if (c > 0) snapshot.put(senderId, c);
+        });
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public long getUnread(Long receiverId, Long senderId) {
+        AtomicLong count = load(receiverId).counts.get(senderId);
+        return count != null ? Math.max(0, count.get()) : 0L;
+    }
+
+    public long getTotalUnread(Long receiverId) {
+        long total = 0;
+        for (AtomicLong count : load(receiverId).counts.values()) {
+            total += Math.max(0, count.get());
+        }
+        return total;
+    }
+
+    /**
+     * A message was sent; counted once the sending transaction commits
+     */
+    public void onMessageSent(Long receiverId, Long senderId) {
+        TransactionUtils.afterCommit(() -> {
+            UnreadEntry entry = cache.get(receiverId);
+            // Not cached: the next load will read it from the DB
+            if (entry != null) {
+                entry.counts.computeIfAbsent(senderId, id -> new AtomicLong()).incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Messages from sender to receiver were marked read
+     */
+    public void onConversationRead(Long receiverId, Long senderId) {
+        TransactionUtils.afterCommit(() -> {
+            UnreadEntry entry = cache.get(receiverId);
+            if (entry != null) {
+                entry.counts.remove(senderId);
+            }
+        });
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private UnreadEntry load(Long receiverId) {
+        long now = System.currentTimeMillis();
+        UnreadEntry entry = cache.get(receiverId);
+        if (entry != null && now - entry.loadedAt < TTL_MS) {
+            return entry;
+        }
+        if (cache.size() >= MAX_CACHED_USERS) {
+            cache.clear();
+        }
+        return cache.compute(receiverId, (id, existing) -> {
+            if (existing != null && now - existing.loadedAt < TTL_MS) return existing;
+            UnreadEntry fresh = new UnreadEntry(now);
+            for (Object[] row : chatMessageRepository.countUnreadGroupedBySender(id)) {
+                fresh.counts.put((Long) row[0], new AtomicLong((Long) row[1]));
+            }
+            return fresh;
+        });
+    }
+
+    private static class UnreadEntry {
+        final long loadedAt;
+        final Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+        UnreadEntry(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -31,6 +31,12 @@ public class CreditService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ReceivablesAgingService receivablesAgingService;
+
+    @Autowired
+    private CustomerBalanceCache customerBalanceCache;
+
     public List<Credit> getAllCredits() {
         return creditRepository.findAll();
     }
@@ -55,6 +61,8 @@ public class CreditService {
     public Credit createCredit(Credit credit) {
         credit.setRemainingAmount(credit.getCreditAmount().subtract(credit.getPaidAmount()));
         updateCreditStatus(credit);
+        receivablesAgingService.invalidate();
+        customerBalanceCache.onCustomerChanged(customerIdOf(credit));
         return creditRepository.save(credit);
     }
 
@@ -75,6 +83,9 @@ public class CreditService {
         
         // Record income transaction for credit payment
         incomeExpenseService.recordIncomeFromCreditPayment(savedCredit, paymentAmount);
+
+        receivablesAgingService.invalidate();
+        customerBalanceCache.onCustomerChanged(customerIdOf(savedCredit));
         
         return savedCredit;
     }
@@ -85,9 +96,9 @@ public class CreditService {
 
     public void deleteCredit(Long id) {
         // Check if credit exists
-        if (!creditRepository.existsById(id)) {
-            throw new RuntimeException("Credit not found with id: " + id);
-        }
+        Credit existing = creditRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Credit not found with id: " + id));
+        customerBalanceCache.onCustomerChanged(customerIdOf(existing));
         
         // First, set credit_id to NULL in transaction_history to avoid foreign key constraint violation
         entityManager.createNativeQuery("UPDATE transaction_history SET credit_id = NULL WHERE credit_id = :creditId")
@@ -99,6 +110,7 @@ public class CreditService {
         
         // Now delete the credit
         creditRepository.deleteById(id);
+        receivablesAgingService.invalidate();
     }
 
     private void updateCreditStatus(Credit credit) {
@@ -110,4 +122,8 @@ public class CreditService {
             credit.setStatus(Credit.CreditStatus.PENDING);
         }
     }
+
+    private static Long customerIdOf(Credit credit) {
+        return credit.getCustomer() != null ? credit.getCustomer().getId() : null;
+    }
 }
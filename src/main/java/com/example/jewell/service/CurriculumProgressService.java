@@ -1,25 +1,61 @@
 package com.example.jewell.service;
 
+import com.example.jewell.dto.CurriculumProgressEvent;
 import com.example.jewell.model.CurriculumLesson;
 import com.example.jewell.model.CurriculumLessonProgress;
+import com.example.jewell.model.CurriculumUserStats;
 import com.example.jewell.model.User;
 import com.example.jewell.repository.CurriculumLessonProgressRepository;
 import com.example.jewell.repository.CurriculumLessonRepository;
+import com.example.jewell.repository.CurriculumProcessedEventRepository;
+import com.example.jewell.repository.CurriculumUserStatsRepository;
 import com.example.jewell.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CurriculumProgressService {
     
+    private static final int MAX_BATCH_EVENTS = 500;
+    
+    private static final int MAX_EVENT_ID_LENGTH = 64;
+    
+    // New rows from a batch; the caller holds the user's stats row lock, so no other writer can insert them meanwhile
+    private static final String INSERT_PROGRESS_SQL =
+            "INSERT INTO curriculum_lesson_progress (user_id, lesson_id, time_spent_seconds, progress_percentage, " +
+            "avg_wpm, avg_accuracy, best_wpm, best_accuracy, attempts_count, is_completed, last_attempted_at, " +
+            "completed_at, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_PROCESSED_EVENT_SQL =
+            "INSERT INTO curriculum_processed_events (user_id, event_id, processed_at) VALUES (?, ?, ?)";
+    
+    private static final String SEED_STATS_SQL =
+            "INSERT IGNORE INTO curriculum_user_stats (user_id, lessons_completed, total_time_spent_seconds, total_attempts, " +
+            "wpm_sum, wpm_lessons, accuracy_sum, accuracy_lessons, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE_STATS_SQL =
+            "UPDATE curriculum_user_stats SET lessons_completed = lessons_completed + ?, " +
+            "total_time_spent_seconds = total_time_spent_seconds + ?, total_attempts = total_attempts + ?, " +
+            "wpm_sum = wpm_sum + ?, wpm_lessons = wpm_lessons + ?, accuracy_sum = accuracy_sum + ?, " +
+            "accuracy_lessons = accuracy_lessons + ?, updated_at = ? WHERE user_id = ?";
+    
     @Autowired
     private CurriculumLessonProgressRepository progressRepository;
     
@@ -29,14 +65,27 @@ public class CurriculumProgressService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurriculumUserStatsRepository statsRepository;
+    
+    @Autowired
+    private CurriculumProcessedEventRepository processedEventRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${curriculum.progress.event-retention-days:30}")
+    private int eventRetentionDays;
+    
     @Transactional
     public CurriculumLessonProgress updateProgress(Long userId, Long lessonId, Integer timeSpentSeconds, 
                                                    Integer wpm, Double accuracy, Integer progressPercentage, Boolean completed) {
-        Optional<CurriculumLessonProgress> progressOpt = progressRepository.findByUserIdAndCurriculumLessonId(userId, lessonId);
+        lockStatsRow(userId);
+        List<CurriculumLessonProgress> rows = progressRepository.findForUpdateByUserIdAndLessonIds(userId, List.of(lessonId));
         CurriculumLessonProgress progress;
         
-        if (progressOpt.isPresent()) {
-            progress = progressOpt.get();
+        if (!rows.isEmpty()) {
+            progress = rows.get(0);
         } else {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
@@ -47,6 +96,187 @@ public class CurriculumProgressService {
             progress.setCurriculumLesson(lesson);
         }
         
+        StatsDelta delta = new StatsDelta();
+        delta.add(progress, -1);
+        applyAttempt(progress, timeSpentSeconds, wpm, accuracy, progressPercentage, completed, LocalDateTime.now());
+        delta.add(progress, 1);
+        
+        CurriculumLessonProgress saved = progressRepository.save(progress);
+        applyStatsDelta(userId, delta);
+        return saved;
+    }
+    
+    /**
+     * Apply a batch of offline-queued attempts in one transaction.
+     * Events are deduplicated by eventId (within the batch and against eventIds applied by earlier
+     * batches), grouped per lesson and folded in occurredAt order onto that lesson's row with the same
+     * rules as {@link #updateProgress}, so each (user, lesson) is written once: existing rows are locked
+     * and updated (JDBC-batched by Hibernate), new rows go out in one batched insert. Stats totals are
+     * moved by the net change of every touched row. The user's stats row is locked first, so batches
+     * and single updates for one user never interleave.
+     */
+    @Transactional
+    public Map<String, Object> applyProgressBatch(Long userId, List<CurriculumProgressEvent> events) {
+        if (events != null && events.size() > MAX_BATCH_EVENTS) {
+            throw new RuntimeException("Too many progress events in one batch (max " + MAX_BATCH_EVENTS + ")");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        if (events == null || events.isEmpty()) {
+            return batchResult(0, 0, 0, 0, List.of());
+        }
+        for (CurriculumProgressEvent event : events) {
+            if (event != null && event.getEventId() != null && event.getEventId().length() > MAX_EVENT_ID_LENGTH) {
+                throw new RuntimeException("eventId too long (max " + MAX_EVENT_ID_LENGTH + " characters)");
+            }
+        }
+        lockStatsRow(userId);
+        
+        // eventIds applied by earlier batches; checked under the stats lock, so a concurrent retry waits and sees them
+        Set<String> batchEventIds = events.stream()
+                .filter(e -> e != null && e.getEventId() != null)
+                .map(CurriculumProgressEvent::getEventId)
+                .collect(Collectors.toSet());
+        Set<String> seenEventIds = batchEventIds.isEmpty() ? new HashSet<>()
+                : new HashSet<>(processedEventRepository.findProcessedEventIds(userId, batchEventIds));
+        
+        // Deduplicate and group per lesson, keeping arrival order
+        Map<Long, List<CurriculumProgressEvent>> eventsByLesson = new LinkedHashMap<>();
+        int duplicates = 0;
+        List<Long> rejectedLessonIds = new ArrayList<>();
+        for (CurriculumProgressEvent event : events) {
+            if (event == null || event.getLessonId() == null) continue;
+            if (event.getEventId() != null && !seenEventIds.add(event.getEventId())) {
+                duplicates++;
+                continue;
+            }
+            eventsByLesson.computeIfAbsent(event.getLessonId(), k -> new ArrayList<>()).add(event);
+        }
+        if (!eventsByLesson.isEmpty()) {
+            Set<Long> knownLessons = new HashSet<>(lessonRepository.findExistingIds(eventsByLesson.keySet()));
+            for (Long lessonId : new ArrayList<>(eventsByLesson.keySet())) {
+                if (!knownLessons.contains(lessonId)) {
+                    eventsByLesson.remove(lessonId);
+                    rejectedLessonIds.add(lessonId);
+                }
+            }
+        }
+        
+        int applied = 0;
+        if (!eventsByLesson.isEmpty()) {
+            Map<Long, CurriculumLessonProgress> existing = new HashMap<>();
+            for (CurriculumLessonProgress progress : progressRepository.findForUpdateByUserIdAndLessonIds(userId, eventsByLesson.keySet())) {
+                existing.put(progress.getCurriculumLesson().getId(), progress);
+            }
+            
+            LocalDateTime now = LocalDateTime.now();
+            StatsDelta delta = new StatsDelta();
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> processedEvents = new ArrayList<>();
+            for (Map.Entry<Long, List<CurriculumProgressEvent>> entry : eventsByLesson.entrySet()) {
+                List<CurriculumProgressEvent> lessonEvents = entry.getValue();
+                // Stable sort: events without a timestamp keep their position relative to each other
+                lessonEvents.sort(Comparator.comparing(CurriculumProgressEvent::getOccurredAt,
+                        Comparator.nullsLast(Comparator.naturalOrder())));
+                
+                CurriculumLessonProgress progress = existing.get(entry.getKey());
+                boolean isNew = progress == null;
+                if (isNew) {
+                    progress = new CurriculumLessonProgress();
+                }
+                delta.add(progress, -1);
+                for (CurriculumProgressEvent event : lessonEvents) {
+                    LocalDateTime at = event.getOccurredAt() != null && !event.getOccurredAt().isAfter(now)
+                            ? event.getOccurredAt() : now;
+                    applyAttempt(progress, event.getTimeSpentSeconds(), event.getWpm(), event.getAccuracy(),
+                            event.getProgressPercentage(), event.getCompleted(), at);
+                }
+                delta.add(progress, 1);
+                applied += lessonEvents.size();
+                for (CurriculumProgressEvent event : lessonEvents) {
+                    if (event.getEventId() != null) {
+                        processedEvents.add(new Object[]{userId, event.getEventId(), Timestamp.valueOf(now)});
+                    }
+                }
+                
+                if (isNew) {
+                    inserts.add(new Object[]{
+                            userId, entry.getKey(), progress.getTimeSpentSeconds(), progress.getProgressPercentage(),
+                            progress.getAvgWpm(), progress.getAvgAccuracy(), progress.getBestWpm(), progress.getBestAccuracy(),
+                            progress.getAttemptsCount(), progress.getIsCompleted(),
+                            toTimestamp(progress.getLastAttemptedAt()), toTimestamp(progress.getCompletedAt()),
+                            Timestamp.valueOf(now), Timestamp.valueOf(now)
+                    });
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_PROGRESS_SQL, inserts);
+            }
+            if (!processedEvents.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_PROCESSED_EVENT_SQL, processedEvents);
+            }
+            applyStatsDelta(userId, delta);
+        }
+        
+        return batchResult(events.size(), applied, duplicates, eventsByLesson.size(), rejectedLessonIds);
+    }
+    
+    /**
+     * Forget applied eventIds once a client can no longer be retrying them
+     */
+    @Scheduled(cron = "${curriculum.progress.event-purge-cron:0 40 3 * * *}")
+    @Transactional
+    public void purgeProcessedEvents() {
+        processedEventRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(eventRetentionDays));
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<CurriculumLessonProgress> getProgress(Long userId, Long lessonId) {
+        return progressRepository.findByUserIdAndCurriculumLessonId(userId, lessonId);
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<Long, CurriculumLessonProgress> getProgressForLessons(Long userId, List<Long> lessonIds) {
+        List<CurriculumLessonProgress> progressList = progressRepository.findByUserId(userId);
+        return progressList.stream()
+                .filter(p -> lessonIds.contains(p.getCurriculumLesson().getId()))
+                .collect(Collectors.toMap(
+                    p -> p.getCurriculumLesson().getId(),
+                    p -> p
+                ));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<CurriculumLessonProgress> getProgressForUnit(Long userId, Long unitId) {
+        return progressRepository.findByUserIdAndUnitId(userId, unitId);
+    }
+    
+    /**
+     * Totals come from the user's curriculum_user_stats row, which every progress write moves by its delta
+     */
+    @Transactional
+    public Map<String, Object> getUserStats(Long userId) {
+        ensureStatsRow(userId);
+        CurriculumUserStats row = statsRepository.findById(userId).orElseGet(CurriculumUserStats::new);
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalLessonsCompleted", row.getLessonsCompleted());
+        stats.put("totalTimeSpent", row.getTotalTimeSpentSeconds());
+        stats.put("averageWpm", row.getWpmLessons() > 0 ? (double) row.getWpmSum() / row.getWpmLessons() : 0.0);
+        stats.put("averageAccuracy", row.getAccuracyLessons() > 0 ? row.getAccuracySum() / row.getAccuracyLessons() : 0.0);
+        stats.put("totalAttempts", row.getTotalAttempts());
+        
+        return stats;
+    }
+    
+    // ========== HELPER METHODS ==========
+    
+    /**
+     * Fold one attempt into a progress row (additive time, running averages, best scores, completion)
+     */
+    private static void applyAttempt(CurriculumLessonProgress progress, Integer timeSpentSeconds, Integer wpm,
+                                     Double accuracy, Integer progressPercentage, Boolean completed, LocalDateTime at) {
         // Update time spent (additive)
         if (timeSpentSeconds != null && timeSpentSeconds > 0) {
             progress.setTimeSpentSeconds(progress.getTimeSpentSeconds() + timeSpentSeconds);
@@ -59,7 +289,7 @@ public class CurriculumProgressService {
         
         // Update attempts
         progress.setAttemptsCount(progress.getAttemptsCount() + 1);
-        progress.setLastAttemptedAt(LocalDateTime.now());
+        progress.setLastAttemptedAt(at);
         
         // Update WPM and accuracy (calculate average)
         if (wpm != null && wpm > 0) {
@@ -97,59 +327,87 @@ public class CurriculumProgressService {
         // Mark as completed
         if (completed != null && completed) {
             progress.setIsCompleted(true);
-            progress.setCompletedAt(LocalDateTime.now());
+            progress.setCompletedAt(at);
             progress.setProgressPercentage(100);
         }
-        
-        return progressRepository.save(progress);
     }
     
-    @Transactional(readOnly = true)
-    public Optional<CurriculumLessonProgress> getProgress(Long userId, Long lessonId) {
-        return progressRepository.findByUserIdAndCurriculumLessonId(userId, lessonId);
+    /**
+     * Create the user's stats row from a full aggregate the first time it is needed.
+     * Must run before this transaction changes any progress row, so the deltas apply on top of it.
+     */
+    private void ensureStatsRow(Long userId) {
+        if (statsRepository.existsById(userId)) return;
+        List<Object[]> rows = progressRepository.aggregateStatsByUserId(userId);
+        Object[] agg = rows.isEmpty() ? new Object[7] : rows.get(0);
+        jdbcTemplate.update(SEED_STATS_SQL, userId, toLong(agg[0]), toLong(agg[1]), toLong(agg[2]),
+                toLong(agg[3]), toLong(agg[4]), agg[5] != null ? ((Number) agg[5]).doubleValue() : 0.0,
+                toLong(agg[6]), Timestamp.valueOf(LocalDateTime.now()));
     }
     
-    @Transactional(readOnly = true)
-    public Map<Long, CurriculumLessonProgress> getProgressForLessons(Long userId, List<Long> lessonIds) {
-        List<CurriculumLessonProgress> progressList = progressRepository.findByUserId(userId);
-        return progressList.stream()
-                .filter(p -> lessonIds.contains(p.getCurriculumLesson().getId()))
-                .collect(Collectors.toMap(
-                    p -> p.getCurriculumLesson().getId(),
-                    p -> p
-                ));
+    /**
+     * Seed and lock the user's stats row. Every progress write takes this lock before reading progress
+     * rows, so a user's writes are serialized and each one's delta is computed against committed rows.
+     */
+    private void lockStatsRow(Long userId) {
+        ensureStatsRow(userId);
+        statsRepository.findForUpdate(userId);
     }
     
-    @Transactional(readOnly = true)
-    public List<CurriculumLessonProgress> getProgressForUnit(Long userId, Long unitId) {
-        return progressRepository.findByUserIdAndUnitId(userId, unitId);
+    private static Map<String, Object> batchResult(int received, int applied, int duplicates, int lessonsUpdated,
+                                                   List<Long> rejectedLessonIds) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("received", received);
+        result.put("applied", applied);
+        result.put("duplicates", duplicates);
+        result.put("lessonsUpdated", lessonsUpdated);
+        result.put("rejectedLessonIds", rejectedLessonIds);
+        return result;
     }
     
-    @Transactional(readOnly = true)
-    public Map<String, Object> getUserStats(Long userId) {
-        List<CurriculumLessonProgress> allProgress = progressRepository.findByUserId(userId);
+    private void applyStatsDelta(Long userId, StatsDelta d) {
+        if (d.isZero()) return;
+        jdbcTemplate.update(UPDATE_STATS_SQL, d.completed, d.timeSpent, d.attempts, d.wpmSum, d.wpmLessons,
+                d.accuracySum, d.accuracyLessons, Timestamp.valueOf(LocalDateTime.now()), userId);
+    }
+    
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+    
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+    
+    /**
+     * Net change of one user's stats: each touched row is added once with -1 before and +1 after
+     */
+    private static class StatsDelta {
+        long completed;
+        long timeSpent;
+        long attempts;
+        long wpmSum;
+        long wpmLessons;
+        double accuracySum;
+        long accuracyLessons;
         
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalLessonsCompleted", allProgress.stream()
-                .filter(CurriculumLessonProgress::getIsCompleted)
-                .count());
-        stats.put("totalTimeSpent", allProgress.stream()
-                .mapToInt(p -> p.getTimeSpentSeconds() != null ? p.getTimeSpentSeconds() : 0)
-                .sum());
-        stats.put("averageWpm", allProgress.stream()
-                .filter(p -> p.getAvgWpm() != null && p.getAvgWpm() > 0)
-                .mapToInt(CurriculumLessonProgress::getAvgWpm)
-                .average()
-                .orElse(0.0));
-        stats.put("averageAccuracy", allProgress.stream()
-                .filter(p -> p.getAvgAccuracy() != null && p.getAvgAccuracy() > 0)
-                .mapToDouble(CurriculumLessonProgress::getAvgAccuracy)
-                .average()
-                .orElse(0.0));
-        stats.put("totalAttempts", allProgress.stream()
-                .mapToInt(p -> p.getAttemptsCount() != null ? p.getAttemptsCount() : 0)
-                .sum());
+        void add(CurriculumLessonProgress p, int sign) {
+            if (Boolean.TRUE.equals(p.getIsCompleted())) completed += sign;
+            timeSpent += sign * (long) (p.getTimeSpentSeconds() != null ? p.getTimeSpentSeconds() : 0);
+            attempts += sign * (long) (p.getAttemptsCount() != null ? p.getAttemptsCount() : 0);
+            if (p.getAvgWpm() != null && p.getAvgWpm() > 0) {
+                wpmSum += sign * (long) p.getAvgWpm();
+                wpmLessons += sign;
+            }
+            if (p.getAvgAccuracy() != null && p.getAvgAccuracy() > 0) {
+                accuracySum += sign * p.getAvgAccuracy();
+                accuracyLessons += sign;
+            }
+        }
         
-        return stats;
+        boolean isZero() {
+            return completed == 0 && timeSpent == 0 && attempts == 0 && wpmSum == 0 && wpmLessons == 0
+                    && accuracySum == 0 && accuracyLessons == 0;
+        }
     }
 }
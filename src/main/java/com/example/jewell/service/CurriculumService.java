@@ -1,82 +1,211 @@
 package com.example.jewell.service;
 
+import com.example.jewell.dto.CurriculumTree;
+import com.example.jewell.dto.CurriculumTree.LessonNode;
+import com.example.jewell.dto.CurriculumTree.ProductNode;
+import com.example.jewell.dto.CurriculumTree.ScreenNode;
+import com.example.jewell.dto.CurriculumTree.UnitNode;
 import com.example.jewell.model.*;
 import com.example.jewell.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Serves the curriculum from an immutable in-memory snapshot (see {@link CurriculumTree}).
+ *
+ * The snapshot is built from four flat queries, one per table, and published with a single
+ * volatile write, so readers always see one complete version and never touch the database.
+ * A cheap fingerprint probe (row count and latest updated_at per table) detects content edits
+ * and triggers a rebuild; {@link #rebuild()} can also be called directly after an import.
+ */
 @Service
 public class CurriculumService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(CurriculumService.class);
-    
+
     @Autowired
     private CurriculumProductRepository productRepository;
-    
+
     @Autowired
     private CurriculumUnitRepository unitRepository;
-    
+
     @Autowired
     private CurriculumLessonRepository lessonRepository;
-    
+
     @Autowired
     private CurriculumScreenRepository screenRepository;
-    
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile CurriculumTree snapshot;
+    private volatile List<Object> lastFingerprint;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Served lazily on first request instead
+            logger.error("Failed to build curriculum snapshot on startup: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rebuild when curriculum rows were added, removed or edited since the last build
+     */
+    @Scheduled(fixedDelayString = "${curriculum.snapshot.check-interval-ms:60000}")
+    public void rebuildIfChanged() {
+        if (snapshot == null) return;
+        try {
+            if (!fingerprint().equals(lastFingerprint)) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.error("Curriculum change check failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Load the whole active curriculum and swap it in atomically
+     */
+    public synchronized CurriculumTree rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object> fingerprint = fingerprint();
+        List<ProductNode> products = transactionTemplate.execute(status -> loadProducts());
+        long version = tableVersionService.bump(TableVersionService.CURRICULUM);
+        CurriculumTree tree = new CurriculumTree(version, tableVersionService.etag(TableVersionService.CURRICULUM), products);
+        snapshot = tree;
+        lastFingerprint = fingerprint;
+        logger.info("Curriculum snapshot v{} built: {} products in {} ms",
+                tree.getVersion(), products.size(), System.currentTimeMillis() - start);
+        return tree;
+    }
+
+    /**
+     * Current snapshot; read it once per request so the ETag and the body come from the same version
+     */
+    public CurriculumTree getSnapshot() {
+        CurriculumTree tree = snapshot;
+        if (tree != null) return tree;
+        synchronized (this) {
+            return snapshot != null ? snapshot : rebuild();
+        }
+    }
+
     // Product Methods
-    public List<CurriculumProduct> getAllActiveProducts() {
-        return productRepository.findByIsActiveTrueOrderByDisplayOrderAsc();
+    public List<ProductNode> getAllActiveProducts() {
+        return getSnapshot().getProducts();
     }
-    
-    public Optional<CurriculumProduct> getProductByProductId(String productId) {
-        return productRepository.findByProductId(productId);
+
+    public Optional<ProductNode> getProductByProductId(String productId) {
+        return Optional.ofNullable(getSnapshot().getProduct(productId));
     }
-    
+
     // Unit Methods
-    @Transactional(readOnly = true)
-    public List<CurriculumUnit> getUnitsByProductId(String productId) {
-        List<CurriculumUnit> units = unitRepository.findActiveUnitsWithLessonsByProductId(productId);
-        for (CurriculumUnit unit : units) {
-            if (unit.getLessons() != null) {
-                // Filter and sort lessons
-                unit.getLessons().removeIf(lesson -> lesson.getIsActive() == null || !lesson.getIsActive());
-                unit.getLessons().sort((l1, l2) -> {
-                    int order1 = l1.getDisplayOrder() != null ? l1.getDisplayOrder() : 0;
-                    int order2 = l2.getDisplayOrder() != null ? l2.getDisplayOrder() : 0;
-                    return Integer.compare(order1, order2);
-                });
-            } else {
-                // Explicitly load lessons if not already loaded
-                List<CurriculumLesson> lessons = lessonRepository.findActiveLessonsByUnitId(unit.getId());
-                unit.setLessons(lessons);
-                logger.debug("Explicitly loaded {} lessons for unit {}", lessons.size(), unit.getId());
-            }
-        }
-        return units;
+    public List<UnitNode> getUnitsByProductId(String productId) {
+        ProductNode product = getSnapshot().getProduct(productId);
+        return product != null ? product.getUnits() : Collections.emptyList();
     }
-    
-    public Optional<CurriculumUnit> getUnitByUnitIdAndProductId(Long unitId, String productId) {
-        return unitRepository.findByUnitIdAndProductProductId(unitId, productId);
+
+    public Optional<UnitNode> getUnitByUnitIdAndProductId(Long unitId, String productId) {
+        ProductNode product = getSnapshot().getProduct(productId);
+        return Optional.ofNullable(product != null ? product.findUnit(unitId) : null);
     }
-    
+
     // Lesson Methods
-    @Transactional(readOnly = true)
-    public List<CurriculumLesson> getLessonsByUnitId(Long unitId) {
-        return lessonRepository.findActiveLessonsByUnitId(unitId);
+    public List<LessonNode> getLessonsByUnitId(Long unitId) {
+        UnitNode unit = getSnapshot().getUnit(unitId);
+        return unit != null ? unit.getLessons() : Collections.emptyList();
     }
-    
-    public Optional<CurriculumLesson> getLessonByLessonIdAndUnitId(Long lessonId, Long unitId) {
-        return lessonRepository.findByLessonIdAndUnitId(lessonId, unitId);
+
+    public Optional<LessonNode> getLessonByLessonIdAndUnitId(Long lessonId, Long unitId) {
+        UnitNode unit = getSnapshot().getUnit(unitId);
+        return Optional.ofNullable(unit != null ? unit.findLesson(lessonId) : null);
     }
-    
+
     // Screen Methods
-    @Transactional(readOnly = true)
-    public List<CurriculumScreen> getScreensByLessonId(Long lessonId) {
-        return screenRepository.findActiveScreensByLessonId(lessonId);
+    public List<ScreenNode> getScreensByLessonId(Long lessonId) {
+        LessonNode lesson = getSnapshot().getLesson(lessonId);
+        return lesson != null ? lesson.getCurriculumScreens() : Collections.emptyList();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private List<ProductNode> loadProducts() {
+        Map<Long, List<ScreenNode>> screensByLesson = new HashMap<>();
+        List<Object[]> screenRows = new ArrayList<>(screenRepository.findAllActiveWithLessonId());
+        screenRows.sort(Comparator.comparing((Object[] r) -> orZero(((CurriculumScreen) r[0]).getScreenIndex()))
+                .thenComparing(r -> ((CurriculumScreen) r[0]).getId()));
+        for (Object[] row : screenRows) {
+            screensByLesson.computeIfAbsent((Long) row[1], k -> new ArrayList<>())
+                    .add(new ScreenNode((CurriculumScreen) row[0]));
+        }
+
+        Map<Long, List<LessonNode>> lessonsByUnit = new HashMap<>();
+        List<Object[]> lessonRows = new ArrayList<>(lessonRepository.findAllActiveWithUnitId());
+        lessonRows.sort(Comparator.comparing((Object[] r) -> orZero(((CurriculumLesson) r[0]).getDisplayOrder()))
+                .thenComparing(r -> ((CurriculumLesson) r[0]).getId()));
+        for (Object[] row : lessonRows) {
+            CurriculumLesson lesson = (CurriculumLesson) row[0];
+            lessonsByUnit.computeIfAbsent((Long) row[1], k -> new ArrayList<>())
+                    .add(new LessonNode(lesson, screensByLesson.getOrDefault(lesson.getId(), Collections.emptyList())));
+        }
+
+        Map<String, List<UnitNode>> unitsByProduct = new HashMap<>();
+        List<Object[]> unitRows = new ArrayList<>(unitRepository.findAllActiveWithProductId());
+        unitRows.sort(Comparator.comparing((Object[] r) -> orZero(((CurriculumUnit) r[0]).getDisplayOrder()))
+                .thenComparing(r -> ((CurriculumUnit) r[0]).getId()));
+        for (Object[] row : unitRows) {
+            CurriculumUnit unit = (CurriculumUnit) row[0];
+            unitsByProduct.computeIfAbsent((String) row[1], k -> new ArrayList<>())
+                    .add(new UnitNode(unit, lessonsByUnit.getOrDefault(unit.getId(), Collections.emptyList())));
+        }
+
+        List<CurriculumProduct> productRows = new ArrayList<>(productRepository.findByIsActiveTrueOrderByDisplayOrderAsc());
+        productRows.sort(Comparator.comparing((CurriculumProduct p) -> orZero(p.getDisplayOrder()))
+                .thenComparing(CurriculumProduct::getId));
+        List<ProductNode> products = new ArrayList<>(productRows.size());
+        for (CurriculumProduct product : productRows) {
+            products.add(new ProductNode(product,
+                    unitsByProduct.getOrDefault(product.getProductId(), Collections.emptyList())));
+        }
+        return products;
+    }
+
+    /**
+     * Row count and latest update time of each curriculum table
+     */
+    private List<Object> fingerprint() {
+        List<Object> parts = new ArrayList<>(8);
+        for (List<Object[]> rows : List.of(productRepository.findChangeFingerprint(),
+                unitRepository.findChangeFingerprint(),
+                lessonRepository.findChangeFingerprint(),
+                screenRepository.findChangeFingerprint())) {
+            parts.addAll(rows.isEmpty() ? Arrays.asList(null, null) : Arrays.asList(rows.get(0)));
+        }
+        return parts;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
     }
 }
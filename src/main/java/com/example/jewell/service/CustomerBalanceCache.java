@@ -0,0 +1,115 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Credit;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.CreditRepository;
+import com.example.jewell.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-customer balance snapshot (billed, paid on bills, outstanding udhari) for the ledger header.
+ *
+ * Loaded with two aggregate queries on first use. BillingService and CreditService call
+ * {@link #onCustomerChanged(Long)} when they write a customer's bill or credit; the entry is dropped
+ * once that transaction commits. Loading runs inside ConcurrentHashMap.compute, so an eviction that
+ * races a load waits for it and then removes the (possibly stale) result. Entries also expire after a TTL.
+ */
+@Service
+public class CustomerBalanceCache {
+    private static final long TTL_MS = 10 * 60_000;          // reload from DB after 10 minutes
+    private static final int MAX_CACHED_CUSTOMERS = 20_000;  // hard bound on memory
+
+    private static final EnumSet<Credit.CreditStatus> OPEN_STATUSES = EnumSet.of(
+            Credit.CreditStatus.PENDING, Credit.CreditStatus.PARTIAL, Credit.CreditStatus.OVERDUE);
+
+    @Autowired
+    private BillingRepository billingRepository;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    private final Map<Long, BalanceEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Balance summary for a customer: billCount, totalBilled, totalPaidOnBills, lastBillAt,
+     * openCredits, outstandingCredit
+     */
+    public Map<String, Object> getBalance(Long customerId) {
+        BalanceEntry entry = load(customerId);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("billCount", entry.billCount);
+        m.put("totalBilled", entry.totalBilled);
+        m.put("totalPaidOnBills", entry.totalPaidOnBills);
+        m.put("lastBillAt", entry.lastBillAt);
+        m.put("openCredits", entry.openCredits);
+        m.put("outstandingCredit", entry.outstandingCredit);
+        return m;
+    }
+
+    /**
+     * A bill or credit of this customer was written; the snapshot is dropped when the transaction commits
+     */
+    public void onCustomerChanged(Long customerId) {
+        if (customerId == null) return;
+        TransactionUtils.afterCommit(() -> cache.remove(customerId));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private BalanceEntry load(Long customerId) {
+        long now = System.currentTimeMillis();
+        BalanceEntry entry = cache.get(customerId);
+        if (entry != null && now - entry.loadedAt < TTL_MS) {
+            return entry;
+        }
+        if (cache.size() >= MAX_CACHED_CUSTOMERS) {
+            cache.clear();
+        }
+        return cache.compute(customerId, (id, existing) -> {
+            if (existing != null && now - existing.loadedAt < TTL_MS) return existing;
+            BalanceEntry fresh = new BalanceEntry(now);
+            List<Object[]> bills = billingRepository.summarizeByCustomerId(id);
+            if (!bills.isEmpty()) {
+                Object[] row = bills.get(0);
+                fresh.billCount = row[0] != null ? ((Number) row[0]).longValue() : 0L;
+                fresh.totalBilled = amount(row[1]);
+                fresh.totalPaidOnBills = amount(row[2]);
+                fresh.lastBillAt = (LocalDateTime) row[3];
+            }
+            List<Object[]> credits = creditRepository.summarizeOpenByCustomerId(id, OPEN_STATUSES);
+            if (!credits.isEmpty()) {
+                Object[] row = credits.get(0);
+                fresh.openCredits = row[0] != null ? ((Number) row[0]).longValue() : 0L;
+                fresh.outstandingCredit = amount(row[1]);
+            }
+            return fresh;
+        });
+    }
+
+    private static BigDecimal amount(Object value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+
+    private static class BalanceEntry {
+        final long loadedAt;
+        long billCount;
+        BigDecimal totalBilled = BigDecimal.ZERO;
+        BigDecimal totalPaidOnBills = BigDecimal.ZERO;
+        LocalDateTime lastBillAt;
+        long openCredits;
+        BigDecimal outstandingCredit = BigDecimal.ZERO;
+
+        BalanceEntry(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,9 @@ public class CustomerLedgerService {
     @Autowired
     private CreditPaymentHistoryRepository creditPaymentHistoryRepository;
 
+    @Autowired
+    private CustomerBalanceCache customerBalanceCache;
+
     /**
      * Single view per customer: bills, credits (udhari), credit payment history.
      */
@@ -31,30 +36,199 @@ public class CustomerLedgerService {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + customerId));
 
-        List<Billing> bills = billingRepository.findByCustomerId(customerId);
-        List<Credit> credits = creditRepository.findByCustomerId(customerId);
+        List<Billing> bills = billingRepository.findByCustomerIdOrderByCreatedAtDesc(customerId);
+        List<Credit> credits = creditRepository.findByCustomerIdWithBilling(customerId);
 
         List<Map<String, Object>> billSummaries = bills.stream()
-                .sorted(Comparator.comparing(Billing::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
                 .map(this::toBillSummary)
                 .collect(Collectors.toList());
 
-        List<Map<String, Object>> creditSummaries = new ArrayList<>();
+        // All payments for all credits in one query, grouped by credit (order within a credit preserved)
+        Map<Long, List<Map<String, Object>>> paymentsByCredit = new HashMap<>();
+        if (!credits.isEmpty()) {
+            List<Long> creditIds = credits.stream().map(Credit::getId).collect(Collectors.toList());
+            for (CreditPaymentHistory p : creditPaymentHistoryRepository.findByCreditIdInOrderByPaymentDateDesc(creditIds)) {
+                paymentsByCredit.computeIfAbsent(p.getCredit().getId(), k -> new ArrayList<>()).add(toPaymentSummary(p));
+            }
+        }
+
+        List<Map<String, Object>> creditSummaries = new ArrayList<>(credits.size());
         for (Credit c : credits) {
             Map<String, Object> cs = toCreditSummary(c);
-            List<CreditPaymentHistory> payments = creditPaymentHistoryRepository.findByCreditIdOrderByPaymentDateDesc(c.getId());
-            cs.put("payments", payments.stream().map(this::toPaymentSummary).collect(Collectors.toList()));
+            cs.put("payments", paymentsByCredit.getOrDefault(c.getId(), Collections.emptyList()));
             creditSummaries.add(cs);
         }
-        creditSummaries.sort(Comparator.comparing(m -> (java.time.LocalDateTime) m.get("createdAt"), Comparator.nullsLast(Comparator.reverseOrder())));
 
         Map<String, Object> ledger = new HashMap<>();
         ledger.put("customer", toCustomerSummary(customer));
+        ledger.put("balance", customerBalanceCache.getBalance(customerId));
         ledger.put("bills", billSummaries);
         ledger.put("credits", creditSummaries);
         return ledger;
     }
 
+    /**
+     * Date-ordered udhari ledger for a customer with a running balance.
+     *
+     * Entries: CREDIT (+credit amount), PAYMENT (-payment amount), and ADJUSTMENT where a credit's
+     * remaining amount was changed outside the payment history (paid at creation, settled through a
+     * bill edit), so the closing balance always equals the customer's outstanding credit.
+     * The balance is accumulated in one chronological pass and only the requested page is materialised;
+     * newestFirst pages from the latest entry backwards.
+     */
+    public Map<String, Object> getLedgerEntries(Long customerId, int page, int size, boolean newestFirst) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new IllegalArgumentException("Customer not found: " + customerId);
+        }
+        List<LedgerEntry> entries = loadLedgerEntries(customerId);
+        int total = entries.size();
+
+        // Page window in chronological (oldest-first) positions
+        int from, to;
+        if (newestFirst) {
+            to = Math.max(0, total - page * size);
+            from = Math.max(0, to - size);
+        } else {
+            from = Math.min(total, page * size);
+            to = Math.min(total, from + size);
+        }
+
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < from; i++) {
+            balance = balance.add(entries.get(i).amount);
+        }
+        BigDecimal openingBalance = balance;
+        List<Map<String, Object>> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            LedgerEntry e = entries.get(i);
+            balance = balance.add(e.amount);
+            content.add(e.toMap(balance));
+        }
+        BigDecimal closingBalance = balance;
+        for (int i = to; i < total; i++) {
+            balance = balance.add(entries.get(i).amount);
+        }
+        if (newestFirst) {
+            Collections.reverse(content);
+        }
+
+        int totalPages = size > 0 ? (total + size - 1) / size : 0;
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", content);
+        response.put("totalElements", (long) total);
+        response.put("totalPages", totalPages);
+        response.put("currentPage", page);
+        response.put("pageSize", size);
+        response.put("hasNext", page + 1 < totalPages);
+        response.put("hasPrevious", page > 0);
+        response.put("openingBalance", openingBalance);
+        response.put("closingBalance", closingBalance);
+        response.put("currentBalance", balance);
+        return response;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Two projection queries (credits, payments), both ordered by the database; the merge below only
+     * interleaves the two sorted lists and slots in adjustments
+     */
+    private List<LedgerEntry> loadLedgerEntries(Long customerId) {
+        List<Object[]> creditRows = creditRepository.findLedgerRowsByCustomerId(customerId);
+        List<Object[]> paymentRows = creditPaymentHistoryRepository.findLedgerRowsByCustomerId(customerId);
+
+        Map<Long, BigDecimal> paidByCredit = new HashMap<>();
+        Map<Long, String> billNumberByCredit = new HashMap<>();
+        for (Object[] r : paymentRows) {
+            paidByCredit.merge((Long) r[1], amount(r[3]), BigDecimal::add);
+        }
+
+        List<LedgerEntry> credits = new ArrayList<>(creditRows.size());
+        List<LedgerEntry> adjustments = new ArrayList<>();
+        for (Object[] r : creditRows) {
+            Long creditId = (Long) r[0];
+            BigDecimal creditAmount = amount(r[3]);
+            billNumberByCredit.put(creditId, (String) r[7]);
+            credits.add(new LedgerEntry("CREDIT", creditId, creditId, (LocalDateTime) r[1], creditAmount,
+                    (String) r[5], (Long) r[6], (String) r[7]));
+            BigDecimal expectedRemaining = creditAmount.subtract(paidByCredit.getOrDefault(creditId, BigDecimal.ZERO));
+            BigDecimal difference = amount(r[4]).subtract(expectedRemaining);
+            if (difference.signum() != 0) {
+                LocalDateTime at = r[2] != null ? (LocalDateTime) r[2] : (LocalDateTime) r[1];
+                adjustments.add(new LedgerEntry("ADJUSTMENT", creditId, creditId, at, difference,
+                        "Balance adjusted outside payment history", (Long) r[6], (String) r[7]));
+            }
+        }
+        adjustments.sort(LEDGER_ORDER);
+
+        List<LedgerEntry> payments = new ArrayList<>(paymentRows.size());
+        for (Object[] r : paymentRows) {
+            Long creditId = (Long) r[1];
+            payments.add(new LedgerEntry("PAYMENT", (Long) r[0], creditId, (LocalDateTime) r[2], amount(r[3]).negate(),
+                    (String) r[4], null, billNumberByCredit.get(creditId)));
+        }
+        return merge(merge(credits, payments), adjustments);
+    }
+
+    private static final Comparator<LedgerEntry> LEDGER_ORDER = Comparator
+            .comparing((LedgerEntry e) -> e.at, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(e -> e.typeOrder)
+            .thenComparing(e -> e.id);
+
+    private static List<LedgerEntry> merge(List<LedgerEntry> a, List<LedgerEntry> b) {
+        List<LedgerEntry> out = new ArrayList<>(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() && j < b.size()) {
+            out.add(LEDGER_ORDER.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+        }
+        while (i < a.size()) out.add(a.get(i++));
+        while (j < b.size()) out.add(b.get(j++));
+        return out;
+    }
+
+    private static BigDecimal amount(Object value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+
+    private static class LedgerEntry {
+        final String type;
+        final int typeOrder;
+        final Long id;
+        final Long creditId;
+        final LocalDateTime at;
+        final BigDecimal amount;
+        final String description;
+        final Long billingId;
+        final String billNumber;
+
+        LedgerEntry(String type, Long id, Long creditId, LocalDateTime at, BigDecimal amount,
+                    String description, Long billingId, String billNumber) {
+            this.type = type;
+            this.typeOrder = "CREDIT".equals(type) ? 0 : "PAYMENT".equals(type) ? 1 : 2;
+            this.id = id;
+            this.creditId = creditId;
+            this.at = at;
+            this.amount = amount;
+            this.description = description;
+            this.billingId = billingId;
+            this.billNumber = billNumber;
+        }
+
+        Map<String, Object> toMap(BigDecimal balanceAfter) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("type", type);
+            m.put("id", id);
+            m.put("creditId", creditId);
+            m.put("date", at);
+            m.put("amount", amount);
+            m.put("description", description);
+            m.put("billingId", billingId);
+            m.put("billNumber", billNumber);
+            m.put("balance", balanceAfter);
+            return m;
+        }
+    }
+
     private Map<String, Object> toCustomerSummary(Customer c) {
         Map<String, Object> m = new HashMap<>();
         m.put("id", c.getId());
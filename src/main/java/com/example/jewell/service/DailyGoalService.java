@@ -22,8 +22,14 @@ public class DailyGoalService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private DailyGoalTimeBuffer dailyGoalTimeBuffer;
+
     @Transactional
     public DailyGoal setDailyGoal(Long userId, Integer goalMinutes) {
+        // Write buffered seconds first so the row read below is current, and drop the old target
+        dailyGoalTimeBuffer.invalidate(userId);
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
 
@@ -56,9 +62,10 @@ public class DailyGoalService {
 
         if (todayGoal.isPresent()) {
             DailyGoal goal = todayGoal.get();
-            // Update completion status before returning
+            // Update completion status before returning (written only if it changed)
+            boolean wasCompleted = Boolean.TRUE.equals(goal.getIsCompleted());
             updateGoalCompletionStatus(goal);
-            return dailyGoalRepository.save(goal);
+            return wasCompleted == goal.getIsCompleted() ? goal : dailyGoalRepository.save(goal);
         }
 
         // If no goal exists for today, return the latest goal or create a default one
@@ -87,29 +94,28 @@ public class DailyGoalService {
         return dailyGoalRepository.save(defaultGoal);
     }
 
-    @Transactional
+    /**
+     * Heartbeat from a practice session; buffered in memory and written to daily_goals in batches
+     */
     public DailyGoal updateTimeSpent(Long userId, Integer additionalSeconds) {
+        return dailyGoalTimeBuffer.add(userId, additionalSeconds, () -> findOrCreateTodayGoal(userId));
+    }
+
+    private DailyGoal findOrCreateTodayGoal(Long userId) {
         LocalDate today = LocalDate.now();
         Optional<DailyGoal> todayGoal = dailyGoalRepository.findByUserIdAndGoalDate(userId, today);
-
-        DailyGoal dailyGoal;
         if (todayGoal.isPresent()) {
-            dailyGoal = todayGoal.get();
-            dailyGoal.setTodayTimeSpentSeconds(dailyGoal.getTodayTimeSpentSeconds() + additionalSeconds);
-        } else {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-            dailyGoal = new DailyGoal();
-            dailyGoal.setUser(user);
-            dailyGoal.setGoalDate(today);
-            dailyGoal.setGoalMinutes(15); // Default goal
-            dailyGoal.setTodayTimeSpentSeconds(additionalSeconds);
-            dailyGoal.setIsCompleted(false);
+            return todayGoal.get();
         }
 
-        // Check if goal is completed
-        updateGoalCompletionStatus(dailyGoal);
-
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+        DailyGoal dailyGoal = new DailyGoal();
+        dailyGoal.setUser(user);
+        dailyGoal.setGoalDate(today);
+        dailyGoal.setGoalMinutes(15); // Default goal
+        dailyGoal.setTodayTimeSpentSeconds(0);
+        dailyGoal.setIsCompleted(false);
         return dailyGoalRepository.save(dailyGoal);
     }
 
@@ -118,15 +124,19 @@ public class DailyGoalService {
         DailyGoal goal = getDailyGoal(userId);
 
         Map<String, Object> stats = new HashMap<>();
+        // Include heartbeats that are still buffered
+        int timeSpentSeconds = goal.getTodayTimeSpentSeconds()
+                + dailyGoalTimeBuffer.pendingSeconds(userId, goal.getGoalDate());
+        int goalSeconds = goal.getGoalMinutes() * 60;
+
         stats.put("goalMinutes", goal.getGoalMinutes());
-        stats.put("todayTimeSpentSeconds", goal.getTodayTimeSpentSeconds());
-        stats.put("isCompleted", goal.getIsCompleted());
+        stats.put("todayTimeSpentSeconds", timeSpentSeconds);
+        stats.put("isCompleted", timeSpentSeconds >= goalSeconds);
         stats.put("goalDate", goal.getGoalDate().toString());
 
         // Calculate progress percentage
-        int goalSeconds = goal.getGoalMinutes() * 60;
         double progressPercentage = goalSeconds > 0 
-            ? Math.min((goal.getTodayTimeSpentSeconds().doubleValue() / goalSeconds) * 100, 100) 
+            ? Math.min(((double) timeSpentSeconds / goalSeconds) * 100, 100) 
             : 0;
         stats.put("progressPercentage", progressPercentage);
 
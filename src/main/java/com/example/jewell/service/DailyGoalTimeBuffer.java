@@ -0,0 +1,187 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.DailyGoal;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Absorbs daily-goal time heartbeats in memory and writes them to daily_goals in batches.
+ *
+ * Each user has one accumulator for today: the goal row's id, target and persisted seconds,
+ * plus a LongAdder (striped, lock-free) of seconds not yet written. The goal row is read once
+ * per user per day; heartbeats after that touch memory only. Pending seconds are flushed with one
+ * batched UPDATE per interval, and immediately for a user whose heartbeat crosses the goal,
+ * so completion is never held back by the buffer.
+ */
+@Service
+public class DailyGoalTimeBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyGoalTimeBuffer.class);
+
+    // is_completed is assigned first so it sees the pre-update seconds on every database
+    private static final String UPDATE_SQL =
+            "UPDATE daily_goals SET is_completed = (COALESCE(today_time_spent_seconds, 0) + ? >= goal_minutes * 60), " +
+            "today_time_spent_seconds = COALESCE(today_time_spent_seconds, 0) + ?, updated_at = ? WHERE id = ?";
+
+    private static final long IDLE_EVICT_MS = 30 * 60_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+    /**
+     * Add seconds to a user's goal for today. The loader finds or creates today's goal row and
+     * is only called on the user's first heartbeat of the day.
+     * Returns the goal as it will read once everything pending is written.
+     */
+    public DailyGoal add(Long userId, int seconds, Supplier<DailyGoal> loader) {
+        LocalDate today = LocalDate.now();
+        Accumulator acc = accumulators.get(userId);
+        if (acc == null || !acc.goalDate.equals(today)) {
+            acc = register(userId, loader.get());
+        }
+        acc.pending.add(seconds);
+        acc.lastTouched = System.currentTimeMillis();
+
+        if (!acc.completed && acc.totalSeconds() >= acc.goalMinutes * 60L) {
+            // Goal crossed: write this user's progress now rather than at the next interval
+            flushAll(List.of(acc));
+        }
+        return acc.toGoal();
+    }
+
+    /**
+     * Seconds received for a user's goal on a date that are not in daily_goals yet
+     */
+    public int pendingSeconds(Long userId, LocalDate date) {
+        Accumulator acc = accumulators.get(userId);
+        return acc != null && acc.goalDate.equals(date) ? (int) acc.pending.sum() : 0;
+    }
+
+    /**
+     * The goal target changed (or the row was rewritten): write what is pending and drop the cached state
+     */
+    public void invalidate(Long userId) {
+        Accumulator acc = accumulators.remove(userId);
+        if (acc != null) {
+            flushAll(List.of(acc));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${daily-goal.flush-interval-ms:15000}")
+    public void flush() {
+        LocalDate today = LocalDate.now();
+        long idleCutoff = System.currentTimeMillis() - IDLE_EVICT_MS;
+        List<Accumulator> dirty = new ArrayList<>();
+        for (Accumulator acc : accumulators.values()) {
+            if (acc.pending.sum() != 0) {
+                dirty.add(acc);
+            }
+        }
+        flushAll(dirty);
+        // Forget users who stopped practising or whose day is over (nothing pending after the flush)
+        accumulators.values().removeIf(acc -> acc.pending.sum() == 0
+                && (!acc.goalDate.equals(today) || acc.lastTouched < idleCutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Accumulator register(Long userId, DailyGoal goal) {
+        Accumulator fresh = new Accumulator(goal);
+        Accumulator previous = accumulators.put(userId, fresh);
+        if (previous != null && previous != fresh) {
+            // Day rolled over (or a concurrent first heartbeat): keep the old accumulator's seconds
+            flushAll(List.of(previous));
+        }
+        return fresh;
+    }
+
+    private void flushAll(List<Accumulator> accs) {
+        if (accs.isEmpty()) return;
+        List<Object[]> batch = new ArrayList<>(accs.size());
+        List<Accumulator> flushed = new ArrayList<>(accs.size());
+        List<Long> deltas = new ArrayList<>(accs.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Accumulator acc : accs) {
+            long delta = acc.pending.sumThenReset();
+            if (delta == 0) continue;
+            batch.add(new Object[]{delta, delta, now, acc.goalId});
+            flushed.add(acc);
+            deltas.add(delta);
+        }
+        if (batch.isEmpty()) return;
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            for (int i = 0; i < flushed.size(); i++) {
+                Accumulator acc = flushed.get(i);
+                acc.persistedSeconds.add(deltas.get(i));
+                if (acc.persistedSeconds.sum() >= acc.goalMinutes * 60L) {
+                    acc.completed = true;
+                }
+            }
+        } catch (Exception e) {
+            // Put the seconds back; they go out with the next flush
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).pending.add(deltas.get(i));
+            }
+            log.error("Failed to flush daily goal time for {} users: {}", flushed.size(), e.getMessage(), e);
+        }
+    }
+
+    private static class Accumulator {
+        final Long goalId;
+        final LocalDate goalDate;
+        final int goalMinutes;
+        final LongAdder persistedSeconds = new LongAdder();
+        final LongAdder pending = new LongAdder();
+        volatile boolean completed;
+        volatile long lastTouched = System.currentTimeMillis();
+
+        Accumulator(DailyGoal goal) {
+            this.goalId = goal.getId();
+            this.goalDate = goal.getGoalDate();
+            this.goalMinutes = goal.getGoalMinutes() != null ? goal.getGoalMinutes() : 15;
+            this.persistedSeconds.add(goal.getTodayTimeSpentSeconds() != null ? goal.getTodayTimeSpentSeconds() : 0);
+            this.completed = Boolean.TRUE.equals(goal.getIsCompleted());
+        }
+
+        long totalSeconds() {
+            return persistedSeconds.sum() + pending.sum();
+        }
+
+        /**
+         * Detached view of the goal including pending seconds
+         */
+        DailyGoal toGoal() {
+            DailyGoal goal = new DailyGoal();
+            goal.setId(goalId);
+            goal.setGoalDate(goalDate);
+            goal.setGoalMinutes(goalMinutes);
+            int seconds = (int) totalSeconds();
+            goal.setTodayTimeSpentSeconds(seconds);
+            goal.setIsCompleted(seconds >= goalMinutes * 60);
+            return goal;
+        }
+    }
+}
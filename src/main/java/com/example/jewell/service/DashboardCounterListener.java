@@ -0,0 +1,132 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.Credit;
+import com.example.jewell.model.Customer;
+import com.example.jewell.model.Order;
+import com.example.jewell.model.Stock;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Feeds {@link DashboardCounters} from Hibernate's post-commit events, so every service that saves
+ * stock, customers, orders, credits or bills keeps the dashboard current without knowing about it.
+ * An update is applied as "remove the old row state, add the new one"; rolled-back work never fires.
+ */
+@Component
+public class DashboardCounterListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounterListener.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DashboardCounters counters;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        apply(event.getPersister(), event.getPersister().getMappedClass(), event.getState(), 1);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Class<?> type = event.getPersister().getMappedClass();
+        if (event.getOldState() == null) {
+            // Reattached without a loaded snapshot: no way to tell what changed
+            counters.markStale(type);
+            return;
+        }
+        apply(event.getPersister(), type, event.getOldState(), -1);
+        apply(event.getPersister(), type, event.getState(), 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Class<?> type = event.getPersister().getMappedClass();
+        if (event.getDeletedState() == null) {
+            counters.markStale(type);
+            return;
+        }
+        apply(event.getPersister(), type, event.getDeletedState(), -1);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was counted before commit
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was counted before commit
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was counted before commit
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return DashboardCounters.isTracked(persister.getMappedClass());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void apply(EntityPersister persister, Class<?> type, Object[] state, int sign) {
+        try {
+            if (type == Stock.class) {
+                counters.onStock((Stock.StockStatus) value(persister, state, "status"), sign);
+            } else if (type == Customer.class) {
+                counters.onCustomer(sign);
+            } else if (type == Order.class) {
+                counters.onOrder((Order.PaymentStatus) value(persister, state, "paymentStatus"),
+                        (BigDecimal) value(persister, state, "finalAmount"), sign);
+            } else if (type == Credit.class) {
+                counters.onCredit((Credit.CreditStatus) value(persister, state, "status"), sign);
+            } else if (type == Billing.class) {
+                counters.onBilling((Billing.PaymentStatus) value(persister, state, "paymentStatus"),
+                        (BigDecimal) value(persister, state, "finalAmount"), sign);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply dashboard delta for {}: {}", type.getSimpleName(), e.getMessage());
+            counters.markStale(type);
+        }
+    }
+
+    private static Object value(EntityPersister persister, Object[] state, String property) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) {
+                return state[i];
+            }
+        }
+        throw new IllegalStateException("No property " + property + " on " + persister.getEntityName());
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.Credit;
+import com.example.jewell.model.Customer;
+import com.example.jewell.model.Order;
+import com.example.jewell.model.Stock;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.CreditRepository;
+import com.example.jewell.repository.CustomerRepository;
+import com.example.jewell.repository.OrderRepository;
+import com.example.jewell.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-memory dashboard aggregates: stock by status, customers, orders, open credits and paid revenue.
+ *
+ * Seeded from the database on startup, then moved by deltas from {@link DashboardCounterListener}
+ * after every committed insert, update or delete of the underlying entities, so reading them costs nothing.
+ * Writes that bypass Hibernate (bulk JPQL/native updates, manual SQL) are not seen; the periodic
+ * reconcile corrects every counter against the database and bounds that drift.
+ */
+@Service
+public class DashboardCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounters.class);
+
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CreditRepository creditRepository;
+    @Autowired
+    private BillingRepository billingRepository;
+
+    private final AtomicLong totalStock = new AtomicLong();
+    private final Map<Stock.StockStatus, AtomicLong> stockByStatus = new EnumMap<>(Stock.StockStatus.class);
+    private final AtomicLong customers = new AtomicLong();
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLong openCredits = new AtomicLong();
+    private final AtomicReference<BigDecimal> billingRevenue = new AtomicReference<>(BigDecimal.ZERO);
+    private final AtomicReference<BigDecimal> orderRevenue = new AtomicReference<>(BigDecimal.ZERO);
+
+    private volatile boolean ready = false;
+    /** Bumped by {@link #markStale}; a reconcile only marks the counters ready if it did not move */
+    private final AtomicLong staleGeneration = new AtomicLong();
+
+    public DashboardCounters() {
+        for (Stock.StockStatus status : Stock.StockStatus.values()) {
+            stockByStatus.put(status, new AtomicLong());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Async
+    public void seedOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Recompute every counter from the database (every 5 minutes by default).
+     * Each counter is corrected by (database value - counter value read just before its query) rather than
+     * overwritten, so deltas that arrive while the queries run are kept.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${dashboard.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long generation = staleGeneration.get();
+        try {
+            Map<Stock.StockStatus, Long> statusBefore = new EnumMap<>(Stock.StockStatus.class);
+            for (Stock.StockStatus status : Stock.StockStatus.values()) {
+                statusBefore.put(status, stockByStatus.get(status).get());
+            }
+            long totalBefore = totalStock.get();
+            Map<Stock.StockStatus, Long> byStatus = countStockByStatus();
+            totalStock.addAndGet(sum(byStatus) - totalBefore);
+            for (Stock.StockStatus status : Stock.StockStatus.values()) {
+                stockByStatus.get(status).addAndGet(byStatus.getOrDefault(status, 0L) - statusBefore.get(status));
+            }
+            correct(customers, customerRepository::count);
+            correct(orders, orderRepository::count);
+            correct(openCredits, () -> creditRepository.countByStatus(Credit.CreditStatus.PENDING)
+                    + creditRepository.countByStatus(Credit.CreditStatus.PARTIAL));
+            correct(billingRevenue, () -> nonNull(billingRepository.getTotalPaidRevenue()));
+            correct(orderRevenue, () -> nonNull(orderRepository.getTotalPaidRevenue()));
+            // An untracked change reported meanwhile may not be in what was just read: stay stale
+            ready = staleGeneration.get() == generation;
+        } catch (Exception e) {
+            log.error("Failed to reconcile dashboard counters: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pick up a reconcile requested by {@link #markStale} (or a failed seed) without waiting for the full interval
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void reconcileIfStale() {
+        if (!ready) {
+            reconcile();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Current values under the dashboard's keys
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalStock", totalStock.get());
+        result.put("availableStock", stockByStatus.get(Stock.StockStatus.AVAILABLE).get());
+        result.put("soldStock", stockByStatus.get(Stock.StockStatus.SOLD).get());
+        result.put("totalCustomers", customers.get());
+        result.put("totalOrders", orders.get());
+        result.put("totalCredits", openCredits.get());
+        result.put("totalRevenue", billingRevenue.get().add(orderRevenue.get()));
+        return result;
+    }
+
+    /**
+     * Same values straight from the database (used until the counters are seeded)
+     */
+    public Map<String, Object> computeFromDatabase() {
+        Map<Stock.StockStatus, Long> byStatus = countStockByStatus();
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalStock", sum(byStatus));
+        result.put("availableStock", byStatus.getOrDefault(Stock.StockStatus.AVAILABLE, 0L));
+        result.put("soldStock", byStatus.getOrDefault(Stock.StockStatus.SOLD, 0L));
+        result.put("totalCustomers", customerRepository.count());
+        result.put("totalOrders", orderRepository.count());
+        result.put("totalCredits", creditRepository.countByStatus(Credit.CreditStatus.PENDING)
+                + creditRepository.countByStatus(Credit.CreditStatus.PARTIAL));
+        result.put("totalRevenue", nonNull(billingRepository.getTotalPaidRevenue())
+                .add(nonNull(orderRepository.getTotalPaidRevenue())));
+        return result;
+    }
+
+    // ========== DELTAS (called after commit) ==========
+
+    void onStock(Stock.StockStatus status, int sign) {
+        totalStock.addAndGet(sign);
+        if (status != null) {
+            stockByStatus.get(status).addAndGet(sign);
+        }
+    }
+
+    void onCustomer(int sign) {
+        customers.addAndGet(sign);
+    }
+
+    void onOrder(Order.PaymentStatus paymentStatus, BigDecimal finalAmount, int sign) {
+        orders.addAndGet(sign);
+        if (paymentStatus == Order.PaymentStatus.PAID && finalAmount != null) {
+            orderRevenue.accumulateAndGet(sign > 0 ? finalAmount : finalAmount.negate(), BigDecimal::add);
+        }
+    }
+
+    void onCredit(Credit.CreditStatus status, int sign) {
+        if (status == Credit.CreditStatus.PENDING || status == Credit.CreditStatus.PARTIAL) {
+            openCredits.addAndGet(sign);
+        }
+    }
+
+    void onBilling(Billing.PaymentStatus paymentStatus, BigDecimal finalAmount, int sign) {
+        if (paymentStatus == Billing.PaymentStatus.PAID && finalAmount != null) {
+            billingRevenue.accumulateAndGet(sign > 0 ? finalAmount : finalAmount.negate(), BigDecimal::add);
+        }
+    }
+
+    /**
+     * A change could not be turned into a delta: serve from the database until the next reconcile
+     */
+    void markStale(Class<?> entityType) {
+        log.debug("Dashboard counters stale after untracked change to {}", entityType.getSimpleName());
+        staleGeneration.incrementAndGet();
+        ready = false;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Stock counts per status; rows without a status are kept under the null key so totals include them
+     */
+    private Map<Stock.StockStatus, Long> countStockByStatus() {
+        Map<Stock.StockStatus, Long> counts = new HashMap<>();
+        for (Object[] row : stockRepository.countGroupedByStatus()) {
+            counts.put((Stock.StockStatus) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Deltas applied between reading the counter and the query are counted once more if the query
+     * already saw their commit; that overlap is the short commit-to-listener window, fixed next reconcile
+     */
+    private static void correct(AtomicLong counter, LongSupplier query) {
+        long before = counter.get();
+        counter.addAndGet(query.getAsLong() - before);
+    }
+
+    private static void correct(AtomicReference<BigDecimal> counter, Supplier<BigDecimal> query) {
+        BigDecimal before = counter.get();
+        BigDecimal adjustment = query.get().subtract(before);
+        counter.accumulateAndGet(adjustment, BigDecimal::add);
+    }
+
+    private static long sum(Map<Stock.StockStatus, Long> counts) {
+        long total = 0;
+        for (Long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static BigDecimal nonNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    static boolean isTracked(Class<?> type) {
+        return type == Stock.class || type == Customer.class || type == Order.class
+                || type == Credit.class || type == Billing.class;
+    }
+}
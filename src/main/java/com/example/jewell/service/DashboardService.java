@@ -1,74 +1,126 @@
 package com.example.jewell.service;
 
-import com.example.jewell.model.Credit;
 import com.example.jewell.model.DailyRate;
 import com.example.jewell.model.GoldPrice;
 import com.example.jewell.model.Order;
 import com.example.jewell.model.SilverPrice;
-import com.example.jewell.model.Stock;
-import com.example.jewell.repository.BillingRepository;
-import com.example.jewell.repository.CreditRepository;
-import com.example.jewell.repository.CustomerRepository;
 import com.example.jewell.repository.OrderRepository;
-import com.example.jewell.repository.StockRepository;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
-@Transactional(readOnly = true)
 public class DashboardService {
 
-    @Autowired
-    private StockRepository stockRepository;
-    @Autowired
-    private CustomerRepository customerRepository;
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
     @Autowired
     private OrderRepository orderRepository;
     @Autowired
-    private CreditRepository creditRepository;
-    @Autowired
-    private BillingRepository billingRepository;
-    @Autowired
     private GoldPriceService goldPriceService;
     @Autowired
     private SilverPriceService silverPriceService;
     @Autowired
     private DailyRateService dailyRateService;
+    @Autowired
+    private DashboardCounters dashboardCounters;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    @Qualifier("dashboardExecutor")
+    private Executor dashboardExecutor;
+
+    @Value("${dashboard.query-timeout-ms:2000}")
+    private long queryTimeoutMs;
+
+    /** Read-only transaction per section whose timeout becomes the JDBC query timeout */
+    private TransactionTemplate sectionTransaction;
+
+    @PostConstruct
+    public void init() {
+        sectionTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        sectionTransaction.setReadOnly(true);
+        sectionTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queryTimeoutMs + 999)));
+    }
 
     /**
      * Returns all data needed for the admin dashboard in one call.
+     * Counters come from {@link DashboardCounters}; the remaining sections (rates, recent orders, and the
+     * counters themselves until they are seeded) run in parallel, each bounded by a timeout.
+     * A section that fails or times out is left out and listed under "unavailable" ("partial" is then true).
      */
     public Map<String, Object> getDashboardOverview() {
+        Map<String, CompletableFuture<Map<String, Object>>> sections = new LinkedHashMap<>();
         Map<String, Object> result = new HashMap<>();
 
-        long totalStock = stockRepository.count();
-        long availableStock = stockRepository.countByStatus(Stock.StockStatus.AVAILABLE);
-        long soldStock = stockRepository.countByStatus(Stock.StockStatus.SOLD);
-        result.put("totalStock", totalStock);
-        result.put("availableStock", availableStock);
-        result.put("soldStock", soldStock);
+        if (dashboardCounters.isReady()) {
+            result.putAll(dashboardCounters.snapshot());
+        } else {
+            sections.put("counters", submit(dashboardCounters::computeFromDatabase));
+        }
+        sections.put("rates", submit(this::loadRates));
+        sections.put("recentOrders", submit(this::loadRecentOrders));
 
-        result.put("totalCustomers", customerRepository.count());
-        result.put("totalOrders", orderRepository.count());
+        List<String> unavailable = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Map<String, Object>>> section : sections.entrySet()) {
+            Map<String, Object> values = section.getValue().join();
+            if (values != null) {
+                result.putAll(values);
+            } else {
+                unavailable.add(section.getKey());
+            }
+        }
+        result.put("partial", !unavailable.isEmpty());
+        if (!unavailable.isEmpty()) {
+            result.put("unavailable", unavailable);
+        }
+        return result;
+    }
 
-        long pendingCredits = creditRepository.countByStatus(Credit.CreditStatus.PENDING);
-        long partialCredits = creditRepository.countByStatus(Credit.CreditStatus.PARTIAL);
-        result.put("totalCredits", pendingCredits + partialCredits);
+    // ========== HELPER METHODS ==========
 
-        BigDecimal billingRevenue = billingRepository.getTotalPaidRevenue() != null
-                ? billingRepository.getTotalPaidRevenue() : BigDecimal.ZERO;
-        BigDecimal orderRevenue = orderRepository.getTotalPaidRevenue() != null
-                ? orderRepository.getTotalPaidRevenue() : BigDecimal.ZERO;
-        result.put("totalRevenue", billingRevenue.add(orderRevenue));
+    /**
+     * Run a section on the dashboard pool; completes with null on error, rejection or timeout.
+     * completeOnTimeout only stops waiting, so the section's queries carry the same timeout and are
+     * cancelled by the driver instead of holding a pool thread and a connection.
+     */
+    private CompletableFuture<Map<String, Object>> submit(Supplier<Map<String, Object>> section) {
+        CompletableFuture<Map<String, Object>> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> sectionTransaction.execute(status -> section.get()), dashboardExecutor);
+        } catch (RuntimeException e) {
+            log.warn("Dashboard section rejected: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return future
+                .exceptionally(e -> {
+                    log.warn("Dashboard section failed: {}", e.getMessage());
+                    return null;
+                })
+                .completeOnTimeout(null, queryTimeoutMs, TimeUnit.MILLISECONDS);
+    }
 
+    private Map<String, Object> loadRates() {
+        Map<String, Object> result = new HashMap<>();
         // Prefer unified daily rates, then fall back to legacy gold/silver tables
         java.util.Optional<DailyRate> dailyRate = dailyRateService.getTodayOrLatest();
         BigDecimal todayGold = dailyRate.flatMap(r -> dailyRateService.getGoldRateForCarat(java.math.BigDecimal.valueOf(22)))
@@ -84,11 +136,23 @@ public class DashboardService {
                 .orElse(null);
         result.put("todaySilverPrice", todaySilver);
         result.put("todayDiamondPrice", dailyRate.map(DailyRate::getDiamondPerCarat).orElse(null));
+        return result;
+    }
 
-        List<Order> recentOrders = orderRepository.findAll(
-                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+    /**
+     * Latest orders with their items loaded, since they are serialized outside this worker's session
+     */
+    private Map<String, Object> loadRecentOrders() {
+        List<Order> recentOrders = transactionTemplate.execute(status -> {
+            List<Order> orders = orderRepository.findAll(
+                    PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+            for (Order order : orders) {
+                Hibernate.initialize(order.getItems());
+            }
+            return orders;
+        });
+        Map<String, Object> result = new HashMap<>();
         result.put("recentOrders", recentOrders);
-
         return result;
     }
 }
@@ -0,0 +1,254 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.EmailCampaign;
+import com.example.jewell.model.EmailHistory;
+import com.example.jewell.model.MailQueueItem;
+import com.example.jewell.repository.EmailCampaignRepository;
+import com.example.jewell.repository.EmailHistoryRepository;
+import com.example.jewell.repository.MailQueueRepository;
+import com.example.jewell.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk email campaigns.
+ *
+ * Starting a campaign only stores it; a scheduled tick then walks {@code users} with keyset pagination
+ * ({@code id > lastUserId ORDER BY id}), keeps the selected users (hash-set lookup) and hands them to the
+ * mail queue. Each tick enqueues at most {@code rate-per-minute * tick-interval} recipients across all
+ * running campaigns, so a large campaign trickles into the queue instead of flooding SMTP. The cursor
+ * and the enqueued rows commit together, and the cursor is advanced with a conditional UPDATE, so a
+ * restart resumes exactly where it stopped and two instances never enqueue the same page.
+ * Delivery outcomes land in email_history tagged with the campaign id.
+ */
+@Service
+public class EmailCampaignService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailCampaignService.class);
+
+    /** Bounds one tick's scan when a small selection is spread over a large user table */
+    private static final int MAX_PAGES_PER_TICK = 20;
+
+    @Autowired
+    private EmailCampaignRepository emailCampaignRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MailQueueRepository mailQueueRepository;
+
+    @Autowired
+    private EmailHistoryRepository emailHistoryRepository;
+
+    @Autowired
+    private MailQueueService mailQueueService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${email.campaign.rate-per-minute:600}")
+    private int ratePerMinute;
+
+    @Value("${email.campaign.tick-interval-ms:5000}")
+    private long tickIntervalMs;
+
+    @Value("${email.campaign.page-size:500}")
+    private int pageSize;
+
+    /** Parsed selections of running campaigns */
+    private final Map<Long, Set<Long>> selections = new ConcurrentHashMap<>();
+
+    /**
+     * Create a campaign; an empty or null selection sends to every user. Returns immediately.
+     */
+    public EmailCampaign startCampaign(String subject, String body, String templateId, Collection<Long> selectedUserIds) {
+        if (subject == null || subject.trim().isEmpty()) {
+            throw new IllegalArgumentException("Subject is required");
+        }
+        if (body == null || body.trim().isEmpty()) {
+            throw new IllegalArgumentException("Body is required");
+        }
+        EmailCampaign campaign = new EmailCampaign();
+        campaign.setSubject(subject);
+        campaign.setBody(body);
+        campaign.setTemplateId(templateId != null && !templateId.trim().isEmpty() ? templateId.trim() : "custom");
+        if (selectedUserIds != null && !selectedUserIds.isEmpty()) {
+            TreeSet<Long> sorted = new TreeSet<>(selectedUserIds);
+            StringBuilder ids = new StringBuilder();
+            for (Long id : sorted) {
+                if (ids.length() > 0) ids.append(',');
+                ids.append(id);
+            }
+            campaign.setSelectedUserIds(ids.toString());
+            campaign.setRecipientEstimate((long) sorted.size());
+            // Nothing below the smallest selected id can match
+            campaign.setLastUserId(sorted.first() - 1);
+        } else {
+            campaign.setRecipientEstimate(userRepository.count());
+        }
+        EmailCampaign saved = emailCampaignRepository.save(campaign);
+        log.info("Email campaign {} started: '{}' to ~{} users", saved.getId(), subject, saved.getRecipientEstimate());
+        return saved;
+    }
+
+    /**
+     * Campaign progress: enqueue cursor plus delivery counts from the mail queue and email history
+     */
+    public Map<String, Object> getProgress(Long campaignId) {
+        EmailCampaign campaign = emailCampaignRepository.findById(campaignId)
+                .orElseThrow(() -> new IllegalArgumentException("Campaign not found with id: " + campaignId));
+
+        Map<MailQueueItem.Status, Long> queued = new LinkedHashMap<>();
+        for (Object[] row : mailQueueRepository.countByCampaignGroupedByStatus(campaignId)) {
+            queued.put((MailQueueItem.Status) row[0], (Long) row[1]);
+        }
+        long sent = 0, failed = 0;
+        for (Object[] row : emailHistoryRepository.countByCampaignGroupedByStatus(campaignId)) {
+            if ("sent".equals(row[0])) sent = (Long) row[1];
+            else if ("failed".equals(row[0])) failed = (Long) row[1];
+        }
+        long pending = queued.getOrDefault(MailQueueItem.Status.PENDING, 0L)
+                + queued.getOrDefault(MailQueueItem.Status.SENDING, 0L);
+
+        List<Map<String, Object>> recentFailures = new ArrayList<>();
+        if (failed > 0) {
+            for (EmailHistory h : emailHistoryRepository.findByCampaignIdAndStatusOrderBySentAtDesc(
+                    campaignId, "failed", PageRequest.of(0, 20)).getContent()) {
+                Map<String, Object> f = new LinkedHashMap<>();
+                f.put("emailAddress", h.getEmailAddress());
+                f.put("errorMessage", h.getErrorMessage());
+                f.put("at", h.getSentAt());
+                recentFailures.add(f);
+            }
+        }
+
+        boolean allEnqueued = campaign.getStatus() == EmailCampaign.Status.ENQUEUED;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("campaignId", campaign.getId());
+        m.put("subject", campaign.getSubject());
+        m.put("templateId", campaign.getTemplateId());
+        m.put("status", !allEnqueued ? "ENQUEUING" : pending > 0 ? "SENDING" : "COMPLETED");
+        m.put("recipientEstimate", campaign.getRecipientEstimate());
+        m.put("enqueued", campaign.getEnqueuedCount());
+        m.put("skippedNoEmail", campaign.getSkippedCount());
+        m.put("pending", pending);
+        m.put("sent", sent);
+        m.put("failed", failed);
+        m.put("recentFailures", recentFailures);
+        m.put("createdAt", campaign.getCreatedAt());
+        m.put("enqueuedAt", campaign.getEnqueuedAt());
+        return m;
+    }
+
+    @Scheduled(fixedDelayString = "${email.campaign.tick-interval-ms:5000}")
+    public void tick() {
+        try {
+            List<EmailCampaign> running = emailCampaignRepository.findByStatusOrderByIdAsc(EmailCampaign.Status.RUNNING);
+            int budget = (int) Math.max(1, (long) ratePerMinute * tickIntervalMs / 60_000);
+            // Oldest campaign first; later ones get what is left of this tick's budget
+            for (EmailCampaign campaign : running) {
+                if (budget <= 0) break;
+                budget -= advance(campaign.getId(), budget);
+            }
+        } catch (Exception e) {
+            log.error("Email campaign tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Enqueue up to {@code budget} recipients of one campaign in one transaction; returns how many were enqueued
+     */
+    private int advance(Long campaignId, int budget) {
+        try {
+            Integer enqueued = transactionTemplate.execute(status -> {
+                EmailCampaign campaign = emailCampaignRepository.findById(campaignId).orElse(null);
+                if (campaign == null || campaign.getStatus() != EmailCampaign.Status.RUNNING) return 0;
+                Set<Long> selection = selection(campaign);
+                long maxSelected = selection != null ? Collections.max(selection) : Long.MAX_VALUE;
+
+                Map<Long, String> recipients = new LinkedHashMap<>();
+                long cursor = campaign.getLastUserId();
+                long skipped = 0;
+                boolean exhausted = false;
+                int pages = 0;
+                scan:
+                while (recipients.size() < budget && pages++ < MAX_PAGES_PER_TICK) {
+                    List<Object[]> page = userRepository.findIdAndEmailAfter(cursor, PageRequest.of(0, pageSize));
+                    for (Object[] row : page) {
+                        long userId = (Long) row[0];
+                        if (userId > maxSelected) {
+                            exhausted = true;
+                            break scan;
+                        }
+                        cursor = userId;
+                        if (selection != null && !selection.contains(userId)) continue;
+                        String email = (String) row[1];
+                        if (email == null || email.trim().isEmpty()) {
+                            skipped++;
+                        } else {
+                            recipients.put(userId, email);
+                        }
+                        if (recipients.size() >= budget) break scan;
+                    }
+                    if (page.size() < pageSize) {
+                        exhausted = true;
+                        break;
+                    }
+                }
+
+                mailQueueService.enqueueCampaignBatch(campaignId, campaign.getSubject(), campaign.getTemplateId(), recipients);
+                EmailCampaign.Status next = exhausted ? EmailCampaign.Status.ENQUEUED : EmailCampaign.Status.RUNNING;
+                int updated = emailCampaignRepository.advance(campaignId, campaign.getLastUserId(), cursor,
+                        recipients.size(), skipped, next, exhausted ? LocalDateTime.now() : null,
+                        EmailCampaign.Status.RUNNING);
+                if (updated == 0) {
+                    // Another instance advanced this campaign meanwhile: roll back our copies
+                    throw new IllegalStateException("Campaign " + campaignId + " cursor moved concurrently");
+                }
+                if (exhausted) {
+                    selections.remove(campaignId);
+                    log.info("Email campaign {} fully enqueued ({} recipients)", campaignId,
+                            campaign.getEnqueuedCount() + recipients.size());
+                }
+                return recipients.size();
+            });
+            return enqueued != null ? enqueued : 0;
+        } catch (Exception e) {
+            log.warn("Email campaign {} not advanced this tick: {}", campaignId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private Set<Long> selection(EmailCampaign campaign) {
+        if (campaign.getSelectedUserIds() == null || campaign.getSelectedUserIds().isEmpty()) return null;
+        return selections.computeIfAbsent(campaign.getId(), id -> {
+            String[] parts = campaign.getSelectedUserIds().split(",");
+            Set<Long> ids = new HashSet<>(parts.length * 2);
+            for (String part : parts) {
+                ids.add(Long.parseLong(part.trim()));
+            }
+            return ids;
+        });
+    }
+}
@@ -4,6 +4,8 @@ import com.example.jewell.model.Billing;
 import com.example.jewell.model.BillingItem;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -17,14 +19,17 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
     @Autowired
-    private BillPdfService billPdfService;
+    private BillPdfCache billPdfCache;
 
     @Value("${shop.gstin:09AXDPK0044L1ZI}")
     private String shopGstin;
@@ -33,6 +38,13 @@ public class EmailService {
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH);
 
     public void sendBillEmail(Billing billing, String receiptType) {
+        mailSender.send(buildBillMessage(billing, receiptType));
+    }
+
+    /**
+     * Bill email (HTML body plus PDF attachment) ready to send; the bill's items must be loadable
+     */
+    public MimeMessage buildBillMessage(Billing billing, String receiptType) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -44,16 +56,55 @@ public class EmailService {
             String emailBody = isGst ? generateGstEmailBody(billing) : generateBillEmailBody(billing);
             helper.setText(emailBody, true);
 
-            byte[] pdfBytes = billPdfService.generatePdf(billing, receiptType);
+            byte[] pdfBytes = billPdfCache.getPdf(billing, receiptType);
             String pdfFilename = "Bill-" + billing.getBillNumber().replaceAll("[^a-zA-Z0-9.-]", "_") + ".pdf";
             helper.addAttachment(pdfFilename, new ByteArrayDataSource(pdfBytes, "application/pdf"));
+            return message;
+        } catch (MessagingException e) {
+            throw new RuntimeException("Error sending email", e);
+        }
+    }
 
-            mailSender.send(message);
+    /**
+     * HTML email ready to send
+     */
+    public MimeMessage buildHtmlMessage(String to, String subject, String body) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(body, true);
+            return message;
         } catch (MessagingException e) {
             throw new RuntimeException("Error sending email", e);
         }
     }
 
+    /**
+     * Send messages over a single SMTP connection. Returns the messages that failed with their errors
+     * (empty when all were accepted); if the connection itself fails, every message is reported failed.
+     */
+    public Map<MimeMessage, Exception> sendAll(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = new HashMap<>();
+        if (messages.isEmpty()) return failures;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            for (Map.Entry<Object, Exception> failed : e.getFailedMessages().entrySet()) {
+                if (failed.getKey() instanceof MimeMessage) {
+                    failures.put((MimeMessage) failed.getKey(), failed.getValue());
+                }
+            }
+            if (failures.isEmpty()) {
+                for (MimeMessage message : messages) failures.put(message, e);
+            }
+        } catch (MailException e) {
+            for (MimeMessage message : messages) failures.put(message, e);
+        }
+        return failures;
+    }
+
     private String formatCurrency(BigDecimal amount) {
         if (amount == null) return "₹0.00";
         return CURRENCY_FORMAT.format(amount.setScale(2, RoundingMode.HALF_UP));
@@ -258,18 +309,7 @@ public class EmailService {
     }
 
     public void sendEmail(String to, String subject, String body) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, true);
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Error sending email", e);
-        }
+        mailSender.send(buildHtmlMessage(to, subject, body));
     }
 
     public void sendOtpEmail(String to, String otp) {
@@ -0,0 +1,46 @@
+package com.example.jewell.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Ranked daily leaderboard of Forest focus sessions.
+ * Order: trees planted desc, total focus minutes desc, user id asc.
+ * Kept behind an interface so the in-memory skip list can be swapped for a shared store
+ * (e.g. a Redis sorted set) when the app runs on more than one node.
+ */
+public interface ForestLeaderboard {
+
+    /**
+     * Record a user's current totals for a date; totals only ever grow within a day, so stale updates are ignored
+     */
+    void record(LocalDate date, Long userId, int treesPlanted, int totalFocusMinutes);
+
+    /**
+     * Top entries for a date, best first
+     */
+    List<Entry> top(LocalDate date, int limit);
+
+    /**
+     * 1-based rank of a user on a date, or 0 if they have no session that day
+     */
+    int rank(LocalDate date, Long userId);
+
+    int participants(LocalDate date);
+
+    class Entry {
+        private final Long userId;
+        private final int treesPlanted;
+        private final int totalFocusMinutes;
+
+        public Entry(Long userId, int treesPlanted, int totalFocusMinutes) {
+            this.userId = userId;
+            this.treesPlanted = treesPlanted;
+            this.totalFocusMinutes = totalFocusMinutes;
+        }
+
+        public Long getUserId() { return userId; }
+        public int getTreesPlanted() { return treesPlanted; }
+        public int getTotalFocusMinutes() { return totalFocusMinutes; }
+    }
+}
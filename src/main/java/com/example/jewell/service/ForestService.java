@@ -1,26 +1,45 @@
 package com.example.jewell.service;
 
+import com.example.jewell.model.ForestDailySummary;
 import com.example.jewell.model.ForestSession;
 import com.example.jewell.model.User;
+import com.example.jewell.repository.ForestDailySummaryRepository;
 import com.example.jewell.repository.ForestSessionRepository;
 import com.example.jewell.repository.UserRepository;
+import com.example.jewell.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class ForestService {
     
+    private static final Logger log = LoggerFactory.getLogger(ForestService.class);
+    private static final int DEFAULT_LEADERBOARD_SIZE = 100;
+    
     @Autowired
     private ForestSessionRepository forestSessionRepository;
     
+    @Autowired
+    private ForestDailySummaryRepository forestDailySummaryRepository;
+    
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ForestLeaderboard forestLeaderboard;
+    
     @Transactional
     public ForestSession addFocusSession(Long userId, Integer focusMinutes) {
         User user = userRepository.findById(userId)
@@ -49,7 +68,11 @@ public class ForestService {
                     .build();
         }
         
-        return forestSessionRepository.save(session);
+        ForestSession saved = forestSessionRepository.save(session);
+        int trees = saved.getTreesPlanted();
+        int minutes = saved.getTotalFocusMinutes();
+        TransactionUtils.afterCommit(() -> forestLeaderboard.record(today, userId, trees, minutes));
+        return saved;
     }
     
     public Optional<ForestSession> getTodaySession(Long userId) {
@@ -63,7 +86,7 @@ public class ForestService {
     }
     
     public List<ForestSession> getDailyLeaderboard() {
-        return forestSessionRepository.findDailyLeaderboard(LocalDate.now());
+        return getDailyLeaderboardByDate(LocalDate.now(), DEFAULT_LEADERBOARD_SIZE);
     }
     
     public Long getTotalTrees(Long userId) {
@@ -81,31 +104,131 @@ public class ForestService {
     }
     
     public List<ForestSession> getDailyLeaderboardByDate(LocalDate date) {
-        return forestSessionRepository.findDailyLeaderboard(date);
+        return getDailyLeaderboardByDate(date, DEFAULT_LEADERBOARD_SIZE);
+    }
+    
+    /**
+     * Top sessions of a day in rank order: ids from the ranked leaderboard, then one query for those rows
+     */
+    public List<ForestSession> getDailyLeaderboardByDate(LocalDate date, int limit) {
+        List<ForestLeaderboard.Entry> top = forestLeaderboard.top(date, limit);
+        if (top.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> userIds = top.stream().map(ForestLeaderboard.Entry::getUserId).collect(Collectors.toList());
+        Map<Long, ForestSession> byUser = new HashMap<>();
+        for (ForestSession session : forestSessionRepository.findBySessionDateAndUserIdIn(date, userIds)) {
+            byUser.put(session.getUser().getId(), session);
+        }
+        List<ForestSession> ranked = new ArrayList<>(userIds.size());
+        for (Long id : userIds) {
+            ForestSession session = byUser.get(id);
+            if (session != null) ranked.add(session);
+        }
+        return ranked;
+    }
+    
+    /**
+     * A user's rank on a date plus the totals it is based on
+     */
+    public Map<String, Object> getMyRank(Long userId, LocalDate date) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("date", date.toString());
+        result.put("rank", forestLeaderboard.rank(date, userId));
+        result.put("totalParticipants", forestLeaderboard.participants(date));
+        forestSessionRepository.findByUserIdAndSessionDate(userId, date).ifPresent(session -> {
+            result.put("treesPlanted", session.getTreesPlanted());
+            result.put("totalFocusMinutes", session.getTotalFocusMinutes());
+            result.put("totalDurationFormatted", formatDuration(session.getTotalFocusMinutes()));
+        });
+        return result;
     }
     
+    /**
+     * Ranking dates, newest first: today live from the leaderboard, past days from materialized summaries
+     */
     public List<Map<String, Object>> getAvailableDates() {
-        List<LocalDate> dates = forestSessionRepository.findDistinctSessionDates();
-        return dates.stream().map(date -> {
+        List<Map<String, Object>> dates = new ArrayList<>();
+        
+        LocalDate today = LocalDate.now();
+        int todayParticipants = forestLeaderboard.participants(today);
+        if (todayParticipants > 0) {
             Map<String, Object> dateInfo = new HashMap<>();
-            dateInfo.put("date", date.toString());
-            Long participants = forestSessionRepository.countParticipantsByDate(date);
-            dateInfo.put("totalParticipants", participants != null ? participants : 0L);
-            
-            // Get top ranking for this date
-            List<ForestSession> topSessions = forestSessionRepository.findDailyLeaderboard(date);
-            if (!topSessions.isEmpty()) {
-                ForestSession top = topSessions.get(0);
-                Map<String, Object> topRanking = new HashMap<>();
-                topRanking.put("rank", 1);
-                topRanking.put("fullName", top.getUser().getUsername());
-                topRanking.put("totalDurationFormatted", formatDuration(top.getTotalFocusMinutes()));
-                dateInfo.put("topRanking", topRanking);
+            dateInfo.put("date", today.toString());
+            dateInfo.put("totalParticipants", (long) todayParticipants);
+            List<ForestSession> top = getDailyLeaderboardByDate(today, 1);
+            if (!top.isEmpty()) {
+                dateInfo.put("topRanking", topRanking(top.get(0).getUser().getUsername(), top.get(0).getTotalFocusMinutes()));
             }
-            
-            dateInfo.put("computedAt", java.time.LocalDateTime.now().toString());
-            return dateInfo;
-        }).collect(Collectors.toList());
+            dateInfo.put("computedAt", LocalDateTime.now().toString());
+            dates.add(dateInfo);
+        }
+        
+        for (ForestDailySummary summary : forestDailySummaryRepository.findAllByOrderBySessionDateDesc()) {
+            if (!summary.getSessionDate().isBefore(today)) continue;
+            Map<String, Object> dateInfo = new HashMap<>();
+            dateInfo.put("date", summary.getSessionDate().toString());
+            dateInfo.put("totalParticipants", summary.getTotalParticipants());
+            if (summary.getTopUserId() != null) {
+                dateInfo.put("topRanking", topRanking(summary.getTopUsername(), summary.getTopFocusMinutes()));
+            }
+            dateInfo.put("computedAt", summary.getComputedAt().toString());
+            dates.add(dateInfo);
+        }
+        return dates;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Async
+    public void materializeOnStartup() {
+        materializeDailySummaries();
+    }
+    
+    /**
+     * Write summaries for every past date that has sessions but no summary yet (yesterday, after midnight)
+     */
+    @Scheduled(cron = "${forest.summary.cron:0 10 0 * * *}")
+    public void materializeDailySummaries() {
+        try {
+            LocalDate today = LocalDate.now();
+            Set<LocalDate> done = new HashSet<>(forestDailySummaryRepository.findAllSessionDates());
+            int written = 0;
+            for (LocalDate date : forestSessionRepository.findDistinctSessionDatesBefore(today)) {
+                if (done.contains(date)) continue;
+                forestDailySummaryRepository.save(buildSummary(date));
+                written++;
+            }
+            if (written > 0) {
+                log.info("Materialized {} Forest daily summaries", written);
+            }
+        } catch (Exception e) {
+            log.error("Failed to materialize Forest daily summaries: {}", e.getMessage(), e);
+        }
+    }
+    
+    private ForestDailySummary buildSummary(LocalDate date) {
+        ForestDailySummary summary = ForestDailySummary.builder()
+                .sessionDate(date)
+                .totalParticipants((long) forestLeaderboard.participants(date))
+                .computedAt(LocalDateTime.now())
+                .build();
+        List<ForestLeaderboard.Entry> top = forestLeaderboard.top(date, 1);
+        if (!top.isEmpty()) {
+            ForestLeaderboard.Entry winner = top.get(0);
+            summary.setTopUserId(winner.getUserId());
+            summary.setTopUsername(userRepository.findById(winner.getUserId()).map(User::getUsername).orElse(null));
+            summary.setTopTreesPlanted(winner.getTreesPlanted());
+            summary.setTopFocusMinutes(winner.getTotalFocusMinutes());
+        }
+        return summary;
+    }
+    
+    private Map<String, Object> topRanking(String username, Integer focusMinutes) {
+        Map<String, Object> topRanking = new HashMap<>();
+        topRanking.put("rank", 1);
+        topRanking.put("fullName", username);
+        topRanking.put("totalDurationFormatted", formatDuration(focusMinutes));
+        return topRanking;
     }
     
     private String formatDuration(Integer minutes) {
@@ -2,9 +2,7 @@ package com.example.jewell.service;
 
 import com.example.jewell.model.Friendship;
 import com.example.jewell.model.User;
-import com.example.jewell.model.UserStreak;
 import com.example.jewell.model.Friendship.FriendshipStatus;
-import com.example.jewell.repository.ChatMessageRepository;
 import com.example.jewell.repository.FriendshipRepository;
 import com.example.jewell.repository.UserRepository;
 import com.example.jewell.repository.UserStreakRepository;
@@ -12,6 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,19 +21,19 @@ import java.util.stream.Collectors;
 public class FriendshipService {
     private final UserRepository userRepository;
     private final FriendshipRepository friendshipRepository;
-    private final ChatMessageRepository chatMessageRepository;
     private final UserStreakRepository streakRepository;
+    private final ChatUnreadCountCache unreadCountCache;
 
     public FriendshipService(
             UserRepository userRepository,
             FriendshipRepository friendshipRepository,
-            ChatMessageRepository chatMessageRepository,
-            UserStreakRepository streakRepository
+            UserStreakRepository streakRepository,
+            ChatUnreadCountCache unreadCountCache
     ) {
         this.userRepository = userRepository;
         this.friendshipRepository = friendshipRepository;
-        this.chatMessageRepository = chatMessageRepository;
         this.streakRepository = streakRepository;
+        this.unreadCountCache = unreadCountCache;
     }
 
     @Transactional
@@ -134,11 +133,31 @@ public class FriendshipService {
         return result;
     }
 
+    /**
+     * Friends list with level, streak and unread count.
+     * Set-based: one query for friendships (both users fetched), one for all friends' streaks,
+     * and unread counts from the per-user cache (one grouped query on a cold cache).
+     */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getFriends(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+
+        List<Friendship> friendships = friendshipRepository.findFriendsWithUsers(userId);
+        if (friendships.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> friendIds = friendships.stream()
+                .map(f -> f.getSender().getId().equals(userId) ? f.getReceiver().getId() : f.getSender().getId())
+                .collect(Collectors.toList());
 
-        List<Friendship> friendships = friendshipRepository.findFriendsByUser(user);
+        Map<Long, Object[]> streaksByUser = new HashMap<>();
+        for (Object[] row : streakRepository.findLevelsByUserIds(friendIds)) {
+            streaksByUser.put((Long) row[0], row);
+        }
+        Map<Long, Long> unreadBySender = unreadCountCache.getUnreadBySender(userId);
 
         return friendships.stream().map(f -> {
             User friend = f.getSender().getId().equals(userId) ? f.getReceiver() : f.getSender();
@@ -148,14 +167,13 @@ public class FriendshipService {
             friendData.put("email", friend.getEmail());
             friendData.put("friendsSince", f.getAcceptedAt());
 
-            Optional<UserStreak> streak = streakRepository.findByUser(friend);
-            streak.ifPresent(userStreak -> {
-                friendData.put("level", userStreak.getLevel());
-                friendData.put("currentStreak", userStreak.getCurrentStreak());
-            });
+            Object[] streak = streaksByUser.get(friend.getId());
+            if (streak != null) {
+                friendData.put("level", streak[1]);
+                friendData.put("currentStreak", streak[2]);
+            }
 
-            long unread = chatMessageRepository.countByReceiverAndSenderAndIsReadFalse(user, friend);
-            friendData.put("unreadCount", unread);
+            friendData.put("unreadCount", unreadBySender.getOrDefault(friend.getId(), 0L));
 
             return friendData;
         }).collect(Collectors.toList());
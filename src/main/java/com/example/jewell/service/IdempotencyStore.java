@@ -0,0 +1,198 @@
+package com.example.jewell.service;
+
+import com.example.jewell.exception.IdempotencyConflictException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for non-repeatable POSTs (bill creation).
+ *
+ * The first request with a key runs and its serialized JSON response is kept with a SHA-256
+ * fingerprint of the request body. A retry with the same key and body gets that response back
+ * without running again; a concurrent retry waits for the first to finish. The same key with a
+ * different body is rejected. A request that fails is forgotten so it can be retried.
+ * The store is in memory, bounded by entry count and TTL; in-flight entries are never evicted.
+ */
+@Service
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${idempotency.wait-timeout-seconds:30}")
+    private long waitTimeoutSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Run {@code action} once per (scope, key) and answer duplicates with the stored response
+     */
+    public ResponseEntity<byte[]> execute(String scope, String idempotencyKey, Object request, Supplier<?> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + "|" + idempotencyKey.trim();
+        String fingerprint = fingerprint(request);
+        Entry mine = new Entry(fingerprint);
+
+        while (true) {
+            Entry existing = entries.putIfAbsent(storeKey, mine);
+            if (existing == null) break;
+            if (existing.isExpired(System.currentTimeMillis(), ttlMinutes)) {
+                entries.remove(storeKey, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyConflictException(HEADER + " was already used for a different request");
+            }
+            log.info("Replaying response for {} {}", HEADER, idempotencyKey);
+            return toResponse(await(existing), true);
+        }
+
+        Object result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // Nothing was done (the transaction rolled back): let a retry run again
+            entries.remove(storeKey, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+        StoredResponse stored;
+        try {
+            stored = new StoredResponse(HttpStatus.OK.value(), objectMapper.writeValueAsBytes(result));
+        } catch (JsonProcessingException e) {
+            // The action did run: keep the entry so retries get this error instead of running it twice
+            RuntimeException failure = new RuntimeException("Could not serialize response: " + e.getMessage(), e);
+            mine.complete(null, failure);
+            throw failure;
+        }
+        mine.complete(stored, null);
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        return toResponse(stored, false);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now, ttlMinutes));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private StoredResponse await(Entry entry) {
+        try {
+            return entry.result.get(waitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this " + HEADER + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for the original request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Over capacity: drop expired entries, then the oldest completed ones down to 90% of the bound
+     */
+    private synchronized void evict() {
+        purgeExpired();
+        if (entries.size() <= maxEntries) return;
+        List<Map.Entry<String, Entry>> completed = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().completedAt > 0) completed.add(e);
+        }
+        completed.sort(Comparator.comparingLong(e -> e.getValue().completedAt));
+        int excess = entries.size() - maxEntries * 9 / 10;
+        for (int i = 0; i < excess && i < completed.size(); i++) {
+            entries.remove(completed.get(i).getKey(), completed.get(i).getValue());
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not fingerprint request: " + e.getMessage(), e);
+        }
+    }
+
+    private static ResponseEntity<byte[]> toResponse(StoredResponse stored, boolean replayed) {
+        return ResponseEntity.status(stored.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, String.valueOf(replayed))
+                .body(stored.body);
+    }
+
+    private static class Entry {
+        final String fingerprint;
+        final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        /** 0 while the first request is still running */
+        volatile long completedAt;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void complete(StoredResponse response, RuntimeException failure) {
+            completedAt = System.currentTimeMillis();
+            if (failure != null) result.completeExceptionally(failure);
+            else result.complete(response);
+        }
+
+        boolean isExpired(long now, long ttlMinutes) {
+            return completedAt > 0 && now - completedAt > TimeUnit.MINUTES.toMillis(ttlMinutes);
+        }
+    }
+
+    private static class StoredResponse {
+        final int status;
+        final byte[] body;
+
+        StoredResponse(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.jewell.service;
+
+import com.example.jewell.repository.ForestSessionRepository;
+import com.example.jewell.utils.RankedSkipList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forest leaderboard held in one indexable skip list per day: O(log n) updates, rank and top-K.
+ *
+ * A day's board is loaded from forest_sessions (one projection query) the first time it is used,
+ * then kept current by ForestService.addFocusSession. Only the last few days stay in memory;
+ * older dates are built on demand and not retained (their summaries are materialized separately).
+ */
+@Service
+public class InMemoryForestLeaderboard implements ForestLeaderboard {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> -e.getTreesPlanted())
+            .thenComparingInt(e -> -e.getTotalFocusMinutes())
+            .thenComparing(Entry::getUserId);
+
+    @Autowired
+    private ForestSessionRepository forestSessionRepository;
+
+    @Value("${forest.leaderboard.retention-days:2}")
+    private int retentionDays;
+
+    private final Map<LocalDate, DailyBoard> boards = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(LocalDate date, Long userId, int treesPlanted, int totalFocusMinutes) {
+        boardFor(date).put(new Entry(userId, treesPlanted, totalFocusMinutes));
+    }
+
+    @Override
+    public List<Entry> top(LocalDate date, int limit) {
+        return boardFor(date).top(limit);
+    }
+
+    @Override
+    public int rank(LocalDate date, Long userId) {
+        return boardFor(date).rank(userId);
+    }
+
+    @Override
+    public int participants(LocalDate date) {
+        return boardFor(date).size();
+    }
+
+    /**
+     * Drop boards that fell out of the retention window (shortly after midnight)
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictOldBoards() {
+        LocalDate cutoff = retentionCutoff();
+        boards.keySet().removeIf(date -> date.isBefore(cutoff));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private DailyBoard boardFor(LocalDate date) {
+        if (date.isBefore(retentionCutoff())) {
+            return load(date);
+        }
+        return boards.computeIfAbsent(date, this::load);
+    }
+
+    private DailyBoard load(LocalDate date) {
+        DailyBoard board = new DailyBoard();
+        for (Object[] row : forestSessionRepository.findLeaderboardRows(date)) {
+            board.put(new Entry((Long) row[0], toInt(row[1]), toInt(row[2])));
+        }
+        return board;
+    }
+
+    private LocalDate retentionCutoff() {
+        return LocalDate.now().minusDays(Math.max(0, retentionDays - 1));
+    }
+
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    /**
+     * One day's ranking; the user map locates a user's current entry so it can be re-ranked
+     */
+    private static class DailyBoard {
+        private final Map<Long, Entry> byUser = new HashMap<>();
+        private final RankedSkipList<Entry> ranking = new RankedSkipList<>(ORDER);
+
+        synchronized void put(Entry entry) {
+            Entry current = byUser.get(entry.getUserId());
+            if (current != null) {
+                boolean grew = entry.getTreesPlanted() > current.getTreesPlanted()
+                        || (entry.getTreesPlanted() == current.getTreesPlanted()
+                            && entry.getTotalFocusMinutes() > current.getTotalFocusMinutes());
+                if (!grew) return;
+                ranking.remove(current);
+            }
+            byUser.put(entry.getUserId(), entry);
+            ranking.add(entry);
+        }
+
+        synchronized List<Entry> top(int limit) {
+            return ranking.range(1, limit);
+        }
+
+        synchronized int rank(Long userId) {
+            Entry current = byUser.get(userId);
+            return current != null ? ranking.rank(current) : 0;
+        }
+
+        synchronized int size() {
+            return ranking.size();
+        }
+    }
+}
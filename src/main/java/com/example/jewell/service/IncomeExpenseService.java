@@ -8,10 +8,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -190,83 +190,38 @@ public class IncomeExpenseService {
      * Get income summary for a date range (for tax purposes)
      */
     public Map<String, Object> getIncomeSummary(LocalDate startDate, LocalDate endDate) {
-        Map<String, Object> summary = new HashMap<>();
-        
-        List<TransactionHistory> incomeTransactions = transactionHistoryRepository
-                .findByTransactionDateBetween(startDate, endDate).stream()
-                .filter(t -> t.getTransactionType() == TransactionHistory.TransactionType.INCOME)
-                .collect(Collectors.toList());
-        
-        BigDecimal totalIncome = incomeTransactions.stream()
-                .map(TransactionHistory::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Group by category
-        Map<TransactionHistory.Category, BigDecimal> incomeByCategory = incomeTransactions.stream()
-                .collect(Collectors.groupingBy(
-                    TransactionHistory::getCategory,
-                    Collectors.reducing(BigDecimal.ZERO, TransactionHistory::getAmount, BigDecimal::add)
-                ));
-        
-        // Group by payment method
-        Map<TransactionHistory.PaymentMethod, BigDecimal> incomeByPaymentMethod = incomeTransactions.stream()
-                .filter(t -> t.getPaymentMethod() != null)
-                .collect(Collectors.groupingBy(
-                    TransactionHistory::getPaymentMethod,
-                    Collectors.reducing(BigDecimal.ZERO, TransactionHistory::getAmount, BigDecimal::add)
-                ));
-        
-        summary.put("startDate", startDate.toString());
-        summary.put("endDate", endDate.toString());
-        summary.put("totalIncome", totalIncome);
-        summary.put("incomeByCategory", incomeByCategory);
-        summary.put("incomeByPaymentMethod", incomeByPaymentMethod);
-        summary.put("transactionCount", incomeTransactions.size());
-        // Do not include full transactions list to avoid lazy-load/serialization issues
-
-        return summary;
+        List<Object[]> rows = transactionHistoryRepository.summarizeByDateRangeAndType(
+                startDate, endDate, TransactionHistory.TransactionType.INCOME);
+        return buildIncomeSummary(startDate, endDate, rows);
     }
 
     /**
      * Get expense summary for a date range (for tax purposes)
      */
     public Map<String, Object> getExpenseSummary(LocalDate startDate, LocalDate endDate) {
-        Map<String, Object> summary = new HashMap<>();
-        
-        List<TransactionHistory> expenseTransactions = transactionHistoryRepository
-                .findByTransactionDateBetween(startDate, endDate).stream()
-                .filter(t -> t.getTransactionType() == TransactionHistory.TransactionType.EXPENSE)
-                .collect(Collectors.toList());
-        
-        BigDecimal totalExpenses = expenseTransactions.stream()
-                .map(TransactionHistory::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Group by category
-        Map<TransactionHistory.Category, BigDecimal> expensesByCategory = expenseTransactions.stream()
-                .collect(Collectors.groupingBy(
-                    TransactionHistory::getCategory,
-                    Collectors.reducing(BigDecimal.ZERO, TransactionHistory::getAmount, BigDecimal::add)
-                ));
-        
-        summary.put("startDate", startDate.toString());
-        summary.put("endDate", endDate.toString());
-        summary.put("totalExpenses", totalExpenses);
-        summary.put("expensesByCategory", expensesByCategory);
-        summary.put("transactionCount", expenseTransactions.size());
-        // Do not include full transactions list to avoid lazy-load/serialization issues
-
-        return summary;
+        List<Object[]> rows = transactionHistoryRepository.summarizeByDateRangeAndType(
+                startDate, endDate, TransactionHistory.TransactionType.EXPENSE);
+        return buildExpenseSummary(startDate, endDate, rows);
     }
 
     /**
-     * Get complete financial summary (income, expenses, net) for tax purposes
+     * Get complete financial summary (income, expenses, net) for tax purposes.
+     * One grouped query covers both sides.
      */
     public Map<String, Object> getFinancialSummary(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> summary = new HashMap<>();
         
-        Map<String, Object> incomeSummary = getIncomeSummary(startDate, endDate);
-        Map<String, Object> expenseSummary = getExpenseSummary(startDate, endDate);
+        List<Object[]> incomeRows = new ArrayList<>();
+        List<Object[]> expenseRows = new ArrayList<>();
+        for (Object[] row : transactionHistoryRepository.summarizeByDateRange(startDate, endDate)) {
+            if (row[0] == TransactionHistory.TransactionType.INCOME) {
+                incomeRows.add(row);
+            } else if (row[0] == TransactionHistory.TransactionType.EXPENSE) {
+                expenseRows.add(row);
+            }
+        }
+        Map<String, Object> incomeSummary = buildIncomeSummary(startDate, endDate, incomeRows);
+        Map<String, Object> expenseSummary = buildExpenseSummary(startDate, endDate, expenseRows);
         
         BigDecimal totalIncome = (BigDecimal) incomeSummary.get("totalIncome");
         BigDecimal totalExpenses = (BigDecimal) expenseSummary.get("totalExpenses");
@@ -295,9 +250,7 @@ public class IncomeExpenseService {
      */
     public List<TransactionHistory> getTransactionsByType(TransactionHistory.TransactionType type, 
                                                           LocalDate startDate, LocalDate endDate) {
-        return transactionHistoryRepository.findByTransactionDateBetween(startDate, endDate).stream()
-                .filter(t -> t.getTransactionType() == type)
-                .collect(Collectors.toList());
+        return transactionHistoryRepository.findByTransactionDateBetweenAndTransactionType(startDate, endDate, type);
     }
 
     /**
@@ -306,4 +259,55 @@ public class IncomeExpenseService {
     public void deleteTransaction(Long id) {
         transactionHistoryRepository.deleteById(id);
     }
+
+    // ========== HELPER METHODS ==========
+
+    private static Map<String, Object> buildIncomeSummary(LocalDate startDate, LocalDate endDate, List<Object[]> rows) {
+        GroupedTotals totals = new GroupedTotals(rows);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("startDate", startDate.toString());
+        summary.put("endDate", endDate.toString());
+        summary.put("totalIncome", totals.total);
+        summary.put("incomeByCategory", totals.byCategory);
+        summary.put("incomeByPaymentMethod", totals.byPaymentMethod);
+        summary.put("transactionCount", totals.count);
+        return summary;
+    }
+
+    private static Map<String, Object> buildExpenseSummary(LocalDate startDate, LocalDate endDate, List<Object[]> rows) {
+        GroupedTotals totals = new GroupedTotals(rows);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("startDate", startDate.toString());
+        summary.put("endDate", endDate.toString());
+        summary.put("totalExpenses", totals.total);
+        summary.put("expensesByCategory", totals.byCategory);
+        summary.put("transactionCount", totals.count);
+        return summary;
+    }
+
+    /**
+     * Rolls (type, category, method, sum, count) rows up into totals per category and per payment method
+     */
+    private static class GroupedTotals {
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        final Map<TransactionHistory.Category, BigDecimal> byCategory = new HashMap<>();
+        final Map<TransactionHistory.PaymentMethod, BigDecimal> byPaymentMethod = new HashMap<>();
+
+        GroupedTotals(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                TransactionHistory.Category category = (TransactionHistory.Category) row[1];
+                TransactionHistory.PaymentMethod method = (TransactionHistory.PaymentMethod) row[2];
+                BigDecimal sum = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
+                total = total.add(sum);
+                count += ((Number) row[4]).longValue();
+                if (category != null) {
+                    byCategory.merge(category, sum, BigDecimal::add);
+                }
+                if (method != null) {
+                    byPaymentMethod.merge(method, sum, BigDecimal::add);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,479 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.EmailCampaign;
+import com.example.jewell.model.EmailHistory;
+import com.example.jewell.model.MailQueueItem;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.EmailCampaignRepository;
+import com.example.jewell.repository.EmailHistoryRepository;
+import com.example.jewell.repository.MailQueueRepository;
+import com.example.jewell.repository.UserRepository;
+import com.example.jewell.utils.TransactionUtils;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent outgoing mail queue.
+ *
+ * Callers enqueue inside their own transaction and return immediately; a drain runs right after
+ * commit and on a fixed poll. A drain claims due rows with a conditional UPDATE (safe with several
+ * instances) and counts the attempt, splits them into chunks and sends each chunk on the email
+ * executor over one SMTP connection. Each item's outcome is recorded in its own transaction.
+ * Failures are retried with exponential backoff up to mail.queue.max-attempts; a claim whose outcome
+ * was never recorded is released after STALE_CLAIM_MINUTES and retried within the same limit. Final
+ * outcomes are written to email_history. The same dedup key (e.g. bill + version + recipient) is not
+ * enqueued twice while an earlier copy is pending (enforced by a unique key) or was sent within the
+ * dedup window.
+ */
+@Service
+public class MailQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(MailQueueService.class);
+
+    private static final EnumSet<MailQueueItem.Status> IN_FLIGHT =
+            EnumSet.of(MailQueueItem.Status.PENDING, MailQueueItem.Status.SENDING);
+
+    /** A claim older than this is from a worker that died mid-send */
+    private static final long STALE_CLAIM_MINUTES = 10;
+
+    // Bypasses the persistence context so a duplicate in-flight key is skipped instead of failing the caller's transaction
+    private static final String INSERT_IGNORE_SQL =
+            "INSERT IGNORE INTO mail_queue (kind, recipient, subject, body, billing_id, receipt_type, user_id, template_id, " +
+            "dedup_key, active_dedup_key, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    @Autowired
+    private MailQueueRepository mailQueueRepository;
+
+    @Autowired
+    private EmailHistoryRepository emailHistoryRepository;
+
+    @Autowired
+    private BillingRepository billingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmailCampaignRepository emailCampaignRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("emailExecutor")
+    private Executor emailExecutor;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${mail.queue.batch-size:100}")
+    private int batchSize;
+
+    @Value("${mail.queue.workers:4}")
+    private int workers;
+
+    @Value("${mail.queue.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${mail.queue.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${mail.queue.dedup-window-minutes:10}")
+    private long dedupWindowMinutes;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean drainRequested;
+
+    /**
+     * Queue a bill email (HTML receipt + PDF, rendered at send time) to the bill's customer
+     */
+    public MailQueueItem enqueueBillEmail(Billing billing, String receiptType) {
+        String recipient = billing.getCustomer() != null ? billing.getCustomer().getEmail() : null;
+        if (recipient == null || recipient.isBlank()) {
+            throw new IllegalArgumentException("Customer has no email address for bill " + billing.getBillNumber());
+        }
+        String type = "GST".equalsIgnoreCase(receiptType) ? "GST" : "NORMAL";
+        MailQueueItem item = new MailQueueItem();
+        item.setKind(MailQueueItem.Kind.BILL);
+        item.setRecipient(recipient.trim());
+        item.setSubject(("GST".equals(type) ? "Tax Invoice - " : "Bill Receipt - ") + billing.getBillNumber());
+        item.setBillingId(billing.getId());
+        item.setReceiptType(type);
+        item.setTemplateId("bill-" + type.toLowerCase(Locale.ROOT));
+        int version = billing.getEditVersion() != null ? billing.getEditVersion() : 0;
+        item.setDedupKey("bill:" + billing.getId() + ":" + type + ":v" + version + ":" + recipient.trim().toLowerCase(Locale.ROOT));
+        return enqueue(item);
+    }
+
+    /**
+     * Queue an HTML email; userId (optional) links the delivery record to a user
+     */
+    public MailQueueItem enqueueHtml(String to, String subject, String body, String templateId, Long userId, String dedupKey) {
+        if (to == null || to.isBlank()) {
+            throw new IllegalArgumentException("Recipient email is required");
+        }
+        MailQueueItem item = new MailQueueItem();
+        item.setKind(MailQueueItem.Kind.HTML);
+        item.setRecipient(to.trim());
+        item.setSubject(subject);
+        item.setBody(body);
+        item.setTemplateId(templateId);
+        item.setUserId(userId);
+        item.setDedupKey(dedupKey);
+        return enqueue(item);
+    }
+
+    /**
+     * Queue one HTML email per user (user id -> address) for a bulk campaign, with a single drain after commit.
+     * The body is not copied per row; workers read it from the campaign. No dedup lookup: the campaign's
+     * cursor commits with these rows, so a user is never enqueued twice.
+     */
+    public int enqueueCampaignBatch(Long campaignId, String subject, String templateId, Map<Long, String> recipientsByUserId) {
+        if (recipientsByUserId.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        List<MailQueueItem> items = new ArrayList<>(recipientsByUserId.size());
+        for (Map.Entry<Long, String> recipient : recipientsByUserId.entrySet()) {
+            MailQueueItem item = new MailQueueItem();
+            item.setKind(MailQueueItem.Kind.HTML);
+            item.setRecipient(recipient.getValue().trim());
+            item.setSubject(subject);
+            item.setTemplateId(templateId);
+            item.setUserId(recipient.getKey());
+            item.setCampaignId(campaignId);
+            item.setStatus(MailQueueItem.Status.PENDING);
+            item.setAttempts(0);
+            item.setNextAttemptAt(now);
+            items.add(item);
+        }
+        mailQueueRepository.saveAll(items);
+        TransactionUtils.afterCommit(this::requestDrain);
+        return items.size();
+    }
+
+    /**
+     * Queue size by status
+     */
+    public Map<String, Long> getQueueStats() {
+        Map<String, Long> stats = new HashMap<>();
+        for (MailQueueItem.Status status : MailQueueItem.Status.values()) {
+            stats.put(status.name(), 0L);
+        }
+        for (Object[] row : mailQueueRepository.countGroupedByStatus()) {
+            stats.put(((MailQueueItem.Status) row[0]).name(), (Long) row[1]);
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${mail.queue.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(STALE_CLAIM_MINUTES);
+            int failed = transactionTemplate.execute(status -> {
+                mailQueueRepository.releaseStale(cutoff, maxAttempts, MailQueueItem.Status.PENDING, MailQueueItem.Status.SENDING);
+                return mailQueueRepository.failStale(cutoff, maxAttempts, "Delivery outcome unknown after " + maxAttempts + " attempts",
+                        MailQueueItem.Status.SENDING, MailQueueItem.Status.FAILED);
+            });
+            if (failed > 0) {
+                log.warn("Gave up on {} mail items whose delivery outcome was never recorded", failed);
+            }
+            drain();
+        } catch (Exception e) {
+            log.error("Mail queue poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Send everything that is due; a call while a drain is running makes that drain go round once more
+     */
+    public void drain() {
+        drainRequested = true;
+        // Re-check after releasing so a request that arrived during the last round is not lost
+        while (drainRequested && draining.compareAndSet(false, true)) {
+            try {
+                drainRequested = false;
+                List<MailQueueItem> claimed;
+                boolean accepted = true;
+                do {
+                    claimed = claimBatch();
+                    if (!claimed.isEmpty()) {
+                        accepted = sendInChunks(claimed);
+                    }
+                } while (accepted && claimed.size() >= batchSize);
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private MailQueueItem enqueue(MailQueueItem item) {
+        item.setStatus(MailQueueItem.Status.PENDING);
+        item.setAttempts(0);
+        item.setNextAttemptAt(LocalDateTime.now());
+        if (item.getDedupKey() != null) {
+            MailQueueItem existing = mailQueueRepository
+                    .findFirstByDedupKeyAndStatusInOrderByIdDesc(item.getDedupKey(), IN_FLIGHT)
+                    .or(() -> mailQueueRepository.findFirstByDedupKeyAndStatusAndSentAtAfterOrderByIdDesc(
+                            item.getDedupKey(), MailQueueItem.Status.SENT, LocalDateTime.now().minusMinutes(dedupWindowMinutes)))
+                    .orElse(null);
+            if (existing != null) {
+                log.debug("Mail to {} already queued or sent (item {})", item.getRecipient(), existing.getId());
+                return existing;
+            }
+            Long id = insertUnlessInFlight(item);
+            if (id == null) {
+                // A concurrent enqueue of the same key won; return its row
+                log.debug("Mail to {} was queued concurrently", item.getRecipient());
+                return mailQueueRepository.findFirstByDedupKeyOrderByIdDesc(item.getDedupKey())
+                        .orElseThrow(() -> new IllegalStateException("Mail queue item for " + item.getDedupKey() + " vanished"));
+            }
+            TransactionUtils.afterCommit(this::requestDrain);
+            return mailQueueRepository.findById(id)
+                    .orElseThrow(() -> new IllegalStateException("Mail queue item " + id + " not found after insert"));
+        }
+        MailQueueItem saved = mailQueueRepository.save(item);
+        TransactionUtils.afterCommit(this::requestDrain);
+        return saved;
+    }
+
+    /**
+     * Insert with active_dedup_key set; null when the key is already in flight
+     */
+    private Long insertUnlessInFlight(MailQueueItem item) {
+        Timestamp now = Timestamp.valueOf(item.getNextAttemptAt());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_IGNORE_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, item.getKind().name());
+            ps.setString(2, item.getRecipient());
+            ps.setString(3, item.getSubject());
+            ps.setString(4, item.getBody());
+            ps.setObject(5, item.getBillingId());
+            ps.setString(6, item.getReceiptType());
+            ps.setObject(7, item.getUserId());
+            ps.setString(8, item.getTemplateId());
+            ps.setString(9, item.getDedupKey());
+            ps.setString(10, item.getDedupKey());
+            ps.setString(11, item.getStatus().name());
+            ps.setTimestamp(12, now);
+            ps.setTimestamp(13, now);
+            return ps;
+        }, keyHolder);
+        return inserted > 0 && keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    private void requestDrain() {
+        try {
+            taskExecutor.execute(this::drain);
+        } catch (Exception e) {
+            // Picked up by the next poll
+            log.debug("Mail queue drain not started: {}", e.getMessage());
+        }
+    }
+
+    private List<MailQueueItem> claimBatch() {
+        String token = UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = mailQueueRepository.findDueIds(MailQueueItem.Status.PENDING, now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) return List.of();
+            mailQueueRepository.claim(due, token, now, MailQueueItem.Status.PENDING, MailQueueItem.Status.SENDING);
+            return mailQueueRepository.findByClaimTokenOrderByIdAsc(token);
+        });
+    }
+
+    /**
+     * Send the claimed items on the email executor; false if the executor refused a chunk, whose items
+     * (and those of every chunk after it) are handed back for a later drain
+     */
+    private boolean sendInChunks(List<MailQueueItem> items) {
+        int chunkCount = Math.max(1, Math.min(workers, items.size()));
+        int chunkSize = (items.size() + chunkCount - 1) / chunkCount;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(chunkCount);
+        boolean accepted = true;
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<MailQueueItem> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+            try {
+                futures.add(CompletableFuture.runAsync(() -> sendChunk(chunk), emailExecutor)
+                        .exceptionally(e -> {
+                            log.error("Mail chunk failed: {}", e.getMessage(), e);
+                            return null;
+                        }));
+            } catch (RejectedExecutionException e) {
+                List<MailQueueItem> unsent = items.subList(from, items.size());
+                log.warn("Email executor is full; releasing {} claimed mail items", unsent.size());
+                releaseClaimed(unsent);
+                accepted = false;
+                break;
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        return accepted;
+    }
+
+    private void releaseClaimed(List<MailQueueItem> items) {
+        List<Long> ids = items.stream().map(MailQueueItem::getId).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> mailQueueRepository.releaseClaimed(ids,
+                    MailQueueItem.Status.PENDING, MailQueueItem.Status.SENDING));
+        } catch (Exception e) {
+            // Released as stale by the poll instead
+            log.error("Could not release {} claimed mail items: {}", ids.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build every message of the chunk, send them over one SMTP connection, then record each outcome
+     */
+    private void sendChunk(List<MailQueueItem> chunk) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, MailQueueItem> byMessage = new HashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(chunk.size());
+        Map<Long, String> campaignBodies = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (MailQueueItem item : chunk) {
+                try {
+                    MimeMessage message = buildMessage(item, campaignBodies);
+                    messages.add(message);
+                    byMessage.put(message, item);
+                } catch (Exception e) {
+                    failures.put(item.getId(), e);
+                }
+            }
+        });
+
+        for (Map.Entry<MimeMessage, Exception> failed : emailService.sendAll(messages).entrySet()) {
+            MailQueueItem item = byMessage.get(failed.getKey());
+            if (item != null) failures.put(item.getId(), failed.getValue());
+        }
+
+        for (MailQueueItem item : chunk) {
+            Exception error = failures.get(item.getId());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (error == null) {
+                        markSent(item);
+                    } else {
+                        markFailed(item, error);
+                    }
+                });
+            } catch (Exception e) {
+                // The item stays SENDING and is released as stale; its claimed attempt still counts toward the limit
+                log.error("Could not record mail delivery for item {}: {}", item.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private MimeMessage buildMessage(MailQueueItem item, Map<Long, String> campaignBodies) {
+        if (item.getKind() == MailQueueItem.Kind.BILL) {
+            Billing billing = billingRepository.findById(item.getBillingId())
+                    .orElseThrow(() -> new IllegalStateException("Bill " + item.getBillingId() + " no longer exists"));
+            return emailService.buildBillMessage(billing, item.getReceiptType());
+        }
+        String body = item.getBody();
+        if (body == null && item.getCampaignId() != null) {
+            body = campaignBodies.computeIfAbsent(item.getCampaignId(), id -> emailCampaignRepository.findById(id)
+                    .map(EmailCampaign::getBody)
+                    .orElseThrow(() -> new IllegalStateException("Campaign " + id + " no longer exists")));
+        }
+        return emailService.buildHtmlMessage(item.getRecipient(), item.getSubject(), body);
+    }
+
+    private void markSent(MailQueueItem item) {
+        item.setStatus(MailQueueItem.Status.SENT);
+        item.setSentAt(LocalDateTime.now());
+        item.setClaimToken(null);
+        item.setActiveDedupKey(null);
+        item.setLastError(null);
+        mailQueueRepository.save(item);
+        if (item.getKind() == MailQueueItem.Kind.BILL) {
+            billingRepository.findById(item.getBillingId()).ifPresent(b -> b.setEmailSent(true));
+        }
+        recordHistory(item, null);
+    }
+
+    private void markFailed(MailQueueItem item, Exception error) {
+        // Already counted by the claim
+        int attempts = item.getAttempts();
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        item.setClaimToken(null);
+        item.setLastError(message);
+        if (attempts >= maxAttempts || isPermanent(error)) {
+            item.setStatus(MailQueueItem.Status.FAILED);
+            item.setActiveDedupKey(null);
+            recordHistory(item, message);
+            log.warn("Mail {} to {} failed permanently after {} attempts: {}", item.getId(), item.getRecipient(), attempts, message);
+        } else {
+            long delaySeconds = Math.min(3600, retryBaseSeconds << Math.min(attempts - 1, 16));
+            item.setStatus(MailQueueItem.Status.PENDING);
+            item.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+        }
+        mailQueueRepository.save(item);
+    }
+
+    private void recordHistory(MailQueueItem item, String errorMessage) {
+        EmailHistory history = new EmailHistory();
+        history.setUser(item.getUserId() != null ? userRepository.getReferenceById(item.getUserId()) : null);
+        history.setTemplateId(item.getTemplateId());
+        history.setSubject(item.getSubject());
+        history.setEmailAddress(item.getRecipient());
+        history.setStatus(errorMessage == null ? "sent" : "failed");
+        history.setErrorMessage(errorMessage);
+        history.setCampaignId(item.getCampaignId());
+        emailHistoryRepository.save(history);
+    }
+
+    /**
+     * Rejected recipient or a message that can never be built: retrying will not help
+     */
+    private static boolean isPermanent(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SendFailedException && ((SendFailedException) t).getInvalidAddresses() != null
+                    && ((SendFailedException) t).getInvalidAddresses().length > 0) {
+                return true;
+            }
+            if (t instanceof IllegalStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,467 @@
+package com.example.jewell.service;
+
+import com.example.jewell.dto.OfflineBill;
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.BillingItem;
+import com.example.jewell.model.Customer;
+import com.example.jewell.model.LoyaltyTransaction;
+import com.example.jewell.model.Stock;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.CustomerRepository;
+import com.example.jewell.repository.LoyaltyTransactionRepository;
+import com.example.jewell.repository.StockRepository;
+import com.example.jewell.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Batch upload of bills made on tills while offline.
+ *
+ * The whole batch is handled set-based in one transaction: every referenced stock row is locked with a
+ * single SELECT ... FOR UPDATE, already-synced client ids are found with one IN query, and stock is
+ * reserved in memory in upload order. Accepted bills get a block of bill numbers from one counter bump
+ * and are written with JDBC batch inserts. Each bill gets its own result: CREATED, DUPLICATE (the client
+ * id was synced before, so a retried upload is harmless), CONFLICT (not enough stock left, or it needs an
+ * online check) or INVALID. A conflicting bill does not stop the rest of the batch.
+ *
+ * A synced bill ends up like one from {@link BillingService#createBill}: the same totals and payment handling,
+ * credit, income and loyalty helpers, and PDF pre-render after commit. The differences are deliberate:
+ * promo codes, vouchers and point redemption are rejected up front because they need live validation; the
+ * revenue counter is moved explicitly after commit because DashboardCounterListener does not see JDBC inserts.
+ * As for online bills, nothing is mailed or sent on WhatsApp until the shop asks for it, and no table version
+ * is bumped (bills have none).
+ */
+@Service
+public class OfflineBillSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineBillSyncService.class);
+
+    private static final int MAX_BATCH_BILLS = 1000;
+
+    private static final String INSERT_BILL_SQL =
+            "INSERT INTO billing (bill_number, customer_id, total_amount, total_diamond_amount, discount_amount, " +
+            "making_charges, final_amount, paid_amount, payment_method, payment_breakdown, payment_status, notes, " +
+            "email_sent, whatsapp_sent, created_at, edit_version, client_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO billing_items (billing_id, stock_id, item_name, article_code, weight_grams, carat, " +
+            "diamond_carat, diamond_amount, quantity, unit_price, total_price, hallmark, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private BillingService billingService;
+
+    @Autowired
+    private BillingRepository billingRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoyaltyTransactionRepository loyaltyTransactionRepository;
+
+    @Autowired
+    private BillNumberAllocator billNumberAllocator;
+
+    @Autowired
+    private ReceivablesAgingService receivablesAgingService;
+
+    @Autowired
+    private CustomerBalanceCache customerBalanceCache;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private BillPdfCache billPdfCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Sync an ordered batch of offline bills; returns counts and one result per bill, in upload order
+     */
+    @Transactional
+    public Map<String, Object> syncBatch(List<OfflineBill> bills) {
+        if (bills == null) bills = new ArrayList<>();
+        if (bills.size() > MAX_BATCH_BILLS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_BILLS + " bills per sync batch");
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Map<String, Object>> results = new ArrayList<>(bills.size());
+        List<Pending> candidates = new ArrayList<>();
+        Map<String, Pending> firstByClientId = new HashMap<>();
+        List<Map<String, Object>> repeats = new ArrayList<>();
+
+        // 1. Shape checks; a client id repeated within the batch refers to its first occurrence
+        for (int i = 0; i < bills.size(); i++) {
+            OfflineBill bill = bills.get(i);
+            Map<String, Object> result = newResult(i, bill != null ? bill.getClientId() : null);
+            results.add(result);
+            String error = validate(bill);
+            if (error != null) {
+                reject(result, "INVALID", error);
+                continue;
+            }
+            String clientId = bill.getClientId().trim();
+            result.put("clientId", clientId);
+            if (firstByClientId.containsKey(clientId)) {
+                repeats.add(result);
+                continue;
+            }
+            Pending p = new Pending(bill, clientId, result);
+            firstByClientId.put(clientId, p);
+            if (needsOnlineValidation(bill)) {
+                reject(result, "CONFLICT", "Promo codes, gift vouchers and point redemption need an online bill");
+                continue;
+            }
+            candidates.add(p);
+        }
+
+        // 2. Lock every referenced stock row up front (in id order), so concurrent syncs of overlapping
+        //    stock serialize here and a retried batch sees the first one's bills
+        Set<Long> stockIds = new HashSet<>();
+        Set<Long> customerIds = new HashSet<>();
+        for (Pending p : candidates) {
+            customerIds.add(p.bill.getCustomerId());
+            for (OfflineBill.Item item : p.bill.getItems()) {
+                if (item.getStockId() != null) stockIds.add(item.getStockId());
+            }
+        }
+        Map<Long, Stock> stocks = new HashMap<>();
+        if (!stockIds.isEmpty()) {
+            for (Stock s : stockRepository.findForUpdateByIdIn(stockIds)) {
+                stocks.put(s.getId(), s);
+            }
+        }
+
+        // 3. Bills synced by an earlier upload
+        if (!candidates.isEmpty()) {
+            Map<String, Object[]> existing = new HashMap<>();
+            for (Object[] row : billingRepository.findIdAndNumberByClientIdIn(firstByClientId.keySet())) {
+                existing.put((String) row[1], row);
+            }
+            candidates.removeIf(p -> {
+                Object[] row = existing.get(p.clientId);
+                if (row == null) return false;
+                p.result.put("status", "DUPLICATE");
+                p.result.put("billId", row[0]);
+                p.result.put("billNumber", row[2]);
+                p.result.put("message", "Already synced");
+                return true;
+            });
+        }
+
+        Map<Long, Customer> customers = new HashMap<>();
+        if (!customerIds.isEmpty()) {
+            for (Customer c : customerRepository.findAllById(customerIds)) {
+                customers.put(c.getId(), c);
+            }
+        }
+
+        // 4. Reserve stock in upload order; a bill that no longer fits is a conflict, later bills still go through
+        Map<Long, Integer> available = new HashMap<>();
+        for (Stock s : stocks.values()) {
+            available.put(s.getId(), s.getQuantity() != null ? s.getQuantity() : 0);
+        }
+        List<Pending> accepted = new ArrayList<>();
+        for (Pending p : candidates) {
+            Customer customer = customers.get(p.bill.getCustomerId());
+            if (customer == null) {
+                reject(p.result, "INVALID", "Customer not found with id: " + p.bill.getCustomerId());
+                continue;
+            }
+            Map<Long, Integer> requested = new LinkedHashMap<>();
+            for (OfflineBill.Item item : p.bill.getItems()) {
+                if (item.getStockId() != null) requested.merge(item.getStockId(), quantity(item), Integer::sum);
+            }
+            List<Map<String, Object>> shortfalls = new ArrayList<>();
+            for (Map.Entry<Long, Integer> e : requested.entrySet()) {
+                Stock stock = stocks.get(e.getKey());
+                int left = stock != null ? available.get(e.getKey()) : 0;
+                if (stock == null || e.getValue() > left) {
+                    Map<String, Object> c = new LinkedHashMap<>();
+                    c.put("stockId", e.getKey());
+                    c.put("articleCode", stock != null ? stock.getArticleCode() : null);
+                    c.put("articleName", stock != null ? stock.getArticleName() : null);
+                    c.put("requested", e.getValue());
+                    c.put("available", left);
+                    shortfalls.add(c);
+                }
+            }
+            if (!shortfalls.isEmpty()) {
+                reject(p.result, "CONFLICT", "Insufficient stock");
+                p.result.put("conflicts", shortfalls);
+                continue;
+            }
+            for (Map.Entry<Long, Integer> e : requested.entrySet()) {
+                available.merge(e.getKey(), -e.getValue(), Integer::sum);
+            }
+            p.billing = toBilling(p.bill, p.clientId, customer, stocks, now);
+            accepted.add(p);
+        }
+
+        if (!accepted.isEmpty()) {
+            persist(accepted, stocks, available, customers);
+        }
+
+        for (Map<String, Object> repeat : repeats) {
+            Map<String, Object> first = firstByClientId.get((String) repeat.get("clientId")).result;
+            String firstStatus = (String) first.get("status");
+            String sameAs = "Same clientId as bill " + first.get("index") + " in this batch";
+            if ("CREATED".equals(firstStatus) || "DUPLICATE".equals(firstStatus)) {
+                repeat.put("status", "DUPLICATE");
+                repeat.put("billId", first.get("billId"));
+                repeat.put("billNumber", first.get("billNumber"));
+                repeat.put("message", sameAs);
+            } else {
+                // The first occurrence was not synced, so neither is its repeat
+                reject(repeat, firstStatus, sameAs + ": " + first.get("message"));
+                if (first.containsKey("conflicts")) repeat.put("conflicts", first.get("conflicts"));
+            }
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String status : new String[]{"CREATED", "DUPLICATE", "CONFLICT", "INVALID"}) counts.put(status, 0);
+        for (Map<String, Object> r : results) counts.merge((String) r.get("status"), 1, Integer::sum);
+
+        long tookMs = System.currentTimeMillis() - start;
+        log.info("Offline sync: {} bills received, {} created, {} duplicate, {} conflict, {} invalid in {} ms",
+                bills.size(), counts.get("CREATED"), counts.get("DUPLICATE"), counts.get("CONFLICT"),
+                counts.get("INVALID"), tookMs);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("received", bills.size());
+        summary.put("created", counts.get("CREATED"));
+        summary.put("duplicates", counts.get("DUPLICATE"));
+        summary.put("conflicts", counts.get("CONFLICT"));
+        summary.put("invalid", counts.get("INVALID"));
+        summary.put("tookMs", tookMs);
+        summary.put("results", results);
+        return summary;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Number and write the accepted bills, deduct stock, then credit, income and loyalty per bill
+     */
+    private void persist(List<Pending> accepted, Map<Long, Stock> stocks, Map<Long, Integer> available,
+                         Map<Long, Customer> customers) {
+        long firstNumber = billNumberAllocator.allocate(accepted.size());
+        List<Object[]> billRows = new ArrayList<>(accepted.size());
+        for (int k = 0; k < accepted.size(); k++) {
+            Billing b = accepted.get(k).billing;
+            b.setBillNumber(BillNumberAllocator.format(b.getCreatedAt().toLocalDate(), firstNumber + k));
+            billRows.add(new Object[]{
+                    b.getBillNumber(), b.getCustomer().getId(), b.getTotalAmount(), b.getTotalDiamondAmount(),
+                    b.getDiscountAmount(), b.getMakingCharges(), b.getFinalAmount(), b.getPaidAmount(),
+                    b.getPaymentMethod() != null ? b.getPaymentMethod().name() : null, b.getPaymentBreakdown(),
+                    b.getPaymentStatus().name(), b.getNotes(), false, false,
+                    Timestamp.valueOf(b.getCreatedAt()), 0, b.getClientId()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_BILL_SQL, billRows);
+        // JDBC inserts are invisible to DashboardCounterListener; move the revenue counter once committed
+        List<Billing> inserted = accepted.stream().map(p -> p.billing).toList();
+        TransactionUtils.afterCommit(() -> inserted.forEach(b -> dashboardCounters.onBilling(b.getPaymentStatus(), b.getFinalAmount(), 1)));
+
+        Map<String, Long> idByClientId = new HashMap<>();
+        for (Object[] row : billingRepository.findIdAndNumberByClientIdIn(
+                accepted.stream().map(p -> p.clientId).toList())) {
+            idByClientId.put((String) row[1], (Long) row[0]);
+        }
+
+        List<Object[]> itemRows = new ArrayList<>();
+        for (Pending p : accepted) {
+            Long billingId = idByClientId.get(p.clientId);
+            p.result.put("status", "CREATED");
+            p.result.put("billId", billingId);
+            p.result.put("billNumber", p.billing.getBillNumber());
+            Timestamp createdAt = Timestamp.valueOf(p.billing.getCreatedAt());
+            for (BillingItem item : p.billing.getItems()) {
+                itemRows.add(new Object[]{
+                        billingId, item.getStock() != null ? item.getStock().getId() : null, item.getItemName(),
+                        item.getArticleCode(), item.getWeightGrams(), item.getCarat(), item.getDiamondCarat(),
+                        item.getDiamondAmount(), item.getQuantity(), item.getUnitPrice(), item.getTotalPrice(),
+                        item.getHallmark(), createdAt
+                });
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, itemRows);
+
+        // Locked stock rows are managed: the changed ones are flushed together at commit
+        for (Stock stock : stocks.values()) {
+            int left = available.get(stock.getId());
+            int before = stock.getQuantity() != null ? stock.getQuantity() : 0;
+            if (left == before) continue;
+            stock.setQuantity(Math.max(0, left));
+            if (left <= 0) {
+                stock.setStatus(Stock.StockStatus.SOLD);
+            }
+        }
+
+        // Same credit, income and loyalty bookkeeping as BillingService.createBill, on the bills as now stored
+        boolean creditCreated = false;
+        List<LoyaltyTransaction> earned = new ArrayList<>();
+        for (Billing saved : billingRepository.findAllById(idByClientId.values())) {
+            BigDecimal paidAmount = saved.getPaidAmount() != null ? saved.getPaidAmount() : BigDecimal.ZERO;
+            creditCreated |= billingService.createCreditIfOwed(saved, saved.getFinalAmount(), paidAmount);
+            billingService.recordIncomeIfPaid(saved, paidAmount);
+            LoyaltyTransaction earn = billingService.earnLoyaltyPoints(customers.get(saved.getCustomer().getId()), saved);
+            if (earn != null) {
+                earned.add(earn);
+            }
+            billPdfCache.prerenderAfterCommit(saved.getId());
+        }
+        loyaltyTransactionRepository.saveAll(earned);
+
+        if (creditCreated) {
+            receivablesAgingService.invalidate();
+        }
+        Set<Long> touchedCustomers = new HashSet<>();
+        for (Pending p : accepted) {
+            if (touchedCustomers.add(p.billing.getCustomer().getId())) {
+                customerBalanceCache.onCustomerChanged(p.billing.getCustomer().getId());
+            }
+        }
+    }
+
+    /**
+     * In-memory bill with the same totals and payment handling as an online bill (bill number assigned later)
+     */
+    private Billing toBilling(OfflineBill bill, String clientId, Customer customer, Map<Long, Stock> stocks, LocalDateTime now) {
+        Billing billing = new Billing();
+        billing.setClientId(clientId);
+        billing.setCustomer(customer);
+        // The till's clock decides the bill date, but never a date in the future
+        billing.setCreatedAt(bill.getCreatedAt() != null && !bill.getCreatedAt().isAfter(now) ? bill.getCreatedAt() : now);
+        billing.setTotalDiamondAmount(bill.getTotalDiamondAmount());
+        billing.setNotes(bill.getNotes());
+        billing.setPaymentBreakdown(bill.getPaymentBreakdown());
+        billing.setPaidAmount(bill.getPaidAmount());
+        if (bill.getPaymentMethod() != null && !bill.getPaymentMethod().trim().isEmpty()) {
+            billing.setPaymentMethod(Billing.PaymentMethod.valueOf(bill.getPaymentMethod().trim().toUpperCase()));
+        }
+
+        List<BillingItem> items = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (OfflineBill.Item in : bill.getItems()) {
+            BillingItem item = new BillingItem();
+            item.setBilling(billing);
+            item.setItemName(in.getItemName());
+            item.setQuantity(quantity(in));
+            item.setUnitPrice(in.getUnitPrice());
+            item.setTotalPrice(in.getTotalPrice());
+            item.setWeightGrams(in.getWeightGrams());
+            item.setCarat(in.getCarat());
+            item.setDiamondCarat(in.getDiamondCarat());
+            item.setDiamondAmount(in.getDiamondAmount());
+            item.setHallmark(in.getHallmark());
+            if (in.getStockId() != null) {
+                Stock stock = stocks.get(in.getStockId());
+                item.setStock(stock);
+                billingService.applyStockDetails(item, stock);
+            }
+            if (item.getTotalPrice() != null) totalAmount = totalAmount.add(item.getTotalPrice());
+            items.add(item);
+        }
+        billing.setItems(items);
+        billing.setTotalAmount(totalAmount);
+
+        BigDecimal discount = bill.getDiscountAmount() != null ? bill.getDiscountAmount() : BigDecimal.ZERO;
+        BigDecimal makingCharges = bill.getMakingCharges() != null ? bill.getMakingCharges() : BigDecimal.ZERO;
+        BigDecimal finalAmount = totalAmount.subtract(discount).add(makingCharges);
+        billing.setDiscountAmount(discount);
+        billing.setMakingCharges(makingCharges);
+        billing.setFinalAmount(finalAmount);
+        billingService.applyPayment(billing, finalAmount);
+        return billing;
+    }
+
+    /**
+     * Why the bill cannot be synced at all, or null
+     */
+    private static String validate(OfflineBill bill) {
+        if (bill == null) return "Bill is empty";
+        if (bill.getClientId() == null || bill.getClientId().trim().isEmpty()) return "clientId is required";
+        try {
+            UUID.fromString(bill.getClientId().trim());
+        } catch (IllegalArgumentException e) {
+            return "clientId must be a UUID";
+        }
+        if (bill.getCustomerId() == null) return "customerId is required";
+        if (bill.getItems() == null || bill.getItems().isEmpty()) return "A bill needs at least one item";
+        for (OfflineBill.Item item : bill.getItems()) {
+            if (item == null) return "Bill contains an empty item";
+            if (item.getQuantity() != null && item.getQuantity() <= 0) return "Item quantity must be positive";
+            if (item.getTotalPrice() != null && item.getTotalPrice().signum() < 0) return "Item price cannot be negative";
+        }
+        if (bill.getPaymentMethod() != null && !bill.getPaymentMethod().trim().isEmpty()) {
+            try {
+                Billing.PaymentMethod.valueOf(bill.getPaymentMethod().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return "Unknown payment method: " + bill.getPaymentMethod();
+            }
+        }
+        return null;
+    }
+
+    private static boolean needsOnlineValidation(OfflineBill bill) {
+        return (bill.getPromoCode() != null && !bill.getPromoCode().trim().isEmpty())
+                || (bill.getVoucherCode() != null && !bill.getVoucherCode().trim().isEmpty())
+                || (bill.getRedeemPoints() != null && bill.getRedeemPoints() > 0);
+    }
+
+    private static int quantity(OfflineBill.Item item) {
+        return item.getQuantity() != null ? item.getQuantity() : 1;
+    }
+
+    private static Map<String, Object> newResult(int index, String clientId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        result.put("clientId", clientId);
+        result.put("status", null);
+        return result;
+    }
+
+    private static void reject(Map<String, Object> result, String status, String message) {
+        result.put("status", status);
+        result.put("message", message);
+    }
+
+    private static class Pending {
+        final OfflineBill bill;
+        final String clientId;
+        final Map<String, Object> result;
+        Billing billing;
+
+        Pending(OfflineBill bill, String clientId, Map<String, Object> result) {
+            this.bill = bill;
+            this.clientId = clientId;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Credit;
+import com.example.jewell.repository.CreditRepository;
+import com.example.jewell.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receivables (udhari) aging: open credit balance per customer in 0-30 / 31-60 / 61-90 / 90+ day buckets,
+ * aged from the credit's creation date.
+ *
+ * The report is one GROUP BY over open credits and is cached until a credit changes. Writers call
+ * {@link #invalidate()}, which drops the cache once their transaction commits; a generation counter
+ * keeps a report computed concurrently with a write from being published. The cache also expires
+ * at midnight (buckets shift) and after a TTL as a safety net for writes that bypass the services.
+ */
+@Service
+public class ReceivablesAgingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceivablesAgingService.class);
+
+    private static final EnumSet<Credit.CreditStatus> OPEN_STATUSES = EnumSet.of(
+            Credit.CreditStatus.PENDING, Credit.CreditStatus.PARTIAL, Credit.CreditStatus.OVERDUE);
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${receivables.aging.cache-ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CachedReport cached;
+
+    /**
+     * Aging report as of today: bucket totals plus one row per customer with an open balance,
+     * largest balance first
+     */
+    public Map<String, Object> getAgingReport() {
+        LocalDate today = LocalDate.now();
+        CachedReport report = cached;
+        if (report != null && report.asOf.equals(today)
+                && System.currentTimeMillis() - report.computedAtMillis < cacheTtlMs) {
+            return report.body;
+        }
+        long gen = generation.get();
+        Map<String, Object> body = compute(today);
+        if (generation.get() == gen) {
+            cached = new CachedReport(today, System.currentTimeMillis(), body);
+        }
+        return body;
+    }
+
+    /**
+     * Aging row for one customer, or an empty-bucket row when they owe nothing
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getCustomerAging(Long customerId) {
+        for (Map<String, Object> row : (List<Map<String, Object>>) getAgingReport().get("customers")) {
+            if (customerId.equals(row.get("customerId"))) {
+                return row;
+            }
+        }
+        Map<String, Object> empty = new LinkedHashMap<>();
+        empty.put("customerId", customerId);
+        putBuckets(empty, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        empty.put("openCredits", 0L);
+        return empty;
+    }
+
+    /**
+     * A credit was created, paid or deleted; the cached report is dropped when the caller's transaction commits
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            cached = null;
+        });
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<String, Object> compute(LocalDate today) {
+        long start = System.currentTimeMillis();
+        LocalDateTime d30 = today.minusDays(30).atStartOfDay();
+        LocalDateTime d60 = today.minusDays(60).atStartOfDay();
+        LocalDateTime d90 = today.minusDays(90).atStartOfDay();
+        List<Object[]> rows = transactionTemplate.execute(status ->
+                creditRepository.aggregateAgingByCustomer(OPEN_STATUSES, d30, d60, d90));
+
+        BigDecimal current = BigDecimal.ZERO, days31to60 = BigDecimal.ZERO,
+                days61to90 = BigDecimal.ZERO, over90 = BigDecimal.ZERO, total = BigDecimal.ZERO;
+        List<Map<String, Object>> customers = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("customerId", r[0]);
+            row.put("customerName", r[1]);
+            row.put("customerPhone", r[2]);
+            putBuckets(row, amount(r[3]), amount(r[4]), amount(r[5]), amount(r[6]), amount(r[7]));
+            row.put("openCredits", r[8]);
+            row.put("oldestCreditAt", r[9]);
+            customers.add(Collections.unmodifiableMap(row));
+
+            current = current.add(amount(r[3]));
+            days31to60 = days31to60.add(amount(r[4]));
+            days61to90 = days61to90.add(amount(r[5]));
+            over90 = over90.add(amount(r[6]));
+            total = total.add(amount(r[7]));
+        }
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        putBuckets(totals, current, days31to60, days61to90, over90, total);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("asOf", today);
+        body.put("totals", Collections.unmodifiableMap(totals));
+        body.put("customerCount", customers.size());
+        body.put("customers", Collections.unmodifiableList(customers));
+        log.debug("Receivables aging computed for {} customers in {} ms", customers.size(), System.currentTimeMillis() - start);
+        return Collections.unmodifiableMap(body);
+    }
+
+    private static void putBuckets(Map<String, Object> map, BigDecimal current, BigDecimal days31to60,
+                                   BigDecimal days61to90, BigDecimal over90, BigDecimal total) {
+        map.put("days0to30", current);
+        map.put("days31to60", days31to60);
+        map.put("days61to90", days61to90);
+        map.put("over90", over90);
+        map.put("total", total);
+    }
+
+    private static BigDecimal amount(Object value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : BigDecimal.ZERO;
+    }
+
+    private static class CachedReport {
+        final LocalDate asOf;
+        final long computedAtMillis;
+        final Map<String, Object> body;
+
+        CachedReport(LocalDate asOf, long computedAtMillis, Map<String, Object> body) {
+            this.asOf = asOf;
+            this.computedAtMillis = computedAtMillis;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.jewell.service;
+
+import com.example.jewell.dto.BlogSitemapEntry;
+import com.example.jewell.repository.BlogPostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds the sitemap from a slug/timestamp projection, streams the XML through a gzip writer
+ * and keeps the compressed result cached until a blog post is created, published, edited or deleted.
+ *
+ * Once the URL count exceeds the sitemap protocol limits (50,000 URLs or 50 MB uncompressed per file)
+ * the root document becomes a sitemap index pointing to numbered parts.
+ */
+@Service
+public class SitemapService {
+
+    private static final Logger log = LoggerFactory.getLogger(SitemapService.class);
+
+    private static final String BASE_URL = "https://typogram.in";
+    private static final String PART_URL_PREFIX = BASE_URL + "/api/sitemap/xml/";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'+00:00'");
+
+    // Sitemap protocol limits (sitemaps.org)
+    static final int MAX_URLS_PER_SITEMAP = 50_000;
+    static final long MAX_BYTES_PER_SITEMAP = 50L * 1024 * 1024 - 1024; // UTF-8 bytes; leave room for the closing tag
+
+    private static final String URLSET_OPEN =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n";
+    private static final String URLSET_CLOSE = "</urlset>";
+
+    @Autowired
+    private BlogPostRepository blogPostRepository;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Drop the cached sitemap; the next request regenerates it
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Root document: the urlset itself, or a sitemap index when the site was split into parts
+     */
+    public SitemapDocument getRootDocument() {
+        Snapshot current = currentSnapshot();
+        return current.index != null ? current.index : current.parts.get(0);
+    }
+
+    /**
+     * Numbered part (1-based) of a split sitemap
+     */
+    public Optional<SitemapDocument> getPart(int part) {
+        Snapshot current = currentSnapshot();
+        if (current.index == null || part < 1 || part > current.parts.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(current.parts.get(part - 1));
+    }
+
+    /**
+     * Decompress a cached document for clients that do not accept gzip
+     */
+    public static byte[] gunzip(byte[] gzipped) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ========== GENERATION ==========
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        long v = version.get();
+        if (current != null && current.version == v) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            v = version.get();
+            if (current == null || current.version != v) {
+                current = build(v);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build(long buildVersion) {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        String nowFormatted = now.format(DATE_FORMATTER);
+        List<BlogSitemapEntry> entries = blogPostRepository.findSitemapEntries();
+
+        LocalDateTime lastModified = null;
+        List<SitemapDocument> parts = new ArrayList<>();
+        int urlCount;
+        try {
+            PartWriter writer = new PartWriter();
+            // Static pages - Only public, indexable pages
+            writer.addUrl(BASE_URL + "/", "1.0", "daily", nowFormatted);
+            // Note: /home redirects to /, so not included to avoid redirect issue
+            writer.addUrl(BASE_URL + "/courses", "0.9", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/typing-display", "0.9", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/start-test", "0.8", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/blog", "0.95", "daily", nowFormatted);
+            writer.addUrl(BASE_URL + "/games", "0.8", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/games/word-tetris", "0.7", "monthly", nowFormatted);
+            writer.addUrl(BASE_URL + "/games/zombie-defense", "0.7", "monthly", nowFormatted);
+            writer.addUrl(BASE_URL + "/games/space-invaders", "0.7", "monthly", nowFormatted);
+            writer.addUrl(BASE_URL + "/games/word-blaster", "0.7", "monthly", nowFormatted);
+            writer.addUrl(BASE_URL + "/daily-challenge", "0.8", "daily", nowFormatted);
+            writer.addUrl(BASE_URL + "/race", "0.8", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/tournaments", "0.8", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/friends", "0.7", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/community", "0.8", "weekly", nowFormatted);
+            writer.addUrl(BASE_URL + "/leaderboard", "0.7", "daily", nowFormatted);
+            writer.addUrl(BASE_URL + "/about", "0.8", "monthly", nowFormatted);
+            writer.addUrl(BASE_URL + "/contact-us", "0.8", "monthly", nowFormatted);
+            writer.addUrl(BASE_URL + "/privacy-policy", "0.8", "monthly", nowFormatted);
+            // Jewelry shop pages
+            writer.addUrl(BASE_URL + "/products", "0.9", "daily", nowFormatted);
+            // Note: /register and /login are excluded as they're authentication pages
+            // Excluded pages (user-specific, admin, or internal):
+            // /add, /active-courses, /profile, /user-result, /typing-display-test, /admin, /social
+            urlCount = writer.urls;
+
+            // Blog posts - Include ALL published blog posts
+            for (BlogSitemapEntry entry : entries) {
+                // Only include posts with valid slugs
+                if (entry.getSlug() == null || entry.getSlug().trim().isEmpty()) continue;
+
+                LocalDateTime modified = entry.getUpdatedAt() != null ? entry.getUpdatedAt() : entry.getPublishedAt();
+                if (modified != null && (lastModified == null || modified.isAfter(lastModified))) {
+                    lastModified = modified;
+                }
+                // Use canonical URL if available, otherwise use slug-based URL
+                String blogUrl = entry.getCanonicalUrl() != null && !entry.getCanonicalUrl().trim().isEmpty()
+                        ? entry.getCanonicalUrl()
+                        : BASE_URL + "/blog/" + entry.getSlug();
+
+                if (writer.isFull()) {
+                    parts.add(writer.finish());
+                    writer = new PartWriter();
+                }
+                writer.addUrl(blogUrl, "0.9", "weekly", modified != null ? modified.format(DATE_FORMATTER) : nowFormatted);
+                urlCount++;
+            }
+            parts.add(writer.finish());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate sitemap", e);
+        }
+
+        long lastModifiedMillis = (lastModified != null ? lastModified : now)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        SitemapDocument index = parts.size() > 1 ? buildIndex(parts.size(), nowFormatted, lastModifiedMillis) : null;
+
+        List<SitemapDocument> stamped = new ArrayList<>(parts.size());
+        for (SitemapDocument part : parts) {
+            stamped.add(new SitemapDocument(part.gzipped, part.etag, lastModifiedMillis));
+        }
+
+        log.info("Sitemap generated: {} URLs in {} file(s) in {} ms",
+                urlCount, parts.size(), System.currentTimeMillis() - start);
+        return new Snapshot(buildVersion, stamped, index);
+    }
+
+    private SitemapDocument buildIndex(int partCount, String lastmod, long lastModifiedMillis) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (Writer out = gzipWriter(bytes)) {
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                out.write("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+                for (int i = 1; i <= partCount; i++) {
+                    out.write("  <sitemap>\n");
+                    out.write("    <loc>" + PART_URL_PREFIX + i + "</loc>\n");
+                    out.write("    <lastmod>" + lastmod + "</lastmod>\n");
+                    out.write("  </sitemap>\n");
+                }
+                out.write("</sitemapindex>");
+            }
+            byte[] gzipped = bytes.toByteArray();
+            return new SitemapDocument(gzipped, etagOf(gzipped), lastModifiedMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate sitemap index", e);
+        }
+    }
+
+    private static Writer gzipWriter(ByteArrayOutputStream bytes) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8));
+    }
+
+    private static String etagOf(byte[] content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    private static String escapeXml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    /**
+     * Length of {@code s} encoded as UTF-8, without encoding it
+     */
+    static long utf8Length(String s) {
+        long length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * One gzipped urlset file, tracking URL count and uncompressed size in bytes against protocol limits
+     */
+    private static class PartWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Writer out;
+        private int urls = 0;
+        private long uncompressedBytes = 0;
+
+        PartWriter() throws IOException {
+            out = gzipWriter(bytes);
+            write(URLSET_OPEN);
+        }
+
+        boolean isFull() {
+            return urls >= MAX_URLS_PER_SITEMAP || uncompressedBytes >= MAX_BYTES_PER_SITEMAP;
+        }
+
+        void addUrl(String loc, String priority, String changefreq, String lastmod) throws IOException {
+            write("  <url>\n");
+            write("    <loc>" + escapeXml(loc) + "</loc>\n");
+            write("    <lastmod>" + lastmod + "</lastmod>\n");
+            write("    <changefreq>" + changefreq + "</changefreq>\n");
+            write("    <priority>" + priority + "</priority>\n");
+            write("  </url>\n");
+            urls++;
+        }
+
+        SitemapDocument finish() throws IOException {
+            write(URLSET_CLOSE);
+            out.close();
+            byte[] gzipped = bytes.toByteArray();
+            return new SitemapDocument(gzipped, etagOf(gzipped), 0L);
+        }
+
+        private void write(String s) throws IOException {
+            out.write(s);
+            // The limit is in bytes: a non-ASCII slug takes more bytes than chars
+            uncompressedBytes += utf8Length(s);
+        }
+    }
+
+    private static class Snapshot {
+        final long version;
+        final List<SitemapDocument> parts;
+        final SitemapDocument index; // null when everything fits in one urlset
+
+        Snapshot(long version, List<SitemapDocument> parts, SitemapDocument index) {
+            this.version = version;
+            this.parts = parts;
+            this.index = index;
+        }
+    }
+
+    /**
+     * A cached, gzip-compressed sitemap file with its validators.
+     * The gzip and identity bodies differ, so each gets its own ETag (the gzip one ends in -gz).
+     */
+    public static class SitemapDocument {
+        private final byte[] gzipped;
+        private final String etag;
+        private final String gzipEtag;
+        private final long lastModified;
+
+        public SitemapDocument(byte[] gzipped, String etag, long lastModified) {
+            this.gzipped = gzipped;
+            this.etag = etag;
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gz\"";
+            this.lastModified = lastModified;
+        }
+
+        public byte[] getGzipped() { return gzipped; }
+        public String getEtag(boolean gzip) { return gzip ? gzipEtag : etag; }
+        public long getLastModified() { return lastModified; }
+    }
+}
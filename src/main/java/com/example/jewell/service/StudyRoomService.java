@@ -8,9 +8,9 @@ import com.example.jewell.repository.RoomUsageRepository;
 import com.example.jewell.repository.StudyRoomRepository;
 import com.example.jewell.repository.StudyRoomSessionRepository;
 import com.example.jewell.repository.UserRepository;
+import com.example.jewell.utils.TransactionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,62 +38,67 @@ public class StudyRoomService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private StudyRoomSlotAllocator slotAllocator;
+    
     /**
      * Get an available room link for a user
-     * Uses optimistic tracking: increments count immediately, but marks as "pending"
-     * Auto-confirms after 2 minutes if user doesn't cancel
+     * Claims a slot from the in-memory allocator (no row lock on study_rooms) and records a pending session.
+     * The pending join holds a lease that auto-confirms after 2 minutes unless the user cancels.
      */
-    @Transactional
     public StudyRoom getRoomLink(String roomType, Long userId) {
-        List<StudyRoom> availableRooms = studyRoomRepository.findAvailableRoomsByType(roomType);
-        
-        if (availableRooms.isEmpty()) {
-            return null;
+        // Same user clicking again: hand back the room they already hold
+        StudyRoomSlotAllocator.Lease existing = slotAllocator.findLease(userId, roomType);
+        if (existing != null) {
+            return studyRoomRepository.findById(existing.getRoomId()).orElse(null);
         }
-        
-        StudyRoom assignedRoom = availableRooms.get(0);
-        
-        // Check if user already has a session for this room
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Optional<StudyRoomSession> existingSession = studyRoomSessionRepository
-                .findByUserAndRoomAndIsConfirmedFalse(user, assignedRoom);
-        
-        if (existingSession.isPresent()) {
-            // Return existing session's room
-            return existingSession.get().getRoom();
+
+        Long roomId = slotAllocator.acquire(roomType);
+        if (roomId == null) {
+            return null; // All rooms of this type are full
         }
-        
-        // Check if room still has space
-        if (!assignedRoom.hasSpace()) {
-            return null; // Room is full
+
+        StudyRoom assignedRoom;
+        StudyRoomSession session;
+        try {
+            assignedRoom = studyRoomRepository.findById(roomId)
+                    .orElseThrow(() -> new RuntimeException("Room not found"));
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            // Create a pending session (will auto-confirm after 2 minutes)
+            session = StudyRoomSession.builder()
+                    .user(user)
+                    .room(assignedRoom)
+                    .isConfirmed(false) // Will auto-confirm after 2 min
+                    .linkOpenedAt(LocalDateTime.now())
+                    .expiresAt(LocalDateTime.now().plusMinutes(5)) // 5 min to cancel
+                    .build();
+            studyRoomSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            slotAllocator.release(roomId);
+            throw e;
         }
-        
-        // Optimistic approach: increment count immediately, but mark as pending
-        // This prevents the "100 users clicked but didn't confirm" problem
-        assignedRoom.incrementParticipants();
-        studyRoomRepository.save(assignedRoom);
-        
-        // Create a pending session (will auto-confirm after 2 minutes)
-        StudyRoomSession session = StudyRoomSession.builder()
-                .user(user)
-                .room(assignedRoom)
-                .isConfirmed(false) // Will auto-confirm after 2 min
-                .linkOpenedAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(5)) // 5 min to cancel
-                .build();
-        studyRoomSessionRepository.save(session);
-        
+
+        // The lease only becomes visible with its session id, so a confirm or cancel always finds the row
+        if (slotAllocator.openLease(userId, roomType, roomId, session.getId()) == null) {
+            // A concurrent click by the same user won; give back this slot and its row
+            studyRoomSessionRepository.deleteById(session.getId());
+            slotAllocator.release(roomId);
+            StudyRoomSlotAllocator.Lease held = slotAllocator.findLease(userId, roomType);
+            return held != null ? studyRoomRepository.findById(held.getRoomId()).orElse(null) : null;
+        }
+
         // Record usage for analytics (async)
-        recordRoomUsage(assignedRoom);
-        
+        recordRoomUsage(assignedRoom, slotAllocator.occupancy(roomId));
+
         return assignedRoom;
     }
     
     /**
      * Confirm that user has joined the meeting
-     * This increments the participant count
+     * Ends the pending lease (the slot was claimed when the link was opened);
+     * without a pending join a new slot is claimed in that room.
      */
     @Transactional
     public StudyRoom confirmJoin(Long roomId, Long userId) {
@@ -102,48 +107,38 @@ public class StudyRoomService {
         StudyRoom room = studyRoomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
         
-        // Find or create session
-        Optional<StudyRoomSession> sessionOpt = studyRoomSessionRepository
-                .findByUserAndRoomAndIsConfirmedFalse(user, room);
+        StudyRoomSlotAllocator.Lease lease = slotAllocator.findLease(userId, room.getRoomType());
+        if (lease != null && lease.getRoomId().equals(roomId) && slotAllocator.confirmLease(lease)) {
+            studyRoomSessionRepository.confirmSessions(List.of(lease.getSessionId()), LocalDateTime.now());
+            return room;
+        }
         
-        StudyRoomSession session;
-        if (sessionOpt.isPresent()) {
-            session = sessionOpt.get();
-            // Check if expired
-            if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
-                throw new RuntimeException("Session expired. Please join again.");
-            }
-        } else {
-            // Create new session if doesn't exist
-            session = StudyRoomSession.builder()
+        // Already in the room (e.g. the lease auto-confirmed): nothing to count again
+        if (studyRoomSessionRepository.existsByUserIdAndRoomIdAndIsConfirmedTrue(userId, roomId)) {
+            return room;
+        }
+        
+        if (!slotAllocator.acquireRoom(roomId)) {
+            throw new RuntimeException("Room is now full. Please try another room.");
+        }
+        try {
+            StudyRoomSession session = StudyRoomSession.builder()
                     .user(user)
                     .room(room)
-                    .isConfirmed(false)
+                    .isConfirmed(true)
                     .linkOpenedAt(LocalDateTime.now())
+                    .confirmedAt(LocalDateTime.now())
                     .expiresAt(LocalDateTime.now().plusMinutes(5))
                     .build();
-        }
-        
-        // Only increment if not already confirmed
-        if (!session.getIsConfirmed()) {
-            // Check if room still has space
-            if (!room.hasSpace()) {
-                throw new RuntimeException("Room is now full. Please try another room.");
-            }
-            
-            // Mark session as confirmed
-            session.setIsConfirmed(true);
-            session.setConfirmedAt(LocalDateTime.now());
             studyRoomSessionRepository.save(session);
-            
-            // Increment participant count
-            room.incrementParticipants();
-            studyRoomRepository.save(room);
-            
-            // Record usage for analytics (async)
-            recordRoomUsage(room);
+        } catch (RuntimeException e) {
+            slotAllocator.release(roomId);
+            throw e;
         }
         
+        // Record usage for analytics (async)
+        recordRoomUsage(room, slotAllocator.occupancy(roomId));
+        
         return room;
     }
     
@@ -151,32 +146,24 @@ public class StudyRoomService {
      * Get an available room for a user (legacy method - kept for backward compatibility)
      * Now redirects to getRoomLink
      */
-    @Transactional
     public StudyRoom assignRoom(String roomType) {
         // For backward compatibility, but this should use getRoomLink with userId
-        List<StudyRoom> availableRooms = studyRoomRepository.findAvailableRoomsByType(roomType);
-        return availableRooms.isEmpty() ? null : availableRooms.get(0);
+        return getAvailableRoom(roomType);
     }
     
     /**
      * Get room assignment without incrementing count (for preview)
      */
     public StudyRoom getAvailableRoom(String roomType) {
-        List<StudyRoom> availableRooms = studyRoomRepository.findAvailableRoomsByType(roomType);
-        return availableRooms.isEmpty() ? null : availableRooms.get(0);
+        Long roomId = slotAllocator.peek(roomType);
+        return roomId != null ? studyRoomRepository.findById(roomId).orElse(null) : null;
     }
     
     /**
      * Release a room slot (when user leaves)
      */
-    @Transactional
     public void releaseRoom(Long roomId) {
-        Optional<StudyRoom> roomOpt = studyRoomRepository.findById(roomId);
-        if (roomOpt.isPresent()) {
-            StudyRoom room = roomOpt.get();
-            room.decrementParticipants();
-            studyRoomRepository.save(room);
-        }
+        slotAllocator.release(roomId);
     }
     
     /**
@@ -236,7 +223,9 @@ public class StudyRoomService {
                 .currentParticipants(0)
                 .build();
         
-        return studyRoomRepository.save(room);
+        StudyRoom saved = studyRoomRepository.save(room);
+        TransactionUtils.afterCommit(() -> slotAllocator.refreshRoom(saved));
+        return saved;
     }
     
     /**
@@ -275,8 +264,15 @@ public class StudyRoomService {
         if (platform != null) {
             room.setPlatform(platform);
         }
+        // The allocator owns the live count; don't write back a stale one
+        Integer occupancy = slotAllocator.occupancy(roomId);
+        if (occupancy != null) {
+            room.setCurrentParticipants(occupancy);
+        }
         
-        return studyRoomRepository.save(room);
+        StudyRoom saved = studyRoomRepository.save(room);
+        TransactionUtils.afterCommit(() -> slotAllocator.refreshRoom(saved));
+        return saved;
     }
     
     /**
@@ -305,11 +301,11 @@ public class StudyRoomService {
      */
     @Async
     @Transactional
-    public void recordRoomUsage(StudyRoom room) {
+    public void recordRoomUsage(StudyRoom room, Integer participantCount) {
         try {
             RoomUsage usage = RoomUsage.builder()
                     .room(room)
-                    .participantCount(room.getCurrentParticipants())
+                    .participantCount(participantCount != null ? participantCount : room.getCurrentParticipants())
                     .recordedAt(LocalDateTime.now())
                     .build();
             roomUsageRepository.save(usage);
@@ -432,6 +428,7 @@ public class StudyRoomService {
         
         // Delete the room
         studyRoomRepository.delete(room);
+        TransactionUtils.afterCommit(() -> slotAllocator.removeRoom(roomId));
     }
     
     /**
@@ -440,124 +437,41 @@ public class StudyRoomService {
     @Transactional
     public void releaseRoomSlot(Long roomId, Long userId) {
         // Validate user exists
-        userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        StudyRoom room = studyRoomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        if (!studyRoomRepository.existsById(roomId)) {
+            throw new RuntimeException("Room not found");
+        }
         
         // Find confirmed session
-        List<StudyRoomSession> sessions = studyRoomSessionRepository.findByRoomAndIsConfirmedTrue(room);
-        StudyRoomSession userSession = sessions.stream()
-                .filter(s -> s.getUser().getId().equals(userId))
-                .findFirst()
-                .orElse(null);
+        Optional<StudyRoomSession> userSession = studyRoomSessionRepository
+                .findFirstByRoomIdAndUserIdAndIsConfirmedTrue(roomId, userId);
         
-        if (userSession != null) {
+        if (userSession.isPresent()) {
             // Delete the session
-            studyRoomSessionRepository.delete(userSession);
+            studyRoomSessionRepository.delete(userSession.get());
             
-            // Decrement participant count
-            room.decrementParticipants();
-            studyRoomRepository.save(room);
+            // Decrement participant count once the delete is committed
+            TransactionUtils.afterCommit(() -> slotAllocator.release(roomId));
         }
     }
     
     /**
-     * Clean up expired unconfirmed sessions and auto-confirm active sessions
-     * Runs every 3 minutes (optimized for scale: 500K-1M users):
-     * - Auto-confirms sessions older than 2 minutes (user likely joined but forgot to confirm)
-     * - Deletes sessions older than 5 minutes that are still unconfirmed (user likely didn't join)
-     * 
-     * OPTIMIZED: Uses database queries instead of loading all sessions into memory
-     */
-    @Scheduled(fixedRate = 180000) // Every 3 minutes (optimized for scale: 500K-1M users)
-    @Transactional
-    public void cleanupExpiredSessions() {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime twoMinutesAgo = now.minusMinutes(2);
-            LocalDateTime fiveMinutesAgo = now.minusMinutes(5);
-            
-            // OPTIMIZED: Query only unconfirmed sessions (database-level filtering)
-            List<StudyRoomSession> unconfirmedSessions = studyRoomSessionRepository.findAllUnconfirmedSessions();
-            
-            // Batch process: collect rooms to update
-            Map<StudyRoom, Integer> roomDecrementMap = new HashMap<>();
-            List<StudyRoomSession> toDelete = new java.util.ArrayList<>();
-            List<StudyRoomSession> toConfirm = new java.util.ArrayList<>();
-            
-            for (StudyRoomSession session : unconfirmedSessions) {
-                StudyRoom room = session.getRoom();
-                LocalDateTime linkOpenedAt = session.getLinkOpenedAt();
-                
-                // If session is between 2-5 minutes old, auto-confirm
-                if (linkOpenedAt.isBefore(twoMinutesAgo) && linkOpenedAt.isAfter(fiveMinutesAgo)) {
-                    if (room.getCurrentParticipants() <= room.getMaxCapacity()) {
-                        toConfirm.add(session);
-                    }
-                } 
-                // If session is older than 5 minutes and still unconfirmed, delete it
-                else if (linkOpenedAt.isBefore(fiveMinutesAgo)) {
-                    if (room.getCurrentParticipants() > 0) {
-                        roomDecrementMap.put(room, roomDecrementMap.getOrDefault(room, 0) + 1);
-                    }
-                    toDelete.add(session);
-                }
-            }
-            
-            // Batch update: confirm sessions
-            for (StudyRoomSession session : toConfirm) {
-                session.setIsConfirmed(true);
-                session.setConfirmedAt(now);
-                studyRoomSessionRepository.save(session);
-            }
-            
-            // Batch update: decrement room counts
-            for (Map.Entry<StudyRoom, Integer> entry : roomDecrementMap.entrySet()) {
-                StudyRoom room = entry.getKey();
-                int decrementCount = entry.getValue();
-                for (int i = 0; i < decrementCount; i++) {
-                    room.decrementParticipants();
-                }
-                studyRoomRepository.save(room);
-            }
-            
-            // Batch delete: remove expired sessions
-            if (!toDelete.isEmpty()) {
-                studyRoomSessionRepository.deleteAll(toDelete);
-            }
-        } catch (Exception e) {
-            // Log error but don't fail the scheduled task
-            System.err.println("Error in cleanupExpiredSessions: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * Cancel join - user didn't actually join, remove the session and decrement count
+     * Cancel join - user didn't actually join, remove the session and free the slot
      */
     @Transactional
     public void cancelJoin(Long roomId, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
         StudyRoom room = studyRoomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
         
-        // Find unconfirmed session
-        Optional<StudyRoomSession> sessionOpt = studyRoomSessionRepository
-                .findByUserAndRoomAndIsConfirmedFalse(user, room);
-        
-        if (sessionOpt.isPresent()) {
-            StudyRoomSession session = sessionOpt.get();
-            
-            // Decrement participant count
-            if (room.getCurrentParticipants() > 0) {
-                room.decrementParticipants();
-                studyRoomRepository.save(room);
-            }
-            
+        StudyRoomSlotAllocator.Lease lease = slotAllocator.findLease(userId, room.getRoomType());
+        if (lease != null && lease.getRoomId().equals(roomId) && slotAllocator.cancelLease(lease)) {
             // Delete the session
-            studyRoomSessionRepository.delete(session);
+            studyRoomSessionRepository.deleteById(lease.getSessionId());
         }
     }
     
@@ -570,9 +484,12 @@ public class StudyRoomService {
         List<StudyRoom> allRooms = studyRoomRepository.findAll();
         for (StudyRoom room : allRooms) {
             Long confirmedCount = studyRoomSessionRepository.countConfirmedSessionsByRoom(room);
-            room.setCurrentParticipants(confirmedCount.intValue());
+            // Pending joins hold a slot too
+            int occupied = confirmedCount.intValue() + slotAllocator.pendingLeases(room.getId());
+            room.setCurrentParticipants(occupied);
             studyRoomRepository.save(room);
+            slotAllocator.resetOccupancy(room.getId(), occupied);
         }
     }
-}
+    }
 
@@ -0,0 +1,497 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.StudyRoom;
+import com.example.jewell.model.StudyRoomSession;
+import com.example.jewell.repository.StudyRoomRepository;
+import com.example.jewell.repository.StudyRoomSessionRepository;
+import com.example.jewell.utils.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory slot allocator for study rooms.
+ *
+ * Each room's occupancy is an atomic counter, so concurrent joins claim slots with a CAS instead of
+ * locking the study_rooms row. A join that has not been confirmed holds a timed lease in a DelayQueue;
+ * a worker thread auto-confirms leases the moment they fall due (no periodic scan of pending sessions).
+ * A lease is only opened once its session row exists, and only ends once the database agrees: the
+ * worker confirms the rows before ending their leases, and a confirm or cancel that rolls back
+ * reopens the lease. Occupancy is written back to study_rooms in one batch per interval; on startup
+ * it is recounted from study_room_sessions rather than trusting that written-back counter.
+ */
+@Service
+public class StudyRoomSlotAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(StudyRoomSlotAllocator.class);
+
+    private static final int MAX_CONFIRM_BATCH = 500;
+
+    private static final int PENDING = 0;
+    private static final int CONFIRMED = 1;
+    private static final int CANCELLED = 2;
+
+    @Autowired
+    private StudyRoomRepository studyRoomRepository;
+
+    @Autowired
+    private StudyRoomSessionRepository studyRoomSessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${study-room.lease.auto-confirm-ms:120000}")
+    private long autoConfirmAfterMs;
+
+    @Value("${study-room.lease.confirm-retry-ms:5000}")
+    private long confirmRetryMs;
+
+    private final Map<Long, RoomSlots> rooms = new ConcurrentHashMap<>();
+    private volatile Map<String, RoomSlots[]> roomsByType = Map.of();
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final DelayQueue<Lease> leaseQueue = new DelayQueue<>();
+
+    private volatile boolean loaded = false;
+    private volatile boolean running = true;
+    private Thread leaseWorker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureLoaded();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (leaseWorker != null) {
+            leaseWorker.interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Claim a slot in the least-occupied active room of a type (higher priority wins ties).
+     * Returns the room id, or null if every room of that type is full.
+     */
+    public Long acquire(String roomType) {
+        ensureLoaded();
+        RoomSlots[] candidates = roomsByType.get(roomType);
+        if (candidates == null) return null;
+        while (true) {
+            RoomSlots best = null;
+            int bestOccupied = Integer.MAX_VALUE;
+            for (RoomSlots room : candidates) {
+                if (!room.active) continue;
+                int occupied = room.occupied.get();
+                if (occupied < room.capacity && occupied < bestOccupied) {
+                    best = room;
+                    bestOccupied = occupied;
+                }
+            }
+            if (best == null) return null;
+            if (best.occupied.compareAndSet(bestOccupied, bestOccupied + 1)) {
+                return best.roomId;
+            }
+            // Lost the race for that slot; re-pick with fresh counts
+        }
+    }
+
+    /**
+     * Claim a slot in one specific room; false if it is full or unknown
+     */
+    public boolean acquireRoom(Long roomId) {
+        ensureLoaded();
+        RoomSlots room = rooms.get(roomId);
+        if (room == null || !room.active) return false;
+        while (true) {
+            int occupied = room.occupied.get();
+            if (occupied >= room.capacity) return false;
+            if (room.occupied.compareAndSet(occupied, occupied + 1)) return true;
+        }
+    }
+
+    public void release(Long roomId) {
+        ensureLoaded();
+        RoomSlots room = rooms.get(roomId);
+        if (room == null) return;
+        while (true) {
+            int occupied = room.occupied.get();
+            if (occupied <= 0) return;
+            if (room.occupied.compareAndSet(occupied, occupied - 1)) return;
+        }
+    }
+
+    /**
+     * Current (not yet written back) occupancy of a room, or null if unknown
+     */
+    public Integer occupancy(Long roomId) {
+        ensureLoaded();
+        RoomSlots room = rooms.get(roomId);
+        return room != null ? room.occupied.get() : null;
+    }
+
+    /**
+     * Least-occupied room of a type with space, without claiming it
+     */
+    public Long peek(String roomType) {
+        ensureLoaded();
+        RoomSlots[] candidates = roomsByType.get(roomType);
+        if (candidates == null) return null;
+        RoomSlots best = null;
+        int bestOccupied = Integer.MAX_VALUE;
+        for (RoomSlots room : candidates) {
+            int occupied = room.occupied.get();
+            if (room.active && occupied < room.capacity && occupied < bestOccupied) {
+                best = room;
+                bestOccupied = occupied;
+            }
+        }
+        return best != null ? best.roomId : null;
+    }
+
+    // ========== LEASES ==========
+
+    /**
+     * Register a pending join whose session row has been written, and arm its auto-confirm timer.
+     * Null if the user already holds a lease for this room type.
+     */
+    public Lease openLease(Long userId, String roomType, Long roomId, Long sessionId) {
+        ensureLoaded();
+        Lease lease = new Lease(userId, roomType, roomId, sessionId,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(autoConfirmAfterMs));
+        if (leases.putIfAbsent(lease.key(), lease) != null) return null;
+        leaseQueue.offer(lease);
+        return lease;
+    }
+
+    /**
+     * Pending lease of a user for a room type, if any
+     */
+    public Lease findLease(Long userId, String roomType) {
+        ensureLoaded();
+        Lease lease = leases.get(leaseKey(userId, roomType));
+        return lease != null && lease.state.get() == PENDING ? lease : null;
+    }
+
+    /**
+     * User confirmed the join: the lease ends but the slot stays taken. False if the lease already ended.
+     */
+    public boolean confirmLease(Lease lease) {
+        if (!lease.state.compareAndSet(PENDING, CONFIRMED)) return false;
+        endLease(lease, CONFIRMED);
+        return true;
+    }
+
+    /**
+     * User cancelled the join: the lease ends and, once the session delete commits, the slot is released.
+     * False if the lease already ended.
+     */
+    public boolean cancelLease(Lease lease) {
+        if (!lease.state.compareAndSet(PENDING, CANCELLED)) return false;
+        endLease(lease, CANCELLED);
+        TransactionUtils.afterCommit(() -> release(lease.roomId));
+        return true;
+    }
+
+    public int pendingLeases(Long roomId) {
+        int count = 0;
+        for (Lease lease : leases.values()) {
+            if (lease.roomId.equals(roomId) && lease.state.get() == PENDING) count++;
+        }
+        return count;
+    }
+
+    // ========== ROOM CHANGES ==========
+
+    /**
+     * Add or update a room after an admin edit; keeps its current occupancy
+     */
+    public void refreshRoom(StudyRoom room) {
+        ensureLoaded();
+        synchronized (this) {
+            RoomSlots slots = rooms.get(room.getId());
+            if (slots == null) {
+                slots = new RoomSlots(room.getId(), (int) studyRoomSessionRepository.countByRoomId(room.getId()));
+                rooms.put(room.getId(), slots);
+            }
+            slots.apply(room);
+            // The entity save may have written a stale count; make the next flush correct it
+            slots.lastWritten = -1;
+            rebuildTypeIndex();
+        }
+    }
+
+    public void removeRoom(Long roomId) {
+        ensureLoaded();
+        synchronized (this) {
+            RoomSlots removed = rooms.remove(roomId);
+            if (removed != null) {
+                removed.active = false;
+                rebuildTypeIndex();
+            }
+        }
+        leases.values().removeIf(lease -> lease.roomId.equals(roomId) && lease.state.compareAndSet(PENDING, CANCELLED));
+    }
+
+    /**
+     * Overwrite a room's occupancy (after a reconciliation against confirmed sessions)
+     */
+    public void resetOccupancy(Long roomId, int occupied) {
+        ensureLoaded();
+        RoomSlots room = rooms.get(roomId);
+        if (room != null) {
+            room.occupied.set(Math.max(0, occupied));
+        }
+    }
+
+    // ========== WRITE-BACK ==========
+
+    /**
+     * Write changed occupancy counts back to study_rooms in one batch
+     */
+    @Scheduled(fixedDelayString = "${study-room.slots.flush-interval-ms:2000}")
+    public void flush() {
+        if (!loaded) return;
+        List<Object[]> batch = new ArrayList<>();
+        List<RoomSlots> flushed = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        for (RoomSlots room : rooms.values()) {
+            int occupied = room.occupied.get();
+            if (occupied != room.lastWritten) {
+                batch.add(new Object[]{occupied, room.roomId});
+                flushed.add(room);
+                values.add(occupied);
+            }
+        }
+        if (batch.isEmpty()) return;
+        try {
+            jdbcTemplate.batchUpdate("UPDATE study_rooms SET current_participants = ? WHERE id = ?", batch);
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).lastWritten = values.get(i);
+            }
+        } catch (Exception e) {
+            // Counts stay dirty and are retried on the next flush
+            log.error("Failed to write back study room occupancy: {}", e.getMessage(), e);
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            // Every session row, confirmed or pending, holds a slot; current_participants may lag behind
+            Map<Long, Integer> sessions = new HashMap<>();
+            for (Object[] row : studyRoomSessionRepository.countSessionsGroupedByRoom()) {
+                sessions.put((Long) row[0], ((Long) row[1]).intValue());
+            }
+            for (StudyRoom room : studyRoomRepository.findAll()) {
+                RoomSlots slots = new RoomSlots(room.getId(), sessions.getOrDefault(room.getId(), 0));
+                slots.apply(room);
+                // A stale stored count differs from this and is corrected by the next flush
+                slots.lastWritten = room.getCurrentParticipants() != null ? room.getCurrentParticipants() : -1;
+                rooms.put(room.getId(), slots);
+            }
+            rebuildTypeIndex();
+
+            // Pending joins survive a restart: their slots are counted above
+            long now = System.nanoTime();
+            LocalDateTime wallNow = LocalDateTime.now();
+            int restored = 0;
+            for (StudyRoomSession session : studyRoomSessionRepository.findAllUnconfirmedSessions()) {
+                RoomSlots room = rooms.get(session.getRoom().getId());
+                if (room == null) continue;
+                LocalDateTime openedAt = session.getLinkOpenedAt() != null ? session.getLinkOpenedAt() : wallNow;
+                long remaining = Duration.between(wallNow, openedAt.plus(Duration.ofMillis(autoConfirmAfterMs))).toNanos();
+                Lease lease = new Lease(session.getUser().getId(), room.roomType, room.roomId, session.getId(),
+                        now + Math.max(0, remaining));
+                if (leases.putIfAbsent(lease.key(), lease) == null) {
+                    leaseQueue.offer(lease);
+                    restored++;
+                }
+            }
+            startLeaseWorker();
+            loaded = true;
+            log.info("Study room allocator loaded: {} rooms, {} pending leases", rooms.size(), restored);
+        }
+    }
+
+    private void rebuildTypeIndex() {
+        Map<String, List<RoomSlots>> grouped = new HashMap<>();
+        for (RoomSlots room : rooms.values()) {
+            if (room.roomType != null) {
+                grouped.computeIfAbsent(room.roomType, k -> new ArrayList<>()).add(room);
+            }
+        }
+        Map<String, RoomSlots[]> index = new HashMap<>();
+        for (Map.Entry<String, List<RoomSlots>> entry : grouped.entrySet()) {
+            RoomSlots[] sorted = entry.getValue().toArray(new RoomSlots[0]);
+            Arrays.sort(sorted, Comparator.comparingInt((RoomSlots r) -> -r.priority).thenComparing(r -> r.roomId));
+            index.put(entry.getKey(), sorted);
+        }
+        roomsByType = index;
+    }
+
+    private void startLeaseWorker() {
+        leaseWorker = new Thread(this::runLeaseWorker, "study-room-leases");
+        leaseWorker.setDaemon(true);
+        leaseWorker.start();
+    }
+
+    /**
+     * Auto-confirm leases as they fall due, batching whatever expired together into one UPDATE.
+     * The rows are confirmed first; a batch that fails is retried later instead of being dropped.
+     */
+    private void runLeaseWorker() {
+        while (running) {
+            try {
+                List<Lease> due = new ArrayList<>();
+                due.add(leaseQueue.take());
+                leaseQueue.drainTo(due, MAX_CONFIRM_BATCH - 1);
+
+                List<Lease> pending = new ArrayList<>(due.size());
+                List<Long> sessionIds = new ArrayList<>(due.size());
+                for (Lease lease : due) {
+                    if (lease.state.get() == PENDING) {
+                        pending.add(lease);
+                        sessionIds.add(lease.sessionId);
+                    }
+                }
+                if (pending.isEmpty()) continue;
+                try {
+                    LocalDateTime now = LocalDateTime.now();
+                    transactionTemplate.executeWithoutResult(status ->
+                            studyRoomSessionRepository.confirmSessions(sessionIds, now));
+                } catch (Exception e) {
+                    log.error("Failed to auto-confirm {} study room sessions, retrying in {} ms: {}",
+                            sessionIds.size(), confirmRetryMs, e.getMessage(), e);
+                    long retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmRetryMs);
+                    for (Lease lease : pending) {
+                        lease.deadlineNanos = retryAt;
+                        leaseQueue.offer(lease);
+                    }
+                    continue;
+                }
+                // A lease cancelled meanwhile stays cancelled: its session row is being deleted
+                for (Lease lease : pending) {
+                    if (lease.state.compareAndSet(PENDING, CONFIRMED)) {
+                        leases.remove(lease.key(), lease);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Study room lease worker error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Take an ended lease out of the map and timer queue; if the caller's transaction rolls back,
+     * its session row is still pending, so the lease is put back
+     */
+    private void endLease(Lease lease, int endedAs) {
+        leases.remove(lease.key(), lease);
+        leaseQueue.remove(lease);
+        TransactionUtils.afterRollback(() -> {
+            if (lease.state.compareAndSet(endedAs, PENDING)) {
+                leases.putIfAbsent(lease.key(), lease);
+                leaseQueue.offer(lease);
+            }
+        });
+    }
+
+    private static String leaseKey(Long userId, String roomType) {
+        return roomType + ":" + userId;
+    }
+
+    private static class RoomSlots {
+        final Long roomId;
+        final AtomicInteger occupied;
+        volatile int capacity;
+        volatile int priority;
+        volatile boolean active;
+        volatile String roomType;
+        volatile int lastWritten;
+
+        RoomSlots(Long roomId, int occupied) {
+            this.roomId = roomId;
+            this.occupied = new AtomicInteger(occupied);
+        }
+
+        void apply(StudyRoom room) {
+            capacity = room.getMaxCapacity() != null ? room.getMaxCapacity() : 100;
+            priority = room.getPriority() != null ? room.getPriority() : 0;
+            active = !Boolean.FALSE.equals(room.getIsActive());
+            roomType = room.getRoomType();
+        }
+    }
+
+    /**
+     * A pending (unconfirmed) join holding one slot until it is confirmed, cancelled or auto-confirmed
+     */
+    public static class Lease implements Delayed {
+        private final Long userId;
+        private final String roomType;
+        private final Long roomId;
+        private final Long sessionId;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        /** Only changed while the lease is out of the queue (a failed auto-confirm is rescheduled) */
+        private volatile long deadlineNanos;
+
+        Lease(Long userId, String roomType, Long roomId, Long sessionId, long deadlineNanos) {
+            this.userId = userId;
+            this.roomType = roomType;
+            this.roomId = roomId;
+            this.sessionId = sessionId;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public Long getRoomId() { return roomId; }
+        public Long getSessionId() { return sessionId; }
+
+        String key() {
+            return leaseKey(userId, roomType);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof Lease) {
+                return Long.compare(deadlineNanos, ((Lease) other).deadlineNanos);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
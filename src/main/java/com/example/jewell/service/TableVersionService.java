@@ -0,0 +1,40 @@
+package com.example.jewell.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-table change counters used to build version-based ETags.
+ * Writers bump the counter of the table they modify; readers compare the client's
+ * If-None-Match against the current version and can answer 304 without running a query.
+ */
+@Service
+public class TableVersionService {
+
+    public static final String BLOG_POSTS = "blog_posts";
+    public static final String CURRICULUM = "curriculum";
+
+    // Distinguishes counters of this JVM from a previous run (counters restart at 0)
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long bump(String table) {
+        return versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long current(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * Strong ETag for everything derived from the given table
+     */
+    public String etag(String table) {
+        return "\"" + table + "-" + bootId + "-" + current(table) + "\"";
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.jewell.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Streams transactions and bills for tax filing as CSV or NDJSON in constant memory.
+ *
+ * Rows are read with plain JDBC on the export pool (MySQL cursor fetch, see {@link com.example.jewell.config.ExportDataSourceConfig}),
+ * mapped straight to column values without loading entities, and written to the response stream,
+ * which is flushed every {@link #FLUSH_EVERY} rows.
+ */
+@Service
+public class TaxExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int FLUSH_EVERY = 500;
+
+    private static final List<String> TRANSACTION_COLUMNS = Arrays.asList(
+            "id", "transactionDate", "transactionType", "category", "amount",
+            "paymentMethod", "referenceNumber", "description");
+
+    private static final List<String> BILL_COLUMNS = Arrays.asList(
+            "billNumber", "createdAt", "customerName", "customerPhone", "totalAmount", "totalDiamondAmount",
+            "makingCharges", "discountAmount", "finalAmount", "paidAmount", "paymentMethod", "paymentStatus");
+
+    private static final String TRANSACTIONS_SQL = "SELECT id, transaction_date, transaction_type, category, amount, " +
+            "payment_method, reference_number, description FROM transaction_history " +
+            "WHERE transaction_date BETWEEN ? AND ? ORDER BY transaction_date, id";
+
+    private static final String BILLS_SQL = "SELECT b.bill_number, b.created_at, c.name, c.phone, b.total_amount, " +
+            "b.total_diamond_amount, b.making_charges, b.discount_amount, b.final_amount, b.paid_amount, " +
+            "b.payment_method, b.payment_status FROM billing b LEFT JOIN customers c ON c.id = b.customer_id " +
+            "WHERE b.created_at >= ? AND b.created_at < ? ORDER BY b.created_at, b.id";
+
+    @Autowired
+    @Qualifier("exportJdbcTemplate")
+    private JdbcTemplate exportJdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Write every transaction in the date range (inclusive); returns the number of rows written
+     */
+    public long exportTransactions(LocalDate startDate, LocalDate endDate, Format format, OutputStream out) throws IOException {
+        try (Stream<List<Object>> rows = exportJdbcTemplate.queryForStream(TRANSACTIONS_SQL, (rs, i) -> Arrays.asList(
+                rs.getLong(1), rs.getObject(2, LocalDate.class), rs.getString(3), rs.getString(4), rs.getBigDecimal(5),
+                rs.getString(6), rs.getString(7), rs.getString(8)), startDate, endDate)) {
+            return write(rows.iterator(), TRANSACTION_COLUMNS, format, out);
+        }
+    }
+
+    /**
+     * Write every bill created in the date range (inclusive); returns the number of rows written
+     */
+    public long exportBills(LocalDate startDate, LocalDate endDate, Format format, OutputStream out) throws IOException {
+        try (Stream<List<Object>> rows = exportJdbcTemplate.queryForStream(BILLS_SQL, TaxExportService::billRow,
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay())) {
+            return write(rows.iterator(), BILL_COLUMNS, format, out);
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static List<Object> billRow(ResultSet rs, int rowNum) throws SQLException {
+        return Arrays.asList(
+                rs.getString(1), rs.getObject(2, LocalDateTime.class), rs.getString(3), rs.getString(4),
+                rs.getBigDecimal(5), rs.getBigDecimal(6), rs.getBigDecimal(7), rs.getBigDecimal(8),
+                rs.getBigDecimal(9), rs.getBigDecimal(10), rs.getString(11), rs.getString(12));
+    }
+
+    private long write(Iterator<List<Object>> rows, List<String> columns, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writeCsvLine(writer, columns);
+        }
+        long count = 0;
+        while (rows.hasNext()) {
+            List<Object> values = rows.next();
+            if (format == Format.CSV) {
+                writeCsvLine(writer, values);
+            } else {
+                Map<String, Object> record = new LinkedHashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    record.put(columns.get(i), values.get(i));
+                }
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.write('\n');
+            }
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.write(',');
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(csvEscape(value.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quote fields containing separators or quotes; prefix formula-looking text so spreadsheets do not evaluate it
+     */
+    private static String csvEscape(String s) {
+        if (!s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0 && !isNumeric(s)) {
+            s = "'" + s;
+        }
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+        return s;
+    }
+
+    private static boolean isNumeric(String s) {
+        try {
+            new java.math.BigDecimal(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
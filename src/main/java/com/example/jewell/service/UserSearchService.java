@@ -1,21 +1,21 @@
 package com.example.jewell.service;
 
-import com.example.jewell.model.Friendship;
-import com.example.jewell.model.User;
-import com.example.jewell.model.UserStreak;
 import com.example.jewell.repository.FriendshipRepository;
 import com.example.jewell.repository.UserRepository;
 import com.example.jewell.repository.UserStreakRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class UserSearchService {
+    private static final int SEARCH_LIMIT = 20;
+
     private final UserRepository userRepository;
     private final FriendshipRepository friendshipRepository;
     private final UserStreakRepository streakRepository;
@@ -30,29 +30,63 @@ public class UserSearchService {
         this.streakRepository = streakRepository;
     }
 
+    /**
+     * Username prefix search, limited to one page in the query itself.
+     * Matches come from a range scan of the username index, so the cost does not grow with the table;
+     * there is deliberately no infix fallback, since '%q%' cannot use the index.
+     * Friendship status and level are then fetched for the whole page in one query each.
+     */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> searchUsers(Long userId, String query) {
-        User currentUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String prefix = escapeLike(query.trim()) + "%";
+        List<Object[]> rows = userRepository.findIdAndUsernameByPrefix(prefix, userId, PageRequest.of(0, SEARCH_LIMIT));
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        List<User> users = userRepository.findByUsernameContainingIgnoreCase(query);
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+        }
 
-        return users.stream()
-                .filter(u -> !u.getId().equals(userId))
-                .limit(20)
-                .map(u -> {
-                    Map<String, Object> userData = new HashMap<>();
-                    userData.put("id", u.getId());
-                    userData.put("username", u.getUsername());
+        Map<Long, String> statusByUser = new HashMap<>();
+        for (Object[] row : friendshipRepository.findStatusesBetween(userId, ids)) {
+            Long otherId = userId.equals(row[0]) ? (Long) row[1] : (Long) row[0];
+            statusByUser.put(otherId, ((Enum<?>) row[2]).name());
+        }
+        Map<Long, Object> levelByUser = new HashMap<>();
+        for (Object[] row : streakRepository.findLevelsByUserIds(ids)) {
+            levelByUser.put((Long) row[0], row[1]);
+        }
 
-                    Optional<Friendship> friendship = friendshipRepository.findByUsers(currentUser, u);
-                    userData.put("friendshipStatus", friendship.map(f -> f.getStatus().name()).orElse("NONE"));
+        List<Map<String, Object>> results = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Map<String, Object> userData = new HashMap<>();
+            userData.put("id", id);
+            userData.put("username", row[1]);
+            userData.put("friendshipStatus", statusByUser.getOrDefault(id, "NONE"));
+            if (levelByUser.containsKey(id)) {
+                userData.put("level", levelByUser.get(id));
+            }
+            results.add(userData);
+        }
+        return results;
+    }
 
-                    Optional<UserStreak> streak = streakRepository.findByUser(u);
-                    streak.ifPresent(userStreak -> userData.put("level", userStreak.getLevel()));
+    // ========== HELPER METHODS ==========
 
-                    return userData;
-                })
-                .collect(Collectors.toList());
+    /**
+     * Escape LIKE wildcards so user input is matched literally (escape character '!')
+     */
+    private static String escapeLike(String s) {
+        return s.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 }
-
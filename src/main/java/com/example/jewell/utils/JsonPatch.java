@@ -0,0 +1,149 @@
+package com.example.jewell.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Minimal RFC 6902 JSON Patch: {@link #diff} produces add / remove / replace operations and
+ * {@link #apply} applies them. Objects are diffed per field and arrays per index (extra elements
+ * are removed from the end or appended), which is compact for bill snapshots where edits change a
+ * few fields or drop items.
+ */
+public final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    /**
+     * Operations that turn {@code source} into {@code target}; an empty array when they are equal
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode ops = JsonNodeFactory.instance.arrayNode();
+        diff("", source, target, ops);
+        return ops;
+    }
+
+    /**
+     * Apply a patch to a copy of {@code document}; the input is not modified
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document.deepCopy();
+        for (JsonNode op : patch) {
+            String kind = op.path("op").asText();
+            String path = op.path("path").asText();
+            JsonNode value = op.get("value");
+            if (path.isEmpty()) {
+                if (!"replace".equals(kind) && !"add".equals(kind)) {
+                    throw new IllegalArgumentException("Unsupported JSON Patch op on document root: " + kind);
+                }
+                result = value.deepCopy();
+                continue;
+            }
+            List<String> tokens = parsePointer(path);
+            JsonNode parent = result;
+            for (int i = 0; i < tokens.size() - 1; i++) {
+                parent = child(parent, tokens.get(i), path);
+            }
+            String last = tokens.get(tokens.size() - 1);
+            switch (kind) {
+                case "add":
+                    if (parent.isArray()) {
+                        ArrayNode array = (ArrayNode) parent;
+                        if ("-".equals(last)) array.add(value.deepCopy());
+                        else array.insert(index(last, array.size() + 1, path), value.deepCopy());
+                    } else {
+                        ((ObjectNode) parent).set(last, value.deepCopy());
+                    }
+                    break;
+                case "remove":
+                    if (parent.isArray()) ((ArrayNode) parent).remove(index(last, parent.size(), path));
+                    else ((ObjectNode) parent).remove(last);
+                    break;
+                case "replace":
+                    if (parent.isArray()) ((ArrayNode) parent).set(index(last, parent.size(), path), value.deepCopy());
+                    else ((ObjectNode) parent).set(last, value.deepCopy());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported JSON Patch op: " + kind);
+            }
+        }
+        return result;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static void diff(String path, JsonNode source, JsonNode target, ArrayNode ops) {
+        if (source.equals(target)) return;
+        if (source.isObject() && target.isObject()) {
+            Iterator<String> names = source.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!target.has(name)) {
+                    ops.addObject().put("op", "remove").put("path", path + "/" + escape(name));
+                } else {
+                    diff(path + "/" + escape(name), source.get(name), target.get(name), ops);
+                }
+            }
+            names = target.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!source.has(name)) {
+                    ops.addObject().put("op", "add").put("path", path + "/" + escape(name)).set("value", target.get(name));
+                }
+            }
+        } else if (source.isArray() && target.isArray()) {
+            int common = Math.min(source.size(), target.size());
+            for (int i = 0; i < common; i++) {
+                diff(path + "/" + i, source.get(i), target.get(i), ops);
+            }
+            // Remove from the end so earlier indexes stay valid
+            for (int i = source.size() - 1; i >= common; i--) {
+                ops.addObject().put("op", "remove").put("path", path + "/" + i);
+            }
+            for (int i = common; i < target.size(); i++) {
+                ops.addObject().put("op", "add").put("path", path + "/-").set("value", target.get(i));
+            }
+        } else {
+            ops.addObject().put("op", "replace").put("path", path).set("value", target);
+        }
+    }
+
+    private static JsonNode child(JsonNode parent, String token, String path) {
+        JsonNode next = parent.isArray() ? parent.get(index(token, parent.size(), path)) : parent.get(token);
+        if (next == null) {
+            throw new IllegalArgumentException("JSON Patch path not found: " + path);
+        }
+        return next;
+    }
+
+    private static int index(String token, int bound, String path) {
+        try {
+            int i = Integer.parseInt(token);
+            if (i >= 0 && i < bound) return i;
+        } catch (NumberFormatException ignored) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid array index in JSON Patch path: " + path);
+    }
+
+    private static List<String> parsePointer(String path) {
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("Invalid JSON Pointer: " + path);
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String raw : path.substring(1).split("/", -1)) {
+            tokens.add(raw.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.jewell.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Indexable skip list (the structure behind Redis sorted sets).
+ * Every forward link stores how many elements it skips, so besides O(log n) insert and remove
+ * it answers "rank of element" and "element at rank" in O(log n).
+ *
+ * The comparator must be a total order: two distinct elements may never compare equal.
+ * Not thread-safe; callers synchronize.
+ */
+public class RankedSkipList<T> {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double P = 0.25;
+
+    private final Comparator<? super T> comparator;
+    private final Node<T> head = new Node<>(null, MAX_LEVEL);
+    private int level = 1;
+    private int size = 0;
+
+    public RankedSkipList(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(T value) {
+        @SuppressWarnings("unchecked")
+        Node<T>[] update = (Node<T>[]) new Node<?>[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = newLevel;
+        }
+
+        Node<T> node = new Node<>(value, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * Remove an element; returns false if it was not present
+     */
+    public boolean remove(T value) {
+        @SuppressWarnings("unchecked")
+        Node<T>[] update = (Node<T>[]) new Node<?>[MAX_LEVEL];
+        Node<T> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || comparator.compare(x.value, value) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * 1-based rank of an element in comparator order, or 0 if it is not present
+     */
+    public int rank(T value) {
+        Node<T> x = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].value, value) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x != head && comparator.compare(x.value, value) == 0) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Element at a 1-based rank, or null if out of range
+     */
+    public T get(int rank) {
+        if (rank < 1 || rank > size) return null;
+        Node<T> x = findByRank(rank);
+        return x != null ? x.value : null;
+    }
+
+    /**
+     * Up to count elements starting at a 1-based rank, in order
+     */
+    public List<T> range(int fromRank, int count) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(count, size - fromRank + 1)));
+        if (fromRank < 1 || fromRank > size || count <= 0) return result;
+        Node<T> x = findByRank(fromRank);
+        while (x != null && result.size() < count) {
+            result.add(x.value);
+            x = x.next[0];
+        }
+        return result;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Node<T> findByRank(int rank) {
+        Node<T> x = head;
+        int traversed = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private static int randomLevel() {
+        int lvl = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lvl < MAX_LEVEL && random.nextDouble() < P) {
+            lvl++;
+        }
+        return lvl;
+    }
+
+    private static class Node<T> {
+        final T value;
+        final Node<T>[] next;
+        final int[] span;
+
+        @SuppressWarnings("unchecked")
+        Node(T value, int level) {
+            this.value = value;
+            this.next = (Node<T>[]) new Node<?>[level];
+            this.span = new int[level];
+        }
+    }
+}
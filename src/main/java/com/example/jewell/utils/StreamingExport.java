@@ -0,0 +1,98 @@
+package com.example.jewell.utils;
+
+import com.example.jewell.service.TaxExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds file-download responses whose body is written straight to the servlet output stream
+ */
+public final class StreamingExport {
+
+    /** Async timeout for export responses only; long multi-year exports outlive the default request timeout */
+    private static final Duration EXPORT_TIMEOUT = Duration.ofMinutes(30);
+
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private StreamingExport() {
+    }
+
+    public static TaxExportService.Format parseFormat(String format) {
+        if (format == null || format.isBlank()) return TaxExportService.Format.CSV;
+        try {
+            return TaxExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported export format: " + format + " (use csv or ndjson)");
+        }
+    }
+
+    /**
+     * Attachment named baseName.csv / .ndjson (+ .gz when gzip is set)
+     */
+    public static ResponseEntity<StreamingResponseBody> download(String baseName, TaxExportService.Format format,
+                                                                 boolean gzip, Body body) {
+        String extension = format == TaxExportService.Format.CSV ? ".csv" : ".ndjson";
+        MediaType type = gzip ? MediaType.parseMediaType("application/gzip")
+                : format == TaxExportService.Format.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+        String filename = baseName + extension + (gzip ? ".gz" : "");
+
+        StreamingResponseBody stream = out -> {
+            if (gzip) {
+                // syncFlush so each periodic flush reaches the client instead of sitting in the deflater
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024, true);
+                body.writeTo(zipped);
+                zipped.finish();
+            } else {
+                body.writeTo(out);
+            }
+        };
+        extendAsyncTimeout();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(type)
+                .body(stream);
+    }
+
+    /**
+     * Attachment named baseName.zip; the body writes the archive itself
+     */
+    public static ResponseEntity<StreamingResponseBody> zip(String baseName, Body body) {
+        extendAsyncTimeout();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(baseName + ".zip").build().toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body::writeTo);
+    }
+
+    /**
+     * Raise the async timeout of the current request (set by the handler adapter before the controller runs,
+     * applied when the streaming body starts)
+     */
+    private static void extendAsyncTimeout() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) return;
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(((ServletRequestAttributes) attributes).getRequest())
+                .getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(EXPORT_TIMEOUT.toMillis());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keying, tiering and size bounds of {@link BillPdfCache}, with a stub renderer and a temporary directory
+ */
+class BillPdfCacheTest {
+
+    private static final int PDF_BYTES = 1_000;
+
+    private final List<String> renders = new ArrayList<>();
+
+    private Path dir;
+    private BillPdfCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("bill-pdf-cache-test");
+        cache = newCache(10 * PDF_BYTES, 100 * PDF_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void aCachedVersionIsRenderedOnce() {
+        Billing bill = bill(1L, 0);
+
+        byte[] first = cache.getPdf(bill, "NORMAL");
+        byte[] second = cache.getPdf(bill, "normal");
+
+        assertArrayEquals(first, second);
+        assertEquals(List.of("1-NORMAL"), renders);
+    }
+
+    @Test
+    void anEditedBillOrOtherReceiptTypeRendersAgain() {
+        cache.getPdf(bill(1L, 0), "NORMAL");
+        cache.getPdf(bill(1L, 0), "GST");
+        cache.getPdf(bill(1L, 1), "NORMAL");
+
+        assertEquals(List.of("1-NORMAL", "1-GST", "1-NORMAL"), renders);
+    }
+
+    @Test
+    void entriesEvictedFromMemoryAreServedFromDisk() {
+        for (long id = 1; id <= 20; id++) {
+            cache.getPdf(bill(id, 0), "NORMAL");
+        }
+        renders.clear();
+
+        cache.getPdf(bill(1L, 0), "NORMAL");
+
+        assertTrue(renders.isEmpty());
+    }
+
+    @Test
+    void aRestartedCacheReadsTheDiskTier() {
+        cache.getPdf(bill(1L, 0), "GST");
+        renders.clear();
+
+        BillPdfCache restarted = newCache(10 * PDF_BYTES, 100 * PDF_BYTES);
+        restarted.getPdf(bill(1L, 0), "GST");
+
+        assertTrue(renders.isEmpty());
+    }
+
+    @Test
+    void theDiskTierStaysWithinItsBudget() throws IOException {
+        cache = newCache(2 * PDF_BYTES, 5 * PDF_BYTES);
+        for (long id = 1; id <= 30; id++) {
+            cache.getPdf(bill(id, 0), "NORMAL");
+        }
+
+        long total;
+        try (Stream<Path> files = Files.list(dir)) {
+            total = files.filter(p -> p.toString().endsWith(".pdf")).mapToLong(p -> p.toFile().length()).sum();
+        }
+        assertTrue(total <= 5 * PDF_BYTES, "disk tier holds " + total + " bytes");
+    }
+
+    @Test
+    void bulkExportRendersWithoutFillingTheCache() {
+        cache.getCachedOrRender(bill(1L, 0), "NORMAL");
+        cache.getCachedOrRender(bill(1L, 0), "NORMAL");
+
+        assertEquals(2, renders.size());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private BillPdfCache newCache(long memoryMaxBytes, long diskMaxBytes) {
+        BillPdfCache cache = new BillPdfCache();
+        ReflectionTestUtils.setField(cache, "billPdfService", new BillPdfService() {
+            @Override
+            public byte[] generatePdf(Billing billing, String receiptType) {
+                renders.add(billing.getId() + "-" + receiptType);
+                byte[] pdf = new byte[PDF_BYTES];
+                pdf[0] = (byte) billing.getId().longValue();
+                return pdf;
+            }
+        });
+        ReflectionTestUtils.setField(cache, "memoryMaxBytes", memoryMaxBytes);
+        ReflectionTestUtils.setField(cache, "diskMaxBytes", diskMaxBytes);
+        ReflectionTestUtils.setField(cache, "cacheDir", dir.toString());
+        cache.init();
+        return cache;
+    }
+
+    private static Billing bill(Long id, int editVersion) {
+        Billing bill = new Billing();
+        bill.setId(id);
+        bill.setEditVersion(editVersion);
+        return bill;
+    }
+}
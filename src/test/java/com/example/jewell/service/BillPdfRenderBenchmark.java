@@ -0,0 +1,136 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.BillingItem;
+import com.example.jewell.model.Customer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rendering throughput of {@link BillPdfService} for normal receipts and GST invoices, and the
+ * cost of the same request answered by {@link BillPdfCache}.
+ *
+ * Not a JUnit test: run the main method directly.
+ */
+public class BillPdfRenderBenchmark {
+
+    private static final int ITEMS_PER_BILL = 6;
+    private static final long WARMUP_MILLIS = 3_000;
+    private static final long MEASURE_MILLIS = 5_000;
+
+    public static void main(String[] args) throws IOException {
+        BillPdfService pdfService = new BillPdfService();
+        ReflectionTestUtils.setField(pdfService, "shopGstin", "09AXDPK0044L1ZI");
+        Billing bill = sampleBill();
+        // Every PDF's length is added here and printed at the end, so the JIT cannot drop the rendering
+        long checksum = 0;
+
+        for (String type : new String[]{"NORMAL", "GST"}) {
+            checksum += run(() -> pdfService.generatePdf(bill, type), WARMUP_MILLIS).checksum;
+            Result result = run(() -> pdfService.generatePdf(bill, type), MEASURE_MILLIS);
+            checksum += result.checksum;
+            System.out.printf("render %-6s : %8.0f ops/s  (%5.1f us/op, %d bytes)%n", type, result.opsPerSecond(),
+                    result.microsPerOp(), pdfService.generatePdf(bill, type).length);
+        }
+
+        Path dir = Files.createTempDirectory("bill-pdf-bench");
+        BillPdfCache cache = new BillPdfCache();
+        ReflectionTestUtils.setField(cache, "billPdfService", pdfService);
+        ReflectionTestUtils.setField(cache, "memoryMaxBytes", 32L * 1024 * 1024);
+        ReflectionTestUtils.setField(cache, "diskMaxBytes", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(cache, "cacheDir", dir.toString());
+        cache.init();
+        for (String type : new String[]{"NORMAL", "GST"}) {
+            checksum += cache.getPdf(bill, type).length;
+            checksum += run(() -> cache.getPdf(bill, type), WARMUP_MILLIS).checksum;
+            Result result = run(() -> cache.getPdf(bill, type), MEASURE_MILLIS);
+            checksum += result.checksum;
+            System.out.printf("cached %-6s : %8.0f ops/s  (%5.1f us/op)%n", type, result.opsPerSecond(), result.microsPerOp());
+        }
+        System.out.printf("checksum      : %d bytes%n", checksum);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private interface Op {
+        byte[] run();
+    }
+
+    private static class Result {
+        final long ops;
+        final long nanos;
+        final long checksum; // total bytes returned by the op
+
+        Result(long ops, long nanos, long checksum) {
+            this.ops = ops;
+            this.nanos = nanos;
+            this.checksum = checksum;
+        }
+
+        double opsPerSecond() {
+            return ops * 1e9 / nanos;
+        }
+
+        double microsPerOp() {
+            return nanos / 1e3 / ops;
+        }
+    }
+
+    private static Result run(Op op, long millis) {
+        long checksum = 0;
+        long ops = 0;
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000;
+        long now;
+        do {
+            checksum += op.run().length;
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new Result(ops, now - start, checksum);
+    }
+
+    private static Billing sampleBill() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setName("Asha Verma");
+        customer.setPhone("9876543210");
+        customer.setEmail("asha@example.com");
+
+        Billing bill = new Billing();
+        bill.setId(1L);
+        bill.setBillNumber("BILL-20261019-00042");
+        bill.setCustomer(customer);
+        bill.setCreatedAt(LocalDateTime.of(2026, 10, 19, 11, 30));
+        List<BillingItem> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < ITEMS_PER_BILL; i++) {
+            BillingItem item = new BillingItem();
+            item.setItemName("Gold ring " + (i + 1));
+            item.setArticleCode("GR-" + (100 + i));
+            item.setWeightGrams(new BigDecimal("4.250"));
+            item.setCarat(new BigDecimal("22"));
+            item.setDiamondCarat(i % 2 == 0 ? new BigDecimal("0.15") : null);
+            item.setDiamondAmount(i % 2 == 0 ? new BigDecimal("6500.00") : null);
+            item.setQuantity(1);
+            item.setUnitPrice(new BigDecimal("6150.00"));
+            item.setTotalPrice(new BigDecimal("32637.50"));
+            items.add(item);
+            total = total.add(item.getTotalPrice());
+        }
+        bill.setItems(items);
+        bill.setTotalAmount(total);
+        bill.setDiscountAmount(new BigDecimal("500.00"));
+        bill.setMakingCharges(new BigDecimal("2400.00"));
+        bill.setFinalAmount(total.add(new BigDecimal("1900.00")));
+        bill.setPaidAmount(bill.getFinalAmount());
+        return bill;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.BillingEditHistory;
+import com.example.jewell.model.Customer;
+import com.example.jewell.repository.BillingEditHistoryRepository;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent edits of one bill append to its history one at a time, serialized on the locked bill row
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:edit-history-locking;LOCK_TIMEOUT=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({BillingEditHistoryService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BillingEditHistoryLockingTest {
+
+    private static final int EDITORS = 4;
+    // Each edit stays uncommitted this long, so unserialized editors would all read an empty history
+    private static final long HOLD_MS = 200;
+
+    @Autowired
+    private BillingEditHistoryService billingEditHistoryService;
+
+    @Autowired
+    private BillingRepository billingRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BillingEditHistoryRepository billingEditHistoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentFirstEditsGetConsecutiveEditNumbers() throws Exception {
+        Long billId = newBill();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CyclicBarrier start = new CyclicBarrier(EDITORS);
+        ExecutorService pool = Executors.newFixedThreadPool(EDITORS);
+        try {
+            List<Future<?>> edits = new ArrayList<>();
+            for (int i = 0; i < EDITORS; i++) {
+                int edit = i;
+                edits.add(pool.submit(() -> {
+                    start.await();
+                    tx.executeWithoutResult(status -> {
+                        Billing bill = billingRepository.findByIdForUpdate(billId).orElseThrow();
+                        billingEditHistoryService.record(bill, Map.of("notes", "edit " + edit));
+                        sleep(HOLD_MS);
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> edit : edits) {
+                edit.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Integer> editSeqs = billingEditHistoryRepository.findByBillingIdOrderByIdAsc(billId).stream()
+                .map(BillingEditHistory::getEditSeq)
+                .toList();
+        assertEquals(List.of(1, 2, 3, 4), editSeqs);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Long newBill() {
+        Customer customer = new Customer();
+        customer.setName("Meera Jewellers");
+        customer.setPhone("9800000000");
+        customer = customerRepository.save(customer);
+
+        Billing bill = new Billing();
+        bill.setBillNumber("BILL-20260101-00001");
+        bill.setCustomer(customer);
+        return billingRepository.save(bill).getId();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.BillingEditHistory;
+import com.example.jewell.repository.BillingEditHistoryRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checkpoint / patch chain of {@link BillingEditHistoryService} against an in-memory repository
+ */
+class BillingEditHistoryServiceTest {
+
+    private static final int CHECKPOINT_INTERVAL = 4;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<BillingEditHistory> rows = new ArrayList<>();
+    private BillingEditHistoryService service;
+    private Billing bill;
+
+    @BeforeEach
+    void setUp() {
+        service = new BillingEditHistoryService();
+        ReflectionTestUtils.setField(service, "billingEditHistoryRepository", inMemoryRepository());
+        ReflectionTestUtils.setField(service, "objectMapper", mapper);
+        ReflectionTestUtils.setField(service, "checkpointInterval", CHECKPOINT_INTERVAL);
+        bill = new Billing();
+        bill.setId(7L);
+    }
+
+    @Test
+    void noHistoryMeansNoSnapshot() {
+        assertNull(service.getLatestSnapshot(bill.getId()));
+    }
+
+    @Test
+    void writesCheckpointsAtTheIntervalAndPatchesInBetween() {
+        for (int i = 1; i <= 10; i++) {
+            service.record(bill, snapshot(i));
+        }
+        StringBuilder formats = new StringBuilder();
+        for (BillingEditHistory row : rows) {
+            formats.append(row.getSnapshotFormat() == BillingEditHistory.SnapshotFormat.FULL ? 'F' : 'P');
+            assertEquals(rows.indexOf(row) + 1, row.getEditSeq());
+        }
+        assertEquals("FPPPFPPPFP", formats.toString());
+    }
+
+    @Test
+    void reconstructsEverySnapshot() {
+        List<JsonNode> expected = new ArrayList<>();
+        for (int i = 1; i <= 11; i++) {
+            Map<String, Object> snapshot = snapshot(i);
+            expected.add(mapper.valueToTree(snapshot));
+            service.record(bill, snapshot);
+            assertEquals(expected.get(i - 1), service.getLatestSnapshot(bill.getId()));
+        }
+        List<Map<String, Object>> history = service.getHistory(bill.getId());
+        assertEquals(expected.size(), history.size());
+        for (int i = 0; i < history.size(); i++) {
+            JsonNode actual = readTree((String) history.get(i).get("snapshotData"));
+            // newest first
+            assertEquals(expected.get(expected.size() - 1 - i), actual);
+        }
+    }
+
+    @Test
+    void legacyPlainRowsActAsCheckpoints() throws Exception {
+        BillingEditHistory legacy = new BillingEditHistory();
+        legacy.setBilling(bill);
+        legacy.setSnapshotData(mapper.writeValueAsString(snapshot(0)));
+        save(legacy);
+
+        service.record(bill, snapshot(1));
+        assertEquals(BillingEditHistory.SnapshotFormat.PATCH, rows.get(1).getSnapshotFormat());
+        assertEquals(mapper.valueToTree(snapshot(1)), service.getLatestSnapshot(bill.getId()));
+    }
+
+    @Test
+    void damagedChainStartsANewCheckpointInsteadOfFailing() {
+        service.record(bill, snapshot(1));
+        service.record(bill, snapshot(2));
+        rows.get(1).setSnapshotBlob(new byte[]{1, 2, 3});
+
+        service.record(bill, snapshot(3));
+        assertEquals(BillingEditHistory.SnapshotFormat.FULL, rows.get(2).getSnapshotFormat());
+        assertEquals(mapper.valueToTree(snapshot(3)), service.getLatestSnapshot(bill.getId()));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * A bill with a dozen lines where each edit changes the amount, the notes and one line
+     */
+    private static Map<String, Object> snapshot(int edit) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("billNumber", "BILL-20260101-00001");
+        snapshot.put("customer", Map.of("id", 42, "name", "Meera Jewellers", "phone", "9800000000"));
+        snapshot.put("finalAmount", 100000 + edit * 10);
+        snapshot.put("notes", edit % 3 == 0 ? null : "edit " + edit);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 12 + edit % 2; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("itemName", "22K gold bangle design " + i);
+            item.put("articleCode", "ART-" + (1000 + i));
+            item.put("weightGrams", 10.5 + i);
+            item.put("quantity", i == edit % 12 ? 2 : 1);
+            item.put("totalPrice", 65000 + i * 125);
+            items.add(item);
+        }
+        snapshot.put("items", items);
+        return snapshot;
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BillingEditHistory save(BillingEditHistory row) {
+        if (row.getId() == null) {
+            row.setId((long) rows.size() + 1);
+            rows.add(row);
+        }
+        return row;
+    }
+
+    /**
+     * The latest FULL or legacy row and everything after it, as findFromLatestCheckpoint returns them
+     */
+    private List<BillingEditHistory> fromLatestCheckpoint() {
+        int start = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getSnapshotFormat() != BillingEditHistory.SnapshotFormat.PATCH) start = i;
+        }
+        return start < 0 ? new ArrayList<>() : new ArrayList<>(rows.subList(start, rows.size()));
+    }
+
+    private BillingEditHistoryRepository inMemoryRepository() {
+        return (BillingEditHistoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BillingEditHistoryRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "save":
+                            return save((BillingEditHistory) args[0]);
+                        case "findFromLatestCheckpoint":
+                            return fromLatestCheckpoint();
+                        case "findByBillingIdOrderByIdAsc":
+                            return new ArrayList<>(rows);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.jewell.service;
+
+import com.example.jewell.repository.BlogPostRepository;
+import com.example.jewell.repository.BlogPostSimilarityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request coalescing in {@link BlogRelatedPostsService}, with the worker's tasks run by hand
+ */
+class BlogRelatedPostsServiceTest {
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final List<String> writes = new ArrayList<>();
+    private final List<Set<Long>> deletedPostIds = new ArrayList<>();
+
+    private BlogRelatedPostsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BlogRelatedPostsService();
+        ReflectionTestUtils.setField(service, "blogPostRepository", postRepository());
+        ReflectionTestUtils.setField(service, "similarityRepository", similarityRepository());
+        ReflectionTestUtils.setField(service, "transactionTemplate", inlineTransactionTemplate());
+        ReflectionTestUtils.setField(service, "relatedPostsExecutor", (Executor) queued::add);
+        ReflectionTestUtils.setField(service, "topK", 6);
+    }
+
+    @Test
+    void refreshesRequestedWhileBusyAreAppliedInOnePass() {
+        service.refreshForPost(1L);
+        service.refreshForPost(2L);
+        service.refreshForPost(1L);
+
+        assertEquals(1, queued.size());
+        runQueued();
+
+        assertEquals(List.of("delete posts", "save"), writes);
+        assertTrue(deletedPostIds.get(0).containsAll(Set.of(1L, 2L)));
+    }
+
+    @Test
+    void aPendingRebuildCoversPendingRefreshes() {
+        service.refreshForPost(1L);
+        service.rebuildAll();
+
+        assertEquals(1, queued.size());
+        runQueued();
+
+        assertEquals(List.of("delete all", "save"), writes);
+    }
+
+    @Test
+    void aRequestDuringAPassSchedulesAnotherPass() {
+        service.refreshForPost(1L);
+        Runnable first = queued.remove(0);
+        first.run();
+        service.refreshForPost(3L);
+
+        assertEquals(1, queued.size());
+        runQueued();
+        assertEquals(2, deletedPostIds.size());
+        assertTrue(deletedPostIds.get(1).contains(3L));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void runQueued() {
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+    }
+
+    /**
+     * Posts 1-3 share the "gold" tag, post 3 is also in "rings"
+     */
+    private BlogPostRepository postRepository() {
+        return (BlogPostRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BlogPostRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findPublishedFeatures")) {
+                        return List.of(
+                                new Object[]{1L, "news", "gold"},
+                                new Object[]{2L, "news", "gold"},
+                                new Object[]{3L, "rings", "gold"});
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private BlogPostSimilarityRepository similarityRepository() {
+        return (BlogPostSimilarityRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BlogPostSimilarityRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findPostIdsRelatedToAny":
+                            return List.of();
+                        case "deleteByPostIdIn":
+                            writes.add("delete posts");
+                            deletedPostIds.add(new HashSet<>(ids(args[0])));
+                            return null;
+                        case "deleteAllEdges":
+                            writes.add("delete all");
+                            return null;
+                        case "saveAll":
+                            writes.add("save");
+                            return args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Long> ids(Object arg) {
+        return (Collection<Long>) arg;
+    }
+
+    private static TransactionTemplate inlineTransactionTemplate() {
+        return new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(new SimpleTransactionStatus());
+            }
+        };
+    }
+}
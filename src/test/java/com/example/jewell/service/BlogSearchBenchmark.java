@@ -0,0 +1,105 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.BlogPost;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Query latency of {@link BlogSearchService} over a few thousand long synthetic posts, plus the
+ * cost of a full build and of re-indexing one post.
+ *
+ * Not a JUnit test: run the main method directly.
+ */
+public class BlogSearchBenchmark {
+
+    private static final int POSTS = 3_000;
+    private static final int WORDS_PER_POST = 1_500;
+    private static final int VOCABULARY = 20_000;
+    private static final int WARMUP_QUERIES = 2_000;
+    private static final int MEASURED_QUERIES = 5_000;
+
+    private static final String[] QUERIES = {
+            "gold", "diamond ring", "polishing silver jewellery", "w17", "w4821 w9930", "hallmark purity karat"
+    };
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary();
+        List<BlogPost> posts = new ArrayList<>(POSTS);
+        for (long id = 1; id <= POSTS; id++) {
+            posts.add(post(id, vocabulary, random));
+        }
+
+        BlogSearchService search = new BlogSearchService();
+        long start = System.nanoTime();
+        search.rebuild(posts);
+        System.out.printf("build: %d posts x %d words in %d ms%n", POSTS, WORDS_PER_POST,
+                (System.nanoTime() - start) / 1_000_000);
+
+        long[] reindex = new long[200];
+        for (int i = 0; i < reindex.length; i++) {
+            BlogPost edited = post(1 + random.nextInt(POSTS), vocabulary, random);
+            long t = System.nanoTime();
+            search.index(edited);
+            reindex[i] = (System.nanoTime() - t) / 1_000;
+        }
+        Arrays.sort(reindex);
+        System.out.printf("re-index one post: median %d us, p99 %d us%n",
+                reindex[reindex.length / 2], reindex[reindex.length * 99 / 100]);
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            search.search(QUERIES[i % QUERIES.length], 10);
+        }
+        for (String query : QUERIES) {
+            long[] micros = new long[MEASURED_QUERIES / QUERIES.length];
+            int hits = 0;
+            for (int i = 0; i < micros.length; i++) {
+                long t = System.nanoTime();
+                hits = search.search(query, 10).size();
+                micros[i] = (System.nanoTime() - t) / 1_000;
+            }
+            Arrays.sort(micros);
+            System.out.printf("%-28s hits %2d  median %6d us  p99 %6d us%n", "\"" + query + "\"", hits,
+                    micros[micros.length / 2], micros[micros.length * 99 / 100]);
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * A few real topic words followed by synthetic ones; word frequency falls off roughly like Zipf
+     */
+    private static String[] vocabulary() {
+        String[] topical = {"gold", "silver", "diamond", "ring", "necklace", "polishing", "jewellery",
+                "hallmark", "purity", "karat", "platinum", "bracelet", "earring", "gemstone", "wedding"};
+        String[] words = new String[VOCABULARY];
+        System.arraycopy(topical, 0, words, 0, topical.length);
+        for (int i = topical.length; i < VOCABULARY; i++) {
+            words[i] = "w" + i;
+        }
+        return words;
+    }
+
+    private static BlogPost post(long id, String[] vocabulary, Random random) {
+        StringBuilder body = new StringBuilder("<p>");
+        for (int i = 0; i < WORDS_PER_POST; i++) {
+            int rank = (int) Math.min(vocabulary.length - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(vocabulary.length))) - 1);
+            body.append(vocabulary[rank]).append(i % 12 == 11 ? ". " : " ");
+            if (i % 120 == 119) body.append("</p><p>");
+        }
+        body.append("</p>");
+        BlogPost post = new BlogPost();
+        post.setId(id);
+        post.setSlug("post-" + id);
+        post.setTitle(vocabulary[random.nextInt(15)] + " guide " + id);
+        post.setExcerpt("An excerpt about " + vocabulary[random.nextInt(15)]);
+        post.setCategory(id % 3 == 0 ? "care" : "guides");
+        post.setTags(List.of(vocabulary[random.nextInt(15)], vocabulary[random.nextInt(15)]));
+        post.setContent(body.toString());
+        post.setPublished(true);
+        return post;
+    }
+}
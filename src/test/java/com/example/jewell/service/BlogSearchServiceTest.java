@@ -0,0 +1,112 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.BlogPost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ranking, stemming, incremental updates and highlighting of {@link BlogSearchService}
+ */
+class BlogSearchServiceTest {
+
+    private BlogSearchService search;
+
+    @BeforeEach
+    void setUp() {
+        search = new BlogSearchService();
+        search.rebuild(List.of(
+                post(1L, "Caring for gold jewellery", "Polishing tips", "care", List.of("gold"),
+                        "<p>Store each piece separately and polish it with a soft cloth.</p>"),
+                post(2L, "Choosing a diamond ring", "Cut, colour and clarity", "guides", List.of("diamond"),
+                        "<p>A ring set in gold shows a diamond differently from platinum.</p>"),
+                post(3L, "Silver care basics", "Keep silver bright", "care", List.of("silver"),
+                        "<p>Silver tarnishes when exposed to air.</p>")));
+    }
+
+    @Test
+    void titleMatchRanksAboveBodyMatch() {
+        List<BlogSearchService.SearchHit> hits = search.search("gold", 10);
+
+        assertEquals(List.of(1L, 2L), postIds(hits));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void queryTermsAreStemmedLikeTheIndex() {
+        assertEquals(List.of(1L), postIds(search.search("polished", 10)));
+        assertEquals(List.of(3L), postIds(search.search("tarnishing", 10)));
+    }
+
+    @Test
+    void stopWordsAloneFindNothing() {
+        assertTrue(search.search("the and of", 10).isEmpty());
+    }
+
+    @Test
+    void limitKeepsTheBestHits() {
+        assertEquals(List.of(1L), postIds(search.search("gold", 1)));
+    }
+
+    @Test
+    void editsAndUnpublishingUpdateTheIndexInPlace() {
+        search.index(post(3L, "Gold and silver together", "Mixed metals", "care", List.of("silver"),
+                "<p>Mixing metals is fine.</p>"));
+        assertTrue(postIds(search.search("gold", 10)).contains(3L));
+        assertTrue(search.search("tarnish", 10).isEmpty());
+
+        BlogPost draft = post(1L, "Caring for gold jewellery", "", "care", List.of("gold"), "");
+        draft.setPublished(false);
+        search.index(draft);
+        assertFalse(postIds(search.search("gold", 10)).contains(1L));
+        assertEquals(2, search.size());
+
+        search.remove(2L);
+        assertEquals(List.of(3L), postIds(search.search("gold", 10)));
+    }
+
+    @Test
+    void draftsAreOnlyFoundByTheAdminSearch() {
+        BlogPost draft = post(4L, "Gold plating explained", "", "guides", List.of(), "");
+        draft.setPublished(false);
+        search.index(draft);
+
+        assertFalse(postIds(search.search("gold", 10)).contains(4L));
+        assertEquals(List.of(1L, 4L, 2L), search.searchAllIds("gold"));
+        assertEquals(3, search.size());
+    }
+
+    @Test
+    void matchesAreHighlightedAndTextIsEscaped() {
+        search.index(post(4L, "Rings <b>&</b> bands", "", "guides", List.of(), "<p>Bands & rings for 2 < 3 budgets.</p>"));
+
+        BlogSearchService.SearchHit hit = search.search("bands", 10).get(0);
+
+        assertEquals("Rings &lt;b&gt;&amp;&lt;/b&gt; <mark>bands</mark>", hit.getHighlightedTitle());
+        assertTrue(hit.getSnippet().contains("<mark>Bands</mark> &amp; rings"));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static BlogPost post(Long id, String title, String excerpt, String category, List<String> tags, String content) {
+        BlogPost post = new BlogPost();
+        post.setId(id);
+        post.setSlug("post-" + id);
+        post.setTitle(title);
+        post.setExcerpt(excerpt);
+        post.setCategory(category);
+        post.setTags(tags);
+        post.setContent(content);
+        post.setPublished(true);
+        return post;
+    }
+
+    private static List<Long> postIds(List<BlogSearchService.SearchHit> hits) {
+        return hits.stream().map(BlogSearchService.SearchHit::getPostId).toList();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.Customer;
+import com.example.jewell.model.Stock;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.CreditRepository;
+import com.example.jewell.repository.CustomerRepository;
+import com.example.jewell.repository.OrderRepository;
+import com.example.jewell.repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconciling {@link DashboardCounters} against the database while listener deltas keep arriving
+ */
+class DashboardCountersTest {
+
+    private final DashboardCounters counters = new DashboardCounters();
+
+    private long customersInDb = 10;
+    private BigDecimal revenueInDb = new BigDecimal("5000.00");
+    // Runs inside the customer count query, i.e. while the reconcile is in progress
+    private Runnable duringCustomerCount = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(counters, "stockRepository", repository(StockRepository.class, name ->
+                List.of(new Object[]{Stock.StockStatus.AVAILABLE, 7L}, new Object[]{Stock.StockStatus.SOLD, 3L})));
+        ReflectionTestUtils.setField(counters, "customerRepository", repository(CustomerRepository.class, name -> {
+            long count = customersInDb;
+            duringCustomerCount.run();
+            return count;
+        }));
+        ReflectionTestUtils.setField(counters, "orderRepository", repository(OrderRepository.class,
+                name -> name.equals("count") ? 0L : BigDecimal.ZERO));
+        ReflectionTestUtils.setField(counters, "creditRepository", repository(CreditRepository.class, name -> 0L));
+        ReflectionTestUtils.setField(counters, "billingRepository", repository(BillingRepository.class, name -> revenueInDb));
+    }
+
+    @Test
+    void reconcileSeedsFromTheDatabase() {
+        counters.reconcile();
+
+        assertTrue(counters.isReady());
+        assertEquals(10L, counters.snapshot().get("totalStock"));
+        assertEquals(7L, counters.snapshot().get("availableStock"));
+        assertEquals(10L, counters.snapshot().get("totalCustomers"));
+        assertEquals(0, revenueInDb.compareTo((BigDecimal) counters.snapshot().get("totalRevenue")));
+    }
+
+    @Test
+    void deltasArrivingDuringReconcileAreKept() {
+        counters.reconcile();
+        // Committed after the count was read, so the database value does not include it yet
+        duringCustomerCount = () -> counters.onCustomer(1);
+
+        counters.reconcile();
+
+        assertEquals(11L, counters.snapshot().get("totalCustomers"));
+    }
+
+    @Test
+    void driftIsCorrectedWithoutLosingLaterDeltas() {
+        counters.reconcile();
+        // Rows changed behind Hibernate's back
+        customersInDb = 25;
+        revenueInDb = new BigDecimal("8000.00");
+
+        counters.reconcile();
+        counters.onCustomer(1);
+        counters.onBilling(Billing.PaymentStatus.PAID, new BigDecimal("250.00"), 1);
+
+        assertEquals(26L, counters.snapshot().get("totalCustomers"));
+        assertEquals(0, new BigDecimal("8250.00").compareTo((BigDecimal) counters.snapshot().get("totalRevenue")));
+    }
+
+    @Test
+    void anUntrackedChangeDuringReconcileKeepsTheCountersStale() {
+        duringCustomerCount = () -> counters.markStale(Customer.class);
+
+        counters.reconcile();
+        assertFalse(counters.isReady());
+
+        duringCustomerCount = () -> { };
+        counters.reconcile();
+        assertTrue(counters.isReady());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, Function<String, Object> answer) {
+        return (T) Proxy.newProxyInstance(DashboardCountersTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.apply(method.getName()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.ChatMessage;
+import com.example.jewell.model.Friendship;
+import com.example.jewell.model.User;
+import com.example.jewell.model.UserStreak;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Query-count regression for the friends list: the number of statements must not grow with the friend count
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({FriendshipService.class, ChatUnreadCountCache.class})
+class FriendshipServiceTest {
+
+    private static final int FRIENDS = 200;
+
+    // existsById, friendships with both users, friends' streaks, unread counts grouped by sender
+    private static final long EXPECTED_STATEMENTS = 4;
+
+    @Autowired
+    private FriendshipService friendshipService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User me;
+
+    @BeforeEach
+    void insertFriends() {
+        me = persist(new User("me", "me@example.com", "secret"));
+        for (int i = 0; i < FRIENDS; i++) {
+            User friend = persist(new User("friend" + i, "friend" + i + "@example.com", "secret"));
+            // Alternate who sent the request so both sides of the join are exercised
+            User sender = i % 2 == 0 ? me : friend;
+            User receiver = i % 2 == 0 ? friend : me;
+            entityManager.persist(Friendship.builder().sender(sender).receiver(receiver)
+                    .status(Friendship.FriendshipStatus.ACCEPTED)
+                    .createdAt(LocalDateTime.now()).acceptedAt(LocalDateTime.now()).build());
+            entityManager.persist(UserStreak.builder().user(friend).level(i % 10 + 1).currentStreak(i).build());
+            entityManager.persist(ChatMessage.builder().sender(friend).receiver(me).content("hi")
+                    .isRead(false).createdAt(LocalDateTime.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void friendsListRunsAFixedNumberOfStatements() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Map<String, Object>> friends = friendshipService.getFriends(me.getId());
+
+        assertEquals(FRIENDS, friends.size());
+        assertEquals(EXPECTED_STATEMENTS, statistics.getPrepareStatementCount());
+        for (Map<String, Object> friend : friends) {
+            assertEquals(1L, friend.get("unreadCount"));
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private User persist(User user) {
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.jewell.service;
+
+import com.example.jewell.exception.IdempotencyConflictException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Once-only execution in {@link IdempotencyStore} under concurrent retries of the same key
+ */
+class IdempotencyStoreTest {
+
+    private static final int THREADS = 16;
+    private static final String SCOPE = "bill:1";
+
+    private final AtomicInteger billsCreated = new AtomicInteger();
+
+    private IdempotencyStore store;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "waitTimeoutSeconds", 10L);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsWithOneKeyCreateOneBill() throws Exception {
+        Map<String, Object> request = Map.of("customerId", 7, "total", "1500.00");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<byte[]>>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return store.execute(SCOPE, "key-1", request, this::createBill);
+            }));
+        }
+        start.countDown();
+
+        List<ResponseEntity<byte[]>> responses = new ArrayList<>();
+        for (Future<ResponseEntity<byte[]>> f : futures) {
+            responses.add(f.get(20, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, billsCreated.get());
+        long originals = responses.stream().filter(r -> "false".equals(replayed(r))).count();
+        assertEquals(1, originals);
+        for (ResponseEntity<byte[]> r : responses) {
+            assertArrayEquals(responses.get(0).getBody(), r.getBody());
+        }
+    }
+
+    @Test
+    void sameKeyWithADifferentBodyIsAConflict() {
+        store.execute(SCOPE, "key-1", Map.of("total", "1500.00"), this::createBill);
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> store.execute(SCOPE, "key-1", Map.of("total", "9999.00"), this::createBill));
+        assertEquals(1, billsCreated.get());
+    }
+
+    @Test
+    void aFailedRequestCanBeRetried() {
+        Map<String, Object> request = Map.of("total", "1500.00");
+        assertThrows(IllegalStateException.class, () -> store.execute(SCOPE, "key-1", request, () -> {
+            throw new IllegalStateException("stock changed");
+        }));
+
+        ResponseEntity<byte[]> retry = store.execute(SCOPE, "key-1", request, this::createBill);
+
+        assertEquals("false", replayed(retry));
+        assertEquals(1, billsCreated.get());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Slow enough that the other threads arrive while it is still in flight
+     */
+    private Map<String, Object> createBill() {
+        int id = billsCreated.incrementAndGet();
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Map.of("billId", id, "billNumber", "BILL-20261019-" + id);
+    }
+
+    private static String replayed(ResponseEntity<byte[]> response) {
+        return response.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.TransactionHistory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Grouped income/expense summaries of {@link IncomeExpenseService} checked against totals
+ * computed directly from the transactions
+ */
+class IncomeExpenseServiceTest {
+
+    private static final LocalDate FIRST_DAY = TransactionHistoryFixture.FIRST_DAY;
+
+    private final TransactionHistoryFixture fixture = new TransactionHistoryFixture(TransactionHistoryFixture.year(20, 7));
+
+    @Test
+    void financialSummaryMatchesTheTransactionsInOneQuery() {
+        LocalDate end = FIRST_DAY.plusDays(364);
+
+        Map<String, Object> summary = fixture.service.getFinancialSummary(FIRST_DAY, end);
+
+        assertEquals(1, fixture.queries);
+        BigDecimal income = total(FIRST_DAY, end, TransactionHistory.TransactionType.INCOME);
+        BigDecimal expenses = total(FIRST_DAY, end, TransactionHistory.TransactionType.EXPENSE);
+        assertEquals(income, summary.get("totalIncome"));
+        assertEquals(expenses, summary.get("totalExpenses"));
+        assertEquals(income.subtract(expenses), summary.get("netIncome"));
+        assertEquals(fixture.service.getIncomeSummary(FIRST_DAY, end), summary.get("incomeDetails"));
+        assertEquals(fixture.service.getExpenseSummary(FIRST_DAY, end), summary.get("expenseDetails"));
+    }
+
+    @Test
+    void incomeSummaryGroupsByCategoryAndPaymentMethod() {
+        LocalDate start = FIRST_DAY.plusDays(30);
+        LocalDate end = FIRST_DAY.plusDays(59);
+
+        Map<String, Object> summary = fixture.service.getIncomeSummary(start, end);
+
+        Map<TransactionHistory.Category, BigDecimal> byCategory = new HashMap<>();
+        Map<TransactionHistory.PaymentMethod, BigDecimal> byMethod = new HashMap<>();
+        long count = 0;
+        for (TransactionHistory t : inRange(start, end, TransactionHistory.TransactionType.INCOME)) {
+            byCategory.merge(t.getCategory(), t.getAmount(), BigDecimal::add);
+            if (t.getPaymentMethod() != null) byMethod.merge(t.getPaymentMethod(), t.getAmount(), BigDecimal::add);
+            count++;
+        }
+        assertEquals(byCategory, summary.get("incomeByCategory"));
+        assertEquals(byMethod, summary.get("incomeByPaymentMethod"));
+        assertEquals(count, summary.get("transactionCount"));
+        // One row per (category, method) group, not one per transaction
+        assertTrue(fixture.rowsReturned <= 4 * (TransactionHistory.PaymentMethod.values().length + 1));
+    }
+
+    @Test
+    void emptyRangeGivesZeroTotals() {
+        Map<String, Object> summary = fixture.service.getExpenseSummary(FIRST_DAY.minusYears(1), FIRST_DAY.minusDays(1));
+
+        assertEquals(BigDecimal.ZERO, summary.get("totalExpenses"));
+        assertEquals(0L, summary.get("transactionCount"));
+        assertTrue(((Map<?, ?>) summary.get("expensesByCategory")).isEmpty());
+    }
+
+    @Test
+    void transactionsByTypeOnlyReturnsThatType() {
+        LocalDate end = FIRST_DAY.plusDays(6);
+
+        List<TransactionHistory> expenses = fixture.service.getTransactionsByType(
+                TransactionHistory.TransactionType.EXPENSE, FIRST_DAY, end);
+
+        assertEquals(inRange(FIRST_DAY, end, TransactionHistory.TransactionType.EXPENSE), expenses);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private List<TransactionHistory> inRange(LocalDate start, LocalDate end, TransactionHistory.TransactionType type) {
+        return fixture.rows.stream()
+                .filter(t -> !t.getTransactionDate().isBefore(start) && !t.getTransactionDate().isAfter(end))
+                .filter(t -> t.getTransactionType() == type)
+                .toList();
+    }
+
+    private BigDecimal total(LocalDate start, LocalDate end, TransactionHistory.TransactionType type) {
+        return inRange(start, end, type).stream().map(TransactionHistory::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
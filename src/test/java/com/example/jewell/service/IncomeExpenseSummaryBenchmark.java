@@ -0,0 +1,90 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.TransactionHistory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Financial summary over a year of synthetic transactions: the grouped-row path used by
+ * {@link IncomeExpenseService} against loading every entity and grouping with streams, as it used to.
+ *
+ * Both paths run in memory, so the times compare the Java side only. The row counts show what
+ * reaches the application; with a real database, hydrating one entity per row is the dominant cost.
+ * Not a JUnit test: run the main method directly.
+ */
+public class IncomeExpenseSummaryBenchmark {
+
+    private static final int PER_DAY = 300;
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 50;
+
+    public static void main(String[] args) {
+        TransactionHistoryFixture fixture = new TransactionHistoryFixture(TransactionHistoryFixture.year(PER_DAY, 1));
+        LocalDate start = TransactionHistoryFixture.FIRST_DAY;
+        LocalDate end = start.plusDays(364);
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            fixture.service.getFinancialSummary(start, end);
+            entitySummary(fixture, start, end);
+        }
+
+        fixture.rowsReturned = 0;
+        long[] grouped = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long t = System.nanoTime();
+            fixture.service.getFinancialSummary(start, end);
+            grouped[i] = (System.nanoTime() - t) / 1_000;
+        }
+        long groupedRows = fixture.rowsReturned / MEASURED_RUNS;
+
+        fixture.rowsReturned = 0;
+        long[] entities = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long t = System.nanoTime();
+            entitySummary(fixture, start, end);
+            entities[i] = (System.nanoTime() - t) / 1_000;
+        }
+        long entityRows = fixture.rowsReturned / MEASURED_RUNS;
+
+        Arrays.sort(grouped);
+        Arrays.sort(entities);
+        System.out.printf("%d transactions over one year%n", fixture.rows.size());
+        System.out.printf("grouped rows : median %6d us, %6d rows returned per summary%n", grouped[MEASURED_RUNS / 2], groupedRows);
+        System.out.printf("entities     : median %6d us, %6d rows returned per summary%n", entities[MEASURED_RUNS / 2], entityRows);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * The previous implementation: each side loads the whole range and filters and groups in Java
+     */
+    private static BigDecimal entitySummary(TransactionHistoryFixture fixture, LocalDate start, LocalDate end) {
+        Map<String, Object> income = side(fixture, start, end, TransactionHistory.TransactionType.INCOME);
+        Map<String, Object> expenses = side(fixture, start, end, TransactionHistory.TransactionType.EXPENSE);
+        return ((BigDecimal) income.get("total")).subtract((BigDecimal) expenses.get("total"));
+    }
+
+    private static Map<String, Object> side(TransactionHistoryFixture fixture, LocalDate start, LocalDate end,
+                                            TransactionHistory.TransactionType type) {
+        List<TransactionHistory> matched = fixture.repository.findByTransactionDateBetween(start, end).stream()
+                .filter(t -> t.getTransactionType() == type)
+                .collect(Collectors.toList());
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("total", matched.stream().map(TransactionHistory::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+        summary.put("byCategory", matched.stream()
+                .collect(Collectors.groupingBy(TransactionHistory::getCategory,
+                        Collectors.reducing(BigDecimal.ZERO, TransactionHistory::getAmount, BigDecimal::add))));
+        summary.put("byPaymentMethod", matched.stream()
+                .filter(t -> t.getPaymentMethod() != null)
+                .collect(Collectors.groupingBy(TransactionHistory::getPaymentMethod,
+                        Collectors.reducing(BigDecimal.ZERO, TransactionHistory::getAmount, BigDecimal::add))));
+        summary.put("count", matched.size());
+        return summary;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.EmailHistory;
+import com.example.jewell.model.MailQueueItem;
+import com.example.jewell.repository.EmailHistoryRepository;
+import com.example.jewell.repository.MailQueueRepository;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Delivery through {@link MailQueueService} to a stub SMTP sender, with an in-memory queue table
+ */
+class MailQueueServiceTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final Map<Long, MailQueueItem> table = new LinkedHashMap<>();
+    private final List<EmailHistory> history = new ArrayList<>();
+    private final List<List<String>> connections = new ArrayList<>();
+    private final Set<String> rejectedRecipients = new HashSet<>();
+    private final Set<Long> unsavableIds = new HashSet<>();
+
+    private MailQueueService service;
+
+    @BeforeEach
+    void setUp() {
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", stubSmtp());
+
+        service = new MailQueueService();
+        ReflectionTestUtils.setField(service, "mailQueueRepository", inMemoryQueue());
+        ReflectionTestUtils.setField(service, "emailHistoryRepository", historyRepository());
+        ReflectionTestUtils.setField(service, "emailService", emailService);
+        ReflectionTestUtils.setField(service, "transactionTemplate", inlineTransactionTemplate());
+        ReflectionTestUtils.setField(service, "emailExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(service, "taskExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "workers", 2);
+        ReflectionTestUtils.setField(service, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(service, "retryBaseSeconds", 30L);
+    }
+
+    @Test
+    void deliversDueItemsOneConnectionPerChunk() {
+        for (long id = 1; id <= 4; id++) {
+            queue(id, "user" + id + "@example.com");
+        }
+        service.drain();
+
+        assertEquals(List.of(List.of("user1@example.com", "user2@example.com"),
+                List.of("user3@example.com", "user4@example.com")), connections);
+        for (MailQueueItem item : table.values()) {
+            assertEquals(MailQueueItem.Status.SENT, item.getStatus());
+            assertEquals(1, item.getAttempts());
+            assertNull(item.getClaimToken());
+            assertNull(item.getActiveDedupKey());
+        }
+        assertEquals(4, history.size());
+        assertTrue(history.stream().allMatch(h -> "sent".equals(h.getStatus())));
+    }
+
+    @Test
+    void failedRecipientIsRetriedWithBackoffUntilAttemptsRunOut() {
+        queue(1L, "ok@example.com");
+        queue(2L, "bounce@example.com");
+        rejectedRecipients.add("bounce@example.com");
+
+        service.drain();
+        MailQueueItem bounced = table.get(2L);
+        assertEquals(MailQueueItem.Status.SENT, table.get(1L).getStatus());
+        assertEquals(MailQueueItem.Status.PENDING, bounced.getStatus());
+        assertEquals(1, bounced.getAttempts());
+        assertTrue(bounced.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("mail:2", bounced.getActiveDedupKey());
+
+        bounced.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        service.drain();
+        assertEquals(MailQueueItem.Status.FAILED, bounced.getStatus());
+        assertEquals(MAX_ATTEMPTS, bounced.getAttempts());
+        assertNull(bounced.getActiveDedupKey());
+        assertEquals(1, history.stream().filter(h -> "failed".equals(h.getStatus())).count());
+    }
+
+    @Test
+    void anOutcomeThatCannotBeRecordedOnlyAffectsItsItem() {
+        for (long id = 1; id <= 3; id++) {
+            queue(id, "user" + id + "@example.com");
+        }
+        unsavableIds.add(2L);
+        service.drain();
+
+        assertEquals(MailQueueItem.Status.SENT, table.get(1L).getStatus());
+        assertEquals(MailQueueItem.Status.SENT, table.get(3L).getStatus());
+        // Left for the stale release, with the attempt already counted
+        assertEquals(MailQueueItem.Status.SENDING, table.get(2L).getStatus());
+        assertEquals(1, table.get(2L).getAttempts());
+    }
+
+    @Test
+    void itemsRefusedByTheExecutorAreReleasedUnsent() {
+        ReflectionTestUtils.setField(service, "emailExecutor", (Executor) task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+        for (long id = 1; id <= 3; id++) {
+            queue(id, "user" + id + "@example.com");
+        }
+        service.drain();
+
+        assertTrue(connections.isEmpty());
+        for (MailQueueItem item : table.values()) {
+            assertEquals(MailQueueItem.Status.PENDING, item.getStatus());
+            assertEquals(0, item.getAttempts());
+            assertNull(item.getClaimToken());
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void queue(Long id, String recipient) {
+        MailQueueItem item = new MailQueueItem();
+        item.setId(id);
+        item.setKind(MailQueueItem.Kind.HTML);
+        item.setRecipient(recipient);
+        item.setSubject("Hello");
+        item.setBody("<p>Hello</p>");
+        item.setDedupKey("mail:" + id);
+        item.setActiveDedupKey("mail:" + id);
+        item.setStatus(MailQueueItem.Status.PENDING);
+        item.setAttempts(0);
+        item.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        table.put(id, item);
+    }
+
+    /**
+     * Records each send call as one connection; rejected recipients fail the way JavaMailSenderImpl reports them
+     */
+    private JavaMailSenderImpl stubSmtp() {
+        return new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... messages) {
+                List<String> recipients = new ArrayList<>();
+                Map<Object, Exception> failed = new LinkedHashMap<>();
+                for (MimeMessage message : messages) {
+                    String to = recipient(message);
+                    recipients.add(to);
+                    if (rejectedRecipients.contains(to)) {
+                        failed.put(message, new MessagingException("550 mailbox unavailable"));
+                    }
+                }
+                connections.add(recipients);
+                if (!failed.isEmpty()) throw new MailSendException(failed);
+            }
+        };
+    }
+
+    private static String recipient(MimeMessage message) {
+        try {
+            Address[] to = message.getAllRecipients();
+            return to[0].toString();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Queue table in a map; loaded rows are copies, so an unsaved change never reaches the table
+     */
+    private MailQueueRepository inMemoryQueue() {
+        return (MailQueueRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MailQueueRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findDueIds": {
+                            LocalDateTime now = (LocalDateTime) args[1];
+                            return table.values().stream()
+                                    .filter(m -> m.getStatus() == args[0] && !m.getNextAttemptAt().isAfter(now))
+                                    .sorted(Comparator.comparing(MailQueueItem::getNextAttemptAt).thenComparing(MailQueueItem::getId))
+                                    .limit(((Pageable) args[2]).getPageSize())
+                                    .map(MailQueueItem::getId)
+                                    .toList();
+                        }
+                        case "claim": {
+                            int claimed = 0;
+                            for (Long id : ids(args[0])) {
+                                MailQueueItem row = table.get(id);
+                                if (row.getStatus() != args[3]) continue;
+                                row.setStatus((MailQueueItem.Status) args[4]);
+                                row.setClaimToken((String) args[1]);
+                                row.setClaimedAt((LocalDateTime) args[2]);
+                                row.setAttempts(row.getAttempts() + 1);
+                                claimed++;
+                            }
+                            return claimed;
+                        }
+                        case "findByClaimTokenOrderByIdAsc":
+                            return table.values().stream()
+                                    .filter(m -> args[0].equals(m.getClaimToken()))
+                                    .map(MailQueueServiceTest::copy)
+                                    .toList();
+                        case "releaseClaimed": {
+                            int released = 0;
+                            for (Long id : ids(args[0])) {
+                                MailQueueItem row = table.get(id);
+                                if (row.getStatus() != args[2]) continue;
+                                row.setStatus((MailQueueItem.Status) args[1]);
+                                row.setClaimToken(null);
+                                row.setAttempts(row.getAttempts() - 1);
+                                released++;
+                            }
+                            return released;
+                        }
+                        case "save": {
+                            MailQueueItem item = (MailQueueItem) args[0];
+                            if (unsavableIds.contains(item.getId())) {
+                                throw new IllegalStateException("connection reset");
+                            }
+                            MailQueueItem row = table.get(item.getId());
+                            copyFields(item, row);
+                            return row;
+                        }
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Long> ids(Object arg) {
+        return (Collection<Long>) arg;
+    }
+
+    private EmailHistoryRepository historyRepository() {
+        return (EmailHistoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EmailHistoryRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        history.add((EmailHistory) args[0]);
+                        return args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static MailQueueItem copy(MailQueueItem source) {
+        MailQueueItem target = new MailQueueItem();
+        copyFields(source, target);
+        return target;
+    }
+
+    private static void copyFields(MailQueueItem source, MailQueueItem target) {
+        try {
+            for (Field field : MailQueueItem.class.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+                field.setAccessible(true);
+                field.set(target, field.get(source));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TransactionTemplate inlineTransactionTemplate() {
+        return new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(new SimpleTransactionStatus());
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.jewell.service;
+
+import com.example.jewell.dto.OfflineBill;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times {@link OfflineBillSyncService#syncBatch} for a 500-bill upload against in-memory tables and reports
+ * the database round trips one batch makes. Absolute times exclude the database; run against MySQL for those.
+ *
+ * Not a JUnit test: run the main method directly.
+ */
+public class OfflineBillSyncBenchmark {
+
+    private static final int BILLS = 500;
+    private static final int WARMUP_RUNS = 50;
+    private static final int MEASURED_RUNS = 200;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            runOnce();
+        }
+        long[] micros = new long[MEASURED_RUNS];
+        OfflineBillSyncFixture last = null;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            last = new OfflineBillSyncFixture(100, 5, 50);
+            List<OfflineBill> bills = last.bills(BILLS);
+            long start = System.nanoTime();
+            last.service.syncBatch(bills);
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        System.out.printf("syncBatch(%d bills): median %d us, p90 %d us, max %d us%n", BILLS,
+                micros[MEASURED_RUNS / 2], micros[MEASURED_RUNS * 9 / 10], micros[MEASURED_RUNS - 1]);
+        System.out.printf("round trips per batch: %d (bill insert batches %d, number allocations %d, per-bill income rows %d)%n",
+                last.roundTrips, last.billInsertBatches, last.numberAllocations, last.incomeRecords);
+    }
+
+    private static void runOnce() {
+        OfflineBillSyncFixture fixture = new OfflineBillSyncFixture(100, 5, 50);
+        fixture.service.syncBatch(fixture.bills(BILLS));
+    }
+}
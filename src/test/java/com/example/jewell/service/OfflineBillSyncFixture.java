@@ -0,0 +1,244 @@
+package com.example.jewell.service;
+
+import com.example.jewell.dto.OfflineBill;
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.Customer;
+import com.example.jewell.model.LoyaltyTransaction;
+import com.example.jewell.model.Stock;
+import com.example.jewell.repository.BillingRepository;
+import com.example.jewell.repository.CreditRepository;
+import com.example.jewell.repository.CustomerRepository;
+import com.example.jewell.repository.LoyaltyTransactionRepository;
+import com.example.jewell.repository.StockRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link OfflineBillSyncService} wired to in-memory stock, customer and bill tables, shared by the
+ * test and the benchmark. Counts the database round trips the service would make.
+ */
+final class OfflineBillSyncFixture {
+
+    final Map<Long, Stock> stock = new LinkedHashMap<>();
+    final Map<Long, Customer> customers = new LinkedHashMap<>();
+    final Map<String, Billing> billsByClientId = new LinkedHashMap<>();
+    final List<Object[]> itemRows = new ArrayList<>();
+    final List<LoyaltyTransaction> loyalty = new ArrayList<>();
+    final List<Long> prerendered = new ArrayList<>();
+    final DashboardCounters dashboardCounters = new DashboardCounters();
+    final OfflineBillSyncService service = new OfflineBillSyncService();
+
+    int roundTrips;
+    int billInsertBatches;
+    int numberAllocations;
+    int incomeRecords;
+
+    private final AtomicLong lastBillNumber = new AtomicLong();
+    private long nextBillId = 1;
+
+    OfflineBillSyncFixture(int stockRows, int quantityEach, int customerCount) {
+        for (long id = 1; id <= stockRows; id++) {
+            Stock s = new Stock();
+            s.setId(id);
+            s.setArticleCode("A" + id);
+            s.setArticleName("Ring " + id);
+            s.setQuantity(quantityEach);
+            s.setStatus(Stock.StockStatus.AVAILABLE);
+            stock.put(id, s);
+        }
+        for (long id = 1; id <= customerCount; id++) {
+            Customer c = new Customer();
+            c.setId(id);
+            c.setName("Customer " + id);
+            c.setLoyaltyPoints(BigDecimal.ZERO);
+            customers.put(id, c);
+        }
+
+        BillingService billingService = new BillingService();
+        ReflectionTestUtils.setField(billingService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(billingService, "creditRepository", repository(CreditRepository.class, (name, args) -> {
+            roundTrips++;
+            return args[0];
+        }));
+        ReflectionTestUtils.setField(billingService, "incomeExpenseService", new IncomeExpenseService() {
+            @Override
+            public void recordIncomeFromBilling(Billing billing) {
+                roundTrips++;
+                incomeRecords++;
+            }
+        });
+
+        ReflectionTestUtils.setField(service, "billingService", billingService);
+        ReflectionTestUtils.setField(service, "billingRepository", billingRepository());
+        ReflectionTestUtils.setField(service, "stockRepository", repository(StockRepository.class, (name, args) -> {
+            roundTrips++;
+            List<Stock> locked = new ArrayList<>();
+            for (Long id : ids(args[0])) {
+                if (stock.containsKey(id)) locked.add(stock.get(id));
+            }
+            return locked;
+        }));
+        ReflectionTestUtils.setField(service, "customerRepository", repository(CustomerRepository.class, (name, args) -> {
+            roundTrips++;
+            List<Customer> found = new ArrayList<>();
+            for (Long id : ids(args[0])) {
+                if (customers.containsKey(id)) found.add(customers.get(id));
+            }
+            return found;
+        }));
+        ReflectionTestUtils.setField(service, "loyaltyTransactionRepository", repository(LoyaltyTransactionRepository.class, (name, args) -> {
+            roundTrips++;
+            for (Object earn : (Iterable<?>) args[0]) loyalty.add((LoyaltyTransaction) earn);
+            return args[0];
+        }));
+        ReflectionTestUtils.setField(service, "billNumberAllocator", new BillNumberAllocator() {
+            @Override
+            public long allocate(int count) {
+                roundTrips++;
+                numberAllocations++;
+                return lastBillNumber.getAndAdd(count) + 1;
+            }
+        });
+        ReflectionTestUtils.setField(service, "receivablesAgingService", new ReceivablesAgingService() {
+            @Override
+            public void invalidate() {
+            }
+        });
+        ReflectionTestUtils.setField(service, "customerBalanceCache", new CustomerBalanceCache() {
+            @Override
+            public void onCustomerChanged(Long customerId) {
+            }
+        });
+        ReflectionTestUtils.setField(service, "dashboardCounters", dashboardCounters);
+        ReflectionTestUtils.setField(service, "billPdfCache", new BillPdfCache() {
+            @Override
+            public void prerenderAfterCommit(Long billingId) {
+                prerendered.add(billingId);
+            }
+        });
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate());
+    }
+
+    /**
+     * {@code count} cash bills for one piece each, spread over the stock rows and customers in order
+     */
+    List<OfflineBill> bills(int count) {
+        List<OfflineBill> bills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long stockId = i % stock.size() + 1;
+            long customerId = i % customers.size() + 1;
+            bills.add(bill(UUID.randomUUID().toString(), customerId, stockId, 1, BigDecimal.valueOf(1000 + i)));
+        }
+        return bills;
+    }
+
+    static OfflineBill bill(String clientId, long customerId, long stockId, int quantity, BigDecimal price) {
+        OfflineBill.Item item = new OfflineBill.Item();
+        item.setStockId(stockId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(price);
+        item.setTotalPrice(price.multiply(BigDecimal.valueOf(quantity)));
+        OfflineBill bill = new OfflineBill();
+        bill.setClientId(clientId);
+        bill.setCustomerId(customerId);
+        bill.setPaymentMethod("CASH");
+        bill.getItems().add(item);
+        return bill;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(OfflineBillSyncFixture.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method.getName(), args));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Iterable<Long> ids(Object arg) {
+        return (Iterable<Long>) arg;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<String> clientIds(Object arg) {
+        return (Collection<String>) arg;
+    }
+
+    private BillingRepository billingRepository() {
+        return repository(BillingRepository.class, (name, args) -> {
+            roundTrips++;
+            switch (name) {
+                case "findIdAndNumberByClientIdIn": {
+                    List<Object[]> rows = new ArrayList<>();
+                    for (String clientId : clientIds(args[0])) {
+                        Billing b = billsByClientId.get(clientId);
+                        if (b != null) rows.add(new Object[]{b.getId(), b.getClientId(), b.getBillNumber()});
+                    }
+                    return rows;
+                }
+                case "findAllById": {
+                    List<Billing> found = new ArrayList<>();
+                    for (Long id : ids(args[0])) {
+                        billsByClientId.values().stream().filter(b -> b.getId().equals(id)).findFirst().ifPresent(found::add);
+                    }
+                    return found;
+                }
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    /**
+     * Bill rows become Billing objects keyed by client id (unique, like uk_billing_client_id)
+     */
+    private JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate() {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                roundTrips++;
+                if (sql.startsWith("INSERT INTO billing_items")) {
+                    itemRows.addAll(batchArgs);
+                    return new int[batchArgs.size()];
+                }
+                billInsertBatches++;
+                for (Object[] row : batchArgs) {
+                    String clientId = (String) row[16];
+                    if (billsByClientId.containsKey(clientId)) {
+                        throw new DuplicateKeyException("Duplicate entry '" + clientId + "' for key 'uk_billing_client_id'");
+                    }
+                    Billing b = new Billing();
+                    b.setId(nextBillId++);
+                    b.setBillNumber((String) row[0]);
+                    b.setCustomer(customers.get((Long) row[1]));
+                    b.setTotalAmount((BigDecimal) row[2]);
+                    b.setFinalAmount((BigDecimal) row[6]);
+                    b.setPaidAmount((BigDecimal) row[7]);
+                    b.setPaymentMethod(row[8] != null ? Billing.PaymentMethod.valueOf((String) row[8]) : null);
+                    b.setPaymentStatus(Billing.PaymentStatus.valueOf((String) row[10]));
+                    b.setCreatedAt(((Timestamp) row[14]).toLocalDateTime());
+                    b.setClientId(clientId);
+                    billsByClientId.put(clientId, b);
+                }
+                return new int[batchArgs.size()];
+            }
+        };
+    }
+}
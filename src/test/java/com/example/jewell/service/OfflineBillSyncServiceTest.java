@@ -0,0 +1,127 @@
+package com.example.jewell.service;
+
+import com.example.jewell.dto.OfflineBill;
+import com.example.jewell.model.Billing;
+import com.example.jewell.model.Stock;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Batch semantics of {@link OfflineBillSyncService} against in-memory tables
+ */
+class OfflineBillSyncServiceTest {
+
+    private static final int BILLS = 500;
+
+    @Test
+    void syncsFiveHundredBillsInOneBatch() {
+        OfflineBillSyncFixture fixture = new OfflineBillSyncFixture(100, 5, 20);
+        List<OfflineBill> bills = fixture.bills(BILLS);
+
+        Map<String, Object> summary = fixture.service.syncBatch(bills);
+
+        assertEquals(BILLS, summary.get("created"));
+        assertEquals(0, summary.get("conflicts"));
+        assertEquals(1, fixture.billInsertBatches);
+        assertEquals(1, fixture.numberAllocations);
+        assertEquals(BILLS, fixture.itemRows.size());
+        Set<String> numbers = new HashSet<>();
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Billing b : fixture.billsByClientId.values()) {
+            numbers.add(b.getBillNumber());
+            assertEquals(Billing.PaymentStatus.PAID, b.getPaymentStatus());
+            revenue = revenue.add(b.getFinalAmount());
+        }
+        assertEquals(BILLS, numbers.size());
+        assertTrue(numbers.stream().allMatch(n -> n.matches("BILL-\\d{8}-\\d{5}")));
+        for (Stock s : fixture.stock.values()) {
+            assertEquals(0, s.getQuantity());
+            assertEquals(Stock.StockStatus.SOLD, s.getStatus());
+        }
+        // Bills inserted over JDBC still reach the dashboard revenue counter
+        assertEquals(0, revenue.compareTo((BigDecimal) fixture.dashboardCounters.snapshot().get("totalRevenue")));
+        // Same bookkeeping as an online bill: income, loyalty and a PDF pre-render for each
+        assertEquals(BILLS, fixture.incomeRecords);
+        assertEquals(BILLS, fixture.loyalty.size());
+        assertEquals(BILLS, fixture.prerendered.size());
+    }
+
+    @Test
+    void retriedBatchIsAllDuplicates() {
+        OfflineBillSyncFixture fixture = new OfflineBillSyncFixture(100, 10, 20);
+        List<OfflineBill> bills = fixture.bills(BILLS);
+        fixture.service.syncBatch(bills);
+        int stockLeft = fixture.stock.values().stream().mapToInt(Stock::getQuantity).sum();
+
+        Map<String, Object> retry = fixture.service.syncBatch(bills);
+
+        assertEquals(0, retry.get("created"));
+        assertEquals(BILLS, retry.get("duplicates"));
+        assertEquals(BILLS, fixture.billsByClientId.size());
+        assertEquals(stockLeft, fixture.stock.values().stream().mapToInt(Stock::getQuantity).sum());
+    }
+
+    @Test
+    void overbookedStockIsAConflictAndLaterBillsStillGoThrough() {
+        OfflineBillSyncFixture fixture = new OfflineBillSyncFixture(2, 1, 1);
+        List<OfflineBill> bills = List.of(
+                OfflineBillSyncFixture.bill(uuid(), 1, 1, 1, BigDecimal.valueOf(500)),
+                OfflineBillSyncFixture.bill(uuid(), 1, 1, 1, BigDecimal.valueOf(600)),
+                OfflineBillSyncFixture.bill(uuid(), 1, 2, 1, BigDecimal.valueOf(700)));
+
+        List<Map<String, Object>> results = results(fixture.service.syncBatch(bills));
+
+        assertEquals("CREATED", results.get(0).get("status"));
+        assertEquals("CONFLICT", results.get(1).get("status"));
+        assertNotNull(results.get(1).get("conflicts"));
+        assertEquals("CREATED", results.get(2).get("status"));
+    }
+
+    @Test
+    void aRepeatedClientIdGetsItsFirstOccurrencesOutcome() {
+        OfflineBillSyncFixture fixture = new OfflineBillSyncFixture(2, 1, 1);
+        String created = uuid();
+        String conflicting = uuid();
+        String invalid = uuid();
+        List<OfflineBill> bills = new ArrayList<>();
+        bills.add(OfflineBillSyncFixture.bill(created, 1, 1, 1, BigDecimal.valueOf(500)));
+        bills.add(OfflineBillSyncFixture.bill(conflicting, 1, 1, 1, BigDecimal.valueOf(500)));
+        bills.add(OfflineBillSyncFixture.bill(invalid, 99, 2, 1, BigDecimal.valueOf(500)));
+        bills.add(OfflineBillSyncFixture.bill(created, 1, 1, 1, BigDecimal.valueOf(500)));
+        bills.add(OfflineBillSyncFixture.bill(conflicting, 1, 1, 1, BigDecimal.valueOf(500)));
+        bills.add(OfflineBillSyncFixture.bill(invalid, 99, 2, 1, BigDecimal.valueOf(500)));
+
+        List<Map<String, Object>> results = results(fixture.service.syncBatch(bills));
+
+        assertEquals("DUPLICATE", results.get(3).get("status"));
+        assertEquals(results.get(0).get("billId"), results.get(3).get("billId"));
+        assertEquals(results.get(0).get("billNumber"), results.get(3).get("billNumber"));
+        assertEquals("CONFLICT", results.get(4).get("status"));
+        assertEquals(results.get(1).get("conflicts"), results.get(4).get("conflicts"));
+        assertEquals("INVALID", results.get(2).get("status"));
+        assertEquals("INVALID", results.get(5).get("status"));
+        assertEquals(1, fixture.billsByClientId.size());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static String uuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> results(Map<String, Object> summary) {
+        return (List<Map<String, Object>>) summary.get("results");
+    }
+}
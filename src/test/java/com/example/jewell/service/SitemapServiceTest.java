@@ -0,0 +1,34 @@
+package com.example.jewell.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Size accounting and validators of {@link SitemapService}
+ */
+class SitemapServiceTest {
+
+    @Test
+    void sizeLimitCountsUtf8Bytes() {
+        for (String s : new String[]{
+                "https://typogram.in/blog/typing-tips",
+                "https://typogram.in/blog/café-crème",
+                "https://typogram.in/blog/टाइपिंग-अभ्यास",
+                "https://typogram.in/blog/💍-rings"}) {
+            assertEquals(s.getBytes(StandardCharsets.UTF_8).length, SitemapService.utf8Length(s), s);
+        }
+    }
+
+    @Test
+    void gzipAndIdentityBodiesHaveDifferentEtags() {
+        SitemapService.SitemapDocument doc = new SitemapService.SitemapDocument(new byte[0], "\"abc123\"", 0L);
+
+        assertEquals("\"abc123\"", doc.getEtag(false));
+        assertEquals("\"abc123-gz\"", doc.getEtag(true));
+        assertNotEquals(doc.getEtag(false), doc.getEtag(true));
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.StudyRoom;
+import com.example.jewell.model.StudyRoomSession;
+import com.example.jewell.repository.StudyRoomRepository;
+import com.example.jewell.repository.StudyRoomSessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrency of {@link StudyRoomSlotAllocator}'s CAS paths, with in-memory repositories
+ */
+class StudyRoomSlotAllocatorTest {
+
+    private static final String TYPE = "study_room";
+    private static final int THREADS = 16;
+
+    private final List<StudyRoom> rooms = new ArrayList<>();
+    private final List<Object[]> sessionCounts = new ArrayList<>();
+    private final List<Long> confirmedSessionIds = new CopyOnWriteArrayList<>();
+    private final Map<Long, Integer> writtenBack = new ConcurrentHashMap<>();
+    private final AtomicInteger confirmFailuresLeft = new AtomicInteger();
+    private final AtomicInteger confirmAttempts = new AtomicInteger();
+
+    private StudyRoomSlotAllocator allocator;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new StudyRoomSlotAllocator();
+        ReflectionTestUtils.setField(allocator, "studyRoomRepository", studyRoomRepository());
+        ReflectionTestUtils.setField(allocator, "studyRoomSessionRepository", sessionRepository());
+        ReflectionTestUtils.setField(allocator, "jdbcTemplate", recordingJdbcTemplate());
+        ReflectionTestUtils.setField(allocator, "transactionTemplate", inlineTransactionTemplate());
+        ReflectionTestUtils.setField(allocator, "autoConfirmAfterMs", 60_000L);
+        ReflectionTestUtils.setField(allocator, "confirmRetryMs", 50L);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        allocator.shutdown();
+    }
+
+    @Test
+    void concurrentAcquiresNeverOverfillARoom() throws Exception {
+        room(1L, 5, 0);
+        room(2L, 7, 0);
+        room(3L, 10, 1);
+        allocator.onStartup();
+
+        List<Long> granted = runConcurrently(200, i -> allocator.acquire(TYPE));
+        long succeeded = granted.stream().filter(id -> id != null).count();
+        assertEquals(22, succeeded);
+        assertEquals(5, allocator.occupancy(1L));
+        assertEquals(7, allocator.occupancy(2L));
+        assertEquals(10, allocator.occupancy(3L));
+        assertNull(allocator.acquire(TYPE));
+    }
+
+    @Test
+    void concurrentAcquireAndReleaseBalanceOut() throws Exception {
+        room(1L, 3, 0);
+        room(2L, 4, 0);
+        allocator.onStartup();
+        AtomicInteger overfilled = new AtomicInteger();
+
+        runConcurrently(THREADS, i -> {
+            for (int n = 0; n < 5_000; n++) {
+                Long roomId = allocator.acquire(TYPE);
+                if (roomId == null) continue;
+                if (allocator.occupancy(1L) > 3 || allocator.occupancy(2L) > 4) overfilled.incrementAndGet();
+                allocator.release(roomId);
+            }
+            return null;
+        });
+        assertEquals(0, overfilled.get());
+        assertEquals(0, allocator.occupancy(1L));
+        assertEquals(0, allocator.occupancy(2L));
+    }
+
+    @Test
+    void onlyOneLeasePerUserAndRoomType() throws Exception {
+        room(1L, 100, 0);
+        allocator.onStartup();
+
+        List<StudyRoomSlotAllocator.Lease> opened = runConcurrently(THREADS,
+                i -> allocator.openLease(42L, TYPE, 1L, 1000L + i));
+        assertEquals(1, opened.stream().filter(lease -> lease != null).count());
+    }
+
+    @Test
+    void confirmAndCancelRacesHaveOneWinner() throws Exception {
+        room(1L, 1000, 0);
+        allocator.onStartup();
+        int users = 500;
+        List<StudyRoomSlotAllocator.Lease> leases = new ArrayList<>();
+        for (long user = 1; user <= users; user++) {
+            assertEquals(1L, allocator.acquire(TYPE));
+            leases.add(allocator.openLease(user, TYPE, 1L, user));
+        }
+
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        runConcurrently(users * 2, i -> {
+            StudyRoomSlotAllocator.Lease lease = leases.get(i / 2);
+            if (i % 2 == 0) {
+                if (allocator.confirmLease(lease)) confirmed.incrementAndGet();
+            } else if (allocator.cancelLease(lease)) {
+                cancelled.incrementAndGet();
+            }
+            return null;
+        });
+        assertEquals(users, confirmed.get() + cancelled.get());
+        assertEquals(confirmed.get(), allocator.occupancy(1L));
+        assertEquals(0, allocator.pendingLeases(1L));
+    }
+
+    @Test
+    void dueLeasesAreConfirmedInTheDatabaseBeforeTheyEnd() throws Exception {
+        room(1L, 10, 0);
+        ReflectionTestUtils.setField(allocator, "autoConfirmAfterMs", 20L);
+        allocator.onStartup();
+        assertEquals(1L, allocator.acquire(TYPE));
+        assertNotNull(allocator.openLease(7L, TYPE, 1L, 700L));
+
+        awaitTrue(() -> allocator.findLease(7L, TYPE) == null);
+        assertEquals(List.of(700L), confirmedSessionIds);
+        assertEquals(1, allocator.occupancy(1L));
+    }
+
+    @Test
+    void failedAutoConfirmKeepsTheLeaseAndRetries() throws Exception {
+        room(1L, 10, 0);
+        ReflectionTestUtils.setField(allocator, "autoConfirmAfterMs", 20L);
+        confirmFailuresLeft.set(2);
+        allocator.onStartup();
+        assertEquals(1L, allocator.acquire(TYPE));
+        allocator.openLease(7L, TYPE, 1L, 700L);
+
+        awaitTrue(() -> confirmAttempts.get() >= 1);
+        assertTrue(confirmedSessionIds.isEmpty());
+        awaitTrue(() -> allocator.findLease(7L, TYPE) == null);
+        assertEquals(3, confirmAttempts.get());
+        assertEquals(List.of(700L), confirmedSessionIds);
+        assertEquals(1, allocator.occupancy(1L));
+    }
+
+    @Test
+    void startupRecountsOccupancyFromSessions() {
+        room(1L, 10, 9);
+        room(2L, 10, 0);
+        sessionCounts.add(new Object[]{1L, 3L});
+        sessionCounts.add(new Object[]{2L, 2L});
+        allocator.onStartup();
+
+        assertEquals(3, allocator.occupancy(1L));
+        assertEquals(2, allocator.occupancy(2L));
+        allocator.flush();
+        assertEquals(Map.of(1L, 3, 2L, 2), writtenBack);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void room(Long id, int capacity, int storedParticipants) {
+        rooms.add(StudyRoom.builder().id(id).roomType(TYPE).maxCapacity(capacity)
+                .currentParticipants(storedParticipants).isActive(true).priority(0).build());
+    }
+
+    private interface Task<T> {
+        T run(int index) throws Exception;
+    }
+
+    /**
+     * Run {@code count} tasks on the pool, all released at once; results in task order
+     */
+    private <T> List<T> runConcurrently(int count, Task<T> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.run(index);
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("Condition not met within 5 s");
+            Thread.sleep(5);
+        }
+    }
+
+    private StudyRoomRepository studyRoomRepository() {
+        return (StudyRoomRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{StudyRoomRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && args == null) return new ArrayList<>(rooms);
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private StudyRoomSessionRepository sessionRepository() {
+        return (StudyRoomSessionRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{StudyRoomSessionRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "countSessionsGroupedByRoom":
+                            return new ArrayList<>(sessionCounts);
+                        case "findAllUnconfirmedSessions":
+                            return new ArrayList<StudyRoomSession>();
+                        case "countByRoomId":
+                            return 0L;
+                        case "confirmSessions":
+                            confirmAttempts.incrementAndGet();
+                            if (confirmFailuresLeft.getAndDecrement() > 0) {
+                                throw new IllegalStateException("database unavailable");
+                            }
+                            @SuppressWarnings("unchecked")
+                            Collection<Long> ids = (Collection<Long>) args[0];
+                            confirmedSessionIds.addAll(ids);
+                            return ids.size();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private JdbcTemplate recordingJdbcTemplate() {
+        return new JdbcTemplate() {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                for (Object[] row : batchArgs) {
+                    writtenBack.put((Long) row[1], (Integer) row[0]);
+                }
+                return new int[batchArgs.size()];
+            }
+        };
+    }
+
+    private static TransactionTemplate inlineTransactionTemplate() {
+        return new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(new SimpleTransactionStatus());
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.jewell.service;
+
+import com.example.jewell.config.ExportDataSourceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streaming transaction export over a large H2 table: every row comes out once, in order,
+ * and the heap does not grow with the length of the history.
+ *
+ * H2 runs file-backed with a small page cache and sorts spilled to disk, so the database does not keep
+ * the history on this heap (MySQL keeps it behind the server-side cursor) and heap samples show the export itself.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/tax-export;MAX_MEMORY_ROWS=1000;CACHE_SIZE=1024",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({TaxExportService.class, ExportDataSourceConfig.class, JacksonAutoConfiguration.class})
+class TaxExportServiceTest {
+
+    private static final int ROWS = 50_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 4, 1);
+
+    // Four financial years before FIRST_DAY, so the volume data never overlaps the rows above
+    private static final LocalDate HISTORY_FIRST_DAY = LocalDate.of(2019, 4, 1);
+    private static final int HISTORY_YEARS = 4;
+    private static final int HISTORY_ROWS_PER_DAY = 200;
+    private static final long BYTES_PER_HEAP_SAMPLE = 2L * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH = 4L * 1024 * 1024;
+
+    @Autowired
+    private TaxExportService taxExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertRecentRows() {
+        // 100 rows per day, inserted newest day first so the export has to sort
+        insertRows(FIRST_DAY, ROWS / 100, 100, true);
+    }
+
+    @Test
+    void exportsEveryRowInDateOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = taxExportService.exportTransactions(FIRST_DAY, FIRST_DAY.plusYears(2),
+                TaxExportService.Format.CSV, out);
+
+        assertEquals(ROWS, written);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(ROWS + 1, lines.length);
+        LocalDate previous = FIRST_DAY;
+        for (int i = 1; i < lines.length; i++) {
+            LocalDate day = LocalDate.parse(lines[i].split(",")[1]);
+            assertTrue(!day.isBefore(previous), "row " + i + " out of order");
+            previous = day;
+        }
+    }
+
+    @Test
+    void exportsOnlyTheRequestedRange() throws Exception {
+        long written = taxExportService.exportTransactions(FIRST_DAY.plusDays(10), FIRST_DAY.plusDays(19),
+                TaxExportService.Format.NDJSON, OutputStream.nullOutputStream());
+        assertEquals(1_000, written);
+    }
+
+    @Test
+    void memoryStaysFlatOverAMultiYearHistory() throws Exception {
+        LocalDate lastDay = HISTORY_FIRST_DAY.plusYears(HISTORY_YEARS).minusDays(1);
+        int days = (int) (lastDay.toEpochDay() - HISTORY_FIRST_DAY.toEpochDay()) + 1;
+        insertRows(HISTORY_FIRST_DAY, days, HISTORY_ROWS_PER_DAY, false);
+
+        HeapProbe probe = new HeapProbe();
+        long written = taxExportService.exportTransactions(HISTORY_FIRST_DAY, lastDay, TaxExportService.Format.NDJSON, probe);
+
+        assertEquals((long) days * HISTORY_ROWS_PER_DAY, written);
+        assertTrue(probe.bytes > 20 * BYTES_PER_HEAP_SAMPLE);
+        // Keeping even one small object per row would add several megabytes over the run
+        assertTrue(probe.growth() <= MAX_HEAP_GROWTH, "heap grew by " + probe.growth() + " bytes while writing "
+                + probe.bytes + " bytes of export");
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void insertRows(LocalDate firstDay, int days, int rowsPerDay, boolean newestFirst) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql = "INSERT INTO transaction_history (transaction_date, transaction_type, category, amount, " +
+                "payment_method, reference_number, description, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>();
+        int total = days * rowsPerDay;
+        for (int i = 0; i < total; i++) {
+            int dayIndex = newestFirst ? days - 1 - i / rowsPerDay : i / rowsPerDay;
+            boolean income = i % 2 == 0;
+            batch.add(new Object[]{Date.valueOf(firstDay.plusDays(dayIndex)), income ? "INCOME" : "EXPENSE",
+                    income ? "OTHER_INCOME" : "OTHER_EXPENSE", BigDecimal.valueOf(i % 1000, 2), "CASH",
+                    "REF-" + i, "row " + i, now});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    /**
+     * Discards what is written and samples the heap in use (after a GC) every {@link #BYTES_PER_HEAP_SAMPLE} bytes
+     */
+    private static class HeapProbe extends OutputStream {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private long low = Long.MAX_VALUE;
+        private long growth;
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            write(null, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            long before = bytes;
+            bytes += len;
+            if (bytes / BYTES_PER_HEAP_SAMPLE != before / BYTES_PER_HEAP_SAMPLE) {
+                System.gc();
+                long used = memory.getHeapMemoryUsage().getUsed();
+                low = Math.min(low, used);
+                growth = Math.max(growth, used - low);
+            }
+        }
+
+        /** Largest rise of the heap above its lowest earlier sample */
+        long growth() {
+            return growth;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.jewell.service;
+
+import com.example.jewell.model.TransactionHistory;
+import com.example.jewell.repository.TransactionHistoryRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@link IncomeExpenseService} over an in-memory transaction_history table whose grouped queries
+ * behave like the SQL GROUP BY, shared by the test and the benchmark. Counts the rows each query returns.
+ */
+final class TransactionHistoryFixture {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2025, 4, 1);
+
+    private static final TransactionHistory.Category[] INCOME_CATEGORIES = {
+            TransactionHistory.Category.SALES, TransactionHistory.Category.ONLINE_SALES,
+            TransactionHistory.Category.CREDIT_PAYMENT, TransactionHistory.Category.OTHER_INCOME};
+    private static final TransactionHistory.Category[] EXPENSE_CATEGORIES = {
+            TransactionHistory.Category.STOCK_PURCHASE, TransactionHistory.Category.OPERATING_EXPENSE,
+            TransactionHistory.Category.TAX_PAYMENT, TransactionHistory.Category.OTHER_EXPENSE};
+
+    final List<TransactionHistory> rows;
+    final TransactionHistoryRepository repository = repository();
+    final IncomeExpenseService service = new IncomeExpenseService();
+
+    int queries;
+    long rowsReturned;
+
+    TransactionHistoryFixture(List<TransactionHistory> rows) {
+        this.rows = rows;
+        ReflectionTestUtils.setField(service, "transactionHistoryRepository", repository);
+    }
+
+    /**
+     * A year of transactions from {@link #FIRST_DAY}, {@code perDay} a day; about one in four is an expense
+     * and one in twenty has no payment method
+     */
+    static List<TransactionHistory> year(int perDay, long seed) {
+        Random random = new Random(seed);
+        TransactionHistory.PaymentMethod[] methods = TransactionHistory.PaymentMethod.values();
+        List<TransactionHistory> rows = new ArrayList<>(365 * perDay);
+        long id = 1;
+        for (int day = 0; day < 365; day++) {
+            for (int i = 0; i < perDay; i++) {
+                boolean expense = random.nextInt(4) == 0;
+                TransactionHistory t = new TransactionHistory();
+                t.setId(id++);
+                t.setTransactionDate(FIRST_DAY.plusDays(day));
+                t.setTransactionType(expense ? TransactionHistory.TransactionType.EXPENSE : TransactionHistory.TransactionType.INCOME);
+                t.setCategory((expense ? EXPENSE_CATEGORIES : INCOME_CATEGORIES)[random.nextInt(4)]);
+                t.setPaymentMethod(random.nextInt(20) == 0 ? null : methods[random.nextInt(methods.length)]);
+                t.setAmount(BigDecimal.valueOf(100 + random.nextInt(500_000), 2));
+                rows.add(t);
+            }
+        }
+        return rows;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private TransactionHistoryRepository repository() {
+        return (TransactionHistoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TransactionHistoryRepository.class}, (proxy, method, args) -> {
+                    queries++;
+                    List<?> result;
+                    switch (method.getName()) {
+                        case "summarizeByDateRange":
+                            result = groupBy((LocalDate) args[0], (LocalDate) args[1], null);
+                            break;
+                        case "summarizeByDateRangeAndType":
+                            result = groupBy((LocalDate) args[0], (LocalDate) args[1], (TransactionHistory.TransactionType) args[2]);
+                            break;
+                        case "findByTransactionDateBetween":
+                            result = inRange((LocalDate) args[0], (LocalDate) args[1], null);
+                            break;
+                        case "findByTransactionDateBetweenAndTransactionType":
+                            result = inRange((LocalDate) args[0], (LocalDate) args[1], (TransactionHistory.TransactionType) args[2]);
+                            break;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                    rowsReturned += result.size();
+                    return result;
+                });
+    }
+
+    private List<TransactionHistory> inRange(LocalDate start, LocalDate end, TransactionHistory.TransactionType type) {
+        List<TransactionHistory> matched = new ArrayList<>();
+        for (TransactionHistory t : rows) {
+            if (t.getTransactionDate().isBefore(start) || t.getTransactionDate().isAfter(end)) continue;
+            if (type != null && t.getTransactionType() != type) continue;
+            matched.add(t);
+        }
+        return matched;
+    }
+
+    /**
+     * Rows of (type, category, method, SUM(amount), COUNT) like the repository's GROUP BY queries
+     */
+    private List<Object[]> groupBy(LocalDate start, LocalDate end, TransactionHistory.TransactionType type) {
+        Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+        for (TransactionHistory t : inRange(start, end, type)) {
+            Object[] group = groups.computeIfAbsent(
+                    Arrays.asList(t.getTransactionType(), t.getCategory(), t.getPaymentMethod()),
+                    k -> new Object[]{t.getTransactionType(), t.getCategory(), t.getPaymentMethod(), BigDecimal.ZERO, 0L});
+            group[3] = ((BigDecimal) group[3]).add(t.getAmount());
+            group[4] = (Long) group[4] + 1;
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.jewell.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonPatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void equalDocumentsGiveEmptyPatch() throws Exception {
+        JsonNode doc = json("{\"a\":1,\"items\":[{\"x\":1}]}");
+        assertTrue(JsonPatch.diff(doc, doc.deepCopy()).isEmpty());
+    }
+
+    @Test
+    void roundTripsFieldChangesAdditionsAndRemovals() throws Exception {
+        assertRoundTrip("{\"billNumber\":\"BILL-1\",\"notes\":\"old\",\"paidAmount\":100}",
+                "{\"billNumber\":\"BILL-1\",\"paidAmount\":250.5,\"paymentStatus\":\"PAID\"}");
+    }
+
+    @Test
+    void roundTripsNestedObjects() throws Exception {
+        assertRoundTrip("{\"customer\":{\"id\":1,\"name\":\"A\",\"phone\":null}}",
+                "{\"customer\":{\"id\":2,\"name\":\"A\",\"email\":\"a@b.c\"}}");
+    }
+
+    @Test
+    void roundTripsArraysThatShrinkAndGrow() throws Exception {
+        String three = "{\"items\":[{\"id\":1,\"q\":1},{\"id\":2,\"q\":1},{\"id\":3,\"q\":2}]}";
+        String one = "{\"items\":[{\"id\":1,\"q\":5}]}";
+        assertRoundTrip(three, one);
+        assertRoundTrip(one, three);
+        assertRoundTrip("{\"items\":[]}", three);
+    }
+
+    @Test
+    void roundTripsTypeChanges() throws Exception {
+        assertRoundTrip("{\"v\":[1,2]}", "{\"v\":{\"a\":1}}");
+        assertRoundTrip("{\"v\":\"text\"}", "{\"v\":null}");
+        assertRoundTrip("[1,2,3]", "{\"a\":1}");
+    }
+
+    @Test
+    void escapesSlashAndTildeInFieldNames() throws Exception {
+        assertRoundTrip("{\"a/b\":1,\"c~d\":{\"e/~f\":1}}", "{\"a/b\":2,\"c~d\":{\"e/~f\":3}}");
+        ArrayNode patch = JsonPatch.diff(json("{\"a/b\":1}"), json("{\"a/b\":2}"));
+        assertEquals("/a~1b", patch.get(0).get("path").asText());
+    }
+
+    @Test
+    void applyDoesNotModifyItsInput() throws Exception {
+        JsonNode source = json("{\"a\":1,\"items\":[1,2]}");
+        JsonNode copy = source.deepCopy();
+        JsonPatch.apply(source, JsonPatch.diff(source, json("{\"b\":2,\"items\":[3]}")));
+        assertEquals(copy, source);
+    }
+
+    @Test
+    void rejectsPathsThatDoNotExist() throws Exception {
+        JsonNode patch = json("[{\"op\":\"replace\",\"path\":\"/missing/x\",\"value\":1}]");
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(json("{\"a\":1}"), patch));
+        JsonNode badIndex = json("[{\"op\":\"remove\",\"path\":\"/items/5\"}]");
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(json("{\"items\":[1]}"), badIndex));
+    }
+
+    @Test
+    void rejectsUnsupportedOperations() throws Exception {
+        JsonNode patch = json("[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/b\"}]");
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(json("{\"a\":1}"), patch));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void assertRoundTrip(String from, String to) throws Exception {
+        JsonNode source = json(from);
+        JsonNode target = json(to);
+        assertEquals(target, JsonPatch.apply(source, JsonPatch.diff(source, target)));
+    }
+
+    private JsonNode json(String text) throws Exception {
+        return mapper.readTree(text);
+    }
+}
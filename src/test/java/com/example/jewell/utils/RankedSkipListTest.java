@@ -0,0 +1,106 @@
+package com.example.jewell.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link RankedSkipList} checked against a TreeSet under random inserts and removals
+ */
+class RankedSkipListTest {
+
+    // Descending, like a leaderboard
+    private static final Comparator<Integer> ORDER = Comparator.reverseOrder();
+
+    @Test
+    void emptyList() {
+        RankedSkipList<Integer> list = new RankedSkipList<>(ORDER);
+
+        assertEquals(0, list.size());
+        assertEquals(0, list.rank(5));
+        assertNull(list.get(1));
+        assertTrue(list.range(1, 10).isEmpty());
+        assertFalse(list.remove(5));
+    }
+
+    @Test
+    void ranksFollowTheComparator() {
+        RankedSkipList<Integer> list = new RankedSkipList<>(ORDER);
+        for (int v : new int[]{30, 10, 50, 20, 40}) {
+            list.add(v);
+        }
+
+        assertEquals(List.of(50, 40, 30, 20, 10), list.range(1, 10));
+        assertEquals(1, list.rank(50));
+        assertEquals(5, list.rank(10));
+        assertEquals(0, list.rank(35));
+        assertEquals(30, list.get(3));
+        assertNull(list.get(6));
+        assertEquals(List.of(40, 30), list.range(2, 2));
+    }
+
+    @Test
+    void matchesTreeSetUnderRandomOperations() {
+        Random random = new Random(34);
+        RankedSkipList<Integer> list = new RankedSkipList<>(ORDER);
+        TreeSet<Integer> expected = new TreeSet<>(ORDER);
+
+        for (int op = 0; op < 20_000; op++) {
+            int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), list.remove(value));
+            } else if (expected.add(value)) {
+                list.add(value);
+            }
+            assertEquals(expected.size(), list.size());
+
+            if (op % 100 == 0) {
+                assertSameOrder(expected, list);
+            } else if (!expected.isEmpty()) {
+                int probe = random.nextInt(2_000);
+                int expectedRank = expected.contains(probe) ? expected.headSet(probe).size() + 1 : 0;
+                assertEquals(expectedRank, list.rank(probe));
+            }
+        }
+    }
+
+    @Test
+    void removingEverythingLeavesAUsableList() {
+        RankedSkipList<Integer> list = new RankedSkipList<>(ORDER);
+        for (int i = 0; i < 1_000; i++) {
+            list.add(i);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(list.remove(i));
+        }
+
+        assertEquals(0, list.size());
+        list.add(7);
+        assertEquals(1, list.rank(7));
+        assertEquals(7, list.get(1));
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static void assertSameOrder(TreeSet<Integer> expected, RankedSkipList<Integer> list) {
+        List<Integer> inOrder = new ArrayList<>(expected);
+        assertEquals(inOrder, list.range(1, inOrder.size() + 1));
+        for (int i = 0; i < inOrder.size(); i++) {
+            assertEquals(inOrder.get(i), list.get(i + 1));
+            assertEquals(i + 1, list.rank(inOrder.get(i)));
+        }
+        if (inOrder.size() > 10) {
+            int from = inOrder.size() / 2;
+            assertEquals(inOrder.subList(from - 1, from + 4), list.range(from, 5));
+        }
+    }
+}